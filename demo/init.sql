@@ -16,6 +16,7 @@ CREATE TABLE IF NOT EXISTS house_areas (
     area_type VARCHAR(20),
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    INDEX idx_house_areas_user_updated (user_id, updated_at),
     FOREIGN KEY (user_id) REFERENCES users(id)
 );
 
@@ -28,8 +29,12 @@ CREATE TABLE IF NOT EXISTS devices (
     device_type VARCHAR(50) NOT NULL,
     device_name VARCHAR(100) NOT NULL,
     status_name VARCHAR(100),
+    status_data VARBINARY(255),
+    status_extras JSON,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    INDEX idx_devices_user_updated (user_id, updated_at),
+    INDEX idx_devices_updated (updated_at),
     FOREIGN KEY (user_id) REFERENCES users(id),
     FOREIGN KEY (area_id) REFERENCES house_areas(id)
 );
@@ -48,5 +53,55 @@ CREATE TABLE IF NOT EXISTS automation_rules (
     is_enabled TINYINT(1) DEFAULT 1,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    INDEX idx_automation_rules_user_updated (user_id, updated_at),
     FOREIGN KEY (user_id) REFERENCES users(id)
-);
\ No newline at end of file
+);
+
+-- 创建场景表
+CREATE TABLE IF NOT EXISTS scenes (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    scene_name VARCHAR(100) NOT NULL,
+    actions JSON,
+    deadline_millis BIGINT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    INDEX idx_scenes_user_updated (user_id, updated_at),
+    FOREIGN KEY (user_id) REFERENCES users(id)
+);
+
+-- 创建删除记录表(增量同步用的墓碑)
+CREATE TABLE IF NOT EXISTS deleted_records (
+    id BIGINT AUTO_INCREMENT,
+    entity_type VARCHAR(30) NOT NULL,
+    entity_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    deleted_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    -- 分区表的主键必须包含分区列
+    PRIMARY KEY (id, deleted_at),
+    INDEX idx_deleted_records_user_deleted (user_id, deleted_at)
+)
+-- 按天分区(UTC)，日分区由应用提前创建，过期分区整体删除
+PARTITION BY RANGE (UNIX_TIMESTAMP(deleted_at)) (
+    PARTITION p_future VALUES LESS THAN MAXVALUE
+);
+-- 创建运行时长与能耗汇总表(按设备/区域/用户和分钟/小时/天粒度的已结束窗口)
+CREATE TABLE IF NOT EXISTS usage_rollups (
+    scope_type VARCHAR(10) NOT NULL,
+    scope_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    granularity VARCHAR(10) NOT NULL,
+    window_start BIGINT NOT NULL,
+    active_millis BIGINT NOT NULL DEFAULT 0,
+    energy_wh DOUBLE NOT NULL DEFAULT 0,
+    report_count BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (scope_type, scope_id, granularity, window_start),
+    INDEX idx_usage_rollups_granularity_window (granularity, window_start),
+    INDEX idx_usage_rollups_user (user_id)
+)
+-- 天粒度长期保留在p_day；小时、分钟粒度按天分区(UTC)，由应用提前创建并按各自保留期整分区删除
+PARTITION BY RANGE COLUMNS (granularity, window_start) (
+    PARTITION p_day VALUES LESS THAN ('HOUR', 0),
+    PARTITION p_hour_future VALUES LESS THAN ('MINUTE', 0),
+    PARTITION p_minute_future VALUES LESS THAN (MAXVALUE, MAXVALUE)
+);
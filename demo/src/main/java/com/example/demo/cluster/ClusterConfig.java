@@ -0,0 +1,91 @@
+package com.example.demo.cluster;
+
+import com.example.demo.config.AppProperties;
+import com.example.demo.mqtt.MqttMessageHandler;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+
+@Configuration
+public class ClusterConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterConfig.class);
+
+    private final AppProperties appProperties;
+
+    public ClusterConfig(AppProperties appProperties) {
+        this.appProperties = appProperties;
+    }
+
+    @Bean
+    public DeviceOwnership deviceOwnership() {
+        AppProperties.Cluster cluster = appProperties.getCluster();
+        return new DeviceOwnership(resolveNodeId(cluster.getNodeId()), cluster.getVirtualNodes());
+    }
+
+    @Bean
+    public DeviceMessageRouter deviceMessageRouter(DeviceOwnership deviceOwnership,
+                                                   ObjectProvider<MessageForwarder> messageForwarder) {
+        // 单机模式下所有设备都归本节点，不会走到转发
+        MessageForwarder forwarder = messageForwarder.getIfAvailable(() -> (node, topic, payload) -> {
+            throw new IllegalStateException("Cluster mode is disabled");
+        });
+        return new DeviceMessageRouter(deviceOwnership, forwarder);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.cluster", name = "enabled", havingValue = "true")
+    public MembershipRegistry membershipRegistry(StringRedisTemplate redisTemplate) {
+        return new RedisMembershipRegistry(redisTemplate);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.cluster", name = "enabled", havingValue = "true")
+    public MessageForwarder messageForwarder(StringRedisTemplate redisTemplate, ObjectMapper objectMapper) {
+        return new RedisMessageForwarder(redisTemplate, objectMapper);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.cluster", name = "enabled", havingValue = "true")
+    public RedisMessageListenerContainer clusterForwardListener(RedisConnectionFactory connectionFactory,
+                                                                DeviceOwnership deviceOwnership,
+                                                                MqttMessageHandler mqttMessageHandler,
+                                                                ObjectMapper objectMapper) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener((message, pattern) -> {
+            try {
+                JsonNode envelope = objectMapper.readTree(new String(message.getBody(), StandardCharsets.UTF_8));
+                mqttMessageHandler.handleForwarded(envelope.path("topic").asText(), envelope.path("payload").asText());
+            } catch (Exception e) {
+                logger.warn("Failed to handle forwarded device message: {}", e.getMessage());
+            }
+        }, new ChannelTopic(RedisMessageForwarder.channelFor(deviceOwnership.getLocalNodeId())));
+        return container;
+    }
+
+    private String resolveNodeId(String configured) {
+        if (configured != null && !configured.isBlank()) {
+            return configured;
+        }
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "node";
+        }
+        return host + "-" + ProcessHandle.current().pid();
+    }
+}
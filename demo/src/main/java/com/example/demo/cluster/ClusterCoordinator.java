@@ -0,0 +1,64 @@
+package com.example.demo.cluster;
+
+import com.example.demo.config.AppProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+// 定时心跳并拉取存活节点，成员变化时重建哈希环并通知各组件清理不再归属本节点的设备状态
+@Component
+@ConditionalOnProperty(prefix = "app.cluster", name = "enabled", havingValue = "true")
+public class ClusterCoordinator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterCoordinator.class);
+
+    @Autowired
+    private AppProperties appProperties;
+
+    @Autowired
+    private MembershipRegistry membershipRegistry;
+
+    @Autowired
+    private DeviceOwnership deviceOwnership;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PostConstruct
+    public void join() {
+        refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${app.cluster.heartbeat-interval-millis:2000}")
+    public void refresh() {
+        try {
+            long now = System.currentTimeMillis();
+            membershipRegistry.heartbeat(deviceOwnership.getLocalNodeId(), now);
+            Set<String> nodes = membershipRegistry.liveNodes(now, appProperties.getCluster().getNodeTtlMillis());
+            if (deviceOwnership.updateMembers(nodes)) {
+                logger.info("Cluster membership changed, rebalancing devices across {}", nodes);
+                eventPublisher.publishEvent(new OwnershipChangedEvent(deviceOwnership.getNodes()));
+            }
+        } catch (Exception e) {
+            logger.warn("Cluster heartbeat failed: {}", e.getMessage());
+        }
+    }
+
+    // 正常下线时主动退出，其他节点下一次心跳即可接管，无需等待超时
+    @PreDestroy
+    public void leave() {
+        try {
+            membershipRegistry.leave(deviceOwnership.getLocalNodeId());
+        } catch (Exception e) {
+            logger.warn("Failed to leave cluster: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.demo.cluster;
+
+// 共享订阅只保证每条消息被某一个节点收到，这里再按设备归属转发，
+// 使设备的限流、过滤与规则状态始终只存在于一个节点
+public class DeviceMessageRouter {
+
+    private final DeviceOwnership ownership;
+    private final MessageForwarder forwarder;
+
+    public DeviceMessageRouter(DeviceOwnership ownership, MessageForwarder forwarder) {
+        this.ownership = ownership;
+        this.forwarder = forwarder;
+    }
+
+    // 返回true表示应由本节点处理；已转发过一次的消息不再转发，避免重平衡期间来回弹跳
+    public boolean routeLocally(String deviceId, String topic, String payload, boolean forwarded) {
+        if (forwarded) {
+            return true;
+        }
+        String owner = ownership.ownerOf(deviceId);
+        if (ownership.getLocalNodeId().equals(owner)) {
+            return true;
+        }
+        forwarder.forward(owner, topic, payload);
+        return false;
+    }
+
+    // 指令响应需要回到下发指令的节点，该节点已不在集群中时由本节点处理
+    public boolean routeToNode(String nodeId, String topic, String payload, boolean forwarded) {
+        if (forwarded || ownership.getLocalNodeId().equals(nodeId) || !ownership.getNodes().contains(nodeId)) {
+            return true;
+        }
+        forwarder.forward(nodeId, topic, payload);
+        return false;
+    }
+}
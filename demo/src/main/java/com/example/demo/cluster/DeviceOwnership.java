@@ -0,0 +1,45 @@
+package com.example.demo.cluster;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+
+// 设备归属：每个device_id只由一个节点处理，单机模式下全部归本节点
+public class DeviceOwnership {
+
+    private final String localNodeId;
+    private final int virtualNodes;
+    private volatile ConsistentHashRing ring;
+
+    public DeviceOwnership(String localNodeId, int virtualNodes) {
+        this.localNodeId = localNodeId;
+        this.virtualNodes = virtualNodes;
+        this.ring = new ConsistentHashRing(Collections.singleton(localNodeId), virtualNodes);
+    }
+
+    public String getLocalNodeId() {
+        return localNodeId;
+    }
+
+    public String ownerOf(String deviceId) {
+        String owner = ring.ownerOf(deviceId);
+        return owner != null ? owner : localNodeId;
+    }
+
+    public boolean isLocal(String deviceId) {
+        return localNodeId.equals(ownerOf(deviceId));
+    }
+
+    public Set<String> getNodes() {
+        return ring.getNodes();
+    }
+
+    // 成员变化时重建哈希环，返回归属是否发生变化
+    public synchronized boolean updateMembers(Collection<String> liveNodes) {
+        if (liveNodes.isEmpty() || ring.getNodes().equals(Set.copyOf(liveNodes))) {
+            return false;
+        }
+        ring = new ConsistentHashRing(liveNodes, virtualNodes);
+        return true;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.demo.cluster;
+
+import java.util.Set;
+
+// 集群成员登记，生产环境使用Redis实现
+public interface MembershipRegistry {
+
+    void heartbeat(String nodeId, long nowMillis);
+
+    void leave(String nodeId);
+
+    Set<String> liveNodes(long nowMillis, long ttlMillis);
+}
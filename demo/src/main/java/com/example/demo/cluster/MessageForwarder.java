@@ -0,0 +1,7 @@
+package com.example.demo.cluster;
+
+// 把共享订阅分到本节点、但归属其他节点的设备消息转交给归属节点
+public interface MessageForwarder {
+
+    void forward(String targetNodeId, String topic, String payload);
+}
@@ -0,0 +1,16 @@
+package com.example.demo.cluster;
+
+import java.util.Set;
+
+public class OwnershipChangedEvent {
+
+    private final Set<String> nodes;
+
+    public OwnershipChangedEvent(Set<String> nodes) {
+        this.nodes = nodes;
+    }
+
+    public Set<String> getNodes() {
+        return nodes;
+    }
+}
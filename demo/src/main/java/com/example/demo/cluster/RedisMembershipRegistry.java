@@ -0,0 +1,36 @@
+package com.example.demo.cluster;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+// 用有序集合记录节点心跳时间，分数即最近一次心跳的毫秒时间戳
+public class RedisMembershipRegistry implements MembershipRegistry {
+
+    static final String NODES_KEY = "smart-home:cluster:nodes";
+
+    private final StringRedisTemplate redisTemplate;
+
+    public RedisMembershipRegistry(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public void heartbeat(String nodeId, long nowMillis) {
+        redisTemplate.opsForZSet().add(NODES_KEY, nodeId, nowMillis);
+    }
+
+    @Override
+    public void leave(String nodeId) {
+        redisTemplate.opsForZSet().remove(NODES_KEY, nodeId);
+    }
+
+    @Override
+    public Set<String> liveNodes(long nowMillis, long ttlMillis) {
+        redisTemplate.opsForZSet().removeRangeByScore(NODES_KEY, 0, nowMillis - ttlMillis - 1);
+        Set<String> nodes = redisTemplate.opsForZSet().rangeByScore(NODES_KEY, nowMillis - ttlMillis, Double.MAX_VALUE);
+        return nodes == null ? Collections.emptySet() : new HashSet<>(nodes);
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.demo.cluster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+public class RedisMessageForwarder implements MessageForwarder {
+
+    static final String CHANNEL_PREFIX = "smart-home:cluster:forward:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    public RedisMessageForwarder(StringRedisTemplate redisTemplate, ObjectMapper objectMapper) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void forward(String targetNodeId, String topic, String payload) {
+        ObjectNode envelope = objectMapper.createObjectNode();
+        envelope.put("topic", topic);
+        envelope.put("payload", payload);
+        redisTemplate.convertAndSend(CHANNEL_PREFIX + targetNodeId, envelope.toString());
+    }
+
+    public static String channelFor(String nodeId) {
+        return CHANNEL_PREFIX + nodeId;
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.demo.command;
+
+import com.example.demo.cluster.DeviceOwnership;
+import org.springframework.stereotype.Component;
+
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 已下发、等待设备response消息的指令。指令ID格式为 {节点ID}:{序号}，设备回传command_id时按ID匹配，
+// 集群中可据此把响应转交给下发节点；设备未回传时按先进先出匹配该设备最早的一条待确认指令
+@Component
+public class CommandAckRegistry {
+
+    private final String localNodeId;
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<String, Deque<PendingCommand>> pendingByDevice = new ConcurrentHashMap<>();
+
+    public CommandAckRegistry(DeviceOwnership deviceOwnership) {
+        this.localNodeId = deviceOwnership.getLocalNodeId();
+    }
+
+    public PendingCommand register(String deviceId, long timeoutMillis) {
+        PendingCommand pending = new PendingCommand(localNodeId + ":" + sequence.incrementAndGet(), deviceId);
+        // 加入和移除空队列都在同一个键的compute里完成，不会把指令加进刚被移除的队列
+        pendingByDevice.compute(deviceId, (key, queue) -> {
+            Deque<PendingCommand> target = queue != null ? queue : new ConcurrentLinkedDeque<>();
+            target.addLast(pending);
+            return target;
+        });
+        pending.future.completeOnTimeout(CommandStatus.TIMEOUT, timeoutMillis, TimeUnit.MILLISECONDS)
+                .whenComplete((status, error) -> pendingByDevice.computeIfPresent(deviceId, (key, queue) -> {
+                    queue.remove(pending);
+                    return queue.isEmpty() ? null : queue;
+                }));
+        return pending;
+    }
+
+    // 返回false表示本节点没有匹配的待确认指令
+    public boolean onResponse(String deviceId, String commandId, boolean success) {
+        Deque<PendingCommand> queue = pendingByDevice.get(deviceId);
+        if (queue == null) {
+            return false;
+        }
+        CommandStatus status = success ? CommandStatus.SUCCESS : CommandStatus.FAILURE;
+        if (commandId != null) {
+            for (PendingCommand pending : queue) {
+                if (pending.commandId.equals(commandId)) {
+                    return pending.future.complete(status);
+                }
+            }
+            return false;
+        }
+        PendingCommand oldest;
+        while ((oldest = queue.pollFirst()) != null) {
+            if (oldest.future.complete(status)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 集群中归属节点把转交的指令放入离线队列后通知下发节点，等待结束并返回QUEUED
+    public boolean onQueued(String deviceId, String commandId) {
+        Deque<PendingCommand> queue = pendingByDevice.get(deviceId);
+        if (queue == null || commandId == null) {
+            return false;
+        }
+        for (PendingCommand pending : queue) {
+            if (pending.commandId.equals(commandId)) {
+                return pending.future.complete(CommandStatus.QUEUED);
+            }
+        }
+        return false;
+    }
+
+    // 从指令ID中取出下发节点，非本注册表生成的ID返回null
+    public static String issuingNode(String commandId) {
+        if (commandId == null) {
+            return null;
+        }
+        int separator = commandId.lastIndexOf(':');
+        return separator > 0 ? commandId.substring(0, separator) : null;
+    }
+
+    public int getPendingCount() {
+        int count = 0;
+        for (Deque<PendingCommand> queue : pendingByDevice.values()) {
+            count += queue.size();
+        }
+        return count;
+    }
+
+    public static final class PendingCommand {
+        private final String commandId;
+        private final String deviceId;
+        // 登记时先取当前时间，MQTT发布返回后再改为实际发送时间
+        private volatile long sentAtNanos = System.nanoTime();
+        private final CompletableFuture<CommandStatus> future = new CompletableFuture<>();
+
+        PendingCommand(String commandId, String deviceId) {
+            this.commandId = commandId;
+            this.deviceId = deviceId;
+        }
+
+        public String getCommandId() {
+            return commandId;
+        }
+
+        public String getDeviceId() {
+            return deviceId;
+        }
+
+        public long getSentAtNanos() {
+            return sentAtNanos;
+        }
+
+        public void markSent() {
+            sentAtNanos = System.nanoTime();
+        }
+
+        public CompletableFuture<CommandStatus> getFuture() {
+            return future;
+        }
+
+        // 发送失败时直接结束等待
+        public void fail() {
+            future.complete(CommandStatus.SEND_FAILED);
+        }
+    }
+}
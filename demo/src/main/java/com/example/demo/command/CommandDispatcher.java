@@ -0,0 +1,90 @@
+package com.example.demo.command;
+
+import com.example.demo.config.AppProperties;
+import com.example.demo.device.DeviceInfo;
+import com.example.demo.mqtt.MqttService;
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// 向单台设备下发指令并等待确认：登记待确认指令后在下发线程池中发布，
+// 返回的future在收到response、发送失败或超时后完成，不占用调用线程
+@Component
+public class CommandDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(CommandDispatcher.class);
+
+    private final MqttService mqttService;
+    private final CommandAckRegistry commandAckRegistry;
+    private final CommandLatencyTracker commandLatencyTracker;
+    private final AppProperties.Commands config;
+    private final ExecutorService fanout;
+
+    public CommandDispatcher(MqttService mqttService, CommandAckRegistry commandAckRegistry,
+                             CommandLatencyTracker commandLatencyTracker, AppProperties appProperties) {
+        this.mqttService = mqttService;
+        this.commandAckRegistry = commandAckRegistry;
+        this.commandLatencyTracker = commandLatencyTracker;
+        this.config = appProperties.getCommands();
+        AtomicInteger counter = new AtomicInteger();
+        this.fanout = Executors.newFixedThreadPool(config.getFanoutThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "command-fanout-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public CompletableFuture<DeviceCommandResult> dispatch(DeviceInfo device, String command, JsonNode parameters,
+                                                           long timeoutMillis) {
+        CommandAckRegistry.PendingCommand pending = commandAckRegistry.register(device.getDeviceId(), timeoutMillis);
+        fanout.execute(() -> {
+            try {
+                boolean sent = mqttService.sendControl(device.getDeviceId(), device.getDeviceType(), device.getUserId(),
+                        device.getAreaId(), command, parameters, pending.getCommandId());
+                if (sent) {
+                    // 时延从发布完成算起，不含在下发线程池中排队的时间
+                    pending.markSent();
+                } else {
+                    pending.getFuture().complete(CommandStatus.QUEUED);
+                }
+            } catch (Exception e) {
+                logger.warn("Failed to send {} to device {}: {}", command, device.getDeviceId(), e.getMessage());
+                pending.fail();
+            }
+        });
+        return pending.getFuture().thenApply(status -> {
+            long latencyNanos = System.nanoTime() - pending.getSentAtNanos();
+            // 进入离线队列和发送失败的指令没有到达设备，不计入往返统计
+            if (isDelivered(status)) {
+                commandLatencyTracker.record(device, status, latencyNanos);
+            }
+            return new DeviceCommandResult(device.getDeviceId(), pending.getCommandId(), status,
+                    TimeUnit.NANOSECONDS.toMillis(latencyNanos));
+        });
+    }
+
+    // 请求未指定时用默认超时，并限制在允许的最大值内
+    public long resolveTimeout(Long requestedMillis) {
+        if (requestedMillis == null || requestedMillis <= 0) {
+            return config.getAckTimeoutMillis();
+        }
+        return Math.min(requestedMillis, config.getMaxAckTimeoutMillis());
+    }
+
+    private static boolean isDelivered(CommandStatus status) {
+        return status == CommandStatus.SUCCESS || status == CommandStatus.FAILURE || status == CommandStatus.TIMEOUT;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fanout.shutdownNow();
+    }
+}
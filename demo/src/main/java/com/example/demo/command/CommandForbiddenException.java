@@ -0,0 +1,9 @@
+package com.example.demo.command;
+
+// 调用方不是目标设备的所有者
+public class CommandForbiddenException extends RuntimeException {
+
+    public CommandForbiddenException(String message) {
+        super(message);
+    }
+}
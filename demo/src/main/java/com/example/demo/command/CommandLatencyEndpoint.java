@@ -0,0 +1,36 @@
+package com.example.demo.command;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+// 通过 /actuator/commandlatency 查看指令往返时延，/actuator/commandlatency/{userId} 查看单个用户
+@Component
+@Endpoint(id = "commandlatency")
+public class CommandLatencyEndpoint {
+
+    private final CommandLatencyTracker commandLatencyTracker;
+
+    public CommandLatencyEndpoint(CommandLatencyTracker commandLatencyTracker) {
+        this.commandLatencyTracker = commandLatencyTracker;
+    }
+
+    @ReadOperation
+    public Map<String, Object> summary() {
+        return commandLatencyTracker.getSummary();
+    }
+
+    @ReadOperation
+    public Map<String, Object> user(@Selector long userId) {
+        return commandLatencyTracker.getUserSummary(userId);
+    }
+
+    @DeleteOperation
+    public void reset() {
+        commandLatencyTracker.reset();
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.demo.command;
+
+import com.example.demo.cluster.DeviceOwnership;
+import com.example.demo.config.AppProperties;
+import com.example.demo.device.DeviceInfo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 指令往返时延统计：从指令发布到收到设备response的耗时，按设备类型、用户和下发所用的MQTT连接
+// (设备归属节点)分别记录。超时单独计数，不计入时延分布。
+// 设备类型和连接维度同时注册为micrometer指标，用户维度基数大，只保留在内存中通过actuator查看
+@Component
+public class CommandLatencyTracker {
+
+    private final MeterRegistry meterRegistry;
+    private final DeviceOwnership deviceOwnership;
+    private final AppProperties.Commands config;
+    // 按标签组合缓存已注册的指标，避免每条指令都走一次builder注册查找
+    private final Map<String, Counter> outcomeCounters = new ConcurrentHashMap<>();
+    private final Map<String, Timer> latencyTimers = new ConcurrentHashMap<>();
+    private final Map<String, Stats> byDeviceType = new ConcurrentHashMap<>();
+    private final Map<String, Stats> byBroker = new ConcurrentHashMap<>();
+    private final Map<Long, Stats> byUser = new ConcurrentHashMap<>();
+    private final AtomicLong untrackedUsers = new AtomicLong();
+
+    public CommandLatencyTracker(MeterRegistry meterRegistry, DeviceOwnership deviceOwnership,
+                                 AppProperties appProperties) {
+        this.meterRegistry = meterRegistry;
+        this.deviceOwnership = deviceOwnership;
+        this.config = appProperties.getCommands();
+    }
+
+    public void record(DeviceInfo device, CommandStatus status, long latencyNanos) {
+        String deviceType = device.getDeviceType() != null ? device.getDeviceType() : "unknown";
+        String broker = deviceOwnership.ownerOf(device.getDeviceId());
+        long latencyMillis = TimeUnit.NANOSECONDS.toMillis(latencyNanos);
+        byDeviceType.computeIfAbsent(deviceType, key -> new Stats()).record(status, latencyMillis);
+        byBroker.computeIfAbsent(broker, key -> new Stats()).record(status, latencyMillis);
+        Stats userStats = userStats(device.getUserId());
+        if (userStats != null) {
+            userStats.record(status, latencyMillis);
+        }
+        String tags = deviceType + '\n' + broker;
+        outcomeCounters.computeIfAbsent(tags + '\n' + status.name(), key -> Counter.builder("device.command.outcomes")
+                        .tag("deviceType", deviceType)
+                        .tag("broker", broker)
+                        .tag("status", status.name())
+                        .register(meterRegistry))
+                .increment();
+        if (isAcknowledged(status)) {
+            latencyTimers.computeIfAbsent(tags, key -> Timer.builder("device.command.latency")
+                            .description("Round trip from command publish to device response")
+                            .tag("deviceType", deviceType)
+                            .tag("broker", broker)
+                            .publishPercentiles(0.5, 0.9, 0.99)
+                            .register(meterRegistry))
+                    .record(latencyNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public Map<String, Object> getSummary() {
+        Map<String, Object> deviceTypes = new TreeMap<>();
+        byDeviceType.forEach((deviceType, stats) -> deviceTypes.put(deviceType, stats.summarize()));
+        Map<String, Object> brokers = new TreeMap<>();
+        byBroker.forEach((broker, stats) -> brokers.put(broker, stats.summarize()));
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("deviceTypes", deviceTypes);
+        summary.put("brokers", brokers);
+        summary.put("trackedUsers", byUser.size());
+        summary.put("untrackedUserCommands", untrackedUsers.get());
+        return summary;
+    }
+
+    // 用户未被统计时返回null
+    public Map<String, Object> getUserSummary(long userId) {
+        Stats stats = byUser.get(userId);
+        return stats != null ? stats.summarize() : null;
+    }
+
+    public void reset() {
+        byDeviceType.clear();
+        byBroker.clear();
+        byUser.clear();
+        untrackedUsers.set(0);
+    }
+
+    private Stats userStats(Long userId) {
+        if (userId == null) {
+            return null;
+        }
+        Stats stats = byUser.get(userId);
+        if (stats != null) {
+            return stats;
+        }
+        // 达到上限后不再为新用户分配直方图，避免内存随用户数增长
+        if (byUser.size() >= config.getLatencyMaxTrackedUsers()) {
+            untrackedUsers.incrementAndGet();
+            return null;
+        }
+        return byUser.computeIfAbsent(userId, key -> new Stats());
+    }
+
+    private static boolean isAcknowledged(CommandStatus status) {
+        return status == CommandStatus.SUCCESS || status == CommandStatus.FAILURE;
+    }
+
+    private static final class Stats {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong timeouts = new AtomicLong();
+
+        void record(CommandStatus status, long latencyMillis) {
+            switch (status) {
+                case SUCCESS -> latency.record(latencyMillis);
+                case FAILURE -> {
+                    latency.record(latencyMillis);
+                    failures.incrementAndGet();
+                }
+                case TIMEOUT -> timeouts.incrementAndGet();
+                default -> {
+                }
+            }
+        }
+
+        Map<String, Object> summarize() {
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("latency", latency.summarize());
+            summary.put("failures", failures.get());
+            summary.put("timeouts", timeouts.get());
+            return summary;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.demo.command;
+
+public enum CommandStatus {
+    SUCCESS,
+    FAILURE,
+    TIMEOUT,
+    SEND_FAILED,
+    // 设备离线，指令已进入离线队列，上线后补发
+    QUEUED,
+    // 未下发：截止时间已过或前序步骤未完成
+    SKIPPED
+}
@@ -0,0 +1,35 @@
+package com.example.demo.command;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+// 单台设备指令请求体
+public class DeviceCommandRequest {
+
+    private String command;
+    private JsonNode parameters;
+    private Long timeoutMillis;
+
+    public String getCommand() {
+        return command;
+    }
+
+    public void setCommand(String command) {
+        this.command = command;
+    }
+
+    public JsonNode getParameters() {
+        return parameters;
+    }
+
+    public void setParameters(JsonNode parameters) {
+        this.parameters = parameters;
+    }
+
+    public Long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    public void setTimeoutMillis(Long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.demo.command;
+
+// 单台设备的指令执行结果
+public class DeviceCommandResult {
+
+    private final String deviceId;
+    private final String commandId;
+    private final CommandStatus status;
+    private final long latencyMillis;
+
+    public DeviceCommandResult(String deviceId, String commandId, CommandStatus status, long latencyMillis) {
+        this.deviceId = deviceId;
+        this.commandId = commandId;
+        this.status = status;
+        this.latencyMillis = latencyMillis;
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public String getCommandId() {
+        return commandId;
+    }
+
+    public CommandStatus getStatus() {
+        return status;
+    }
+
+    public long getLatencyMillis() {
+        return latencyMillis;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.demo.command;
+
+import com.example.demo.device.DeviceInfo;
+import com.example.demo.device.DeviceOwnershipIndex;
+import com.example.demo.device.DeviceRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+
+// 单台设备指令：目标设备和归属都从内存索引判断，下发后返回的future在设备确认或超时后完成，
+// 等待期间只占用待确认表中的一条记录，不占用请求线程
+@Service
+public class DeviceCommandService {
+
+    @Autowired
+    private DeviceRegistry deviceRegistry;
+
+    @Autowired
+    private DeviceOwnershipIndex ownershipIndex;
+
+    @Autowired
+    private CommandDispatcher commandDispatcher;
+
+    // 设备不存在返回null
+    public CompletableFuture<DeviceCommandResult> send(Long id, long userId, DeviceCommandRequest request) {
+        DeviceInfo device = deviceRegistry.getById(id);
+        if (device == null) {
+            return null;
+        }
+        if (!ownershipIndex.isOwner(userId, device.getId())) {
+            throw new CommandForbiddenException("User " + userId + " does not own device " + device.getDeviceId());
+        }
+        return commandDispatcher.dispatch(device, request.getCommand(), request.getParameters(),
+                resolveTimeout(request));
+    }
+
+    public long resolveTimeout(DeviceCommandRequest request) {
+        return commandDispatcher.resolveTimeout(request.getTimeoutMillis());
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.demo.command;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+// 区域群组指令请求体，deviceType为空时下发给区域内全部设备
+public class GroupCommandRequest {
+
+    private String command;
+    private JsonNode parameters;
+    private String deviceType;
+    private Long timeoutMillis;
+
+    public String getCommand() {
+        return command;
+    }
+
+    public void setCommand(String command) {
+        this.command = command;
+    }
+
+    public JsonNode getParameters() {
+        return parameters;
+    }
+
+    public void setParameters(JsonNode parameters) {
+        this.parameters = parameters;
+    }
+
+    public String getDeviceType() {
+        return deviceType;
+    }
+
+    public void setDeviceType(String deviceType) {
+        this.deviceType = deviceType;
+    }
+
+    public Long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    public void setTimeoutMillis(Long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+}
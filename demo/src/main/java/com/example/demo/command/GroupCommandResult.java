@@ -0,0 +1,84 @@
+package com.example.demo.command;
+
+import java.util.List;
+
+// 群组指令的汇总结果
+public class GroupCommandResult {
+
+    private final Long areaId;
+    private final String deviceType;
+    private final String command;
+    private final int targets;
+    private final int succeeded;
+    private final int failed;
+    private final int timedOut;
+    private final int queued;
+    private final long elapsedMillis;
+    private final List<DeviceCommandResult> results;
+
+    public GroupCommandResult(Long areaId, String deviceType, String command, long elapsedMillis,
+                              List<DeviceCommandResult> results) {
+        this.areaId = areaId;
+        this.deviceType = deviceType;
+        this.command = command;
+        this.elapsedMillis = elapsedMillis;
+        this.results = results;
+        int success = 0;
+        int timeout = 0;
+        int offline = 0;
+        for (DeviceCommandResult result : results) {
+            if (result.getStatus() == CommandStatus.SUCCESS) {
+                success++;
+            } else if (result.getStatus() == CommandStatus.TIMEOUT) {
+                timeout++;
+            } else if (result.getStatus() == CommandStatus.QUEUED) {
+                offline++;
+            }
+        }
+        this.targets = results.size();
+        this.succeeded = success;
+        this.timedOut = timeout;
+        this.queued = offline;
+        this.failed = results.size() - success - timeout - offline;
+    }
+
+    public Long getAreaId() {
+        return areaId;
+    }
+
+    public String getDeviceType() {
+        return deviceType;
+    }
+
+    public String getCommand() {
+        return command;
+    }
+
+    public int getTargets() {
+        return targets;
+    }
+
+    public int getSucceeded() {
+        return succeeded;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public int getTimedOut() {
+        return timedOut;
+    }
+
+    public int getQueued() {
+        return queued;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public List<DeviceCommandResult> getResults() {
+        return results;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.demo.command;
+
+import com.example.demo.device.DeviceInfo;
+import com.example.demo.device.DeviceOwnershipIndex;
+import com.example.demo.device.DeviceRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// 区域群组指令：目标设备从内存索引解析，并发下发后等待全部设备确认或超时，
+// 总耗时取决于最慢的一台设备而不是设备数量
+@Service
+public class GroupCommandService {
+
+    @Autowired
+    private DeviceRegistry deviceRegistry;
+
+    @Autowired
+    private DeviceOwnershipIndex ownershipIndex;
+
+    @Autowired
+    private CommandDispatcher commandDispatcher;
+
+    // 区域不存在返回null；区域本身不属于调用方时即使区域内没有设备也拒绝
+    public CompletableFuture<GroupCommandResult> sendToArea(Long areaId, long userId, GroupCommandRequest request) {
+        Long owner = ownershipIndex.getAreaOwner(areaId);
+        if (owner == null) {
+            return null;
+        }
+        if (owner != userId) {
+            throw new CommandForbiddenException("User " + userId + " does not own area " + areaId);
+        }
+        long start = System.currentTimeMillis();
+        long timeoutMillis = commandDispatcher.resolveTimeout(request.getTimeoutMillis());
+        List<DeviceInfo> targets = deviceRegistry.findByArea(areaId, request.getDeviceType());
+        // 任一目标设备不属于调用方则整批拒绝，不做部分下发
+        for (DeviceInfo device : targets) {
+            if (!ownershipIndex.isOwner(userId, device.getId())) {
+                throw new CommandForbiddenException("User " + userId + " does not own device " + device.getDeviceId());
+            }
+        }
+        List<CompletableFuture<DeviceCommandResult>> futures = new ArrayList<>(targets.size());
+        for (DeviceInfo device : targets) {
+            futures.add(commandDispatcher.dispatch(device, request.getCommand(), request.getParameters(), timeoutMillis));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+            List<DeviceCommandResult> results = new ArrayList<>(futures.size());
+            for (CompletableFuture<DeviceCommandResult> future : futures) {
+                results.add(future.join());
+            }
+            return new GroupCommandResult(areaId, request.getDeviceType(), request.getCommand(),
+                    System.currentTimeMillis() - start, results);
+        });
+    }
+}
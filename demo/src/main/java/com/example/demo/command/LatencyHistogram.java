@@ -0,0 +1,119 @@
+package com.example.demo.command;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// 对数分桶的时延直方图(毫秒)：小于8ms逐毫秒计数，之后每个2的幂区间再均分8个子桶，
+// 相对误差不超过12.5%，固定占用约1.2KB，记录时无锁
+class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // 超过约17分钟的值计入最后一个桶
+    private static final int MAX_EXPONENT = 20;
+    private static final int BUCKET_COUNT = SUB_BUCKETS + (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    void record(long millis) {
+        long value = Math.max(0, millis);
+        counts.incrementAndGet(indexOf(value));
+        total.incrementAndGet();
+        sum.addAndGet(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    long getCount() {
+        return total.get();
+    }
+
+    // 返回不小于该分位的桶上界
+    long quantile(double quantile) {
+        long count = total.get();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    Summary summarize() {
+        long count = total.get();
+        return new Summary(count, count == 0 ? 0 : (double) sum.get() / count,
+                quantile(0.5), quantile(0.9), quantile(0.99), max.get());
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS + (exponent - SUB_BUCKET_BITS) * SUB_BUCKETS + sub;
+    }
+
+    static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = (index - SUB_BUCKETS) / SUB_BUCKETS + SUB_BUCKET_BITS;
+        int sub = (index - SUB_BUCKETS) % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return (1L << exponent) + (sub + 1) * width - 1;
+    }
+
+    public static final class Summary {
+        private final long count;
+        private final double meanMillis;
+        private final long p50Millis;
+        private final long p90Millis;
+        private final long p99Millis;
+        private final long maxMillis;
+
+        Summary(long count, double meanMillis, long p50Millis, long p90Millis, long p99Millis, long maxMillis) {
+            this.count = count;
+            this.meanMillis = meanMillis;
+            this.p50Millis = p50Millis;
+            this.p90Millis = p90Millis;
+            this.p99Millis = p99Millis;
+            this.maxMillis = maxMillis;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getMeanMillis() {
+            return meanMillis;
+        }
+
+        public long getP50Millis() {
+            return p50Millis;
+        }
+
+        public long getP90Millis() {
+            return p90Millis;
+        }
+
+        public long getP99Millis() {
+            return p99Millis;
+        }
+
+        public long getMaxMillis() {
+            return maxMillis;
+        }
+    }
+}
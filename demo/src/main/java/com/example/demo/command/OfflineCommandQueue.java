@@ -0,0 +1,423 @@
+package com.example.demo.command;
+
+import com.example.demo.config.AppProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// 离线设备的指令队列。每条指令先追加写入日志文件(A记录)，下发、被覆盖或丢弃后追加D记录，
+// 重启时重放日志恢复队列。指令内容在内存中只保留maxInMemoryBytes以内的部分，其余下发时再从文件读取，
+// 因此内存占用由字节上限和每条指令固定大小的索引决定。
+// 同一设备同一command_type的新指令覆盖旧指令；日志文件中的指令全部处理完后按先后顺序删除文件。
+// 刷盘：fsyncEachAppend为true时A记录fsync后才返回；否则按fsyncIntervalMillis批量fsync，
+// 操作系统崩溃或断电时最多丢失一个间隔内的记录(丢失D记录只会导致重启后重复下发)
+@Component
+public class OfflineCommandQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(OfflineCommandQueue.class);
+
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    // 每条待发指令索引的估算内存(对象头、字段和Map节点)，用于统计
+    private static final int INDEX_BYTES_PER_COMMAND = 160;
+
+    private final AppProperties.OfflineQueue config;
+    private final Map<String, LinkedHashMap<String, QueuedCommand>> byDevice = new HashMap<>();
+    private final TreeMap<Long, Integer> liveBySegment = new TreeMap<>();
+    // 正在补发的设备：补发期间的新指令也要入队，排在正在补发的指令之后
+    private final Set<String> draining = new HashSet<>();
+    private final ExecutorService flusher;
+    private Path directory;
+    private FileChannel active;
+    private long activeSegmentId;
+    private long nextSeq = 1;
+    private boolean dirty;
+    private long pending;
+    private long inMemoryBytes;
+    private long inMemoryCount;
+    private long collapsed;
+    private long dropped;
+    private long expired;
+    private long flushed;
+
+    public OfflineCommandQueue(AppProperties appProperties) {
+        this.config = appProperties.getOfflineQueue();
+        this.flusher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "offline-command-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        if (!config.isEnabled()) {
+            return;
+        }
+        directory = Paths.get(config.getDirectory());
+        Files.createDirectories(directory);
+        long lastSegmentId = 0;
+        Map<Long, QueuedCommand> bySeq = new HashMap<>();
+        for (long segmentId : listSegments()) {
+            replay(segmentId, bySeq);
+            lastSegmentId = segmentId;
+        }
+        openSegment(lastSegmentId + 1);
+        deleteReleasedSegments();
+        if (pending > 0) {
+            logger.info("Recovered {} queued commands for {} offline devices", pending, byDevice.size());
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        flusher.shutdown();
+        if (active != null) {
+            active.force(false);
+            active.close();
+        }
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    public synchronized void enqueue(String deviceId, String commandType, String payload) {
+        // 日志按制表符和换行分隔字段与记录
+        if (!isLogSafe(deviceId) || !isLogSafe(commandType) || payload.indexOf('\n') >= 0) {
+            throw new IllegalArgumentException("Command for device " + deviceId + " contains a tab or line break");
+        }
+        long now = System.currentTimeMillis();
+        long seq = nextSeq++;
+        String header = "A\t" + seq + "\t" + deviceId + "\t" + commandType + "\t" + now + "\t";
+        byte[] body = payload.getBytes(StandardCharsets.UTF_8);
+        long offset = append(header.getBytes(StandardCharsets.UTF_8), body);
+        insert(new QueuedCommand(seq, deviceId, commandType, now, activeSegmentId, offset, body.length, payload));
+        if (config.isFsyncEachAppend()) {
+            sync();
+        }
+        rollIfNeeded();
+    }
+
+    @Scheduled(fixedDelayString = "${app.offline-queue.fsync-interval-millis:200}")
+    public synchronized void sync() {
+        if (!dirty || active == null) {
+            return;
+        }
+        try {
+            active.force(false);
+            dirty = false;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to sync command queue log", e);
+        }
+    }
+
+    public synchronized boolean hasPending(String deviceId) {
+        return byDevice.containsKey(deviceId) || draining.contains(deviceId);
+    }
+
+    // 设备重新上线后在后台线程中按入队顺序逐条交给publisher，过期的指令跳过
+    public void drainAsync(String deviceId, Consumer<String> publisher) {
+        flusher.execute(() -> drain(deviceId, publisher));
+    }
+
+    @Scheduled(fixedDelay = 600_000)
+    public synchronized void purgeExpired() {
+        long cutoff = System.currentTimeMillis() - config.getTtlMinutes() * 60_000L;
+        Iterator<LinkedHashMap<String, QueuedCommand>> queues = byDevice.values().iterator();
+        while (queues.hasNext()) {
+            LinkedHashMap<String, QueuedCommand> queue = queues.next();
+            Iterator<QueuedCommand> commands = queue.values().iterator();
+            while (commands.hasNext()) {
+                QueuedCommand command = commands.next();
+                if (command.enqueuedAtMillis < cutoff) {
+                    commands.remove();
+                    release(command);
+                    expired++;
+                }
+            }
+            if (queue.isEmpty()) {
+                queues.remove();
+            }
+        }
+        deleteReleasedSegments();
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", config.isEnabled());
+        stats.put("devices", byDevice.size());
+        stats.put("pending", pending);
+        stats.put("inMemory", inMemoryCount);
+        stats.put("spilled", pending - inMemoryCount);
+        stats.put("inMemoryPayloadBytes", inMemoryBytes);
+        stats.put("estimatedIndexBytes", pending * INDEX_BYTES_PER_COMMAND);
+        stats.put("segments", liveBySegment.size());
+        stats.put("diskBytes", diskBytes());
+        stats.put("collapsed", collapsed);
+        stats.put("dropped", dropped);
+        stats.put("expired", expired);
+        stats.put("flushed", flushed);
+        return stats;
+    }
+
+    void drain(String deviceId, Consumer<String> publisher) {
+        List<QueuedCommand> commands;
+        synchronized (this) {
+            LinkedHashMap<String, QueuedCommand> queue = byDevice.remove(deviceId);
+            if (queue == null) {
+                return;
+            }
+            commands = new ArrayList<>(queue.values());
+            draining.add(deviceId);
+        }
+        // 读文件和发布不持锁；这些指令尚未释放，所在文件不会被删除
+        long cutoff = System.currentTimeMillis() - config.getTtlMinutes() * 60_000L;
+        int published = 0;
+        int expiredCount = 0;
+        try {
+            for (QueuedCommand command : commands) {
+                if (command.enqueuedAtMillis < cutoff) {
+                    expiredCount++;
+                } else {
+                    publisher.accept(command.payload != null ? command.payload : readPayload(command));
+                    published++;
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to flush queued commands for device {}: {}", deviceId, e.getMessage());
+        }
+        synchronized (this) {
+            int handled = published + expiredCount;
+            for (int i = 0; i < handled; i++) {
+                release(commands.get(i));
+            }
+            // 发布失败的指令放回队首，排在补发期间入队的新指令之前；已有同类型新指令的不再放回
+            if (handled < commands.size()) {
+                LinkedHashMap<String, QueuedCommand> newer = byDevice.remove(deviceId);
+                LinkedHashMap<String, QueuedCommand> queue = new LinkedHashMap<>();
+                for (int i = handled; i < commands.size(); i++) {
+                    QueuedCommand command = commands.get(i);
+                    if (newer != null && newer.containsKey(command.commandType)) {
+                        release(command);
+                        collapsed++;
+                    } else {
+                        queue.put(command.commandType, command);
+                    }
+                }
+                if (newer != null) {
+                    queue.putAll(newer);
+                }
+                byDevice.put(deviceId, queue);
+            }
+            draining.remove(deviceId);
+            flushed += published;
+            expired += expiredCount;
+            deleteReleasedSegments();
+        }
+    }
+
+    private static boolean isLogSafe(String value) {
+        return value == null || value.indexOf('\t') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0;
+    }
+
+    private void insert(QueuedCommand command) {
+        LinkedHashMap<String, QueuedCommand> queue = byDevice.computeIfAbsent(command.deviceId, key -> new LinkedHashMap<>());
+        QueuedCommand superseded = queue.remove(command.commandType);
+        if (superseded != null) {
+            release(superseded);
+            collapsed++;
+        }
+        queue.put(command.commandType, command);
+        pending++;
+        liveBySegment.merge(command.segmentId, 1, Integer::sum);
+        if (command.payload != null && inMemoryBytes + command.payloadLength <= config.getMaxInMemoryBytes()) {
+            inMemoryBytes += command.payloadLength;
+            inMemoryCount++;
+        } else {
+            command.payload = null;
+        }
+        while (queue.size() > config.getMaxCommandsPerDevice()) {
+            Iterator<QueuedCommand> eldest = queue.values().iterator();
+            release(eldest.next());
+            eldest.remove();
+            dropped++;
+        }
+    }
+
+    // 指令已下发、被覆盖、过期或丢弃：记录D并释放内存
+    private void release(QueuedCommand command) {
+        if (active != null) {
+            append(("D\t" + command.seq + "\t").getBytes(StandardCharsets.UTF_8), new byte[0]);
+        }
+        pending--;
+        if (command.payload != null) {
+            inMemoryBytes -= command.payloadLength;
+            inMemoryCount--;
+            command.payload = null;
+        }
+        liveBySegment.computeIfPresent(command.segmentId, (id, live) -> live - 1);
+    }
+
+    // 只从最早的文件开始连续删除：较新文件中的D记录可能对应较早文件中的A记录，不能先删
+    private void deleteReleasedSegments() {
+        while (!liveBySegment.isEmpty()) {
+            Map.Entry<Long, Integer> first = liveBySegment.firstEntry();
+            if (first.getKey() == activeSegmentId || first.getValue() > 0) {
+                return;
+            }
+            liveBySegment.pollFirstEntry();
+            try {
+                Files.deleteIfExists(segmentPath(first.getKey()));
+            } catch (IOException e) {
+                logger.warn("Failed to delete command queue segment {}: {}", first.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    private long append(byte[] header, byte[] body) {
+        try {
+            long position = active.size();
+            ByteBuffer buffer = ByteBuffer.allocate(header.length + body.length + 1);
+            buffer.put(header).put(body).put((byte) '\n').flip();
+            while (buffer.hasRemaining()) {
+                active.write(buffer);
+            }
+            dirty = true;
+            return position + header.length;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to command queue log", e);
+        }
+    }
+
+    private void rollIfNeeded() {
+        try {
+            if (active.size() >= config.getSegmentBytes()) {
+                active.force(false);
+                dirty = false;
+                active.close();
+                openSegment(activeSegmentId + 1);
+                deleteReleasedSegments();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to roll command queue log", e);
+        }
+    }
+
+    private void openSegment(long segmentId) throws IOException {
+        activeSegmentId = segmentId;
+        active = FileChannel.open(segmentPath(segmentId),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        liveBySegment.putIfAbsent(segmentId, 0);
+    }
+
+    private String readPayload(QueuedCommand command) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(command.segmentId), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(command.payloadLength);
+            long position = command.payloadOffset;
+            while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) >= 0) {
+                // 读满为止
+            }
+            return new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+        }
+    }
+
+    // 重放一个日志文件；崩溃时写了一半的末行格式不完整，直接跳过
+    private void replay(long segmentId, Map<Long, QueuedCommand> bySeq) throws IOException {
+        byte[] data = Files.readAllBytes(segmentPath(segmentId));
+        liveBySegment.putIfAbsent(segmentId, 0);
+        int lineStart = 0;
+        for (int i = 0; i < data.length; i++) {
+            if (data[i] != '\n') {
+                continue;
+            }
+            String line = new String(data, lineStart, i - lineStart, StandardCharsets.UTF_8);
+            String[] fields = line.split("\t", 6);
+            try {
+                if ("A".equals(fields[0]) && fields.length == 6) {
+                    long seq = Long.parseLong(fields[1]);
+                    int headerBytes = (fields[0] + fields[1] + fields[2] + fields[3] + fields[4])
+                            .getBytes(StandardCharsets.UTF_8).length + 5;
+                    QueuedCommand command = new QueuedCommand(seq, fields[2], fields[3], Long.parseLong(fields[4]),
+                            segmentId, lineStart + headerBytes, i - lineStart - headerBytes, null);
+                    insert(command);
+                    bySeq.put(seq, command);
+                    nextSeq = Math.max(nextSeq, seq + 1);
+                } else if ("D".equals(fields[0]) && fields.length >= 2) {
+                    QueuedCommand command = bySeq.remove(Long.parseLong(fields[1]));
+                    if (command != null) {
+                        LinkedHashMap<String, QueuedCommand> queue = byDevice.get(command.deviceId);
+                        if (queue != null && queue.remove(command.commandType, command)) {
+                            release(command);
+                            if (queue.isEmpty()) {
+                                byDevice.remove(command.deviceId);
+                            }
+                        }
+                    }
+                }
+            } catch (NumberFormatException e) {
+                logger.warn("Skipping malformed record in command queue segment {}", segmentId);
+            }
+            lineStart = i + 1;
+        }
+    }
+
+    private List<Long> listSegments() throws IOException {
+        List<Long> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .forEach(name -> {
+                        try {
+                            segments.add(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())));
+                        } catch (NumberFormatException ignored) {
+                            // 非队列文件
+                        }
+                    });
+        }
+        segments.sort(Long::compare);
+        return segments;
+    }
+
+    private long diskBytes() {
+        long total = 0;
+        for (long segmentId : liveBySegment.keySet()) {
+            try {
+                total += Files.size(segmentPath(segmentId));
+            } catch (IOException ignored) {
+                // 文件已被删除
+            }
+        }
+        return total;
+    }
+
+    private Path segmentPath(long segmentId) {
+        return directory.resolve(String.format("%016d", segmentId) + SEGMENT_SUFFIX);
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.demo.command;
+
+// 离线队列中的一条指令。payload为null表示内容已溢出到磁盘，需要按位置从日志文件读取
+class QueuedCommand {
+
+    final long seq;
+    final String deviceId;
+    final String commandType;
+    final long enqueuedAtMillis;
+    final long segmentId;
+    final long payloadOffset;
+    final int payloadLength;
+    String payload;
+
+    QueuedCommand(long seq, String deviceId, String commandType, long enqueuedAtMillis,
+                  long segmentId, long payloadOffset, int payloadLength, String payload) {
+        this.seq = seq;
+        this.deviceId = deviceId;
+        this.commandType = commandType;
+        this.enqueuedAtMillis = enqueuedAtMillis;
+        this.segmentId = segmentId;
+        this.payloadOffset = payloadOffset;
+        this.payloadLength = payloadLength;
+        this.payload = payload;
+    }
+}
@@ -3,12 +3,29 @@ package com.example.demo.config;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.util.HashMap;
+import java.util.Map;
+
 @Component
 @ConfigurationProperties(prefix = "app")
 public class AppProperties {
 
     private Jwt jwt = new Jwt();
     private Mqtt mqtt = new Mqtt();
+    private Tracing tracing = new Tracing();
+    private Ingest ingest = new Ingest();
+    private Cluster cluster = new Cluster();
+    private Events events = new Events();
+    private Sync sync = new Sync();
+    private Teardown teardown = new Teardown();
+    private Commands commands = new Commands();
+    private Scenes scenes = new Scenes();
+    private Rules rules = new Rules();
+    private OfflineQueue offlineQueue = new OfflineQueue();
+    private Usage usage = new Usage();
+    private Snapshot snapshot = new Snapshot();
+    private DbPools dbPools = new DbPools();
+    private Retention retention = new Retention();
 
     // JWT配置
     public static class Jwt {
@@ -41,6 +58,7 @@ public class AppProperties {
         private String defaultTopic;
         private int timeOut;
         private int keepAlive;
+        private boolean autoStartup = true;
 
         // getter和setter方法
         public String getUsername() {
@@ -98,6 +116,820 @@ public class AppProperties {
         public void setKeepAlive(int keepAlive) {
             this.keepAlive = keepAlive;
         }
+
+        public boolean isAutoStartup() {
+            return autoStartup;
+        }
+
+        public void setAutoStartup(boolean autoStartup) {
+            this.autoStartup = autoStartup;
+        }
+    }
+
+    // 请求链路追踪配置
+    public static class Tracing {
+        private boolean enabled = true;
+        private double sampleRate = 0.0;
+        private int slowestPerEndpoint = 10;
+        private int maxSpansPerTrace = 200;
+        private int windowMinutes = 15;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getSampleRate() {
+            return sampleRate;
+        }
+
+        public void setSampleRate(double sampleRate) {
+            this.sampleRate = sampleRate;
+        }
+
+        public int getSlowestPerEndpoint() {
+            return slowestPerEndpoint;
+        }
+
+        public void setSlowestPerEndpoint(int slowestPerEndpoint) {
+            this.slowestPerEndpoint = slowestPerEndpoint;
+        }
+
+        public int getMaxSpansPerTrace() {
+            return maxSpansPerTrace;
+        }
+
+        public void setMaxSpansPerTrace(int maxSpansPerTrace) {
+            this.maxSpansPerTrace = maxSpansPerTrace;
+        }
+
+        public int getWindowMinutes() {
+            return windowMinutes;
+        }
+
+        public void setWindowMinutes(int windowMinutes) {
+            this.windowMinutes = windowMinutes;
+        }
+    }
+
+    // 设备上报接入配置
+    public static class Ingest {
+        private int workerThreads = 4;
+        private int queueCapacity = 10000;
+        private double pauseWatermark = 0.9;
+        private double resumeWatermark = 0.5;
+        private long offerTimeoutMillis = 50;
+        private int limiterStripes = 64;
+        private double defaultRatePerSecond = 2.0;
+        private int defaultBurst = 10;
+        private int idleEvictMinutes = 30;
+        // 单个用户在队列中最多积压的上报数
+        private int tenantQueueCapacity = 2000;
+        private int defaultTenantWeight = 1;
+        // 按用户配置的出队权重，key为user_id
+        private Map<String, Integer> tenantWeights = new HashMap<>();
+        // 按设备类型单独配置的限流参数，key为device_type
+        private Map<String, RateLimit> rateLimits = new HashMap<>();
+        // 状态未变化时至少间隔多久写一次库，单位分钟
+        private int keepAliveMinutes = 15;
+        // 数值字段死区，device_type -> 字段名 -> 阈值，变化小于阈值视为未变化
+        private Map<String, Map<String, Double>> deadbands = new HashMap<>();
+
+        public int getWorkerThreads() {
+            return workerThreads;
+        }
+
+        public void setWorkerThreads(int workerThreads) {
+            this.workerThreads = workerThreads;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public double getPauseWatermark() {
+            return pauseWatermark;
+        }
+
+        public void setPauseWatermark(double pauseWatermark) {
+            this.pauseWatermark = pauseWatermark;
+        }
+
+        public double getResumeWatermark() {
+            return resumeWatermark;
+        }
+
+        public void setResumeWatermark(double resumeWatermark) {
+            this.resumeWatermark = resumeWatermark;
+        }
+
+        public long getOfferTimeoutMillis() {
+            return offerTimeoutMillis;
+        }
+
+        public void setOfferTimeoutMillis(long offerTimeoutMillis) {
+            this.offerTimeoutMillis = offerTimeoutMillis;
+        }
+
+        public int getLimiterStripes() {
+            return limiterStripes;
+        }
+
+        public void setLimiterStripes(int limiterStripes) {
+            this.limiterStripes = limiterStripes;
+        }
+
+        public double getDefaultRatePerSecond() {
+            return defaultRatePerSecond;
+        }
+
+        public void setDefaultRatePerSecond(double defaultRatePerSecond) {
+            this.defaultRatePerSecond = defaultRatePerSecond;
+        }
+
+        public int getDefaultBurst() {
+            return defaultBurst;
+        }
+
+        public void setDefaultBurst(int defaultBurst) {
+            this.defaultBurst = defaultBurst;
+        }
+
+        public int getIdleEvictMinutes() {
+            return idleEvictMinutes;
+        }
+
+        public void setIdleEvictMinutes(int idleEvictMinutes) {
+            this.idleEvictMinutes = idleEvictMinutes;
+        }
+
+        public int getTenantQueueCapacity() {
+            return tenantQueueCapacity;
+        }
+
+        public void setTenantQueueCapacity(int tenantQueueCapacity) {
+            this.tenantQueueCapacity = tenantQueueCapacity;
+        }
+
+        public int getDefaultTenantWeight() {
+            return defaultTenantWeight;
+        }
+
+        public void setDefaultTenantWeight(int defaultTenantWeight) {
+            this.defaultTenantWeight = defaultTenantWeight;
+        }
+
+        public Map<String, Integer> getTenantWeights() {
+            return tenantWeights;
+        }
+
+        public void setTenantWeights(Map<String, Integer> tenantWeights) {
+            this.tenantWeights = tenantWeights;
+        }
+
+        public Map<String, RateLimit> getRateLimits() {
+            return rateLimits;
+        }
+
+        public void setRateLimits(Map<String, RateLimit> rateLimits) {
+            this.rateLimits = rateLimits;
+        }
+
+        public int getKeepAliveMinutes() {
+            return keepAliveMinutes;
+        }
+
+        public void setKeepAliveMinutes(int keepAliveMinutes) {
+            this.keepAliveMinutes = keepAliveMinutes;
+        }
+
+        public Map<String, Map<String, Double>> getDeadbands() {
+            return deadbands;
+        }
+
+        public void setDeadbands(Map<String, Map<String, Double>> deadbands) {
+            this.deadbands = deadbands;
+        }
+    }
+
+    public static class RateLimit {
+        private double ratePerSecond;
+        private int burst;
+
+        public double getRatePerSecond() {
+            return ratePerSecond;
+        }
+
+        public void setRatePerSecond(double ratePerSecond) {
+            this.ratePerSecond = ratePerSecond;
+        }
+
+        public int getBurst() {
+            return burst;
+        }
+
+        public void setBurst(int burst) {
+            this.burst = burst;
+        }
+    }
+
+    // 集群模式配置
+    public static class Cluster {
+        private boolean enabled = false;
+        private String nodeId = "";
+        private String sharedGroup = "smart-home-backend";
+        private int virtualNodes = 128;
+        private long heartbeatIntervalMillis = 2000;
+        private long nodeTtlMillis = 6000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getNodeId() {
+            return nodeId;
+        }
+
+        public void setNodeId(String nodeId) {
+            this.nodeId = nodeId;
+        }
+
+        public String getSharedGroup() {
+            return sharedGroup;
+        }
+
+        public void setSharedGroup(String sharedGroup) {
+            this.sharedGroup = sharedGroup;
+        }
+
+        public int getVirtualNodes() {
+            return virtualNodes;
+        }
+
+        public void setVirtualNodes(int virtualNodes) {
+            this.virtualNodes = virtualNodes;
+        }
+
+        public long getHeartbeatIntervalMillis() {
+            return heartbeatIntervalMillis;
+        }
+
+        public void setHeartbeatIntervalMillis(long heartbeatIntervalMillis) {
+            this.heartbeatIntervalMillis = heartbeatIntervalMillis;
+        }
+
+        public long getNodeTtlMillis() {
+            return nodeTtlMillis;
+        }
+
+        public void setNodeTtlMillis(long nodeTtlMillis) {
+            this.nodeTtlMillis = nodeTtlMillis;
+        }
+    }
+
+    // 跨节点事件总线配置
+    public static class Events {
+        private int batchSize = 200;
+        private long flushIntervalMillis = 20;
+        private long pollIntervalMillis = 50;
+        private long streamMaxLength = 100000;
+        private int maxPendingEvents = 100000;
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public long getFlushIntervalMillis() {
+            return flushIntervalMillis;
+        }
+
+        public void setFlushIntervalMillis(long flushIntervalMillis) {
+            this.flushIntervalMillis = flushIntervalMillis;
+        }
+
+        public long getPollIntervalMillis() {
+            return pollIntervalMillis;
+        }
+
+        public void setPollIntervalMillis(long pollIntervalMillis) {
+            this.pollIntervalMillis = pollIntervalMillis;
+        }
+
+        public long getStreamMaxLength() {
+            return streamMaxLength;
+        }
+
+        public void setStreamMaxLength(long streamMaxLength) {
+            this.streamMaxLength = streamMaxLength;
+        }
+
+        public int getMaxPendingEvents() {
+            return maxPendingEvents;
+        }
+
+        public void setMaxPendingEvents(int maxPendingEvents) {
+            this.maxPendingEvents = maxPendingEvents;
+        }
+    }
+
+    // 增量同步配置
+    public static class Sync {
+        private int tombstoneRetentionDays = 30;
+        private long cursorOverlapMillis = 2000;
+
+        public int getTombstoneRetentionDays() {
+            return tombstoneRetentionDays;
+        }
+
+        public void setTombstoneRetentionDays(int tombstoneRetentionDays) {
+            this.tombstoneRetentionDays = tombstoneRetentionDays;
+        }
+
+        public long getCursorOverlapMillis() {
+            return cursorOverlapMillis;
+        }
+
+        public void setCursorOverlapMillis(long cursorOverlapMillis) {
+            this.cursorOverlapMillis = cursorOverlapMillis;
+        }
+    }
+
+    // 账号/区域后台清理任务配置
+    public static class Teardown {
+        private int chunkSize = 500;
+        private long chunkPauseMillis = 20;
+        private int maxRetainedJobs = 200;
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        public long getChunkPauseMillis() {
+            return chunkPauseMillis;
+        }
+
+        public void setChunkPauseMillis(long chunkPauseMillis) {
+            this.chunkPauseMillis = chunkPauseMillis;
+        }
+
+        public int getMaxRetainedJobs() {
+            return maxRetainedJobs;
+        }
+
+        public void setMaxRetainedJobs(int maxRetainedJobs) {
+            this.maxRetainedJobs = maxRetainedJobs;
+        }
+    }
+
+    // 设备控制指令配置
+    public static class Commands {
+        private long ackTimeoutMillis = 5000;
+        private long maxAckTimeoutMillis = 30000;
+        private int fanoutThreads = 8;
+        private int latencyMaxTrackedUsers = 2000;
+
+        public long getAckTimeoutMillis() {
+            return ackTimeoutMillis;
+        }
+
+        public void setAckTimeoutMillis(long ackTimeoutMillis) {
+            this.ackTimeoutMillis = ackTimeoutMillis;
+        }
+
+        public long getMaxAckTimeoutMillis() {
+            return maxAckTimeoutMillis;
+        }
+
+        public void setMaxAckTimeoutMillis(long maxAckTimeoutMillis) {
+            this.maxAckTimeoutMillis = maxAckTimeoutMillis;
+        }
+
+        public int getFanoutThreads() {
+            return fanoutThreads;
+        }
+
+        public void setFanoutThreads(int fanoutThreads) {
+            this.fanoutThreads = fanoutThreads;
+        }
+
+        public int getLatencyMaxTrackedUsers() {
+            return latencyMaxTrackedUsers;
+        }
+
+        public void setLatencyMaxTrackedUsers(int latencyMaxTrackedUsers) {
+            this.latencyMaxTrackedUsers = latencyMaxTrackedUsers;
+        }
+    }
+
+    // 场景执行配置
+    public static class Scenes {
+        private long defaultDeadlineMillis = 15000;
+        private long maxDeadlineMillis = 60000;
+        private int maxActions = 200;
+
+        public long getDefaultDeadlineMillis() {
+            return defaultDeadlineMillis;
+        }
+
+        public void setDefaultDeadlineMillis(long defaultDeadlineMillis) {
+            this.defaultDeadlineMillis = defaultDeadlineMillis;
+        }
+
+        public long getMaxDeadlineMillis() {
+            return maxDeadlineMillis;
+        }
+
+        public void setMaxDeadlineMillis(long maxDeadlineMillis) {
+            this.maxDeadlineMillis = maxDeadlineMillis;
+        }
+
+        public int getMaxActions() {
+            return maxActions;
+        }
+
+        public void setMaxActions(int maxActions) {
+            this.maxActions = maxActions;
+        }
+    }
+
+    // 自动化规则级联保护配置
+    public static class Rules {
+        private boolean rejectCycles = true;
+        private int maxChainDepth = 3;
+        private long chainWindowMillis = 10000;
+        private int maxFiresPerChainPerMinute = 30;
+        private int maxWindowSamples = 4096;
+
+        public boolean isRejectCycles() {
+            return rejectCycles;
+        }
+
+        public void setRejectCycles(boolean rejectCycles) {
+            this.rejectCycles = rejectCycles;
+        }
+
+        public int getMaxChainDepth() {
+            return maxChainDepth;
+        }
+
+        public void setMaxChainDepth(int maxChainDepth) {
+            this.maxChainDepth = maxChainDepth;
+        }
+
+        public long getChainWindowMillis() {
+            return chainWindowMillis;
+        }
+
+        public void setChainWindowMillis(long chainWindowMillis) {
+            this.chainWindowMillis = chainWindowMillis;
+        }
+
+        public int getMaxFiresPerChainPerMinute() {
+            return maxFiresPerChainPerMinute;
+        }
+
+        public void setMaxFiresPerChainPerMinute(int maxFiresPerChainPerMinute) {
+            this.maxFiresPerChainPerMinute = maxFiresPerChainPerMinute;
+        }
+
+        public int getMaxWindowSamples() {
+            return maxWindowSamples;
+        }
+
+        public void setMaxWindowSamples(int maxWindowSamples) {
+            this.maxWindowSamples = maxWindowSamples;
+        }
+    }
+
+    // 离线设备指令队列配置
+    public static class OfflineQueue {
+        private boolean enabled = true;
+        private String directory = "data/command-queue";
+        private long maxInMemoryBytes = 67108864L;
+        private int maxCommandsPerDevice = 20;
+        private long segmentBytes = 67108864L;
+        private int ttlMinutes = 1440;
+        private int offlineAfterSeconds = 180;
+        private boolean fsyncEachAppend = false;
+        private long fsyncIntervalMillis = 200;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public long getMaxInMemoryBytes() {
+            return maxInMemoryBytes;
+        }
+
+        public void setMaxInMemoryBytes(long maxInMemoryBytes) {
+            this.maxInMemoryBytes = maxInMemoryBytes;
+        }
+
+        public int getMaxCommandsPerDevice() {
+            return maxCommandsPerDevice;
+        }
+
+        public void setMaxCommandsPerDevice(int maxCommandsPerDevice) {
+            this.maxCommandsPerDevice = maxCommandsPerDevice;
+        }
+
+        public long getSegmentBytes() {
+            return segmentBytes;
+        }
+
+        public void setSegmentBytes(long segmentBytes) {
+            this.segmentBytes = segmentBytes;
+        }
+
+        public int getTtlMinutes() {
+            return ttlMinutes;
+        }
+
+        public void setTtlMinutes(int ttlMinutes) {
+            this.ttlMinutes = ttlMinutes;
+        }
+
+        public int getOfflineAfterSeconds() {
+            return offlineAfterSeconds;
+        }
+
+        public void setOfflineAfterSeconds(int offlineAfterSeconds) {
+            this.offlineAfterSeconds = offlineAfterSeconds;
+        }
+
+        public boolean isFsyncEachAppend() {
+            return fsyncEachAppend;
+        }
+
+        public void setFsyncEachAppend(boolean fsyncEachAppend) {
+            this.fsyncEachAppend = fsyncEachAppend;
+        }
+
+        public long getFsyncIntervalMillis() {
+            return fsyncIntervalMillis;
+        }
+
+        public void setFsyncIntervalMillis(long fsyncIntervalMillis) {
+            this.fsyncIntervalMillis = fsyncIntervalMillis;
+        }
+    }
+
+    // 设备运行时长与能耗汇总配置
+    public static class Usage {
+        private boolean enabled = true;
+        private long flushIntervalMillis = 10000;
+        private long maxGapSeconds = 900;
+        private int minuteRetentionHours = 48;
+        private int hourRetentionDays = 90;
+        private int maxPoints = 1500;
+        private int queueCapacity = 100000;
+        // 各设备类型的额定功率(瓦)，运行时长乘以额定功率即为估算能耗
+        private Map<String, Double> ratedWatts = new HashMap<>();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getFlushIntervalMillis() {
+            return flushIntervalMillis;
+        }
+
+        public void setFlushIntervalMillis(long flushIntervalMillis) {
+            this.flushIntervalMillis = flushIntervalMillis;
+        }
+
+        public long getMaxGapSeconds() {
+            return maxGapSeconds;
+        }
+
+        public void setMaxGapSeconds(long maxGapSeconds) {
+            this.maxGapSeconds = maxGapSeconds;
+        }
+
+        public int getMinuteRetentionHours() {
+            return minuteRetentionHours;
+        }
+
+        public void setMinuteRetentionHours(int minuteRetentionHours) {
+            this.minuteRetentionHours = minuteRetentionHours;
+        }
+
+        public int getHourRetentionDays() {
+            return hourRetentionDays;
+        }
+
+        public void setHourRetentionDays(int hourRetentionDays) {
+            this.hourRetentionDays = hourRetentionDays;
+        }
+
+        public int getMaxPoints() {
+            return maxPoints;
+        }
+
+        public void setMaxPoints(int maxPoints) {
+            this.maxPoints = maxPoints;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public Map<String, Double> getRatedWatts() {
+            return ratedWatts;
+        }
+
+        public void setRatedWatts(Map<String, Double> ratedWatts) {
+            this.ratedWatts = ratedWatts;
+        }
+    }
+
+    // 设备内存状态快照配置
+    public static class Snapshot {
+        private boolean enabled = true;
+        private String path = "data/snapshot/device-state.bin";
+        private long intervalMillis = 300000;
+        private int maxAgeMinutes = 30;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public void setPath(String path) {
+            this.path = path;
+        }
+
+        public long getIntervalMillis() {
+            return intervalMillis;
+        }
+
+        public void setIntervalMillis(long intervalMillis) {
+            this.intervalMillis = intervalMillis;
+        }
+
+        public int getMaxAgeMinutes() {
+            return maxAgeMinutes;
+        }
+
+        public void setMaxAgeMinutes(int maxAgeMinutes) {
+            this.maxAgeMinutes = maxAgeMinutes;
+        }
+    }
+
+    // 按负载类别划分的数据库连接池配置，未列出的参数沿用spring.datasource.hikari.*
+    public static class DbPools {
+        private DbPool api = new DbPool(6, 2, 3000);
+        private DbPool ingest = new DbPool(4, 1, 10000);
+        private DbPool background = new DbPool(2, 0, 30000);
+
+        public DbPool getApi() {
+            return api;
+        }
+
+        public void setApi(DbPool api) {
+            this.api = api;
+        }
+
+        public DbPool getIngest() {
+            return ingest;
+        }
+
+        public void setIngest(DbPool ingest) {
+            this.ingest = ingest;
+        }
+
+        public DbPool getBackground() {
+            return background;
+        }
+
+        public void setBackground(DbPool background) {
+            this.background = background;
+        }
+    }
+
+    public static class DbPool {
+        private int maximumPoolSize;
+        private int minimumIdle;
+        private long connectionTimeoutMillis;
+
+        public DbPool() {
+        }
+
+        public DbPool(int maximumPoolSize, int minimumIdle, long connectionTimeoutMillis) {
+            this.maximumPoolSize = maximumPoolSize;
+            this.minimumIdle = minimumIdle;
+            this.connectionTimeoutMillis = connectionTimeoutMillis;
+        }
+
+        public int getMaximumPoolSize() {
+            return maximumPoolSize;
+        }
+
+        public void setMaximumPoolSize(int maximumPoolSize) {
+            this.maximumPoolSize = maximumPoolSize;
+        }
+
+        public int getMinimumIdle() {
+            return minimumIdle;
+        }
+
+        public void setMinimumIdle(int minimumIdle) {
+            this.minimumIdle = minimumIdle;
+        }
+
+        public long getConnectionTimeoutMillis() {
+            return connectionTimeoutMillis;
+        }
+
+        public void setConnectionTimeoutMillis(long connectionTimeoutMillis) {
+            this.connectionTimeoutMillis = connectionTimeoutMillis;
+        }
+    }
+
+    // 按时间分区的保留期管理配置
+    public static class Retention {
+        private boolean enabled = true;
+        private int aheadDays = 3;
+        private long intervalMillis = 3600000;
+        private int lockWaitTimeoutSeconds = 5;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getAheadDays() {
+            return aheadDays;
+        }
+
+        public void setAheadDays(int aheadDays) {
+            this.aheadDays = aheadDays;
+        }
+
+        public long getIntervalMillis() {
+            return intervalMillis;
+        }
+
+        public void setIntervalMillis(long intervalMillis) {
+            this.intervalMillis = intervalMillis;
+        }
+
+        public int getLockWaitTimeoutSeconds() {
+            return lockWaitTimeoutSeconds;
+        }
+
+        public void setLockWaitTimeoutSeconds(int lockWaitTimeoutSeconds) {
+            this.lockWaitTimeoutSeconds = lockWaitTimeoutSeconds;
+        }
     }
 
     public Jwt getJwt() {
@@ -115,4 +947,116 @@ public class AppProperties {
     public void setMqtt(Mqtt mqtt) {
         this.mqtt = mqtt;
     }
+
+    public Tracing getTracing() {
+        return tracing;
+    }
+
+    public void setTracing(Tracing tracing) {
+        this.tracing = tracing;
+    }
+
+    public Ingest getIngest() {
+        return ingest;
+    }
+
+    public void setIngest(Ingest ingest) {
+        this.ingest = ingest;
+    }
+
+    public Cluster getCluster() {
+        return cluster;
+    }
+
+    public void setCluster(Cluster cluster) {
+        this.cluster = cluster;
+    }
+
+    public Events getEvents() {
+        return events;
+    }
+
+    public void setEvents(Events events) {
+        this.events = events;
+    }
+
+    public Sync getSync() {
+        return sync;
+    }
+
+    public void setSync(Sync sync) {
+        this.sync = sync;
+    }
+
+    public Teardown getTeardown() {
+        return teardown;
+    }
+
+    public void setTeardown(Teardown teardown) {
+        this.teardown = teardown;
+    }
+
+    public Commands getCommands() {
+        return commands;
+    }
+
+    public void setCommands(Commands commands) {
+        this.commands = commands;
+    }
+
+    public Scenes getScenes() {
+        return scenes;
+    }
+
+    public void setScenes(Scenes scenes) {
+        this.scenes = scenes;
+    }
+
+    public Rules getRules() {
+        return rules;
+    }
+
+    public void setRules(Rules rules) {
+        this.rules = rules;
+    }
+
+    public OfflineQueue getOfflineQueue() {
+        return offlineQueue;
+    }
+
+    public void setOfflineQueue(OfflineQueue offlineQueue) {
+        this.offlineQueue = offlineQueue;
+    }
+
+    public Usage getUsage() {
+        return usage;
+    }
+
+    public void setUsage(Usage usage) {
+        this.usage = usage;
+    }
+
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public void setSnapshot(Snapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    public DbPools getDbPools() {
+        return dbPools;
+    }
+
+    public void setDbPools(DbPools dbPools) {
+        this.dbPools = dbPools;
+    }
+
+    public Retention getRetention() {
+        return retention;
+    }
+
+    public void setRetention(Retention retention) {
+        this.retention = retention;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,23 @@
+package com.example.demo.config;
+
+import com.example.demo.websocket.UserEventWebSocketHandler;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+@Configuration
+@EnableWebSocket
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    private final UserEventWebSocketHandler userEventWebSocketHandler;
+
+    public WebSocketConfig(UserEventWebSocketHandler userEventWebSocketHandler) {
+        this.userEventWebSocketHandler = userEventWebSocketHandler;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(userEventWebSocketHandler, "/ws/events");
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.demo.controller;
+
+import com.example.demo.command.CommandForbiddenException;
+import com.example.demo.exception.BadRequestException;
+import com.example.demo.rule.RuleCycleException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.Map;
+
+// 各控制器共用的异常处理
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    @ExceptionHandler(BadRequestException.class)
+    public ResponseEntity<Map<String, String>> handleBadRequest(BadRequestException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(CommandForbiddenException.class)
+    public ResponseEntity<Map<String, String>> handleForbidden(CommandForbiddenException e) {
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", e.getMessage()));
+    }
+
+    // 与已有规则冲突，返回环上的设备序列
+    @ExceptionHandler(RuleCycleException.class)
+    public ResponseEntity<Map<String, Object>> handleCycle(RuleCycleException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage(), "cycle", e.getCycle()));
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.demo.controller;
+
+import com.example.demo.entity.AutomationRule;
+import com.example.demo.revision.UserRevisionTracker;
+import com.example.demo.rule.CascadeGuard;
+import com.example.demo.service.AutomationRuleService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/rules")
+public class AutomationRuleController {
+
+    @Autowired
+    private AutomationRuleService automationRuleService;
+
+    @Autowired
+    private UserRevisionTracker userRevisionTracker;
+
+    @Autowired
+    private CascadeGuard cascadeGuard;
+
+    @GetMapping("/{id}")
+    public ResponseEntity<AutomationRule> getRuleById(@PathVariable Long id) {
+        Optional<AutomationRule> rule = automationRuleService.getRuleById(id);
+        if (rule.isPresent()) {
+            return ResponseEntity.ok(rule.get());
+        } else {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @PostMapping
+    public ResponseEntity<AutomationRule> createRule(@RequestBody AutomationRule rule) {
+        AutomationRule createdRule = automationRuleService.createRule(rule);
+        return ResponseEntity.status(HttpStatus.CREATED).body(createdRule);
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<AutomationRule> updateRule(@PathVariable Long id, @RequestBody AutomationRule rule) {
+        rule.setId(id);
+        AutomationRule updatedRule = automationRuleService.updateRule(rule);
+        return ResponseEntity.ok(updatedRule);
+    }
+
+    @PutMapping("/{id}/toggle")
+    public ResponseEntity<AutomationRule> toggleRule(@PathVariable Long id) {
+        return ResponseEntity.ok(automationRuleService.toggleRuleStatus(id));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteRule(@PathVariable Long id) {
+        automationRuleService.deleteRule(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/user/{userId}")
+    public ResponseEntity<List<AutomationRule>> getRulesByUserId(@PathVariable Long userId,
+                                                                 @RequestParam(defaultValue = "false") boolean enabledOnly,
+                                                                 WebRequest webRequest) {
+        String etag = userRevisionTracker.etag("rules", userId, enabledOnly ? "enabled" : null);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        List<AutomationRule> rules = enabledOnly
+                ? automationRuleService.getEnabledRulesByUserId(userId)
+                : automationRuleService.getRulesByUserId(userId);
+        return ResponseEntity.ok(rules);
+    }
+
+    // 运行时级联保护的抑制计数
+    @GetMapping("/cascade")
+    public ResponseEntity<Map<String, Object>> getCascadeStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("suppressedByDepth", cascadeGuard.getSuppressedByDepth());
+        stats.put("suppressedByRate", cascadeGuard.getSuppressedByRate());
+        stats.put("activeChainMarks", cascadeGuard.getActiveChainMarks());
+        return ResponseEntity.ok(stats);
+    }
+
+
+}
\ No newline at end of file
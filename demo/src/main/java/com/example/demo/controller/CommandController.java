@@ -0,0 +1,34 @@
+package com.example.demo.controller;
+
+import com.example.demo.command.CommandAckRegistry;
+import com.example.demo.command.OfflineCommandQueue;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/commands")
+public class CommandController {
+
+    @Autowired
+    private OfflineCommandQueue offlineCommandQueue;
+
+    @Autowired
+    private CommandAckRegistry commandAckRegistry;
+
+    // 离线指令队列的内存与磁盘占用
+    @GetMapping("/offline-queue")
+    public ResponseEntity<Map<String, Object>> getOfflineQueueStats() {
+        return ResponseEntity.ok(offlineCommandQueue.getStats());
+    }
+
+    @GetMapping("/pending")
+    public ResponseEntity<Map<String, Object>> getPendingAcks() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("awaitingAck", commandAckRegistry.getPendingCount());
+        return ResponseEntity.ok(stats);
+    }
+}
@@ -1,14 +1,25 @@
 package com.example.demo.controller;
 
+import com.example.demo.command.CommandStatus;
+import com.example.demo.command.DeviceCommandRequest;
+import com.example.demo.command.DeviceCommandResult;
+import com.example.demo.command.DeviceCommandService;
 import com.example.demo.entity.Device;
+import com.example.demo.repository.FieldProjectionQuery;
+import com.example.demo.revision.UserRevisionTracker;
 import com.example.demo.service.DeviceService;
+import com.example.demo.status.DeviceTypeRegistry;
+import com.example.demo.status.StatusSchema;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/devices")
@@ -17,12 +28,32 @@ public class DeviceController {
     @Autowired
     private DeviceService deviceService;
 
+    @Autowired
+    private UserRevisionTracker userRevisionTracker;
+
+    @Autowired
+    private DeviceTypeRegistry deviceTypeRegistry;
+
+    @Autowired
+    private DeviceCommandService deviceCommandService;
+
+    // fields=deviceId,deviceName 只返回指定列；fields=summary 返回列表视图的固定列；不传则返回完整实体
     @GetMapping
-    public ResponseEntity<List<Device>> getAllDevices() {
+    public ResponseEntity<List<?>> getAllDevices(@RequestParam(required = false) String fields) {
+        List<String> selected = FieldProjectionQuery.parseFields(fields);
+        if (selected != null) {
+            return ResponseEntity.ok(deviceService.getDeviceFields(null, null, selected));
+        }
         List<Device> devices = deviceService.getAllDevices();
         return ResponseEntity.ok(devices);
     }
 
+    // 各设备类型的状态模式(字段、类型、单位、枚举取值)，设备的status对象按此解读
+    @GetMapping("/types")
+    public ResponseEntity<List<StatusSchema>> getDeviceTypes() {
+        return ResponseEntity.ok(deviceTypeRegistry.getAll());
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Device> getDeviceById(@PathVariable Long id) {
         Optional<Device> device = deviceService.getDeviceById(id);
@@ -53,15 +84,60 @@ public class DeviceController {
         return ResponseEntity.noContent().build();
     }
 
+    // 用户修订号未变化时If-None-Match直接返回304，不查询数据库
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<Device>> getDevicesByUserId(@PathVariable Long userId) {
+    public ResponseEntity<List<?>> getDevicesByUserId(@PathVariable Long userId,
+                                                      @RequestParam(required = false) String fields,
+                                                      WebRequest webRequest) {
+        List<String> selected = FieldProjectionQuery.parseFields(fields);
+        String etag = userRevisionTracker.etag("devices", userId, selected == null ? null : String.join(",", selected));
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        if (selected != null) {
+            return ResponseEntity.ok(deviceService.getDeviceFields("userId", userId, selected));
+        }
         List<Device> devices = deviceService.getDevicesByUserId(userId);
         return ResponseEntity.ok(devices);
     }
 
     @GetMapping("/area/{areaId}")
-    public ResponseEntity<List<Device>> getDevicesByAreaId(@PathVariable Long areaId) {
+    public ResponseEntity<List<?>> getDevicesByAreaId(@PathVariable Long areaId,
+                                                      @RequestParam(required = false) String fields) {
+        List<String> selected = FieldProjectionQuery.parseFields(fields);
+        if (selected != null) {
+            return ResponseEntity.ok(deviceService.getDeviceFields("areaId", areaId, selected));
+        }
         List<Device> devices = deviceService.getDevicesByAreaId(areaId);
         return ResponseEntity.ok(devices);
     }
-}
\ No newline at end of file
+
+    // 下发指令后立即释放请求线程，设备确认、发送失败或超时时再写回响应
+    @PostMapping("/{id}/control")
+    public CompletableFuture<ResponseEntity<DeviceCommandResult>> controlDevice(@PathVariable Long id,
+                                                                             @RequestParam Long userId,
+                                                                             @RequestBody DeviceCommandRequest request) {
+        if (request.getCommand() == null || request.getCommand().isBlank()) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+        CompletableFuture<DeviceCommandResult> result = deviceCommandService.send(id, userId, request);
+        if (result == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.notFound().build());
+        }
+        // 指令自身的超时先到，这里只是兜底，避免异常情况下请求一直挂起
+        return result.thenApply(commandResult -> ResponseEntity.status(toHttpStatus(commandResult.getStatus()))
+                        .body(commandResult))
+                .completeOnTimeout(ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).build(),
+                        deviceCommandService.resolveTimeout(request) + 1000, TimeUnit.MILLISECONDS);
+    }
+
+    // 设备已回应(无论成功失败)返回200，进入离线队列返回202，未回应返回504，发送失败返回502
+    private static HttpStatus toHttpStatus(CommandStatus status) {
+        return switch (status) {
+            case SUCCESS, FAILURE -> HttpStatus.OK;
+            case QUEUED -> HttpStatus.ACCEPTED;
+            case TIMEOUT -> HttpStatus.GATEWAY_TIMEOUT;
+            default -> HttpStatus.BAD_GATEWAY;
+        };
+    }
+}
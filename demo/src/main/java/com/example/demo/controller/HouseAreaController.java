@@ -0,0 +1,107 @@
+package com.example.demo.controller;
+
+import com.example.demo.command.GroupCommandRequest;
+import com.example.demo.command.GroupCommandResult;
+import com.example.demo.command.GroupCommandService;
+import com.example.demo.entity.HouseArea;
+import com.example.demo.repository.FieldProjectionQuery;
+import com.example.demo.revision.UserRevisionTracker;
+import com.example.demo.service.HouseAreaService;
+import com.example.demo.teardown.TeardownJob;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping("/api/areas")
+public class HouseAreaController {
+
+    @Autowired
+    private HouseAreaService houseAreaService;
+
+    @Autowired
+    private UserRevisionTracker userRevisionTracker;
+
+    @Autowired
+    private GroupCommandService groupCommandService;
+
+    // fields用法同设备接口，例如 fields=id,areaName
+    @GetMapping
+    public ResponseEntity<List<?>> getAllAreas(@RequestParam(required = false) String fields) {
+        List<String> selected = FieldProjectionQuery.parseFields(fields);
+        if (selected != null) {
+            return ResponseEntity.ok(houseAreaService.getAreaFields(null, selected));
+        }
+        List<HouseArea> areas = houseAreaService.getAllAreas();
+        return ResponseEntity.ok(areas);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<HouseArea> getAreaById(@PathVariable Long id) {
+        Optional<HouseArea> area = houseAreaService.getAreaById(id);
+        if (area.isPresent()) {
+            return ResponseEntity.ok(area.get());
+        } else {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @PostMapping
+    public ResponseEntity<HouseArea> createArea(@RequestBody HouseArea area) {
+        HouseArea createdArea = houseAreaService.createArea(area);
+        return ResponseEntity.status(HttpStatus.CREATED).body(createdArea);
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<HouseArea> updateArea(@PathVariable Long id, @RequestBody HouseArea area) {
+        area.setId(id);
+        HouseArea updatedArea = houseAreaService.updateArea(area);
+        return ResponseEntity.ok(updatedArea);
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<TeardownJob> deleteArea(@PathVariable Long id) {
+        TeardownJob job = houseAreaService.deleteArea(id);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.accepted().body(job);
+    }
+
+    @GetMapping("/user/{userId}")
+    public ResponseEntity<List<?>> getAreasByUserId(@PathVariable Long userId,
+                                                    @RequestParam(required = false) String fields,
+                                                    WebRequest webRequest) {
+        List<String> selected = FieldProjectionQuery.parseFields(fields);
+        String etag = userRevisionTracker.etag("areas", userId, selected == null ? null : String.join(",", selected));
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        if (selected != null) {
+            return ResponseEntity.ok(houseAreaService.getAreaFields(userId, selected));
+        }
+        List<HouseArea> areas = houseAreaService.getAreasByUserId(userId);
+        return ResponseEntity.ok(areas);
+    }
+
+    // 向区域内全部设备(或指定类型的设备)下发同一指令，等待全部确认或超时后返回汇总结果
+    @PostMapping("/{areaId}/commands")
+    public CompletableFuture<ResponseEntity<GroupCommandResult>> sendGroupCommand(@PathVariable Long areaId,
+                                                                                 @RequestParam Long userId,
+                                                                                 @RequestBody GroupCommandRequest request) {
+        if (request.getCommand() == null || request.getCommand().isBlank()) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+        CompletableFuture<GroupCommandResult> result = groupCommandService.sendToArea(areaId, userId, request);
+        if (result == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.notFound().build());
+        }
+        return result.thenApply(ResponseEntity::ok);
+    }
+}
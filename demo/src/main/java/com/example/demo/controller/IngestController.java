@@ -0,0 +1,74 @@
+package com.example.demo.controller;
+
+import com.example.demo.ingest.DeviceRateLimiter;
+import com.example.demo.ingest.DeviceStatusFilter;
+import com.example.demo.ingest.DeviceThrottleStats;
+import com.example.demo.ingest.IngestBackpressureMonitor;
+import com.example.demo.ingest.IngestExecutor;
+import com.example.demo.ingest.TenantQueueStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/ingest")
+public class IngestController {
+
+    @Autowired
+    private DeviceRateLimiter deviceRateLimiter;
+
+    @Autowired
+    private IngestExecutor ingestExecutor;
+
+    @Autowired
+    private IngestBackpressureMonitor ingestBackpressureMonitor;
+
+    @Autowired
+    private DeviceStatusFilter deviceStatusFilter;
+
+    @GetMapping("/status")
+    public ResponseEntity<Map<String, Object>> getIngestStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("queueSize", ingestExecutor.getQueueSize());
+        status.put("queueCapacity", ingestExecutor.getQueueCapacity());
+        status.put("processed", ingestExecutor.getProcessedCount());
+        status.put("rejected", ingestExecutor.getRejectedCount());
+        status.put("paused", ingestBackpressureMonitor.isPaused());
+        status.put("persisted", deviceStatusFilter.getPassedCount());
+        status.put("unchangedSkipped", deviceStatusFilter.getSkippedCount());
+        return ResponseEntity.ok(status);
+    }
+
+    // 各用户的队列积压、丢弃和排队等待，按积压降序
+    @GetMapping("/tenants")
+    public ResponseEntity<List<TenantQueueStats>> getTopTenants(@RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(ingestExecutor.getTopTenants(limit));
+    }
+
+    @GetMapping("/tenants/{userId}")
+    public ResponseEntity<TenantQueueStats> getTenantStats(@PathVariable Long userId) {
+        TenantQueueStats stats = ingestExecutor.getTenantStats(userId);
+        if (stats == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(stats);
+    }
+
+    @GetMapping("/throttled")
+    public ResponseEntity<List<DeviceThrottleStats>> getTopThrottled(@RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(deviceRateLimiter.getTopThrottled(limit));
+    }
+
+    @GetMapping("/throttled/{deviceId}")
+    public ResponseEntity<DeviceThrottleStats> getDeviceThrottleStats(@PathVariable String deviceId) {
+        DeviceThrottleStats stats = deviceRateLimiter.getStats(deviceId);
+        if (stats == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(stats);
+    }
+}
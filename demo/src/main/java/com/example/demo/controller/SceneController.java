@@ -0,0 +1,70 @@
+package com.example.demo.controller;
+
+import com.example.demo.entity.Scene;
+import com.example.demo.scene.SceneExecutionResult;
+import com.example.demo.scene.SceneExecutor;
+import com.example.demo.service.SceneService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping("/api/scenes")
+public class SceneController {
+
+    @Autowired
+    private SceneService sceneService;
+
+    @Autowired
+    private SceneExecutor sceneExecutor;
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Scene> getSceneById(@PathVariable Long id) {
+        Optional<Scene> scene = sceneService.getSceneById(id);
+        if (scene.isPresent()) {
+            return ResponseEntity.ok(scene.get());
+        } else {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @GetMapping("/user/{userId}")
+    public ResponseEntity<List<Scene>> getScenesByUserId(@PathVariable Long userId) {
+        return ResponseEntity.ok(sceneService.getScenesByUserId(userId));
+    }
+
+    @PostMapping
+    public ResponseEntity<Scene> createScene(@RequestBody Scene scene) {
+        Scene createdScene = sceneService.createScene(scene);
+        return ResponseEntity.status(HttpStatus.CREATED).body(createdScene);
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<Scene> updateScene(@PathVariable Long id, @RequestBody Scene scene) {
+        scene.setId(id);
+        Scene updatedScene = sceneService.updateScene(scene);
+        return ResponseEntity.ok(updatedScene);
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteScene(@PathVariable Long id) {
+        sceneService.deleteScene(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    // 执行场景，全部动作确认、失败或时限到达后返回各动作结果
+    @PostMapping("/{id}/execute")
+    public CompletableFuture<ResponseEntity<SceneExecutionResult>> executeScene(@PathVariable Long id,
+                                                                                @RequestParam(required = false) Long deadlineMillis) {
+        Optional<Scene> scene = sceneService.getSceneById(id);
+        if (scene.isEmpty()) {
+            return CompletableFuture.completedFuture(ResponseEntity.notFound().build());
+        }
+        return sceneExecutor.execute(scene.get(), deadlineMillis).thenApply(ResponseEntity::ok);
+    }
+}
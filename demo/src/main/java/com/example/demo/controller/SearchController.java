@@ -0,0 +1,43 @@
+package com.example.demo.controller;
+
+import com.example.demo.exception.BadRequestException;
+import com.example.demo.search.NameSearchIndex;
+import com.example.demo.search.SearchHit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+// 设备和区域名称搜索，查内存索引不查库。mode=prefix只匹配名称(或名称中某个词)的开头，
+// mode=contains匹配任意位置；kind=DEVICE/AREA和type(设备类型)用于过滤
+@RestController
+@RequestMapping("/api/search")
+public class SearchController {
+
+    private static final int MAX_LIMIT = 100;
+
+    @Autowired
+    private NameSearchIndex nameSearchIndex;
+
+    @GetMapping
+    public ResponseEntity<List<SearchHit>> search(@RequestParam Long userId,
+                                                  @RequestParam(defaultValue = "") String q,
+                                                  @RequestParam(required = false) SearchHit.Kind kind,
+                                                  @RequestParam(required = false) String type,
+                                                  @RequestParam(defaultValue = "contains") String mode,
+                                                  @RequestParam(defaultValue = "20") int limit) {
+        boolean prefixOnly;
+        if ("prefix".equals(mode)) {
+            prefixOnly = true;
+        } else if ("contains".equals(mode)) {
+            prefixOnly = false;
+        } else {
+            throw new BadRequestException("mode must be prefix or contains");
+        }
+        if (limit <= 0 || limit > MAX_LIMIT) {
+            throw new BadRequestException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        return ResponseEntity.ok(nameSearchIndex.search(userId, q, kind, type, prefixOnly, limit));
+    }
+}
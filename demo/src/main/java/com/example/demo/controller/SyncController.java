@@ -0,0 +1,29 @@
+package com.example.demo.controller;
+
+import com.example.demo.service.SyncService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/sync")
+public class SyncController {
+
+    @Autowired
+    private SyncService syncService;
+
+    // 客户端保存响应中的cursor，重连后带上since只拉取变化的设备、区域和规则
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getChanges(@RequestParam Long userId,
+                                                          @RequestParam(defaultValue = "0") long since) {
+        if (syncService.isCursorExpired(since)) {
+            // 墓碑已清理，无法保证删除不遗漏，要求客户端以since=0全量同步
+            return ResponseEntity.status(HttpStatus.GONE)
+                    .body(Map.of("error", "Cursor expired, full resync required"));
+        }
+        return ResponseEntity.ok(syncService.getChangesSince(userId, since));
+    }
+}
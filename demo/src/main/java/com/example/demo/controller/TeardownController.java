@@ -0,0 +1,45 @@
+package com.example.demo.controller;
+
+import com.example.demo.service.UserService;
+import com.example.demo.teardown.TeardownJob;
+import com.example.demo.teardown.TeardownService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/teardown")
+public class TeardownController {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TeardownService teardownService;
+
+    // 注销账号，返回202和任务信息，通过 /jobs/{jobId} 查询进度
+    @DeleteMapping("/users/{userId}")
+    public ResponseEntity<TeardownJob> deleteUser(@PathVariable Long userId) {
+        TeardownJob job = userService.deleteUser(userId);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.accepted().body(job);
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<TeardownJob> getJob(@PathVariable String jobId) {
+        TeardownJob job = teardownService.getJob(jobId);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(job);
+    }
+
+    @GetMapping("/jobs")
+    public ResponseEntity<List<TeardownJob>> getJobs() {
+        return ResponseEntity.ok(teardownService.getJobs());
+    }
+}
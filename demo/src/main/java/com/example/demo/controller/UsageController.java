@@ -0,0 +1,51 @@
+package com.example.demo.controller;
+
+import com.example.demo.usage.UsageAggregator;
+import com.example.demo.usage.UsageGranularity;
+import com.example.demo.usage.UsagePoint;
+import com.example.demo.usage.UsageScope;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+// 运行时长与能耗看板查询。from/to为毫秒时间戳，默认返回最近24个窗口
+@RestController
+@RequestMapping("/api/usage")
+public class UsageController {
+
+    @Autowired
+    private UsageAggregator usageAggregator;
+
+    @GetMapping("/devices/{id}")
+    public ResponseEntity<List<UsagePoint>> getDeviceUsage(@PathVariable Long id,
+                                                           @RequestParam(defaultValue = "HOUR") UsageGranularity granularity,
+                                                           @RequestParam(required = false) Long from,
+                                                           @RequestParam(required = false) Long to) {
+        return query(UsageScope.DEVICE, id, granularity, from, to);
+    }
+
+    @GetMapping("/areas/{id}")
+    public ResponseEntity<List<UsagePoint>> getAreaUsage(@PathVariable Long id,
+                                                         @RequestParam(defaultValue = "HOUR") UsageGranularity granularity,
+                                                         @RequestParam(required = false) Long from,
+                                                         @RequestParam(required = false) Long to) {
+        return query(UsageScope.AREA, id, granularity, from, to);
+    }
+
+    @GetMapping("/users/{id}")
+    public ResponseEntity<List<UsagePoint>> getUserUsage(@PathVariable Long id,
+                                                         @RequestParam(defaultValue = "HOUR") UsageGranularity granularity,
+                                                         @RequestParam(required = false) Long from,
+                                                         @RequestParam(required = false) Long to) {
+        return query(UsageScope.USER, id, granularity, from, to);
+    }
+
+    private ResponseEntity<List<UsagePoint>> query(UsageScope scope, Long id, UsageGranularity granularity,
+                                                   Long from, Long to) {
+        long end = to != null ? to : System.currentTimeMillis();
+        long start = from != null ? from : end - 24 * granularity.getLengthMillis();
+        return ResponseEntity.ok(usageAggregator.query(scope, id, granularity, start, end));
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.demo.datasource;
+
+// 数据库访问的负载类别，每类使用独立的连接池，互不抢占连接
+public enum Workload {
+    // 接口请求，默认类别
+    API("api-pool"),
+    // 设备上报写库
+    INGEST("ingest-pool"),
+    // 定时任务与后台清理
+    BACKGROUND("background-pool");
+
+    private final String poolName;
+
+    Workload(String poolName) {
+        this.poolName = poolName;
+    }
+
+    public String getPoolName() {
+        return poolName;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.demo.datasource;
+
+import java.util.function.Supplier;
+
+// 当前线程所属的负载类别，决定获取连接时走哪个连接池；未设置时按接口请求处理
+public final class WorkloadContext {
+
+    private static final ThreadLocal<Workload> CURRENT = new ThreadLocal<>();
+
+    private WorkloadContext() {
+    }
+
+    public static Workload current() {
+        Workload workload = CURRENT.get();
+        return workload != null ? workload : Workload.API;
+    }
+
+    // 专用线程启动时绑定一次，整个线程生命周期内有效
+    public static void bind(Workload workload) {
+        CURRENT.set(workload);
+    }
+
+    public static void run(Workload workload, Runnable task) {
+        call(workload, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    public static <T> T call(Workload workload, Supplier<T> task) {
+        Workload previous = CURRENT.get();
+        CURRENT.set(workload);
+        try {
+            return task.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.demo.datasource;
+
+import com.example.demo.config.AppProperties;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.task.ThreadPoolTaskSchedulerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import javax.sql.DataSource;
+import java.util.EnumMap;
+import java.util.Map;
+
+// 接口请求、设备上报、后台任务各用一个连接池，某一类负载打满连接时不影响其他类别
+@Configuration
+public class WorkloadDataSourceConfig {
+
+    private final DataSourceProperties dataSourceProperties;
+    private final AppProperties appProperties;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public WorkloadDataSourceConfig(DataSourceProperties dataSourceProperties, AppProperties appProperties,
+                                    ObjectProvider<MeterRegistry> meterRegistry) {
+        this.dataSourceProperties = dataSourceProperties;
+        this.appProperties = appProperties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    // spring.datasource.hikari.*作为各连接池的公共配置
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariConfig baseHikariConfig() {
+        return new HikariConfig();
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariConfig baseHikariConfig) {
+        AppProperties.DbPools config = appProperties.getDbPools();
+        Map<Workload, HikariDataSource> pools = new EnumMap<>(Workload.class);
+        pools.put(Workload.API, createPool(baseHikariConfig, Workload.API, config.getApi()));
+        pools.put(Workload.INGEST, createPool(baseHikariConfig, Workload.INGEST, config.getIngest()));
+        pools.put(Workload.BACKGROUND, createPool(baseHikariConfig, Workload.BACKGROUND, config.getBackground()));
+        return new WorkloadRoutingDataSource(pools);
+    }
+
+    // 定时任务都在调度线程上执行，统一走后台连接池
+    @Bean
+    public ThreadPoolTaskSchedulerCustomizer backgroundWorkloadSchedulerCustomizer() {
+        return scheduler -> scheduler.setTaskDecorator(task -> () -> WorkloadContext.run(Workload.BACKGROUND, task));
+    }
+
+    // 不用HikariDataSource(HikariConfig)构造：那样会在创建Bean时立即建池，数据库不可达时应用无法启动；
+    // 无参构造的连接池在第一次getConnection时才启动
+    private HikariDataSource createPool(HikariConfig base, Workload workload, AppProperties.DbPool pool) {
+        HikariDataSource dataSource = new HikariDataSource();
+        base.copyStateTo(dataSource);
+        dataSource.setJdbcUrl(dataSourceProperties.determineUrl());
+        dataSource.setUsername(dataSourceProperties.determineUsername());
+        dataSource.setPassword(dataSourceProperties.determinePassword());
+        dataSource.setDriverClassName(dataSourceProperties.determineDriverClassName());
+        dataSource.setPoolName(workload.getPoolName());
+        dataSource.setMaximumPoolSize(pool.getMaximumPoolSize());
+        dataSource.setMinimumIdle(Math.min(pool.getMinimumIdle(), pool.getMaximumPoolSize()));
+        dataSource.setConnectionTimeout(pool.getConnectionTimeoutMillis());
+        // 每个池单独上报hikaricp.connections.*指标，按pool标签区分
+        meterRegistry.ifAvailable(registry -> dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+        return dataSource;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.demo.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.io.Closeable;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+// 按当前线程的负载类别把getConnection路由到对应连接池
+public class WorkloadRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    private final Map<Workload, HikariDataSource> pools;
+
+    public WorkloadRoutingDataSource(Map<Workload, HikariDataSource> pools) {
+        for (Workload workload : Workload.values()) {
+            if (!pools.containsKey(workload)) {
+                throw new IllegalArgumentException("Missing connection pool for workload " + workload);
+            }
+        }
+        this.pools = new EnumMap<>(pools);
+        setTargetDataSources(new HashMap<>(this.pools));
+        setDefaultTargetDataSource(this.pools.get(Workload.API));
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return WorkloadContext.current();
+    }
+
+    public HikariDataSource getPool(Workload workload) {
+        return pools.get(workload);
+    }
+
+    @Override
+    public void close() {
+        pools.values().forEach(HikariDataSource::close);
+    }
+}
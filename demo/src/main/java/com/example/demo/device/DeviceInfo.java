@@ -0,0 +1,39 @@
+package com.example.demo.device;
+
+// 设备路由所需的最小信息，不含状态数据
+public class DeviceInfo {
+
+    private final Long id;
+    private final String deviceId;
+    private final String deviceType;
+    private final Long userId;
+    private final Long areaId;
+
+    public DeviceInfo(Long id, String deviceId, String deviceType, Long userId, Long areaId) {
+        this.id = id;
+        this.deviceId = deviceId;
+        this.deviceType = deviceType;
+        this.userId = userId;
+        this.areaId = areaId;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public String getDeviceType() {
+        return deviceType;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Long getAreaId() {
+        return areaId;
+    }
+}
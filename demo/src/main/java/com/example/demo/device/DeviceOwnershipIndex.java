@@ -0,0 +1,192 @@
+package com.example.demo.device;
+
+import com.example.demo.event.ChangeType;
+import com.example.demo.event.EntityChangedEvent;
+import com.example.demo.event.EntityType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+
+// 设备与区域的归属索引(主键 -> 用户ID，用户ID -> 主键集合)，用于下发指令前的权限校验。
+// 基于long专用哈希表，校验时不装箱、不查库；启动时由设备索引和区域表重建，之后靠实体变更事件维护
+@Component
+public class DeviceOwnershipIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeviceOwnershipIndex.class);
+
+    private final StampedLock lock = new StampedLock();
+    private final LongLongHashMap ownerByDevice = new LongLongHashMap(1024);
+    private final LongObjectHashMap<LongHashSet> devicesByUser = new LongObjectHashMap<>(256);
+    private final LongLongHashMap ownerByArea = new LongLongHashMap(256);
+    private final LongObjectHashMap<LongHashSet> areasByUser = new LongObjectHashMap<>(256);
+
+    // 由设备索引的内容整体重建，启动时在设备索引加载或从快照恢复后调用
+    public void rebuild(List<DeviceInfo> devices) {
+        long stamp = lock.writeLock();
+        try {
+            ownerByDevice.clear();
+            devicesByUser.clear();
+            for (DeviceInfo device : devices) {
+                if (device.getId() != null && device.getUserId() != null) {
+                    put(ownerByDevice, devicesByUser, device.getId(), device.getUserId());
+                }
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        logger.info("Indexed ownership of {} devices", devices.size());
+    }
+
+    // 行格式见HouseAreaRepository.findAllOwnerRows，启动时调用
+    public void rebuildAreas(List<Object[]> rows) {
+        long stamp = lock.writeLock();
+        try {
+            ownerByArea.clear();
+            areasByUser.clear();
+            for (Object[] row : rows) {
+                if (row[0] != null && row[1] != null) {
+                    put(ownerByArea, areasByUser, (Long) row[0], (Long) row[1]);
+                }
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        logger.info("Indexed ownership of {} areas", rows.size());
+    }
+
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.getChangeType() == ChangeType.DELETED && event.getEntityType() == EntityType.USER) {
+            // 账号批量清理不逐条发设备、区域删除事件
+            long stamp = lock.writeLock();
+            try {
+                LongHashSet devices = devicesByUser.remove(event.getEntityId());
+                if (devices != null) {
+                    devices.forEach(ownerByDevice::remove);
+                }
+                LongHashSet areas = areasByUser.remove(event.getEntityId());
+                if (areas != null) {
+                    areas.forEach(ownerByArea::remove);
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            return;
+        }
+        LongLongHashMap owners;
+        LongObjectHashMap<LongHashSet> byUser;
+        if (event.getEntityType() == EntityType.DEVICE) {
+            owners = ownerByDevice;
+            byUser = devicesByUser;
+        } else if (event.getEntityType() == EntityType.HOUSE_AREA) {
+            owners = ownerByArea;
+            byUser = areasByUser;
+        } else {
+            return;
+        }
+        if (event.getEntityId() == null || event.getChangeType() == ChangeType.STATUS) {
+            return;
+        }
+        long id = event.getEntityId();
+        long stamp = lock.writeLock();
+        try {
+            if (event.getChangeType() == ChangeType.DELETED) {
+                remove(owners, byUser, id);
+            } else if (event.getSnapshot() != null && event.getSnapshot().get("userId") instanceof Number userId) {
+                put(owners, byUser, id, userId.longValue());
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // 热路径：先乐观读，期间有写入再退回读锁
+    public boolean isOwner(long userId, long deviceId) {
+        long stamp = lock.tryOptimisticRead();
+        long owner = ownerByDevice.get(deviceId);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                owner = ownerByDevice.get(deviceId);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return owner != LongLongHashMap.NO_VALUE && owner == userId;
+    }
+
+    // 设备不存在时返回null，调用方据此区分404和403
+    public Long getOwner(long deviceId) {
+        long stamp = lock.readLock();
+        try {
+            long owner = ownerByDevice.get(deviceId);
+            return owner == LongLongHashMap.NO_VALUE ? null : owner;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // 区域不存在时返回null，调用方据此区分404和403
+    public Long getAreaOwner(long areaId) {
+        long stamp = lock.readLock();
+        try {
+            long owner = ownerByArea.get(areaId);
+            return owner == LongLongHashMap.NO_VALUE ? null : owner;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public long[] getDeviceIds(long userId) {
+        long stamp = lock.readLock();
+        try {
+            LongHashSet devices = devicesByUser.get(userId);
+            return devices == null ? new long[0] : devices.toArray();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return ownerByDevice.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private static void put(LongLongHashMap owners, LongObjectHashMap<LongHashSet> byUser, long id, long userId) {
+        long previous = owners.put(id, userId);
+        if (previous == userId) {
+            return;
+        }
+        if (previous != LongLongHashMap.NO_VALUE) {
+            removeFromUser(byUser, previous, id);
+        }
+        LongHashSet ids = byUser.get(userId);
+        if (ids == null) {
+            ids = new LongHashSet(8);
+            byUser.put(userId, ids);
+        }
+        ids.add(id);
+    }
+
+    private static void remove(LongLongHashMap owners, LongObjectHashMap<LongHashSet> byUser, long id) {
+        long previous = owners.remove(id);
+        if (previous != LongLongHashMap.NO_VALUE) {
+            removeFromUser(byUser, previous, id);
+        }
+    }
+
+    private static void removeFromUser(LongObjectHashMap<LongHashSet> byUser, long userId, long id) {
+        LongHashSet ids = byUser.get(userId);
+        if (ids != null && ids.remove(id) && ids.isEmpty()) {
+            byUser.remove(userId);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.demo.device;
+
+import com.example.demo.config.AppProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 设备在线状态：收到设备任何消息(状态、心跳、连接、响应)即视为在线，
+// 超过offlineAfterSeconds没有消息视为离线。启动后尚未收到消息的设备以启动时刻作为最后活跃时间，
+// 避免重启后把所有设备都当成离线
+@Component
+public class DevicePresence {
+
+    private final long offlineAfterMillis;
+    private final long startedAtMillis = System.currentTimeMillis();
+    private final Map<String, Long> lastSeen = new ConcurrentHashMap<>();
+
+    public DevicePresence(AppProperties appProperties) {
+        this.offlineAfterMillis = appProperties.getOfflineQueue().getOfflineAfterSeconds() * 1000L;
+    }
+
+    // 返回true表示设备此前处于离线状态，本次消息使其重新上线
+    public boolean markSeen(String deviceId) {
+        long now = System.currentTimeMillis();
+        Long previous = lastSeen.put(deviceId, now);
+        long last = previous == null ? startedAtMillis : previous;
+        return now - last > offlineAfterMillis;
+    }
+
+    public boolean isOnline(String deviceId) {
+        Long seen = lastSeen.get(deviceId);
+        long last = seen == null ? startedAtMillis : seen;
+        return System.currentTimeMillis() - last <= offlineAfterMillis;
+    }
+
+    public Map<String, Long> getLastSeen() {
+        return new HashMap<>(lastSeen);
+    }
+
+    // 从快照恢复，已有更新的记录时保留较新的时间；不早于启动时间，停机期间不计入离线判定
+    public void restore(String deviceId, long lastSeenMillis) {
+        lastSeen.merge(deviceId, Math.max(lastSeenMillis, startedAtMillis), Math::max);
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.demo.device;
+
+import com.example.demo.event.ChangeType;
+import com.example.demo.event.EntityChangedEvent;
+import com.example.demo.event.EntityType;
+import com.example.demo.repository.DeviceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 全量设备的内存索引(按设备ID和区域)，启动时加载一次(或从快照恢复)，之后靠实体变更事件维护，
+// 下发指令时解析目标设备不再查库
+@Component
+public class DeviceRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeviceRegistry.class);
+
+    @Autowired
+    private DeviceRepository deviceRepository;
+
+    private final Map<String, DeviceInfo> byDeviceId = new ConcurrentHashMap<>();
+    private final Map<Long, String> deviceIdById = new ConcurrentHashMap<>();
+    private final Map<Long, Set<String>> byArea = new ConcurrentHashMap<>();
+
+    // 启动时由DeviceStateSnapshotter在MQTT开始消费前调用；有可用快照时改为从快照恢复
+    public void load() {
+        for (Object[] row : deviceRepository.findAllIndexRows()) {
+            put(fromIndexRow(row));
+        }
+        logger.info("Loaded {} devices into registry", byDeviceId.size());
+    }
+
+    // 行格式见DeviceRepository.findAllIndexRows
+    public static DeviceInfo fromIndexRow(Object[] row) {
+        return new DeviceInfo((Long) row[0], (String) row[1], (String) row[2], (Long) row[3], (Long) row[4]);
+    }
+
+    public List<DeviceInfo> getAll() {
+        return new ArrayList<>(byDeviceId.values());
+    }
+
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.getChangeType() == ChangeType.DELETED && event.getEntityType() == EntityType.USER) {
+            // 账号批量清理不逐条发设备删除事件
+            for (DeviceInfo info : new ArrayList<>(byDeviceId.values())) {
+                if (event.getEntityId().equals(info.getUserId())) {
+                    remove(info.getId());
+                }
+            }
+            return;
+        }
+        if (event.getChangeType() == ChangeType.DELETED && event.getEntityType() == EntityType.HOUSE_AREA) {
+            // 区域删除时设备只解除归属
+            Set<String> detached = byArea.remove(event.getEntityId());
+            if (detached != null) {
+                for (String deviceId : detached) {
+                    DeviceInfo info = byDeviceId.get(deviceId);
+                    if (info != null) {
+                        put(new DeviceInfo(info.getId(), deviceId, info.getDeviceType(), info.getUserId(), null));
+                    }
+                }
+            }
+            return;
+        }
+        // 状态上报不改变索引字段
+        if (event.getEntityType() != EntityType.DEVICE || event.getChangeType() == ChangeType.STATUS) {
+            return;
+        }
+        if (event.getChangeType() == ChangeType.DELETED) {
+            remove(event.getEntityId());
+        } else if (event.getSnapshot() != null) {
+            Map<String, Object> snapshot = event.getSnapshot();
+            put(new DeviceInfo(event.getEntityId(), (String) snapshot.get("deviceId"),
+                    (String) snapshot.get("deviceType"), toLong(snapshot.get("userId")), toLong(snapshot.get("areaId"))));
+        }
+    }
+
+    public DeviceInfo get(String deviceId) {
+        return byDeviceId.get(deviceId);
+    }
+
+    public DeviceInfo getById(Long id) {
+        String deviceId = deviceIdById.get(id);
+        return deviceId != null ? byDeviceId.get(deviceId) : null;
+    }
+
+    // deviceType为空时返回区域内全部设备
+    public List<DeviceInfo> findByArea(Long areaId, String deviceType) {
+        Set<String> deviceIds = byArea.get(areaId);
+        List<DeviceInfo> devices = new ArrayList<>();
+        if (deviceIds == null) {
+            return devices;
+        }
+        for (String deviceId : deviceIds) {
+            DeviceInfo info = byDeviceId.get(deviceId);
+            if (info != null && (deviceType == null || deviceType.equals(info.getDeviceType()))) {
+                devices.add(info);
+            }
+        }
+        return devices;
+    }
+
+    public int size() {
+        return byDeviceId.size();
+    }
+
+    public synchronized void clear() {
+        byDeviceId.clear();
+        deviceIdById.clear();
+        byArea.clear();
+    }
+
+    public synchronized void put(DeviceInfo info) {
+        if (info.getDeviceId() == null) {
+            return;
+        }
+        String previousDeviceId = deviceIdById.put(info.getId(), info.getDeviceId());
+        if (previousDeviceId != null && !previousDeviceId.equals(info.getDeviceId())) {
+            removeFromArea(byDeviceId.remove(previousDeviceId));
+        }
+        DeviceInfo previous = byDeviceId.put(info.getDeviceId(), info);
+        if (previous != null && previous.getAreaId() != null && !previous.getAreaId().equals(info.getAreaId())) {
+            removeFromArea(previous);
+        }
+        if (info.getAreaId() != null) {
+            byArea.computeIfAbsent(info.getAreaId(), key -> ConcurrentHashMap.newKeySet()).add(info.getDeviceId());
+        }
+    }
+
+    public synchronized void remove(Long id) {
+        String deviceId = deviceIdById.remove(id);
+        if (deviceId != null) {
+            removeFromArea(byDeviceId.remove(deviceId));
+        }
+    }
+
+    private void removeFromArea(DeviceInfo info) {
+        if (info == null || info.getAreaId() == null) {
+            return;
+        }
+        Set<String> deviceIds = byArea.get(info.getAreaId());
+        if (deviceIds != null) {
+            deviceIds.remove(info.getDeviceId());
+        }
+    }
+
+    private Long toLong(Object value) {
+        return value instanceof Number number ? number.longValue() : null;
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.demo.device;
+
+import java.util.function.LongConsumer;
+
+// long集合，开放寻址(线性探测)，0保留为空槽标记。非线程安全，由调用方加锁
+final class LongHashSet {
+
+    private long[] slots;
+    private int size;
+
+    LongHashSet(int expectedSize) {
+        slots = new long[capacityFor(expectedSize)];
+    }
+
+    boolean contains(long value) {
+        long[] current = slots;
+        int mask = current.length - 1;
+        int slot = mix(value) & mask;
+        for (int probes = 0; probes <= mask; probes++) {
+            if (current[slot] == value) {
+                return true;
+            }
+            if (current[slot] == 0) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    boolean add(long value) {
+        if (value == 0) {
+            throw new IllegalArgumentException("Value 0 is reserved");
+        }
+        int mask = slots.length - 1;
+        int slot = mix(value) & mask;
+        while (slots[slot] != 0) {
+            if (slots[slot] == value) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = value;
+        if (++size > slots.length >> 1) {
+            rehash(slots.length << 1);
+        }
+        return true;
+    }
+
+    boolean remove(long value) {
+        int mask = slots.length - 1;
+        int slot = mix(value) & mask;
+        while (slots[slot] != 0) {
+            if (slots[slot] == value) {
+                int gap = slot;
+                int next = (gap + 1) & mask;
+                while (slots[next] != 0) {
+                    int home = mix(slots[next]) & mask;
+                    if (((next - home) & mask) >= ((next - gap) & mask)) {
+                        slots[gap] = slots[next];
+                        gap = next;
+                    }
+                    next = (next + 1) & mask;
+                }
+                slots[gap] = 0;
+                size--;
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void forEach(LongConsumer action) {
+        for (long value : slots) {
+            if (value != 0) {
+                action.accept(value);
+            }
+        }
+    }
+
+    long[] toArray() {
+        long[] values = new long[size];
+        int i = 0;
+        for (long value : slots) {
+            if (value != 0) {
+                values[i++] = value;
+            }
+        }
+        return values;
+    }
+
+    private void rehash(int capacity) {
+        long[] old = slots;
+        long[] resized = new long[capacity];
+        int mask = capacity - 1;
+        for (long value : old) {
+            if (value != 0) {
+                int slot = mix(value) & mask;
+                while (resized[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                resized[slot] = value;
+            }
+        }
+        slots = resized;
+    }
+
+    // 自增主键是连续整数，先打散再取低位，避免聚集在相邻槽位
+    static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    // 装载因子不超过0.5的2的幂容量
+    static int capacityFor(int expectedSize) {
+        int capacity = 4;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
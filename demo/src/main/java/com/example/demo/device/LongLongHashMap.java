@@ -0,0 +1,131 @@
+package com.example.demo.device;
+
+import java.util.Arrays;
+
+// long到long的开放寻址哈希表(线性探测)，键值交错存放在同一个数组中，查找不装箱、不分配对象。
+// 键0保留为空槽标记(数据库自增主键从1开始)。非线程安全，由调用方加锁；
+// 读线程可以在乐观读下调用get：表数组整体替换，读到的总是一个完整的数组
+final class LongLongHashMap {
+
+    static final long NO_VALUE = Long.MIN_VALUE;
+
+    private long[] table;
+    private int size;
+
+    LongLongHashMap(int expectedSize) {
+        table = new long[tableLength(expectedSize)];
+    }
+
+    long get(long key) {
+        long[] current = table;
+        int mask = (current.length >> 1) - 1;
+        int slot = LongHashSet.mix(key) & mask;
+        for (int probes = 0; probes <= mask; probes++) {
+            long existing = current[slot << 1];
+            if (existing == key) {
+                return current[(slot << 1) + 1];
+            }
+            if (existing == 0) {
+                return NO_VALUE;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return NO_VALUE;
+    }
+
+    // 返回旧值，不存在时返回NO_VALUE
+    long put(long key, long value) {
+        checkKey(key);
+        int mask = (table.length >> 1) - 1;
+        int slot = LongHashSet.mix(key) & mask;
+        while (true) {
+            long existing = table[slot << 1];
+            if (existing == key) {
+                long previous = table[(slot << 1) + 1];
+                table[(slot << 1) + 1] = value;
+                return previous;
+            }
+            if (existing == 0) {
+                table[slot << 1] = key;
+                table[(slot << 1) + 1] = value;
+                if (++size > (mask + 1) >> 1) {
+                    rehash((mask + 1) << 1);
+                }
+                return NO_VALUE;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    long remove(long key) {
+        int mask = (table.length >> 1) - 1;
+        int slot = LongHashSet.mix(key) & mask;
+        while (true) {
+            long existing = table[slot << 1];
+            if (existing == 0) {
+                return NO_VALUE;
+            }
+            if (existing == key) {
+                long previous = table[(slot << 1) + 1];
+                shiftBack(slot, mask);
+                size--;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        Arrays.fill(table, 0);
+        size = 0;
+    }
+
+    // 删除后把同一探测链上的后续元素前移，保持查找不中断
+    private void shiftBack(int slot, int mask) {
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (table[next << 1] != 0) {
+            int home = LongHashSet.mix(table[next << 1]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                table[gap << 1] = table[next << 1];
+                table[(gap << 1) + 1] = table[(next << 1) + 1];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        table[gap << 1] = 0;
+        table[(gap << 1) + 1] = 0;
+    }
+
+    // 新数组填好后一次性替换，乐观读线程不会看到半成品
+    private void rehash(int capacity) {
+        long[] old = table;
+        long[] resized = new long[capacity << 1];
+        int mask = capacity - 1;
+        for (int i = 0; i < old.length; i += 2) {
+            if (old[i] != 0) {
+                int slot = LongHashSet.mix(old[i]) & mask;
+                while (resized[slot << 1] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                resized[slot << 1] = old[i];
+                resized[(slot << 1) + 1] = old[i + 1];
+            }
+        }
+        table = resized;
+    }
+
+    private static int tableLength(int expectedSize) {
+        return LongHashSet.capacityFor(expectedSize) << 1;
+    }
+
+    private static void checkKey(long key) {
+        if (key == 0) {
+            throw new IllegalArgumentException("Key 0 is reserved");
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.demo.device;
+
+import java.util.Arrays;
+
+// long键到对象的开放寻址哈希表，键0保留为空槽标记。非线程安全，由调用方加锁
+final class LongObjectHashMap<V> {
+
+    private long[] keys;
+    private Object[] values;
+    private int size;
+
+    LongObjectHashMap(int expectedSize) {
+        int capacity = LongHashSet.capacityFor(expectedSize);
+        keys = new long[capacity];
+        values = new Object[capacity];
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        int mask = keys.length - 1;
+        int slot = LongHashSet.mix(key) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return (V) values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    void put(long key, V value) {
+        if (key == 0) {
+            throw new IllegalArgumentException("Key 0 is reserved");
+        }
+        int mask = keys.length - 1;
+        int slot = LongHashSet.mix(key) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > keys.length >> 1) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    V remove(long key) {
+        int mask = keys.length - 1;
+        int slot = LongHashSet.mix(key) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                V previous = (V) values[slot];
+                int gap = slot;
+                int next = (gap + 1) & mask;
+                while (keys[next] != 0) {
+                    int home = LongHashSet.mix(keys[next]) & mask;
+                    if (((next - home) & mask) >= ((next - gap) & mask)) {
+                        keys[gap] = keys[next];
+                        values[gap] = values[next];
+                        gap = next;
+                    }
+                    next = (next + 1) & mask;
+                }
+                keys[gap] = 0;
+                values[gap] = null;
+                size--;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[capacity];
+        values = new Object[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = LongHashSet.mix(oldKeys[i]) & mask;
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
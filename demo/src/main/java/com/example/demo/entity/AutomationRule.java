@@ -5,7 +5,7 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "automation_rules")
+@Table(name = "automation_rules", indexes = @Index(name = "idx_automation_rules_user_updated", columnList = "user_id, updated_at"))
 public class AutomationRule {
 
     @Id
@@ -1,11 +1,17 @@
 package com.example.demo.entity;
 
+import com.example.demo.status.DeviceStatusSerializer;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import jakarta.persistence.*;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "devices")
+@Table(name = "devices", indexes = {
+        @Index(name = "idx_devices_user_updated", columnList = "user_id, updated_at"),
+        @Index(name = "idx_devices_updated", columnList = "updated_at")
+})
 public class Device {
 
     @Id
@@ -30,6 +36,17 @@ public class Device {
     @Column(name = "status_name")
     private String statusName;
 
+    // 有状态模式的设备类型在这里保存紧凑编码的状态，接口输出时按模式解码为status对象
+    @Column(name = "status_data")
+    @JsonProperty(value = "status", access = JsonProperty.Access.READ_ONLY)
+    @JsonSerialize(using = DeviceStatusSerializer.class)
+    private byte[] statusData;
+
+    // 上报中状态模式以外的字段(JSON对象)，与status_data一起只由设备上报写入
+    @Column(name = "status_extras", columnDefinition = "json")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private String statusExtras;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
@@ -96,6 +113,22 @@ public class Device {
         this.statusName = statusName;
     }
 
+    public String getStatusExtras() {
+        return statusExtras;
+    }
+
+    public void setStatusExtras(String statusExtras) {
+        this.statusExtras = statusExtras;
+    }
+
+    public byte[] getStatusData() {
+        return statusData;
+    }
+
+    public void setStatusData(byte[] statusData) {
+        this.statusData = statusData;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -5,7 +5,7 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "house_areas")
+@Table(name = "house_areas", indexes = @Index(name = "idx_house_areas_user_updated", columnList = "user_id, updated_at"))
 public class HouseArea {
 
     @Id
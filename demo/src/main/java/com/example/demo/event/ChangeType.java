@@ -0,0 +1,9 @@
+package com.example.demo.event;
+
+public enum ChangeType {
+    CREATED,
+    UPDATED,
+    DELETED,
+    // 设备状态上报，只改了状态：快照只有deviceId和statusName(原始上报内容)，不是完整实体
+    STATUS
+}
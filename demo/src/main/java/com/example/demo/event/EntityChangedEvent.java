@@ -0,0 +1,96 @@
+package com.example.demo.event;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.Map;
+
+// 服务层对实体的一次修改，本节点同步分发，其他节点经Redis Stream按相同顺序收到
+public class EntityChangedEvent {
+
+    private EntityType entityType;
+    private ChangeType changeType;
+    private Long entityId;
+    private Long userId;
+    // 实体改归其他用户时的原所属用户，其余情况为null
+    private Long previousUserId;
+    // 修改后的实体快照(删除时为删除前的快照)，其他节点据此更新内存状态而无需回查MySQL
+    private Map<String, Object> snapshot;
+    private String originNodeId;
+    private long timestampMillis;
+    @JsonIgnore
+    private boolean remote;
+
+    public EntityChangedEvent() {}
+
+    public EntityType getEntityType() {
+        return entityType;
+    }
+
+    public void setEntityType(EntityType entityType) {
+        this.entityType = entityType;
+    }
+
+    public ChangeType getChangeType() {
+        return changeType;
+    }
+
+    public void setChangeType(ChangeType changeType) {
+        this.changeType = changeType;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public void setEntityId(Long entityId) {
+        this.entityId = entityId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getPreviousUserId() {
+        return previousUserId;
+    }
+
+    public void setPreviousUserId(Long previousUserId) {
+        this.previousUserId = previousUserId;
+    }
+
+    public Map<String, Object> getSnapshot() {
+        return snapshot;
+    }
+
+    public void setSnapshot(Map<String, Object> snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    public String getOriginNodeId() {
+        return originNodeId;
+    }
+
+    public void setOriginNodeId(String originNodeId) {
+        this.originNodeId = originNodeId;
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    public void setTimestampMillis(long timestampMillis) {
+        this.timestampMillis = timestampMillis;
+    }
+
+    public boolean isRemote() {
+        return remote;
+    }
+
+    public void setRemote(boolean remote) {
+        this.remote = remote;
+    }
+}
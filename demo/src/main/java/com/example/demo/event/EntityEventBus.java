@@ -0,0 +1,80 @@
+package com.example.demo.event;
+
+import com.example.demo.cluster.DeviceOwnership;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// 服务层修改实体后统一从这里发布事件：本节点同步分发给监听者，
+// 集群模式下再交给RedisEventStream批量写入Stream供其他节点消费
+@Component
+public class EntityEventBus {
+
+    private static final TypeReference<Map<String, Object>> SNAPSHOT_TYPE = new TypeReference<>() {};
+
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private DeviceOwnership deviceOwnership;
+
+    @Autowired
+    private ObjectProvider<RedisEventStream> redisEventStream;
+
+    public void publish(EntityType entityType, ChangeType changeType, Long entityId, Long userId, Object entity) {
+        publish(entityType, changeType, entityId, userId, null, entity);
+    }
+
+    // previousUserId不为空且与userId不同时表示实体改归了其他用户，原用户同样需要感知这次变更
+    public void publish(EntityType entityType, ChangeType changeType, Long entityId, Long userId,
+                        Long previousUserId, Object entity) {
+        Map<String, Object> snapshot = null;
+        if (entity != null) {
+            snapshot = objectMapper.convertValue(entity, SNAPSHOT_TYPE);
+            snapshot.remove("password");
+        }
+        EntityChangedEvent event = event(entityType, changeType, entityId, userId, snapshot);
+        if (previousUserId != null && !previousUserId.equals(userId)) {
+            event.setPreviousUserId(previousUserId);
+        }
+        dispatch(event);
+    }
+
+    // 设备上报路径上调用，不序列化整个实体
+    public void publishStatus(Long entityId, Long userId, String deviceId, String statusName) {
+        Map<String, Object> snapshot = new HashMap<>(4);
+        snapshot.put("deviceId", deviceId);
+        snapshot.put("statusName", statusName);
+        dispatch(event(EntityType.DEVICE, ChangeType.STATUS, entityId, userId, snapshot));
+    }
+
+    private EntityChangedEvent event(EntityType entityType, ChangeType changeType, Long entityId, Long userId,
+                                     Map<String, Object> snapshot) {
+        EntityChangedEvent event = new EntityChangedEvent();
+        event.setEntityType(entityType);
+        event.setChangeType(changeType);
+        event.setEntityId(entityId);
+        event.setUserId(userId);
+        event.setSnapshot(snapshot);
+        event.setOriginNodeId(deviceOwnership.getLocalNodeId());
+        event.setTimestampMillis(System.currentTimeMillis());
+        return event;
+    }
+
+    private void dispatch(EntityChangedEvent event) {
+        applicationEventPublisher.publishEvent(event);
+        RedisEventStream stream = redisEventStream.getIfAvailable();
+        if (stream != null) {
+            stream.enqueue(event);
+        }
+    }
+}
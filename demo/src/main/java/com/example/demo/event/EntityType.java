@@ -0,0 +1,9 @@
+package com.example.demo.event;
+
+public enum EntityType {
+    DEVICE,
+    HOUSE_AREA,
+    AUTOMATION_RULE,
+    USER,
+    SCENE
+}
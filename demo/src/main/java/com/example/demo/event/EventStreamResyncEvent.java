@@ -0,0 +1,15 @@
+package com.example.demo.event;
+
+// 断线时间超过Stream保留范围、无法完整重放时发布，监听方应丢弃内存状态重新加载
+public class EventStreamResyncEvent {
+
+    private final String lastSeenId;
+
+    public EventStreamResyncEvent(String lastSeenId) {
+        this.lastSeenId = lastSeenId;
+    }
+
+    public String getLastSeenId() {
+        return lastSeenId;
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.demo.event;
+
+import com.example.demo.cluster.DeviceOwnership;
+import com.example.demo.config.AppProperties;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+// 事件总线的Redis Stream传输：
+// - 写入：本地事件先入队，按批写成一条Stream记录，减少Redis往返
+// - 读取：单个Stream保证全局顺序，因此同一实体的事件在各节点按相同顺序应用
+// - 重放：记住最后读到的记录ID，短暂断线后从该ID继续读；若期间记录已被裁剪则发布重新同步事件
+@Component
+@ConditionalOnProperty(prefix = "app.cluster", name = "enabled", havingValue = "true")
+public class RedisEventStream {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisEventStream.class);
+
+    static final String STREAM_KEY = "smart-home:events";
+    private static final TypeReference<List<EntityChangedEvent>> BATCH_TYPE = new TypeReference<>() {};
+
+    @Autowired
+    private AppProperties appProperties;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private DeviceOwnership deviceOwnership;
+
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    // 入队、取批和失败放回都在pending的锁内完成，Redis写入在锁外
+    private final ArrayDeque<EntityChangedEvent> pending = new ArrayDeque<>();
+    private volatile String lastId;
+    private volatile boolean running;
+    private Thread consumer;
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        consumer = new Thread(this::consumeLoop, "event-stream-consumer");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        flush();
+        if (consumer != null) {
+            consumer.interrupt();
+        }
+    }
+
+    void enqueue(EntityChangedEvent event) {
+        synchronized (pending) {
+            if (pending.size() >= appProperties.getEvents().getMaxPendingEvents()) {
+                pending.pollFirst();
+                logger.warn("Event bus backlog full, dropping oldest pending event");
+            }
+            pending.addLast(event);
+        }
+    }
+
+    int getPendingCount() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    // 同一时刻只有一个线程在写，保证批次按入队顺序进入Stream
+    @Scheduled(fixedDelayString = "${app.events.flush-interval-millis:20}")
+    public synchronized void flush() {
+        int batchSize = appProperties.getEvents().getBatchSize();
+        while (true) {
+            List<EntityChangedEvent> batch = new ArrayList<>(batchSize);
+            synchronized (pending) {
+                EntityChangedEvent event;
+                while (batch.size() < batchSize && (event = pending.pollFirst()) != null) {
+                    batch.add(event);
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                String json = objectMapper.writeValueAsString(batch);
+                redisTemplate.opsForStream().add(StreamRecords.string(Collections.singletonMap("events", json))
+                        .withStreamKey(STREAM_KEY));
+            } catch (Exception e) {
+                requeue(batch);
+                logger.warn("Failed to publish {} events to Redis: {}", batch.size(), e.getMessage());
+                return;
+            }
+        }
+    }
+
+    // 写入失败时按原顺序放回队首，下次重试；放回后超出上限时同样丢弃最旧的
+    private void requeue(List<EntityChangedEvent> batch) {
+        synchronized (pending) {
+            for (int i = batch.size() - 1; i >= 0; i--) {
+                pending.addFirst(batch.get(i));
+            }
+            int max = appProperties.getEvents().getMaxPendingEvents();
+            while (pending.size() > max) {
+                pending.pollFirst();
+            }
+        }
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void trim() {
+        try {
+            redisTemplate.opsForStream().trim(STREAM_KEY, appProperties.getEvents().getStreamMaxLength(), true);
+        } catch (Exception e) {
+            logger.warn("Failed to trim event stream: {}", e.getMessage());
+        }
+    }
+
+    private void consumeLoop() {
+        boolean disconnected = false;
+        while (running) {
+            try {
+                if (lastId == null) {
+                    lastId = latestId();
+                }
+                if (disconnected) {
+                    checkGap();
+                    disconnected = false;
+                }
+                List<MapRecord<String, Object, Object>> records = redisTemplate.opsForStream().read(
+                        StreamReadOptions.empty().count(100),
+                        StreamOffset.create(STREAM_KEY, ReadOffset.from(lastId)));
+                if (records == null || records.isEmpty()) {
+                    Thread.sleep(appProperties.getEvents().getPollIntervalMillis());
+                    continue;
+                }
+                for (MapRecord<String, Object, Object> record : records) {
+                    dispatch(record.getValue());
+                    lastId = record.getId().getValue();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                if (!disconnected) {
+                    logger.warn("Event stream read failed, will replay from {} after reconnect: {}", lastId, e.getMessage());
+                }
+                disconnected = true;
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void dispatch(Map<Object, Object> value) throws Exception {
+        Object json = value.get("events");
+        if (json == null) {
+            return;
+        }
+        String localNodeId = deviceOwnership.getLocalNodeId();
+        for (EntityChangedEvent event : objectMapper.readValue(json.toString(), BATCH_TYPE)) {
+            // 本节点的事件发布时已经同步分发过
+            if (localNodeId.equals(event.getOriginNodeId())) {
+                continue;
+            }
+            event.setRemote(true);
+            applicationEventPublisher.publishEvent(event);
+        }
+    }
+
+    private String latestId() {
+        List<MapRecord<String, Object, Object>> latest = redisTemplate.opsForStream()
+                .reverseRange(STREAM_KEY, Range.unbounded(), Limit.limit().count(1));
+        return latest == null || latest.isEmpty() ? "0-0" : latest.get(0).getId().getValue();
+    }
+
+    private void checkGap() {
+        List<MapRecord<String, Object, Object>> first = redisTemplate.opsForStream()
+                .range(STREAM_KEY, Range.unbounded(), Limit.limit().count(1));
+        if (first != null && !first.isEmpty() && compareIds(first.get(0).getId().getValue(), lastId) > 0
+                && !"0-0".equals(lastId)) {
+            logger.warn("Event stream trimmed past {}, requesting full resync", lastId);
+            applicationEventPublisher.publishEvent(new EventStreamResyncEvent(lastId));
+        }
+    }
+
+    private static int compareIds(String a, String b) {
+        String[] pa = a.split("-");
+        String[] pb = b.split("-");
+        int cmp = Long.compare(Long.parseLong(pa[0]), Long.parseLong(pb[0]));
+        return cmp != 0 ? cmp : Long.compare(Long.parseLong(pa[1]), Long.parseLong(pb[1]));
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.demo.exception;
+
+// 请求参数或请求体不合法，由ApiExceptionHandler统一转成400；
+// 其他位置抛出的IllegalArgumentException属于程序错误，不会被当成客户端错误返回
+public class BadRequestException extends RuntimeException {
+
+    public BadRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.demo.ingest;
+
+import com.example.demo.cluster.DeviceOwnership;
+import com.example.demo.cluster.OwnershipChangedEvent;
+import com.example.demo.config.AppProperties;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+// 按设备的令牌桶限流，桶按设备ID哈希分段加锁，避免全局锁竞争
+@Component
+public class DeviceRateLimiter {
+
+    private final AppProperties appProperties;
+    private final DeviceOwnership deviceOwnership;
+    private final Stripe[] stripes;
+
+    public DeviceRateLimiter(AppProperties appProperties, DeviceOwnership deviceOwnership) {
+        this.appProperties = appProperties;
+        this.deviceOwnership = deviceOwnership;
+        int count = Math.max(1, appProperties.getIngest().getLimiterStripes());
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    // deviceType取设备注册时的类型，不能用上报内容里的device_type，否则设备可以自选更宽松的限额；
+    // 未注册的设备传null，按默认限额
+    public boolean tryAcquire(String deviceId, String deviceType) {
+        long now = System.nanoTime();
+        Stripe stripe = stripeFor(deviceId);
+        synchronized (stripe) {
+            Bucket bucket = stripe.buckets.get(deviceId);
+            // 设备注册或改了类型后按新类型的限额重建
+            if (bucket == null || !Objects.equals(bucket.deviceType, deviceType)) {
+                AppProperties.RateLimit limit = limitFor(deviceType);
+                bucket = new Bucket(deviceType, limit.getRatePerSecond(), limit.getBurst(), now);
+                stripe.buckets.put(deviceId, bucket);
+            }
+            return bucket.tryTake(now);
+        }
+    }
+
+    // 已通过限流但因下游队列满被丢弃
+    public void recordDropped(String deviceId) {
+        Stripe stripe = stripeFor(deviceId);
+        synchronized (stripe) {
+            Bucket bucket = stripe.buckets.get(deviceId);
+            if (bucket != null) {
+                bucket.dropped++;
+            }
+        }
+    }
+
+    public DeviceThrottleStats getStats(String deviceId) {
+        Stripe stripe = stripeFor(deviceId);
+        synchronized (stripe) {
+            Bucket bucket = stripe.buckets.get(deviceId);
+            return bucket == null ? null : bucket.toStats(deviceId);
+        }
+    }
+
+    // 按被限流+丢弃次数降序返回最多limit台设备
+    public List<DeviceThrottleStats> getTopThrottled(int limit) {
+        List<DeviceThrottleStats> result = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.buckets.forEach((deviceId, bucket) -> {
+                    if (bucket.throttled > 0 || bucket.dropped > 0) {
+                        result.add(bucket.toStats(deviceId));
+                    }
+                });
+            }
+        }
+        result.sort(Comparator.comparingLong((DeviceThrottleStats s) -> s.getThrottled() + s.getDropped()).reversed());
+        return result.size() > limit ? result.subList(0, limit) : result;
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void evictIdleBuckets() {
+        long idleNanos = appProperties.getIngest().getIdleEvictMinutes() * 60_000_000_000L;
+        long now = System.nanoTime();
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                Iterator<Bucket> it = stripe.buckets.values().iterator();
+                while (it.hasNext()) {
+                    if (now - it.next().lastSeenNanos > idleNanos) {
+                        it.remove();
+                    }
+                }
+            }
+        }
+    }
+
+    @EventListener
+    public void onOwnershipChanged(OwnershipChangedEvent event) {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.buckets.keySet().removeIf(deviceId -> !deviceOwnership.isLocal(deviceId));
+            }
+        }
+    }
+
+    private Stripe stripeFor(String deviceId) {
+        int h = deviceId.hashCode();
+        h ^= (h >>> 16);
+        return stripes[Math.floorMod(h, stripes.length)];
+    }
+
+    private AppProperties.RateLimit limitFor(String deviceType) {
+        AppProperties.Ingest ingest = appProperties.getIngest();
+        AppProperties.RateLimit limit = deviceType == null ? null : ingest.getRateLimits().get(deviceType);
+        if (limit == null) {
+            limit = new AppProperties.RateLimit();
+            limit.setRatePerSecond(ingest.getDefaultRatePerSecond());
+            limit.setBurst(ingest.getDefaultBurst());
+        }
+        return limit;
+    }
+
+    private static final class Stripe {
+        private final Map<String, Bucket> buckets = new HashMap<>();
+    }
+
+    private static final class Bucket {
+        private final String deviceType;
+        private final double tokensPerNano;
+        private final double capacity;
+        private double tokens;
+        private long lastRefillNanos;
+        private long lastSeenNanos;
+        private long accepted;
+        private long throttled;
+        private long dropped;
+
+        Bucket(String deviceType, double ratePerSecond, int burst, long now) {
+            this.deviceType = deviceType;
+            this.tokensPerNano = ratePerSecond / 1_000_000_000.0;
+            this.capacity = Math.max(1, burst);
+            this.tokens = capacity;
+            this.lastRefillNanos = now;
+            this.lastSeenNanos = now;
+        }
+
+        boolean tryTake(long now) {
+            tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * tokensPerNano);
+            lastRefillNanos = now;
+            lastSeenNanos = now;
+            if (tokens >= 1.0) {
+                tokens -= 1.0;
+                accepted++;
+                return true;
+            }
+            throttled++;
+            return false;
+        }
+
+        DeviceThrottleStats toStats(String deviceId) {
+            return new DeviceThrottleStats(deviceId, deviceType, accepted, throttled, dropped);
+        }
+    }
+}
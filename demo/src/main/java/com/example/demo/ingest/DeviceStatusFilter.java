@@ -0,0 +1,252 @@
+package com.example.demo.ingest;
+
+import com.example.demo.cluster.DeviceOwnership;
+import com.example.demo.cluster.OwnershipChangedEvent;
+import com.example.demo.config.AppProperties;
+import com.example.demo.event.ChangeType;
+import com.example.demo.event.EntityChangedEvent;
+import com.example.demo.event.EntityType;
+import com.example.demo.status.DeviceState;
+import com.example.demo.status.StatusField;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 写库前的变化检测：与该设备上次写库的状态比较，未变化或仅在死区内抖动的上报直接跳过，
+// 但距上次写库超过保活间隔时仍然写一次(新上报到达时，或由定时任务补写最近一条被跳过的上报)
+@Component
+public class DeviceStatusFilter {
+
+    @Autowired
+    private AppProperties appProperties;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private DeviceOwnership deviceOwnership;
+
+    private final Map<String, PersistedState> lastPersisted = new ConcurrentHashMap<>();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong passed = new AtomicLong();
+
+    // 判断与登记在同一个原子操作里完成：返回true时本条上报已成为新的写库基准，同一设备并发处理的
+    // 其他上报会与它比较，不会重复写库，也不会被较早的上报覆盖回去；写库失败时调用release撤销
+    public boolean shouldPersist(DeviceStatusReport report) {
+        boolean[] persist = new boolean[1];
+        lastPersisted.compute(report.getDeviceId(), (deviceId, last) -> {
+            persist[0] = decide(last, report);
+            if (persist[0]) {
+                return baseline(report);
+            }
+            // 早于当前基准的上报已过时，不作为保活候选
+            if (report.getReceivedAtMillis() < last.persistedAtMillis
+                    || (last.skipped != null && report.getReceivedAtMillis() < last.skipped.getReceivedAtMillis())) {
+                return last;
+            }
+            return last.withSkipped(report);
+        });
+        (persist[0] ? passed : skipped).incrementAndGet();
+        return persist[0];
+    }
+
+    // 写库失败：仍是本条上报登记的基准时撤销，下一条上报会重新写库
+    public void release(DeviceStatusReport report) {
+        lastPersisted.computeIfPresent(report.getDeviceId(), (deviceId, last) -> last.source == report ? null : last);
+    }
+
+    // 被跳过写库之后设备不再上报时，保活写入不能等下一条上报：取出距上次写库已超过保活间隔、
+    // 期间有被跳过上报的设备，把最近一条登记为新基准后返回给调用方写库
+    public List<DeviceStatusReport> claimKeepAlive(long nowMillis) {
+        long keepAliveMillis = appProperties.getIngest().getKeepAliveMinutes() * 60_000L;
+        List<DeviceStatusReport> due = new ArrayList<>();
+        for (String deviceId : lastPersisted.keySet()) {
+            lastPersisted.computeIfPresent(deviceId, (key, last) -> {
+                if (last.skipped == null || nowMillis - last.persistedAtMillis < keepAliveMillis) {
+                    return last;
+                }
+                due.add(last.skipped);
+                return baseline(last.skipped);
+            });
+        }
+        passed.addAndGet(due.size());
+        return due;
+    }
+
+    private boolean decide(PersistedState last, DeviceStatusReport report) {
+        if (last == null) {
+            return true;
+        }
+        if (report.getReceivedAtMillis() < last.persistedAtMillis) {
+            return false;
+        }
+        long keepAliveMillis = appProperties.getIngest().getKeepAliveMinutes() * 60_000L;
+        if (report.getReceivedAtMillis() - last.persistedAtMillis >= keepAliveMillis) {
+            return true;
+        }
+        DeviceState typed = report.getState();
+        if (typed != null && last.typed != null && last.typed.getSchema() == typed.getSchema()) {
+            return changed(last.typed, typed, deadbandsFor(typed.getSchema().getDeviceType()));
+        }
+        JsonNode current = parse(report.getData());
+        if (current == null || last.state == null) {
+            return !report.getData().equals(last.raw);
+        }
+        return changed(last.state, current, "", deadbandsFor(report.getDeviceType()));
+    }
+
+    // 只有真正写库的上报才成为基准，死区内的小幅漂移不会累积成看不见的大变化；
+    // 已按模式解码的上报直接比较槽位，不再保留JSON树
+    private PersistedState baseline(DeviceStatusReport report) {
+        JsonNode state = report.getState() == null ? parse(report.getData()) : null;
+        return new PersistedState(report.getData(), state, report.getState(), report.getReceivedAtMillis(), report, null);
+    }
+
+    // 遍历已按模式解码的写库基准，供快照保存；原始字符串基准不进快照
+    public void forEachTypedBaseline(BaselineVisitor visitor) {
+        for (Map.Entry<String, PersistedState> entry : lastPersisted.entrySet()) {
+            PersistedState state = entry.getValue();
+            if (state.typed != null) {
+                visitor.visit(entry.getKey(), state.typed, state.persistedAtMillis);
+            }
+        }
+    }
+
+    // 从快照恢复基准，重启后未变化的上报不会全部重新写库
+    public void restoreBaseline(String deviceId, DeviceState state, long persistedAtMillis) {
+        lastPersisted.putIfAbsent(deviceId, new PersistedState(null, null, state, persistedAtMillis, null, null));
+    }
+
+    public void forget(String deviceId) {
+        lastPersisted.remove(deviceId);
+    }
+
+    // 重平衡后移交给其他节点的设备不再保留基准状态
+    @EventListener
+    public void onOwnershipChanged(OwnershipChangedEvent event) {
+        lastPersisted.keySet().removeIf(deviceId -> !deviceOwnership.isLocal(deviceId));
+    }
+
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.getEntityType() == EntityType.DEVICE && event.getChangeType() == ChangeType.DELETED
+                && event.getSnapshot() != null) {
+            Object deviceId = event.getSnapshot().get("deviceId");
+            if (deviceId != null) {
+                forget(deviceId.toString());
+            }
+        }
+    }
+
+    public long getSkippedCount() {
+        return skipped.get();
+    }
+
+    public long getPassedCount() {
+        return passed.get();
+    }
+
+    private boolean changed(DeviceState previous, DeviceState current, Map<String, Double> deadbands) {
+        if (!Objects.equals(previous.getExtras(), current.getExtras())) {
+            return true;
+        }
+        for (StatusField field : current.getSchema().getFields()) {
+            boolean present = current.isPresent(field);
+            if (present != previous.isPresent(field)) {
+                return true;
+            }
+            if (!present) {
+                continue;
+            }
+            if (!field.isNumeric()) {
+                if (current.getOrdinal(field) != previous.getOrdinal(field)) {
+                    return true;
+                }
+                continue;
+            }
+            double delta = Math.abs(current.getNumber(field) - previous.getNumber(field));
+            Double deadband = deadbands.get(field.getName());
+            if (deadband != null ? delta >= deadband : delta != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean changed(JsonNode previous, JsonNode current, String path, Map<String, Double> deadbands) {
+        if (previous.isNumber() && current.isNumber()) {
+            Double deadband = deadbands.get(path);
+            if (deadband != null) {
+                return Math.abs(current.asDouble() - previous.asDouble()) >= deadband;
+            }
+            return current.asDouble() != previous.asDouble();
+        }
+        if (previous.isObject() && current.isObject()) {
+            if (previous.size() != current.size()) {
+                return true;
+            }
+            for (Map.Entry<String, JsonNode> field : current.properties()) {
+                JsonNode old = previous.get(field.getKey());
+                String childPath = path.isEmpty() ? field.getKey() : path + "." + field.getKey();
+                if (old == null || changed(old, field.getValue(), childPath, deadbands)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return !previous.equals(current);
+    }
+
+    private Map<String, Double> deadbandsFor(String deviceType) {
+        Map<String, Double> deadbands = deviceType == null ? null
+                : appProperties.getIngest().getDeadbands().get(deviceType);
+        return deadbands == null ? Collections.emptyMap() : deadbands;
+    }
+
+    private JsonNode parse(String data) {
+        try {
+            return objectMapper.readTree(data);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static final class PersistedState {
+        private final String raw;
+        private final JsonNode state;
+        private final DeviceState typed;
+        private final long persistedAtMillis;
+        // 登记本基准的上报，release时据此判断基准是否已被更新的上报替换
+        private final DeviceStatusReport source;
+        // 基准之后最近一条被跳过写库的上报，保活写入时使用
+        private final DeviceStatusReport skipped;
+
+        PersistedState(String raw, JsonNode state, DeviceState typed, long persistedAtMillis,
+                       DeviceStatusReport source, DeviceStatusReport skipped) {
+            this.raw = raw;
+            this.state = state;
+            this.typed = typed;
+            this.persistedAtMillis = persistedAtMillis;
+            this.source = source;
+            this.skipped = skipped;
+        }
+
+        PersistedState withSkipped(DeviceStatusReport report) {
+            return new PersistedState(raw, state, typed, persistedAtMillis, source, report);
+        }
+    }
+
+    public interface BaselineVisitor {
+        void visit(String deviceId, DeviceState state, long persistedAtMillis);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.demo.ingest;
+
+import com.example.demo.datasource.Workload;
+import com.example.demo.datasource.WorkloadContext;
+import com.example.demo.rule.RuleEngine;
+import com.example.demo.service.DeviceService;
+import com.example.demo.usage.UsageAggregator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+// 工作线程中处理单条设备上报
+@Component
+public class DeviceStatusProcessor {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeviceStatusProcessor.class);
+
+    @Autowired
+    private DeviceService deviceService;
+
+    @Autowired
+    private DeviceStatusFilter deviceStatusFilter;
+
+    @Autowired
+    private RuleEngine ruleEngine;
+
+    @Autowired
+    private UsageAggregator usageAggregator;
+
+    public void process(DeviceStatusReport report) {
+        try {
+            // 规则对每次上报都评估，死区内被跳过写库的上报也可能越过阈值
+            ruleEngine.evaluate(report);
+            usageAggregator.onStatus(report);
+            if (deviceStatusFilter.shouldPersist(report)) {
+                persist(report);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to process status report from device {}", report.getDeviceId(), e);
+        }
+    }
+
+    // 距上次写库超过保活间隔、之后的上报都被跳过的设备，补写最近一条
+    @Scheduled(fixedDelay = 60000)
+    public void persistKeepAlive() {
+        WorkloadContext.run(Workload.INGEST, () -> {
+            for (DeviceStatusReport report : deviceStatusFilter.claimKeepAlive(System.currentTimeMillis())) {
+                try {
+                    persist(report);
+                } catch (Exception e) {
+                    logger.warn("Failed to persist keep-alive status for device {}: {}", report.getDeviceId(),
+                            e.getMessage());
+                }
+            }
+        });
+    }
+
+    private void persist(DeviceStatusReport report) {
+        try {
+            deviceService.updateDeviceStatus(report.getDeviceId(), report.getData(), report.getState());
+        } catch (RuntimeException e) {
+            deviceStatusFilter.release(report);
+            throw e;
+        }
+    }
+}
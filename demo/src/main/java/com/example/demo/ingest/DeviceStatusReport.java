@@ -0,0 +1,42 @@
+package com.example.demo.ingest;
+
+import com.example.demo.status.DeviceState;
+
+// 从MQTT状态消息中解析出的一次设备上报
+public class DeviceStatusReport {
+
+    private final String deviceId;
+    private final String deviceType;
+    private final String data;
+    private final DeviceState state;
+    private final long receivedAtMillis;
+
+    // state为按设备类型模式解码后的状态，没有模式的设备类型为null
+    public DeviceStatusReport(String deviceId, String deviceType, String data, DeviceState state, long receivedAtMillis) {
+        this.deviceId = deviceId;
+        this.deviceType = deviceType;
+        this.data = data;
+        this.state = state;
+        this.receivedAtMillis = receivedAtMillis;
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public String getDeviceType() {
+        return deviceType;
+    }
+
+    public String getData() {
+        return data;
+    }
+
+    public DeviceState getState() {
+        return state;
+    }
+
+    public long getReceivedAtMillis() {
+        return receivedAtMillis;
+    }
+}
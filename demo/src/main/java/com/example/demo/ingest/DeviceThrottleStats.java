@@ -0,0 +1,38 @@
+package com.example.demo.ingest;
+
+public class DeviceThrottleStats {
+
+    private final String deviceId;
+    private final String deviceType;
+    private final long accepted;
+    private final long throttled;
+    private final long dropped;
+
+    public DeviceThrottleStats(String deviceId, String deviceType, long accepted, long throttled, long dropped) {
+        this.deviceId = deviceId;
+        this.deviceType = deviceType;
+        this.accepted = accepted;
+        this.throttled = throttled;
+        this.dropped = dropped;
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public String getDeviceType() {
+        return deviceType;
+    }
+
+    public long getAccepted() {
+        return accepted;
+    }
+
+    public long getThrottled() {
+        return throttled;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+}
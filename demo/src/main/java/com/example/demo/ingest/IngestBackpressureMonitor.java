@@ -0,0 +1,54 @@
+package com.example.demo.ingest;
+
+import com.example.demo.config.AppProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.Lifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+// 下游队列积压时停止MQTT入站适配器，让消息留在Broker(QoS1持久会话)而不是堆在JVM内存里
+// 注意：Paho不允许在回调线程内断开连接，所以暂停/恢复放在定时线程里做
+@Component
+public class IngestBackpressureMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(IngestBackpressureMonitor.class);
+
+    @Autowired
+    private AppProperties appProperties;
+
+    @Autowired
+    private IngestExecutor ingestExecutor;
+
+    @Autowired
+    @Qualifier("mqttInbound")
+    private Lifecycle mqttInbound;
+
+    private volatile boolean paused;
+    private boolean resumeInbound;
+
+    @Scheduled(fixedDelay = 200)
+    public void check() {
+        double utilization = ingestExecutor.getUtilization();
+        AppProperties.Ingest ingest = appProperties.getIngest();
+        if (!paused && utilization >= ingest.getPauseWatermark()) {
+            paused = true;
+            // 只恢复暂停前确实在运行的适配器
+            resumeInbound = mqttInbound.isRunning();
+            mqttInbound.stop();
+            logger.warn("Ingest queue at {}%, pausing MQTT consumption", Math.round(utilization * 100));
+        } else if (paused && utilization <= ingest.getResumeWatermark()) {
+            paused = false;
+            if (resumeInbound) {
+                mqttInbound.start();
+            }
+            logger.info("Ingest queue drained to {}%, resuming MQTT consumption", Math.round(utilization * 100));
+        }
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+}
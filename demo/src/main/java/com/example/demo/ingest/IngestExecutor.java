@@ -0,0 +1,137 @@
+package com.example.demo.ingest;
+
+import com.example.demo.config.AppProperties;
+import com.example.demo.datasource.Workload;
+import com.example.demo.datasource.WorkloadContext;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 有界队列+固定工作线程，队列满时由调用方决定丢弃，不会无限缓冲。
+// 队列按用户分开、加权轮询出队，规则评估也在工作线程中完成，因此大租户突发时小租户的自动化延迟不受影响
+@Component
+public class IngestExecutor {
+
+    // 未登记设备的上报归入该租户
+    public static final long UNASSIGNED_TENANT = 0L;
+
+    @Autowired
+    private AppProperties appProperties;
+
+    @Autowired
+    private DeviceStatusProcessor deviceStatusProcessor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private TenantFairQueue<DeviceStatusReport> queue;
+    private Timer queueWait;
+    private final List<Thread> workers = new ArrayList<>();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        AppProperties.Ingest ingest = appProperties.getIngest();
+        queue = new TenantFairQueue<>(ingest.getQueueCapacity(), ingest.getTenantQueueCapacity(), this::weightOf);
+        queueWait = Timer.builder("ingest.queue.wait")
+                .description("Time status reports spend queued before a worker picks them up")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("ingest.queue.active.tenants", queue, TenantFairQueue::activeTenants).register(meterRegistry);
+        Gauge.builder("ingest.queue.size", queue, TenantFairQueue::size).register(meterRegistry);
+        running = true;
+        for (int i = 0; i < ingest.getWorkerThreads(); i++) {
+            Thread worker = new Thread(this::runWorker, "ingest-worker-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+    }
+
+    public boolean submit(Long userId, DeviceStatusReport report) {
+        try {
+            boolean accepted = queue.offer(userId != null ? userId : UNASSIGNED_TENANT, report,
+                    appProperties.getIngest().getOfferTimeoutMillis(), TimeUnit.MILLISECONDS);
+            if (!accepted) {
+                rejected.incrementAndGet();
+            }
+            return accepted;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            rejected.incrementAndGet();
+            return false;
+        }
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    public int getQueueCapacity() {
+        return appProperties.getIngest().getQueueCapacity();
+    }
+
+    public double getUtilization() {
+        return (double) queue.size() / getQueueCapacity();
+    }
+
+    public long getProcessedCount() {
+        return processed.get();
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    public List<TenantQueueStats> getTopTenants(int limit) {
+        return queue.getTopTenants(limit);
+    }
+
+    public TenantQueueStats getTenantStats(long userId) {
+        return queue.getTenant(userId);
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void evictIdleTenants() {
+        queue.evictIdle(TimeUnit.MINUTES.toNanos(appProperties.getIngest().getIdleEvictMinutes()));
+    }
+
+    private int weightOf(long userId) {
+        AppProperties.Ingest ingest = appProperties.getIngest();
+        Integer weight = ingest.getTenantWeights().get(String.valueOf(userId));
+        return weight != null ? weight : ingest.getDefaultTenantWeight();
+    }
+
+    private void runWorker() {
+        WorkloadContext.bind(Workload.INGEST);
+        while (running) {
+            try {
+                TenantFairQueue.Entry<DeviceStatusReport> entry = queue.take();
+                queueWait.record(System.nanoTime() - entry.enqueuedAtNanos, TimeUnit.NANOSECONDS);
+                deviceStatusProcessor.process(entry.item);
+                processed.incrementAndGet();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.demo.ingest;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongToIntFunction;
+
+// 按租户(user_id)分队列的有界阻塞队列。出队按差额轮询(DRR)：每个有积压的租户轮到时获得与权重相同的出队额度，
+// 用完后排到队尾，因此大租户积压再多也只占自己那份处理能力，小租户的上报最多等一轮。
+// 除总容量外每个租户还有单独上限，大租户突发时先丢它自己的上报，不会占满总队列触发整体背压
+class TenantFairQueue<T> {
+
+    // EWMA平滑系数，约等于最近10次出队的平均等待
+    private static final double WAIT_ALPHA = 0.2;
+
+    private final int capacity;
+    private final int tenantCapacity;
+    private final LongToIntFunction weights;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final Map<Long, Tenant<T>> tenants = new HashMap<>();
+    // 有积压的租户，队头为当前轮到的租户
+    private final ArrayDeque<Tenant<T>> active = new ArrayDeque<>();
+    private int size;
+
+    TenantFairQueue(int capacity, int tenantCapacity, LongToIntFunction weights) {
+        this.capacity = capacity;
+        this.tenantCapacity = tenantCapacity;
+        this.weights = weights;
+    }
+
+    // 租户已达上限时立即拒绝；总队列满时最多等待timeout
+    boolean offer(long tenantId, T item, long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            Tenant<T> tenant = tenants.computeIfAbsent(tenantId,
+                    key -> new Tenant<>(key, Math.max(1, weights.applyAsInt(key))));
+            while (tenant.items.size() < tenantCapacity && size >= capacity) {
+                if (nanos <= 0) {
+                    tenant.dropped++;
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            if (tenant.items.size() >= tenantCapacity) {
+                tenant.dropped++;
+                return false;
+            }
+            long now = System.nanoTime();
+            if (tenant.items.isEmpty()) {
+                active.addLast(tenant);
+            }
+            tenant.items.addLast(new Entry<>(item, now));
+            tenant.enqueued++;
+            tenant.lastActiveNanos = now;
+            size++;
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 返回的条目带入队时间，调用方据此记录排队等待
+    Entry<T> take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (size == 0) {
+                notEmpty.await();
+            }
+            Tenant<T> tenant = active.peekFirst();
+            if (tenant.deficit <= 0) {
+                // 新一轮开始
+                tenant.deficit += tenant.weight;
+            }
+            Entry<T> entry = tenant.items.pollFirst();
+            tenant.deficit--;
+            size--;
+            if (tenant.items.isEmpty()) {
+                active.pollFirst();
+                tenant.deficit = 0;
+            } else if (tenant.deficit <= 0) {
+                active.addLast(active.pollFirst());
+            }
+            long waitNanos = System.nanoTime() - entry.enqueuedAtNanos;
+            tenant.dequeued++;
+            tenant.ewmaWaitNanos = tenant.dequeued == 1 ? waitNanos
+                    : tenant.ewmaWaitNanos + WAIT_ALPHA * (waitNanos - tenant.ewmaWaitNanos);
+            tenant.maxWaitNanos = Math.max(tenant.maxWaitNanos, waitNanos);
+            notFull.signal();
+            return entry;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int activeTenants() {
+        lock.lock();
+        try {
+            return active.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 清理队列为空且长时间无上报的租户统计
+    void evictIdle(long idleNanos) {
+        long now = System.nanoTime();
+        lock.lock();
+        try {
+            Iterator<Tenant<T>> it = tenants.values().iterator();
+            while (it.hasNext()) {
+                Tenant<T> tenant = it.next();
+                if (tenant.items.isEmpty() && now - tenant.lastActiveNanos > idleNanos) {
+                    it.remove();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 按当前积压降序，其次按丢弃数
+    List<TenantQueueStats> getTopTenants(int limit) {
+        List<TenantQueueStats> result = new ArrayList<>();
+        lock.lock();
+        try {
+            for (Tenant<T> tenant : tenants.values()) {
+                result.add(tenant.toStats());
+            }
+        } finally {
+            lock.unlock();
+        }
+        result.sort(Comparator.comparingInt(TenantQueueStats::getDepth)
+                .thenComparingLong(TenantQueueStats::getDropped).reversed());
+        return result.size() > limit ? result.subList(0, limit) : result;
+    }
+
+    TenantQueueStats getTenant(long tenantId) {
+        lock.lock();
+        try {
+            Tenant<T> tenant = tenants.get(tenantId);
+            return tenant != null ? tenant.toStats() : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    static final class Entry<T> {
+        final T item;
+        final long enqueuedAtNanos;
+
+        Entry(T item, long enqueuedAtNanos) {
+            this.item = item;
+            this.enqueuedAtNanos = enqueuedAtNanos;
+        }
+    }
+
+    private static final class Tenant<T> {
+        private final long tenantId;
+        private final int weight;
+        private final ArrayDeque<Entry<T>> items = new ArrayDeque<>();
+        private int deficit;
+        private long enqueued;
+        private long dequeued;
+        private long dropped;
+        private double ewmaWaitNanos;
+        private long maxWaitNanos;
+        private long lastActiveNanos = System.nanoTime();
+
+        Tenant(long tenantId, int weight) {
+            this.tenantId = tenantId;
+            this.weight = weight;
+        }
+
+        TenantQueueStats toStats() {
+            return new TenantQueueStats(tenantId, weight, items.size(), enqueued, dequeued, dropped,
+                    ewmaWaitNanos / 1_000_000.0, TimeUnit.NANOSECONDS.toMillis(maxWaitNanos));
+        }
+    }
+}
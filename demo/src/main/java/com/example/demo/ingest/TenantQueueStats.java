@@ -0,0 +1,58 @@
+package com.example.demo.ingest;
+
+public class TenantQueueStats {
+
+    private final long userId;
+    private final int weight;
+    private final int depth;
+    private final long enqueued;
+    private final long processed;
+    private final long dropped;
+    private final double avgWaitMillis;
+    private final long maxWaitMillis;
+
+    public TenantQueueStats(long userId, int weight, int depth, long enqueued, long processed, long dropped,
+                            double avgWaitMillis, long maxWaitMillis) {
+        this.userId = userId;
+        this.weight = weight;
+        this.depth = depth;
+        this.enqueued = enqueued;
+        this.processed = processed;
+        this.dropped = dropped;
+        this.avgWaitMillis = avgWaitMillis;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    public long getUserId() {
+        return userId;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getEnqueued() {
+        return enqueued;
+    }
+
+    public long getProcessed() {
+        return processed;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+    // 最近出队的排队等待(指数滑动平均)
+    public double getAvgWaitMillis() {
+        return avgWaitMillis;
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+}
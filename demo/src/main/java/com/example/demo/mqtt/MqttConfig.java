@@ -0,0 +1,91 @@
+package com.example.demo.mqtt;
+
+import com.example.demo.cluster.DeviceOwnership;
+import com.example.demo.config.AppProperties;
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.integration.annotation.ServiceActivator;
+import org.springframework.integration.channel.DirectChannel;
+import org.springframework.integration.mqtt.core.DefaultMqttPahoClientFactory;
+import org.springframework.integration.mqtt.core.MqttPahoClientFactory;
+import org.springframework.integration.mqtt.inbound.MqttPahoMessageDrivenChannelAdapter;
+import org.springframework.integration.mqtt.outbound.MqttPahoMessageHandler;
+import org.springframework.integration.mqtt.support.DefaultPahoMessageConverter;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+
+@Configuration
+public class MqttConfig {
+
+    private final AppProperties appProperties;
+
+    public MqttConfig(AppProperties appProperties) {
+        this.appProperties = appProperties;
+    }
+
+    @Bean
+    public MqttPahoClientFactory mqttClientFactory() {
+        AppProperties.Mqtt mqtt = appProperties.getMqtt();
+        MqttConnectOptions options = new MqttConnectOptions();
+        options.setServerURIs(new String[]{mqtt.getUrl()});
+        if (mqtt.getUsername() != null) {
+            options.setUserName(mqtt.getUsername());
+        }
+        if (mqtt.getPassword() != null) {
+            options.setPassword(mqtt.getPassword().toCharArray());
+        }
+        options.setConnectionTimeout(mqtt.getTimeOut());
+        options.setKeepAliveInterval(mqtt.getKeepAlive());
+        // 持久会话：暂停消费期间QoS1消息由Broker保留
+        options.setCleanSession(false);
+        DefaultMqttPahoClientFactory factory = new DefaultMqttPahoClientFactory();
+        factory.setConnectionOptions(options);
+        return factory;
+    }
+
+    @Bean
+    public MessageChannel mqttInputChannel() {
+        return new DirectChannel();
+    }
+
+    @Bean
+    public MqttPahoMessageDrivenChannelAdapter mqttInbound(MqttPahoClientFactory mqttClientFactory,
+                                                           DeviceOwnership deviceOwnership) {
+        AppProperties.Mqtt mqtt = appProperties.getMqtt();
+        AppProperties.Cluster cluster = appProperties.getCluster();
+        String clientId = mqtt.getClientId() + "-inbound";
+        String topic = mqtt.getDefaultTopic();
+        if (cluster.isEnabled()) {
+            // 共享订阅：同组内每条消息只投递给一个节点，客户端ID需按节点区分
+            clientId = clientId + "-" + deviceOwnership.getLocalNodeId();
+            topic = "$share/" + cluster.getSharedGroup() + "/" + topic;
+        }
+        MqttPahoMessageDrivenChannelAdapter adapter = new MqttPahoMessageDrivenChannelAdapter(
+                clientId, mqttClientFactory, topic);
+        adapter.setCompletionTimeout(5000);
+        adapter.setConverter(new DefaultPahoMessageConverter());
+        adapter.setQos(1);
+        adapter.setAutoStartup(mqtt.isAutoStartup());
+        adapter.setOutputChannel(mqttInputChannel());
+        return adapter;
+    }
+
+    @Bean
+    public MessageChannel mqttOutboundChannel() {
+        return new DirectChannel();
+    }
+
+    @Bean
+    @ServiceActivator(inputChannel = "mqttOutboundChannel")
+    public MessageHandler mqttOutbound(MqttPahoClientFactory mqttClientFactory, DeviceOwnership deviceOwnership) {
+        String clientId = appProperties.getMqtt().getClientId() + "-outbound";
+        if (appProperties.getCluster().isEnabled()) {
+            clientId = clientId + "-" + deviceOwnership.getLocalNodeId();
+        }
+        MqttPahoMessageHandler handler = new MqttPahoMessageHandler(clientId, mqttClientFactory);
+        handler.setAsync(true);
+        handler.setDefaultQos(1);
+        return handler;
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.demo.mqtt;
+
+import com.example.demo.cluster.DeviceMessageRouter;
+import com.example.demo.command.CommandAckRegistry;
+import com.example.demo.datasource.Workload;
+import com.example.demo.datasource.WorkloadContext;
+import com.example.demo.device.DeviceInfo;
+import com.example.demo.device.DevicePresence;
+import com.example.demo.device.DeviceRegistry;
+import com.example.demo.ingest.DeviceRateLimiter;
+import com.example.demo.ingest.DeviceStatusReport;
+import com.example.demo.ingest.IngestExecutor;
+import com.example.demo.status.DeviceState;
+import com.example.demo.status.DeviceTypeRegistry;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.integration.annotation.ServiceActivator;
+import org.springframework.integration.mqtt.support.MqttHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.stereotype.Component;
+
+// 处理设备发来的MQTT消息，主题格式 smart-home/{device_id}/{operation}
+@Component
+public class MqttMessageHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(MqttMessageHandler.class);
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private DeviceRateLimiter deviceRateLimiter;
+
+    @Autowired
+    private IngestExecutor ingestExecutor;
+
+    @Autowired
+    private DeviceMessageRouter deviceMessageRouter;
+
+    @Autowired
+    private CommandAckRegistry commandAckRegistry;
+
+    @Autowired
+    private DevicePresence devicePresence;
+
+    @Autowired
+    private MqttService mqttService;
+
+    @Autowired
+    private DeviceRegistry deviceRegistry;
+
+    @Autowired
+    private DeviceTypeRegistry deviceTypeRegistry;
+
+    @ServiceActivator(inputChannel = "mqttInputChannel")
+    public void handleMessage(Message<?> message) {
+        String topic = (String) message.getHeaders().get(MqttHeaders.RECEIVED_TOPIC);
+        WorkloadContext.run(Workload.INGEST, () -> handle(topic, message.getPayload().toString(), false));
+    }
+
+    // 集群模式下由其他节点转交过来的消息
+    public void handleForwarded(String topic, String payload) {
+        WorkloadContext.run(Workload.INGEST, () -> handle(topic, payload, true));
+    }
+
+    private void handle(String topic, String payload, boolean forwarded) {
+        String[] parts = topic == null ? new String[0] : topic.split("/");
+        if (parts.length != 3) {
+            logger.warn("Ignoring message on unexpected topic {}", topic);
+            return;
+        }
+        String deviceId = parts[1];
+        String operation = parts[2];
+        if ("control".equals(operation)) {
+            // 订阅了smart-home/+/+，会收到本服务自己发布的控制指令
+            return;
+        }
+        if ("outbound".equals(operation)) {
+            // 其他节点转交的待下发指令，只接受节点间转发，不接受来自Broker的消息
+            if (forwarded) {
+                handleOutbound(deviceId, payload);
+            }
+            return;
+        }
+        if ("queued".equals(operation)) {
+            // 归属节点通知本节点下发的指令已进入离线队列，同样只接受节点间转发
+            if (forwarded) {
+                handleQueued(deviceId, payload);
+            }
+            return;
+        }
+        if ("response".equals(operation)) {
+            handleResponse(deviceId, topic, payload, forwarded);
+            return;
+        }
+        if (!deviceMessageRouter.routeLocally(deviceId, topic, payload, forwarded)) {
+            return;
+        }
+        if (devicePresence.markSeen(deviceId) || "connect".equals(operation)) {
+            mqttService.flushQueued(deviceId);
+        }
+        try {
+            JsonNode envelope = objectMapper.readTree(payload);
+            if ("status".equals(operation)) {
+                handleStatus(deviceId, envelope);
+            } else {
+                logger.debug("Unhandled {} message from device {}", operation, deviceId);
+            }
+        } catch (Exception e) {
+            // 消息格式错误时记录日志并忽略
+            logger.warn("Malformed {} message from device {}: {}", operation, deviceId, e.getMessage());
+        }
+    }
+
+    // 设备离线、指令进入队列时通知下发节点，否则下发节点只能等到超时
+    private void handleOutbound(String deviceId, String payload) {
+        try {
+            JsonNode control = objectMapper.readTree(payload).path("data").path("data");
+            if (!mqttService.deliverLocally(deviceId, control.path("command").asText(), payload)) {
+                String issuingNode = CommandAckRegistry.issuingNode(control.path("command_id").asText(null));
+                if (issuingNode != null) {
+                    deviceMessageRouter.routeToNode(issuingNode, "smart-home/" + deviceId + "/queued", payload, false);
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Malformed forwarded command for device {}: {}", deviceId, e.getMessage());
+        }
+    }
+
+    private void handleQueued(String deviceId, String payload) {
+        try {
+            String commandId = objectMapper.readTree(payload).path("data").path("data").path("command_id").asText(null);
+            if (!commandAckRegistry.onQueued(deviceId, commandId)) {
+                logger.debug("No pending command {} for queued notice from device {}", commandId, deviceId);
+            }
+        } catch (Exception e) {
+            logger.warn("Malformed queued notice for device {}: {}", deviceId, e.getMessage());
+        }
+    }
+
+    // 指令响应按command_id交给下发节点；未回传command_id的旧设备由归属节点处理
+    private void handleResponse(String deviceId, String topic, String payload, boolean forwarded) {
+        try {
+            JsonNode result = objectMapper.readTree(payload).path("data").path("data");
+            String commandId = result.path("command_id").asText(null);
+            String issuingNode = CommandAckRegistry.issuingNode(commandId);
+            boolean local = issuingNode != null
+                    ? deviceMessageRouter.routeToNode(issuingNode, topic, payload, forwarded)
+                    : deviceMessageRouter.routeLocally(deviceId, topic, payload, forwarded);
+            if (local) {
+                devicePresence.markSeen(deviceId);
+            }
+            if (local && !commandAckRegistry.onResponse(deviceId, commandId, "success".equals(result.path("status").asText()))) {
+                logger.debug("No pending command for response from device {}", deviceId);
+            }
+        } catch (Exception e) {
+            logger.warn("Malformed response message from device {}: {}", deviceId, e.getMessage());
+        }
+    }
+
+    private void handleStatus(String deviceId, JsonNode envelope) {
+        JsonNode body = envelope.path("data");
+        String deviceType = body.path("device_type").asText(null);
+        // 限额按注册的设备类型选择，上报中的device_type由设备自己填写，不可信
+        DeviceInfo registered = deviceRegistry.get(deviceId);
+        if (!deviceRateLimiter.tryAcquire(deviceId, registered != null ? registered.getDeviceType() : null)) {
+            return;
+        }
+        // 只在这里按设备类型模式解码一次，后续规则评估、变化检测和写库都使用解码结果；
+        // 类型以注册的设备为准，上报中的device_type仅作兜底
+        JsonNode data = body.path("data");
+        DeviceState state = deviceTypeRegistry.decode(registered != null ? registered.getDeviceType() : deviceType, data);
+        DeviceStatusReport report = new DeviceStatusReport(deviceId, deviceType, data.toString(), state,
+                System.currentTimeMillis());
+        if (!ingestExecutor.submit(registered != null ? registered.getUserId() : null, report)) {
+            deviceRateLimiter.recordDropped(deviceId);
+        }
+    }
+}
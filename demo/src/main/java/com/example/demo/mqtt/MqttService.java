@@ -0,0 +1,96 @@
+package com.example.demo.mqtt;
+
+import com.example.demo.cluster.DeviceMessageRouter;
+import com.example.demo.command.OfflineCommandQueue;
+import com.example.demo.device.DevicePresence;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.integration.mqtt.support.MqttHeaders;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+
+// 向设备发送控制指令，主题 smart-home/{device_id}/control
+@Service
+public class MqttService {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    @Qualifier("mqttOutboundChannel")
+    private MessageChannel mqttOutboundChannel;
+
+    @Autowired
+    private DeviceMessageRouter deviceMessageRouter;
+
+    @Autowired
+    private DevicePresence devicePresence;
+
+    @Autowired
+    private OfflineCommandQueue offlineCommandQueue;
+
+    public boolean sendControl(String deviceId, String deviceType, Long userId, Long areaId,
+                               String command, JsonNode parameters) {
+        return sendControl(deviceId, deviceType, userId, areaId, command, parameters, null);
+    }
+
+    // commandId不为空时随指令下发，设备可在response中原样回传以便精确匹配确认。
+    // 返回false表示设备离线，指令已进入离线队列；转交归属节点时由归属节点按commandId通知是否排队
+    public boolean sendControl(String deviceId, String deviceType, Long userId, Long areaId,
+                               String command, JsonNode parameters, String commandId) {
+        ObjectNode envelope = objectMapper.createObjectNode();
+        envelope.put("timestamp", Instant.now().toString());
+        envelope.put("message_type", "device_control_message");
+        ObjectNode body = envelope.putObject("data");
+        body.put("user_id", userId == null ? null : userId.toString());
+        body.put("area_id", areaId == null ? null : areaId.toString());
+        body.put("device_type", deviceType);
+        body.put("device_id", deviceId);
+        ObjectNode control = body.putObject("data");
+        control.put("command", command);
+        if (commandId != null) {
+            control.put("command_id", commandId);
+        }
+        control.set("parameters", parameters == null ? objectMapper.createObjectNode() : parameters);
+        String payload = envelope.toString();
+        // 集群模式下交给设备归属节点，由掌握设备在线状态的节点决定立即发布还是排队
+        if (!deviceMessageRouter.routeLocally(deviceId, "smart-home/" + deviceId + "/outbound", payload, false)) {
+            return true;
+        }
+        return deliverLocally(deviceId, command, payload);
+    }
+
+    // 本节点是设备归属节点：在线则发布，离线或仍有排队指令时入队保证顺序；返回false表示设备离线已排队
+    public boolean deliverLocally(String deviceId, String command, String payload) {
+        if (offlineCommandQueue.isEnabled()
+                && (!devicePresence.isOnline(deviceId) || offlineCommandQueue.hasPending(deviceId))) {
+            offlineCommandQueue.enqueue(deviceId, command, payload);
+            if (devicePresence.isOnline(deviceId)) {
+                flushQueued(deviceId);
+                return true;
+            }
+            return false;
+        }
+        publish("smart-home/" + deviceId + "/control", payload);
+        return true;
+    }
+
+    // 设备重新上线后按顺序补发排队的指令
+    public void flushQueued(String deviceId) {
+        if (offlineCommandQueue.isEnabled() && offlineCommandQueue.hasPending(deviceId)) {
+            offlineCommandQueue.drainAsync(deviceId, payload -> publish("smart-home/" + deviceId + "/control", payload));
+        }
+    }
+
+    public void publish(String topic, String payload) {
+        mqttOutboundChannel.send(MessageBuilder.withPayload(payload)
+                .setHeader(MqttHeaders.TOPIC, topic)
+                .build());
+    }
+}
@@ -4,10 +4,12 @@ import com.example.demo.entity.AutomationRule;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface AutomationRuleRepository extends JpaRepository<AutomationRule, Long> {
     List<AutomationRule> findByUserId(Long userId);
     List<AutomationRule> findByUserIdAndIsEnabled(Long userId, Boolean isEnabled);
+    List<AutomationRule> findByUserIdAndUpdatedAtAfter(Long userId, LocalDateTime since);
 }
\ No newline at end of file
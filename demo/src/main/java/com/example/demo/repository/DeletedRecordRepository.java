@@ -0,0 +1,24 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.DeletedRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface DeletedRecordRepository extends JpaRepository<DeletedRecord, Long> {
+    List<DeletedRecord> findByUserIdAndDeletedAtAfter(Long userId, LocalDateTime since);
+
+    List<DeletedRecord> findByEntityTypeAndDeletedAtAfter(String entityType, LocalDateTime since);
+
+    @Modifying
+    @Transactional
+    @Query("delete from DeletedRecord d where d.deletedAt < :cutoff")
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -2,8 +2,11 @@ package com.example.demo.repository;
 
 import com.example.demo.entity.Device;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -13,4 +16,24 @@ public interface DeviceRepository extends JpaRepository<Device, Long> {
     List<Device> findByAreaId(Long areaId);
 
     Device findByDeviceId(String deviceId);
+
+    List<Device> findByUserIdAndUpdatedAtAfter(Long userId, LocalDateTime since);
+
+    List<DeviceSummary> findSummaryBy();
+
+    List<DeviceSummary> findSummaryByUserId(Long userId);
+
+    List<DeviceSummary> findSummaryByAreaId(Long areaId);
+
+    // 设备索引全量加载用，只取索引需要的列：每行为[id, deviceId, deviceType, userId, areaId]
+    @Query("select d.id, d.deviceId, d.deviceType, d.userId, d.areaId from Device d")
+    List<Object[]> findAllIndexRows();
+
+    // 名称搜索索引全量加载用：每行为[id, deviceId, deviceName, deviceType, userId, areaId]
+    @Query("select d.id, d.deviceId, d.deviceName, d.deviceType, d.userId, d.areaId from Device d")
+    List<Object[]> findAllSearchRows();
+
+    // 从快照恢复后补齐停机期间变更的设备，列同上
+    @Query("select d.id, d.deviceId, d.deviceType, d.userId, d.areaId from Device d where d.updatedAt > :since")
+    List<Object[]> findIndexRowsUpdatedAfter(@Param("since") LocalDateTime since);
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.example.demo.repository;
+
+import com.example.demo.status.DeviceStatusSerializer;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+// 设备列表视图的闭合接口投影，只查询列表需要的列，不加载受管实体
+public interface DeviceSummary {
+    Long getId();
+
+    Long getAreaId();
+
+    String getDeviceId();
+
+    String getDeviceType();
+
+    String getDeviceName();
+
+    String getStatusName();
+
+    @JsonProperty("status")
+    @JsonSerialize(using = DeviceStatusSerializer.class)
+    byte[] getStatusData();
+}
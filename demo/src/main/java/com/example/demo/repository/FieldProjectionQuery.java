@@ -0,0 +1,97 @@
+package com.example.demo.repository;
+
+import com.example.demo.exception.BadRequestException;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TupleElement;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.SingularAttribute;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// 按fields参数拼出只包含所需列的SELECT，结果为标量元组，不经过实体管理和脏检查
+@Component
+public class FieldProjectionQuery {
+
+    public static final String SUMMARY = "summary";
+
+    private final EntityManager entityManager;
+
+    public FieldProjectionQuery(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    // 解析逗号分隔的字段列表，去重并保持顺序；为空返回null表示返回完整实体
+    public static List<String> parseFields(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        Set<String> parsed = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String trimmed = field.trim();
+            if (!trimmed.isEmpty()) {
+                parsed.add(trimmed);
+            }
+        }
+        return parsed.isEmpty() ? null : new ArrayList<>(parsed);
+    }
+
+    public static boolean isSummary(List<String> fields) {
+        return fields != null && fields.size() == 1 && SUMMARY.equals(fields.get(0));
+    }
+
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> select(Class<?> entityClass, List<String> fields,
+                                            String filterAttribute, Object filterValue) {
+        EntityType<?> entityType = entityManager.getMetamodel().entity(entityClass);
+        for (String field : fields) {
+            if (!isSelectable(entityType, field)) {
+                throw new BadRequestException("未知字段: " + field);
+            }
+        }
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<?> root = query.from(entityClass);
+        List<Selection<?>> selections = new ArrayList<>(fields.size());
+        for (String field : fields) {
+            selections.add(root.get(field).alias(field));
+        }
+        query.multiselect(selections);
+        if (filterAttribute != null) {
+            query.where(cb.equal(root.get(filterAttribute), filterValue));
+        }
+        query.orderBy(cb.asc(root.get("id")));
+
+        List<Tuple> tuples = entityManager.createQuery(query).getResultList();
+        List<Map<String, Object>> rows = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (TupleElement<?> element : tuple.getElements()) {
+                row.put(element.getAlias(), tuple.get(element));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private boolean isSelectable(EntityType<?> entityType, String field) {
+        for (SingularAttribute<?, ?> attribute : entityType.getSingularAttributes()) {
+            if (attribute.getName().equals(field)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
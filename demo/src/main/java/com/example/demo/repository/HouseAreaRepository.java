@@ -2,11 +2,27 @@ package com.example.demo.repository;
 
 import com.example.demo.entity.HouseArea;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface HouseAreaRepository extends JpaRepository<HouseArea, Long> {
     List<HouseArea> findByUserId(Long userId);
+
+    List<HouseArea> findByUserIdAndUpdatedAtAfter(Long userId, LocalDateTime since);
+
+    List<HouseAreaSummary> findSummaryBy();
+
+    List<HouseAreaSummary> findSummaryByUserId(Long userId);
+
+    // 名称搜索索引全量加载用：每行为[id, areaName, userId]
+    @Query("select a.id, a.areaName, a.userId from HouseArea a")
+    List<Object[]> findAllSearchRows();
+
+    // 区域归属索引全量加载用：每行为[id, userId]
+    @Query("select a.id, a.userId from HouseArea a")
+    List<Object[]> findAllOwnerRows();
 }
\ No newline at end of file
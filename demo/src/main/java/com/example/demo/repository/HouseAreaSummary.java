@@ -0,0 +1,10 @@
+package com.example.demo.repository;
+
+// 区域列表视图的闭合接口投影
+public interface HouseAreaSummary {
+    Long getId();
+
+    String getAreaName();
+
+    String getAreaType();
+}
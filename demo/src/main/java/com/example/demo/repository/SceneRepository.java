@@ -0,0 +1,12 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.Scene;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface SceneRepository extends JpaRepository<Scene, Long> {
+    List<Scene> findByUserId(Long userId);
+}
@@ -0,0 +1,144 @@
+package com.example.demo.retention;
+
+import com.example.demo.config.AppProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 历史类表的保留期：表按天做RANGE分区，定时提前建好未来几天的分区，过期数据整分区DROP，
+// 不再用DELETE逐行删除，避免大批量删除长时间持锁和主从延迟。
+// usage_rollups的小时、天粒度数据在写入时已经由分钟数据汇总得到，分钟分区删除前无需再降采样；
+// 天粒度数据单独放在p_day分区中长期保留。
+// 表未分区时(旧库)不做任何处理，由原有的分批DELETE清理
+@Component
+public class PartitionRetentionManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(PartitionRetentionManager.class);
+
+    public static final String USAGE_ROLLUPS = "usage_rollups";
+    public static final String DELETED_RECORDS = "deleted_records";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AppProperties.Retention config;
+    private final List<PartitionSeries> series = new ArrayList<>();
+    private final Set<String> managedTables = ConcurrentHashMap.newKeySet();
+    private final Set<String> unpartitionedTables = ConcurrentHashMap.newKeySet();
+
+    public PartitionRetentionManager(JdbcTemplate jdbcTemplate, AppProperties appProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.config = appProperties.getRetention();
+        AppProperties.Usage usage = appProperties.getUsage();
+        // usage_rollups按(granularity, window_start)分区，分区顺序为 DAY < HOUR < MINUTE
+        series.add(new PartitionSeries(USAGE_ROLLUPS, "p_hour_", "p_hour_future", "('MINUTE', 0)",
+                end -> "'HOUR', " + end, () -> usage.getHourRetentionDays() * 86_400_000L));
+        series.add(new PartitionSeries(USAGE_ROLLUPS, "p_minute_", "p_minute_future", "(MAXVALUE, MAXVALUE)",
+                end -> "'MINUTE', " + end, () -> usage.getMinuteRetentionHours() * 3_600_000L));
+        // deleted_records按UNIX_TIMESTAMP(deleted_at)分区，上界为秒
+        series.add(new PartitionSeries(DELETED_RECORDS, "p_", "p_future", "MAXVALUE",
+                end -> String.valueOf(end / 1000), () -> appProperties.getSync().getTombstoneRetentionDays() * 86_400_000L));
+    }
+
+    // 表已分区并由本类维护时，原有的分批DELETE清理应跳过
+    public boolean isManaged(String table) {
+        return managedTables.contains(table);
+    }
+
+    @Scheduled(initialDelay = 60_000, fixedDelayString = "${app.retention.interval-millis:3600000}")
+    public void maintain() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        Map<String, List<String>> partitionsByTable = new LinkedHashMap<>();
+        for (PartitionSeries partitionSeries : series) {
+            String table = partitionSeries.getTable();
+            List<String> partitions = partitionsByTable.computeIfAbsent(table, this::loadPartitions);
+            if (!partitions.contains(partitionSeries.getFuturePartition())) {
+                managedTables.remove(table);
+                if (unpartitionedTables.add(table)) {
+                    logger.info("Table {} is not partitioned by day, leaving retention to row deletes", table);
+                }
+                continue;
+            }
+            managedTables.add(table);
+            try {
+                maintain(partitionSeries, partitions, System.currentTimeMillis());
+            } catch (DataAccessException e) {
+                // 通常是元数据锁等待超时，下次再试
+                logger.warn("Partition maintenance on {} skipped: {}", table, e.getMessage());
+            }
+        }
+    }
+
+    void maintain(PartitionSeries partitionSeries, List<String> partitions, long now) {
+        LocalDate last = null;
+        List<String> expired = new ArrayList<>();
+        long cutoff = now - partitionSeries.getRetentionMillis();
+        for (String partition : partitions) {
+            LocalDate day = partitionSeries.dayOf(partition);
+            if (day == null) {
+                continue;
+            }
+            if (last == null || day.isAfter(last)) {
+                last = day;
+            }
+            if (PartitionSeries.endMillis(day) <= cutoff) {
+                expired.add(partition);
+            }
+        }
+        List<String> toCreate = plan(partitionSeries, last, now);
+        if (!toCreate.isEmpty()) {
+            execute("ALTER TABLE " + partitionSeries.getTable() + " REORGANIZE PARTITION "
+                    + partitionSeries.getFuturePartition() + " INTO (" + String.join(", ", toCreate) + ", "
+                    + partitionSeries.futureDefinition() + ")");
+            logger.info("Created {} partitions on {}", toCreate.size(), partitionSeries.getTable());
+        }
+        if (!expired.isEmpty()) {
+            execute("ALTER TABLE " + partitionSeries.getTable() + " DROP PARTITION " + String.join(", ", expired));
+            logger.info("Dropped expired partitions {} on {}", expired, partitionSeries.getTable());
+        }
+    }
+
+    // 从最后一个已有日分区之后补到今天+aheadDays；新分区的兜底分区中通常没有数据，拆分只改元数据
+    List<String> plan(PartitionSeries partitionSeries, LocalDate last, long now) {
+        LocalDate today = LocalDate.ofEpochDay(Math.floorDiv(now, 86_400_000L));
+        LocalDate through = today.plusDays(config.getAheadDays());
+        List<String> definitions = new ArrayList<>();
+        for (LocalDate day = last == null ? today : last.plusDays(1); !day.isAfter(through); day = day.plusDays(1)) {
+            definitions.add(partitionSeries.definition(day));
+        }
+        return definitions;
+    }
+
+    private List<String> loadPartitions(String table) {
+        return jdbcTemplate.queryForList("SELECT PARTITION_NAME FROM information_schema.PARTITIONS "
+                + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL", String.class, table);
+    }
+
+    // DDL要拿表的元数据锁，排队期间会挡住该表后续的所有读写，所以限制等待时间，拿不到就放弃
+    void execute(String ddl) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET SESSION lock_wait_timeout = " + config.getLockWaitTimeoutSeconds());
+                try {
+                    statement.execute(ddl);
+                } finally {
+                    statement.execute("SET SESSION lock_wait_timeout = @@GLOBAL.lock_wait_timeout");
+                }
+            }
+            return null;
+        });
+    }
+}
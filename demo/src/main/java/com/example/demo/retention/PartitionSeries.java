@@ -0,0 +1,71 @@
+package com.example.demo.retention;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.function.LongFunction;
+import java.util.function.LongSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// 一张表中按天划分的一组分区：分区名为 前缀+yyyyMMdd(UTC)，存放该日结束之前的行，
+// 末尾一个兜底分区承接还没有建好日分区的数据，新分区从兜底分区中拆分出来
+final class PartitionSeries {
+
+    private static final DateTimeFormatter DAY = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final String table;
+    private final String prefix;
+    private final String futurePartition;
+    private final String futureBound;
+    private final LongFunction<String> boundForMillis;
+    private final LongSupplier retentionMillis;
+    private final Pattern namePattern;
+
+    // boundForMillis把分区上界(UTC零点的毫秒数)转成VALUES LESS THAN中的表达式
+    PartitionSeries(String table, String prefix, String futurePartition, String futureBound,
+                    LongFunction<String> boundForMillis, LongSupplier retentionMillis) {
+        this.table = table;
+        this.prefix = prefix;
+        this.futurePartition = futurePartition;
+        this.futureBound = futureBound;
+        this.boundForMillis = boundForMillis;
+        this.retentionMillis = retentionMillis;
+        this.namePattern = Pattern.compile(Pattern.quote(prefix) + "(\\d{8})");
+    }
+
+    String getTable() {
+        return table;
+    }
+
+    String getFuturePartition() {
+        return futurePartition;
+    }
+
+    long getRetentionMillis() {
+        return retentionMillis.getAsLong();
+    }
+
+    // 不属于本组的分区返回null
+    LocalDate dayOf(String partitionName) {
+        Matcher matcher = namePattern.matcher(partitionName);
+        return matcher.matches() ? LocalDate.parse(matcher.group(1), DAY) : null;
+    }
+
+    String nameOf(LocalDate day) {
+        return prefix + day.format(DAY);
+    }
+
+    // 日分区存放小于次日零点的行
+    static long endMillis(LocalDate day) {
+        return day.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+    }
+
+    String definition(LocalDate day) {
+        return "PARTITION " + nameOf(day) + " VALUES LESS THAN (" + boundForMillis.apply(endMillis(day)) + ")";
+    }
+
+    String futureDefinition() {
+        return "PARTITION " + futurePartition + " VALUES LESS THAN " + futureBound;
+    }
+}
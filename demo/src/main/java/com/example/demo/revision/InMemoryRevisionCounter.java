@@ -0,0 +1,28 @@
+package com.example.demo.revision;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 单机模式：修订号只存在内存中，以进程启动时间作为纪元
+public class InMemoryRevisionCounter implements RevisionCounter {
+
+    private final ConcurrentHashMap<Long, AtomicLong> revisions = new ConcurrentHashMap<>();
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    @Override
+    public long current(Long userId) {
+        AtomicLong revision = revisions.get(userId);
+        return revision == null ? 0 : revision.get();
+    }
+
+    @Override
+    public long increment(Long userId) {
+        return revisions.computeIfAbsent(userId, id -> new AtomicLong()).incrementAndGet();
+    }
+
+    @Override
+    public String epoch() {
+        return epoch;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.demo.revision;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+// 集群模式：修订号存在Redis中由各节点共享，保证同一份数据在任意节点上得到相同的ETag。
+// 本地缓存读到的值，只有本节点递增或收到其他节点的变更事件时才回源Redis
+public class RedisRevisionCounter implements RevisionCounter {
+
+    static final String KEY_PREFIX = "smart-home:revision:user:";
+
+    static final String EPOCH_KEY = "smart-home:revision:epoch";
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final ConcurrentHashMap<Long, Long> cached = new ConcurrentHashMap<>();
+
+    private final String epoch;
+
+    public RedisRevisionCounter(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+        // 第一个启动的节点写入纪元，其余节点沿用
+        redisTemplate.opsForValue().setIfAbsent(EPOCH_KEY, Long.toString(System.currentTimeMillis(), 36));
+        this.epoch = redisTemplate.opsForValue().get(EPOCH_KEY);
+    }
+
+    @Override
+    public long current(Long userId) {
+        return cached.computeIfAbsent(userId, id -> {
+            String value = redisTemplate.opsForValue().get(KEY_PREFIX + id);
+            return value == null ? 0L : Long.parseLong(value);
+        });
+    }
+
+    @Override
+    public long increment(Long userId) {
+        Long revision = redisTemplate.opsForValue().increment(KEY_PREFIX + userId);
+        long value = revision == null ? 0 : revision;
+        cached.merge(userId, value, Math::max);
+        return value;
+    }
+
+    @Override
+    public String epoch() {
+        return epoch;
+    }
+
+    @Override
+    public void invalidate(Long userId) {
+        cached.remove(userId);
+    }
+
+    @Override
+    public void invalidateAll() {
+        cached.clear();
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.demo.revision;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+@Configuration
+public class RevisionConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.cluster", name = "enabled", havingValue = "true")
+    public RevisionCounter redisRevisionCounter(StringRedisTemplate redisTemplate) {
+        return new RedisRevisionCounter(redisTemplate);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.cluster", name = "enabled", havingValue = "false", matchIfMissing = true)
+    public RevisionCounter inMemoryRevisionCounter() {
+        return new InMemoryRevisionCounter();
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.demo.revision;
+
+// 每个用户一个单调递增的修订号，用户名下设备/区域/规则任一变化都会递增
+public interface RevisionCounter {
+
+    long current(Long userId);
+
+    long increment(Long userId);
+
+    // 计数器的纪元标识，计数器重建(进程重启、Redis数据丢失)后变化，避免新旧修订号撞车
+    String epoch();
+
+    // 其他节点修改了该用户的数据，丢弃本地缓存的修订号
+    default void invalidate(Long userId) {
+    }
+
+    default void invalidateAll() {
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.demo.revision;
+
+import com.example.demo.event.EntityChangedEvent;
+import com.example.demo.event.EventStreamResyncEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+// 服务层每次增删改都会发布EntityChangedEvent，这里据此递增所属用户的修订号，
+// 列表接口用修订号生成强ETag，If-None-Match命中时直接返回304而不查库
+@Component
+public class UserRevisionTracker {
+
+    private final RevisionCounter revisionCounter;
+
+    public UserRevisionTracker(RevisionCounter revisionCounter) {
+        this.revisionCounter = revisionCounter;
+    }
+
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        bump(event.getUserId(), event.isRemote());
+        // 实体改归其他用户：原用户的列表里少了这一项，缓存的ETag同样要失效
+        bump(event.getPreviousUserId(), event.isRemote());
+    }
+
+    private void bump(Long userId, boolean remote) {
+        if (userId == null) {
+            return;
+        }
+        if (remote) {
+            // 源节点已经递增过共享计数器
+            revisionCounter.invalidate(userId);
+        } else {
+            revisionCounter.increment(userId);
+        }
+    }
+
+    @EventListener
+    public void onResync(EventStreamResyncEvent event) {
+        revisionCounter.invalidateAll();
+    }
+
+    // resource区分不同列表，variant区分同一列表的不同表示(例如fields参数)
+    public String etag(String resource, Long userId, String variant) {
+        StringBuilder etag = new StringBuilder("\"")
+                .append(resource).append('-').append(userId).append('-')
+                .append(revisionCounter.epoch()).append('.').append(revisionCounter.current(userId));
+        if (variant != null && !variant.isEmpty()) {
+            etag.append('-').append(Integer.toHexString(variant.hashCode()));
+        }
+        return etag.append('"').toString();
+    }
+}
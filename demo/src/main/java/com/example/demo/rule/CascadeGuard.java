@@ -0,0 +1,122 @@
+package com.example.demo.rule;
+
+import com.example.demo.config.AppProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 运行时级联保护：规则下发指令后给目标设备打上链标记(链根规则、深度)，
+// 目标设备在时间窗口内的状态变化再触发规则时视为同一条链的下一级。
+// 超过最大深度或链的触发频率超限时抑制触发，避免规则互相触发造成MQTT和数据库流量风暴
+@Component
+public class CascadeGuard {
+
+    private static final long RATE_WINDOW_MILLIS = 60_000;
+
+    private final AppProperties.Rules config;
+    private final Map<String, ChainMark> marksByDevice = new ConcurrentHashMap<>();
+    private final Map<Long, RateWindow> ratesByRoot = new ConcurrentHashMap<>();
+    private final AtomicLong suppressedByDepth = new AtomicLong();
+    private final AtomicLong suppressedByRate = new AtomicLong();
+
+    public CascadeGuard(AppProperties appProperties) {
+        this.config = appProperties.getRules();
+    }
+
+    // 返回null表示本次触发被抑制
+    public Chain tryFire(Long ruleId, String triggerDeviceId) {
+        long now = System.currentTimeMillis();
+        ChainMark mark = marksByDevice.get(triggerDeviceId);
+        Chain chain = mark != null && mark.expiresAtMillis > now
+                ? new Chain(mark.rootRuleId, mark.depth)
+                : new Chain(ruleId, 0);
+        if (chain.depth >= config.getMaxChainDepth()) {
+            suppressedByDepth.incrementAndGet();
+            return null;
+        }
+        RateWindow window = ratesByRoot.computeIfAbsent(chain.rootRuleId, key -> new RateWindow());
+        if (!window.tryAcquire(now, config.getMaxFiresPerChainPerMinute())) {
+            suppressedByRate.incrementAndGet();
+            return null;
+        }
+        return chain;
+    }
+
+    public void recordCommand(Chain chain, Collection<String> targetDeviceIds) {
+        long expiresAt = System.currentTimeMillis() + config.getChainWindowMillis();
+        for (String deviceId : targetDeviceIds) {
+            marksByDevice.put(deviceId, new ChainMark(chain.rootRuleId, chain.depth + 1, expiresAt));
+        }
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        marksByDevice.values().removeIf(mark -> mark.expiresAtMillis <= now);
+        ratesByRoot.values().removeIf(window -> window.isIdle(now));
+    }
+
+    public long getSuppressedByDepth() {
+        return suppressedByDepth.get();
+    }
+
+    public long getSuppressedByRate() {
+        return suppressedByRate.get();
+    }
+
+    public int getActiveChainMarks() {
+        return marksByDevice.size();
+    }
+
+    public static final class Chain {
+        private final Long rootRuleId;
+        private final int depth;
+
+        Chain(Long rootRuleId, int depth) {
+            this.rootRuleId = rootRuleId;
+            this.depth = depth;
+        }
+
+        public Long getRootRuleId() {
+            return rootRuleId;
+        }
+
+        public int getDepth() {
+            return depth;
+        }
+    }
+
+    private static final class ChainMark {
+        private final Long rootRuleId;
+        private final int depth;
+        private final long expiresAtMillis;
+
+        ChainMark(Long rootRuleId, int depth, long expiresAtMillis) {
+            this.rootRuleId = rootRuleId;
+            this.depth = depth;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
+    // 固定窗口计数
+    private static final class RateWindow {
+        private volatile long windowStart;
+        private int count;
+
+        synchronized boolean tryAcquire(long now, int limit) {
+            if (now - windowStart >= RATE_WINDOW_MILLIS) {
+                windowStart = now;
+                count = 0;
+            }
+            return ++count <= limit;
+        }
+
+        boolean isIdle(long now) {
+            return now - windowStart >= RATE_WINDOW_MILLIS;
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package com.example.demo.rule;
+
+import com.example.demo.status.DeviceState;
+import com.example.demo.status.StatusField;
+import com.example.demo.status.StatusSchema;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// device_status类型规则的触发条件，两种写法：
+// {"device_id":"sensor-1","field":"temperature","operator":">","value":28}
+// {"device_id":"light-001","status":"motion_detected"}  其余字段按相等比较
+// 数值比较可附加时间窗口聚合和滞回，条件对象按规则各自持有窗口状态：
+// {"device_id":"sensor-1","field":"temperature","aggregate":"avg","window_seconds":300,"operator":">","value":28}
+// {"device_id":"sensor-2","field":"humidity","operator":">","value":70,"for_seconds":600,"reset_value":65}
+// aggregate取avg/min/max/count；for_seconds为持续满足多久才算满足；设置reset_value后满足状态保持到越过该值才解除
+public class RuleCondition {
+
+    public static final int DEFAULT_MAX_WINDOW_SAMPLES = 4096;
+
+    private final String deviceId;
+    private final String field;
+    private final String operator;
+    private final JsonNode value;
+    private final Map<String, JsonNode> equals;
+    // 字段名和期望值按状态模式解析后的缓存，设备类型不变时只解析一次
+    private volatile Binding binding;
+
+    private final SlidingWindow window;
+    private final long forMillis;
+    private final Double resetValue;
+    // 以下状态只在evaluate中(持有本对象锁)读写
+    private boolean active;
+    private long holdingSince = -1;
+    private long lastAt;
+
+    private RuleCondition(String deviceId, String field, String operator, JsonNode value, Map<String, JsonNode> equals,
+                          SlidingWindow window, long forMillis, Double resetValue) {
+        this.deviceId = deviceId;
+        this.field = field;
+        this.operator = operator;
+        this.value = value;
+        this.equals = equals;
+        this.window = window;
+        this.forMillis = forMillis;
+        this.resetValue = resetValue;
+    }
+
+    public static RuleCondition parse(JsonNode condition) {
+        return parse(condition, DEFAULT_MAX_WINDOW_SAMPLES);
+    }
+
+    public static RuleCondition parse(JsonNode condition, int maxWindowSamples) {
+        String deviceId = condition.path("device_id").asText(null);
+        if (deviceId == null) {
+            throw new IllegalArgumentException("trigger_condition.device_id is required");
+        }
+        if (condition.has("field")) {
+            String operator = condition.path("operator").asText("==");
+            JsonNode value = condition.get("value");
+            SlidingWindow window = null;
+            if (condition.has("aggregate")) {
+                long windowSeconds = condition.path("window_seconds").asLong();
+                if (windowSeconds <= 0) {
+                    throw new IllegalArgumentException("trigger_condition.window_seconds must be positive");
+                }
+                window = new SlidingWindow(SlidingWindow.Aggregate.parse(condition.get("aggregate").asText()),
+                        windowSeconds * 1000, maxWindowSamples);
+            }
+            long forMillis = condition.path("for_seconds").asLong(0) * 1000;
+            Double resetValue = condition.has("reset_value") ? condition.get("reset_value").asDouble() : null;
+            boolean stateful = window != null || forMillis > 0 || resetValue != null;
+            if (stateful && (value == null || !value.isNumber())) {
+                throw new IllegalArgumentException("trigger_condition.value must be numeric for windowed conditions");
+            }
+            if (resetValue != null) {
+                boolean above = ">".equals(operator) || ">=".equals(operator);
+                boolean below = "<".equals(operator) || "<=".equals(operator);
+                if (!above && !below) {
+                    throw new IllegalArgumentException("trigger_condition.reset_value requires operator >, >=, < or <=");
+                }
+                if (above ? resetValue > value.asDouble() : resetValue < value.asDouble()) {
+                    throw new IllegalArgumentException("trigger_condition.reset_value must lie on the inactive side of value");
+                }
+            }
+            return new RuleCondition(deviceId, condition.get("field").asText(), operator, value, Map.of(),
+                    window, forMillis, resetValue);
+        }
+        Map<String, JsonNode> equals = new LinkedHashMap<>();
+        for (Map.Entry<String, JsonNode> entry : condition.properties()) {
+            if (!"device_id".equals(entry.getKey())) {
+                equals.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return new RuleCondition(deviceId, null, null, null, equals, null, 0, null);
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public boolean isStateful() {
+        return window != null || forMillis > 0 || resetValue != null;
+    }
+
+    // 带窗口或滞回的条件依赖状态，样本不足(窗口未填满或本次上报缺少该字段)时返回null，调用方保持上次结果
+    public Boolean matches(JsonNode state, long atMillis) {
+        if (field == null) {
+            for (Map.Entry<String, JsonNode> entry : equals.entrySet()) {
+                JsonNode actual = state.get(entry.getKey());
+                if (actual == null || !actual.asText().equals(entry.getValue().asText())) {
+                    return false;
+                }
+            }
+            return !equals.isEmpty();
+        }
+        JsonNode actual = state.get(field);
+        if (isStateful()) {
+            return actual != null && actual.isNumber() ? evaluate(actual.asDouble(), atMillis) : null;
+        }
+        if (actual == null || value == null) {
+            return false;
+        }
+        if (actual.isNumber() && value.isNumber()) {
+            return compare(actual.asDouble(), value.asDouble());
+        }
+        boolean same = actual.asText().equals(value.asText());
+        return "!=".equals(operator) ? !same : same && ("==".equals(operator) || "=".equals(operator));
+    }
+
+    // 条件引用的字段是否都在该模式中；引用了模式外的字段时调用方应按原始JSON匹配
+    public boolean bindsTo(StatusSchema schema) {
+        return bindingFor(schema).complete;
+    }
+
+    // 已按模式解码的状态：直接比较数值槽位或枚举序号，不经过JSON和字符串
+    public Boolean matches(DeviceState state, long atMillis) {
+        Binding bound = bindingFor(state.getSchema());
+        if (field == null) {
+            for (Term term : bound.terms) {
+                if (!term.same(state)) {
+                    return false;
+                }
+            }
+            return bound.terms.length > 0;
+        }
+        Term term = bound.terms[0];
+        if (isStateful()) {
+            return term.field != null && term.field.isNumeric() && state.isPresent(term.field)
+                    ? evaluate(state.getNumber(term.field), atMillis) : null;
+        }
+        if (term.field == null || value == null || !state.isPresent(term.field)) {
+            return false;
+        }
+        if (term.field.isNumeric() && value.isNumber()) {
+            return compare(state.getNumber(term.field), term.number);
+        }
+        boolean same = term.same(state);
+        return "!=".equals(operator) ? !same : same && ("==".equals(operator) || "=".equals(operator));
+    }
+
+    // 样本先进入窗口得到聚合值，再与阈值比较；满足后若设置了reset_value，需越过该值才解除
+    synchronized Boolean evaluate(double sample, long atMillis) {
+        // 多个工作线程处理同一设备时上报可能乱序到达，时间只允许前进
+        long at = Math.max(atMillis, lastAt);
+        lastAt = at;
+        double observed = sample;
+        if (window != null) {
+            window.add(at, sample);
+            if (!window.isCovered(at)) {
+                return null;
+            }
+            observed = window.value();
+        }
+        boolean raw = compare(observed, value.asDouble());
+        if (active) {
+            active = resetValue != null ? !crossedReset(observed) : raw;
+            if (!active) {
+                holdingSince = -1;
+            }
+            return active;
+        }
+        if (!raw) {
+            holdingSince = -1;
+            return false;
+        }
+        if (holdingSince < 0) {
+            holdingSince = at;
+        }
+        active = at - holdingSince >= forMillis;
+        return active;
+    }
+
+    // 重启后按快照恢复：规则停机前处于满足状态时恢复滞回的保持状态
+    synchronized void restoreActive() {
+        if (isStateful()) {
+            active = true;
+        }
+    }
+
+    private boolean crossedReset(double observed) {
+        return ">".equals(operator) || ">=".equals(operator) ? observed < resetValue : observed > resetValue;
+    }
+
+    private Binding bindingFor(StatusSchema schema) {
+        Binding bound = binding;
+        if (bound == null || bound.schema != schema) {
+            bound = bind(schema);
+            binding = bound;
+        }
+        return bound;
+    }
+
+    private Binding bind(StatusSchema schema) {
+        List<Term> terms = new ArrayList<>();
+        if (field != null) {
+            terms.add(new Term(schema.getField(field), value));
+        } else {
+            for (Map.Entry<String, JsonNode> entry : equals.entrySet()) {
+                terms.add(new Term(schema.getField(entry.getKey()), entry.getValue()));
+            }
+        }
+        return new Binding(schema, terms.toArray(new Term[0]));
+    }
+
+    boolean compare(double actual, double expected) {
+        switch (operator) {
+            case ">":
+                return actual > expected;
+            case ">=":
+                return actual >= expected;
+            case "<":
+                return actual < expected;
+            case "<=":
+                return actual <= expected;
+            case "!=":
+                return actual != expected;
+            default:
+                return actual == expected;
+        }
+    }
+
+    private static final class Binding {
+        private final StatusSchema schema;
+        private final Term[] terms;
+        private final boolean complete;
+
+        Binding(StatusSchema schema, Term[] terms) {
+            this.schema = schema;
+            this.terms = terms;
+            boolean allBound = true;
+            for (Term term : terms) {
+                allBound &= term.field != null;
+            }
+            this.complete = allBound;
+        }
+    }
+
+    // 一个字段的期望值：数值字段解析为double，枚举字段解析为序号；模式中没有该字段或取值无法解析时永不相等
+    private static final class Term {
+        private final StatusField field;
+        private final double number;
+        private final int ordinal;
+        private final boolean valid;
+
+        Term(StatusField field, JsonNode expected) {
+            this.field = field;
+            double parsedNumber = 0;
+            int parsedOrdinal = -1;
+            boolean parsed = false;
+            if (field != null && expected != null) {
+                if (!field.isNumeric()) {
+                    parsedOrdinal = field.ordinalOf(expected.asText());
+                    parsed = parsedOrdinal >= 0;
+                } else if (expected.isNumber()) {
+                    parsedNumber = expected.asDouble();
+                    parsed = true;
+                } else {
+                    try {
+                        parsedNumber = Double.parseDouble(expected.asText());
+                        parsed = true;
+                    } catch (NumberFormatException e) {
+                        parsed = false;
+                    }
+                }
+            }
+            this.number = parsedNumber;
+            this.ordinal = parsedOrdinal;
+            this.valid = parsed;
+        }
+
+        boolean same(DeviceState state) {
+            if (!valid || !state.isPresent(field)) {
+                return false;
+            }
+            return field.isNumeric() ? state.getNumber(field) == number : state.getOrdinal(field) == ordinal;
+        }
+    }
+}
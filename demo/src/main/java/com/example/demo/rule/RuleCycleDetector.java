@@ -0,0 +1,183 @@
+package com.example.demo.rule;
+
+import com.example.demo.config.AppProperties;
+import com.example.demo.entity.AutomationRule;
+import com.example.demo.entity.Scene;
+import com.example.demo.repository.AutomationRuleRepository;
+import com.example.demo.repository.SceneRepository;
+import com.example.demo.scene.SceneAction;
+import com.example.demo.scene.SceneExecutor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// 以设备为节点、以规则为边(触发设备 -> 目标设备，run_scene规则指向场景内全部设备)构建依赖图，
+// 保存规则或场景前检查是否成环。设备指向自身的边不算环：同一设备的反馈调节是常见用法，由运行时深度限制兜底
+@Component
+public class RuleCycleDetector {
+
+    private static final Logger logger = LoggerFactory.getLogger(RuleCycleDetector.class);
+
+    @Autowired
+    private AutomationRuleRepository automationRuleRepository;
+
+    @Autowired
+    private SceneRepository sceneRepository;
+
+    @Autowired
+    private SceneExecutor sceneExecutor;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private AppProperties appProperties;
+
+    public void checkRule(AutomationRule candidate) {
+        // 停用规则只会删边，不可能引入新环；已有的环也要靠停用规则来打破
+        if (!Boolean.TRUE.equals(candidate.getIsEnabled())) {
+            return;
+        }
+        report(findCycle(candidate.getUserId(), candidate, null));
+    }
+
+    public void checkScene(Scene candidate) {
+        report(findCycle(candidate.getUserId(), null, candidate));
+    }
+
+    // 用候选规则/场景替换库中同ID的记录后构图，返回经过候选新增边的环上的设备序列，无环返回null。
+    // 库中已有的环(关闭拒绝时保存的，或直接写库的)不影响与之无关的修改
+    public List<String> findCycle(Long userId, AutomationRule candidateRule, Scene candidateScene) {
+        // before不含候选规则：toggle时候选可能就是持久化上下文里已修改的同一实例，库中旧值不可靠，
+        // 候选规则的边都算新增
+        List<AutomationRule> otherRules = new ArrayList<>();
+        for (AutomationRule rule : automationRuleRepository.findByUserIdAndIsEnabled(userId, true)) {
+            if (candidateRule == null || !rule.getId().equals(candidateRule.getId())) {
+                otherRules.add(rule);
+            }
+        }
+        List<AutomationRule> rules = new ArrayList<>(otherRules);
+        if (candidateRule != null && Boolean.TRUE.equals(candidateRule.getIsEnabled())) {
+            rules.add(candidateRule);
+        }
+        Map<Long, Scene> storedScenes = new HashMap<>();
+        for (Scene scene : sceneRepository.findByUserId(userId)) {
+            storedScenes.put(scene.getId(), scene);
+        }
+        Map<Long, Scene> scenes = new HashMap<>(storedScenes);
+        if (candidateScene != null && candidateScene.getId() != null) {
+            scenes.put(candidateScene.getId(), candidateScene);
+        }
+        return findNewCycle(buildEdges(otherRules, storedScenes), buildEdges(rules, scenes));
+    }
+
+    // 只检查after中比before多出的边：新边u -> v在after中存在v到u的路径时成环
+    static List<String> findNewCycle(Map<String, Set<String>> before, Map<String, Set<String>> after) {
+        for (Map.Entry<String, Set<String>> entry : after.entrySet()) {
+            String from = entry.getKey();
+            for (String to : entry.getValue()) {
+                if (before.getOrDefault(from, Set.of()).contains(to)) {
+                    continue;
+                }
+                List<String> path = findPath(to, from, after);
+                if (path != null) {
+                    List<String> cycle = new ArrayList<>();
+                    cycle.add(from);
+                    cycle.addAll(path);
+                    return cycle;
+                }
+            }
+        }
+        return null;
+    }
+
+    // 深度优先找from到to的路径，返回包含两端的设备序列
+    private static List<String> findPath(String from, String to, Map<String, Set<String>> edges) {
+        Map<String, String> parent = new HashMap<>();
+        parent.put(from, null);
+        List<String> stack = new ArrayList<>();
+        stack.add(from);
+        while (!stack.isEmpty()) {
+            String node = stack.remove(stack.size() - 1);
+            if (node.equals(to)) {
+                List<String> path = new ArrayList<>();
+                for (String step = node; step != null; step = parent.get(step)) {
+                    path.add(0, step);
+                }
+                return path;
+            }
+            for (String next : edges.getOrDefault(node, Set.of())) {
+                if (!parent.containsKey(next)) {
+                    parent.put(next, node);
+                    stack.add(next);
+                }
+            }
+        }
+        return null;
+    }
+
+    private Map<String, Set<String>> buildEdges(List<AutomationRule> rules, Map<Long, Scene> scenes) {
+        Map<String, Set<String>> edges = new HashMap<>();
+        for (AutomationRule rule : rules) {
+            String trigger = triggerDevice(rule);
+            if (trigger == null) {
+                continue;
+            }
+            for (String target : targetDevices(rule, scenes)) {
+                if (!target.equals(trigger)) {
+                    edges.computeIfAbsent(trigger, key -> new LinkedHashSet<>()).add(target);
+                }
+            }
+        }
+        return edges;
+    }
+
+    private void report(List<String> cycle) {
+        if (cycle == null) {
+            return;
+        }
+        if (appProperties.getRules().isRejectCycles()) {
+            throw new RuleCycleException(cycle);
+        }
+        logger.warn("Automation rules form a cycle: {}", String.join(" -> ", cycle));
+    }
+
+    private String triggerDevice(AutomationRule rule) {
+        if (!RuleEngine.TRIGGER_DEVICE_STATUS.equals(rule.getTriggerType()) || rule.getTriggerCondition() == null) {
+            return null;
+        }
+        try {
+            return RuleCondition.parse(objectMapper.readTree(rule.getTriggerCondition())).getDeviceId();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private List<String> targetDevices(AutomationRule rule, Map<Long, Scene> scenes) {
+        if (!RuleEngine.COMMAND_RUN_SCENE.equals(rule.getCommandType())) {
+            return rule.getTargetDeviceId() == null ? List.of() : List.of(rule.getTargetDeviceId());
+        }
+        try {
+            long sceneId = objectMapper.readTree(rule.getCommandParameters()).path("scene_id").asLong();
+            Scene scene = scenes.get(sceneId);
+            List<String> targets = new ArrayList<>();
+            if (scene != null) {
+                for (SceneAction action : sceneExecutor.parseActions(scene.getActions())) {
+                    targets.add(action.getDeviceId());
+                }
+            }
+            return targets;
+        } catch (Exception e) {
+            return List.of();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.demo.rule;
+
+import java.util.List;
+
+// 保存规则或场景会形成 设备 -> 规则 -> 设备 的依赖环
+public class RuleCycleException extends RuntimeException {
+
+    private final List<String> cycle;
+
+    public RuleCycleException(List<String> cycle) {
+        super("Automation rules would form a cycle: " + String.join(" -> ", cycle));
+        this.cycle = cycle;
+    }
+
+    public List<String> getCycle() {
+        return cycle;
+    }
+}
@@ -0,0 +1,275 @@
+package com.example.demo.rule;
+
+import com.example.demo.command.CommandForbiddenException;
+import com.example.demo.config.AppProperties;
+import com.example.demo.device.DeviceInfo;
+import com.example.demo.device.DeviceOwnershipIndex;
+import com.example.demo.device.DeviceRegistry;
+import com.example.demo.entity.AutomationRule;
+import com.example.demo.entity.Scene;
+import com.example.demo.event.ChangeType;
+import com.example.demo.event.EntityChangedEvent;
+import com.example.demo.event.EntityType;
+import com.example.demo.ingest.DeviceStatusReport;
+import com.example.demo.mqtt.MqttService;
+import com.example.demo.repository.AutomationRuleRepository;
+import com.example.demo.scene.SceneAction;
+import com.example.demo.scene.SceneExecutionResult;
+import com.example.demo.scene.SceneExecutor;
+import com.example.demo.status.DeviceState;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// 设备状态触发的自动化规则：按触发设备建索引，收到上报时只评估相关规则，
+// 条件由不满足变为满足时触发一次(边沿触发)，避免持续满足期间重复下发指令
+@Component
+public class RuleEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(RuleEngine.class);
+
+    public static final String TRIGGER_DEVICE_STATUS = "device_status";
+
+    // command_type为run_scene时执行command_parameters中scene_id指定的场景，而不是向目标设备发指令
+    public static final String COMMAND_RUN_SCENE = "run_scene";
+
+    @Autowired
+    private AutomationRuleRepository automationRuleRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MqttService mqttService;
+
+    @Autowired
+    private SceneExecutor sceneExecutor;
+
+    @Autowired
+    private CascadeGuard cascadeGuard;
+
+    @Autowired
+    private DeviceRegistry deviceRegistry;
+
+    @Autowired
+    private DeviceOwnershipIndex ownershipIndex;
+
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Autowired
+    private AppProperties appProperties;
+
+    private final Map<String, List<CompiledRule>> rulesByDevice = new ConcurrentHashMap<>();
+    private final Map<Long, CompiledRule> rulesById = new ConcurrentHashMap<>();
+
+    // 启动时由DeviceStateSnapshotter在MQTT开始消费前调用
+    public void loadRules() {
+        for (AutomationRule rule : automationRuleRepository.findAll()) {
+            register(rule);
+        }
+        logger.info("Loaded {} device-status automation rules", rulesById.size());
+    }
+
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.getEntityType() == EntityType.USER && event.getChangeType() == ChangeType.DELETED) {
+            // 账号注销由后台任务批量删除规则，不会逐条发布规则删除事件
+            rulesById.values().removeIf(compiled -> {
+                if (event.getEntityId().equals(compiled.rule.getUserId())) {
+                    List<CompiledRule> rules = rulesByDevice.get(compiled.condition.getDeviceId());
+                    if (rules != null) {
+                        rules.remove(compiled);
+                    }
+                    return true;
+                }
+                return false;
+            });
+            return;
+        }
+        if (event.getEntityType() != EntityType.AUTOMATION_RULE) {
+            return;
+        }
+        unregister(event.getEntityId());
+        if (event.getChangeType() != ChangeType.DELETED && event.getSnapshot() != null) {
+            register(objectMapper.convertValue(event.getSnapshot(), AutomationRule.class));
+        }
+    }
+
+    public void evaluate(DeviceStatusReport report) {
+        List<CompiledRule> rules = rulesByDevice.get(report.getDeviceId());
+        if (rules == null || rules.isEmpty()) {
+            return;
+        }
+        DeviceState typed = report.getState();
+        JsonNode state = null;
+        boolean parsed = false;
+        for (CompiledRule compiled : rules) {
+            Boolean result;
+            if (typed != null && compiled.condition.bindsTo(typed.getSchema())) {
+                result = compiled.condition.matches(typed, report.getReceivedAtMillis());
+            } else {
+                // 没有状态模式的设备类型，或条件引用了模式外的字段，才解析原始JSON，每条上报最多解析一次
+                if (!parsed) {
+                    parsed = true;
+                    try {
+                        state = objectMapper.readTree(report.getData());
+                    } catch (Exception e) {
+                        state = null;
+                    }
+                }
+                if (state == null) {
+                    continue;
+                }
+                result = compiled.condition.matches(state, report.getReceivedAtMillis());
+            }
+            if (result == null) {
+                continue;
+            }
+            // 同一设备的上报可能由多个工作线程并发评估，只有真正把状态从不满足改为满足的线程触发
+            if (!result) {
+                compiled.lastMatched.set(false);
+            } else if (compiled.lastMatched.compareAndSet(false, true)) {
+                fire(compiled, report);
+            }
+        }
+    }
+
+    // 当前处于满足状态的规则，写入快照后重启时据此恢复边沿触发状态，避免重启后重复触发
+    public List<Long> getMatchedRuleIds() {
+        List<Long> matched = new ArrayList<>();
+        for (CompiledRule compiled : rulesById.values()) {
+            if (compiled.lastMatched.get()) {
+                matched.add(compiled.rule.getId());
+            }
+        }
+        return matched;
+    }
+
+    public void restoreMatched(List<Long> ruleIds) {
+        for (Long ruleId : ruleIds) {
+            CompiledRule compiled = rulesById.get(ruleId);
+            if (compiled != null) {
+                compiled.lastMatched.set(true);
+                compiled.condition.restoreActive();
+            }
+        }
+    }
+
+    private void fire(CompiledRule compiled, DeviceStatusReport report) {
+        AutomationRule rule = compiled.rule;
+        CascadeGuard.Chain chain = cascadeGuard.tryFire(rule.getId(), report.getDeviceId());
+        if (chain == null) {
+            logger.debug("Suppressed rule {} triggered by device {}: cascade limit reached", rule.getId(),
+                    report.getDeviceId());
+            return;
+        }
+        try {
+            JsonNode parameters = rule.getCommandParameters() == null ? null
+                    : objectMapper.readTree(rule.getCommandParameters());
+            if (COMMAND_RUN_SCENE.equals(rule.getCommandType())) {
+                runScene(rule, parameters, chain);
+            } else if (!ownsTarget(rule)) {
+                // 保存时已校验过，这里防止设备之后转给了其他用户
+                logger.warn("Rule {} of user {} targets device {} it does not own, not sending", rule.getId(),
+                        rule.getUserId(), rule.getTargetDeviceId());
+                return;
+            } else {
+                mqttService.sendControl(rule.getTargetDeviceId(), rule.getTargetDeviceType(), rule.getUserId(), null,
+                        rule.getCommandType(), parameters);
+                cascadeGuard.recordCommand(chain, List.of(rule.getTargetDeviceId()));
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to send command for rule {}: {}", rule.getId(), e.getMessage());
+        }
+        applicationEventPublisher.publishEvent(new RuleFiredEvent(rule.getId(), rule.getUserId(),
+                rule.getTargetDeviceId(), report, System.currentTimeMillis()));
+    }
+
+    private boolean ownsTarget(AutomationRule rule) {
+        DeviceInfo device = deviceRegistry.get(rule.getTargetDeviceId());
+        return device != null && rule.getUserId() != null && ownershipIndex.isOwner(rule.getUserId(), device.getId());
+    }
+
+    // 场景异步执行，结果只记录日志，不阻塞状态入库线程
+    private void runScene(AutomationRule rule, JsonNode parameters, CascadeGuard.Chain chain) {
+        long sceneId = parameters == null ? 0 : parameters.path("scene_id").asLong();
+        Scene scene = sceneExecutor.findScene(sceneId, rule.getUserId());
+        if (scene == null) {
+            logger.warn("Rule {} references missing scene {}", rule.getId(), sceneId);
+            return;
+        }
+        List<String> targets = new ArrayList<>();
+        for (SceneAction action : sceneExecutor.parseActions(scene.getActions())) {
+            targets.add(action.getDeviceId());
+        }
+        cascadeGuard.recordCommand(chain, targets);
+        CompletableFuture<SceneExecutionResult> execution;
+        try {
+            execution = sceneExecutor.execute(scene, null);
+        } catch (CommandForbiddenException e) {
+            logger.warn("Rule {} skipped scene {}: {}", rule.getId(), sceneId, e.getMessage());
+            return;
+        }
+        execution.whenComplete((result, error) -> {
+            if (error != null) {
+                logger.warn("Scene {} triggered by rule {} failed: {}", sceneId, rule.getId(), error.getMessage());
+            } else if (result.getOutcome() != SceneExecutionResult.Outcome.COMPLETED) {
+                logger.info("Scene {} triggered by rule {} finished {}: {}/{} actions succeeded", sceneId, rule.getId(),
+                        result.getOutcome(), result.getSucceeded(), result.getActions().size());
+            }
+        });
+    }
+
+    private void register(AutomationRule rule) {
+        if (!Boolean.TRUE.equals(rule.getIsEnabled()) || !TRIGGER_DEVICE_STATUS.equals(rule.getTriggerType())
+                || rule.getTriggerCondition() == null) {
+            return;
+        }
+        RuleCondition condition;
+        try {
+            condition = RuleCondition.parse(objectMapper.readTree(rule.getTriggerCondition()),
+                    appProperties.getRules().getMaxWindowSamples());
+        } catch (Exception e) {
+            logger.warn("Skipping rule {} with invalid trigger condition: {}", rule.getId(), e.getMessage());
+            return;
+        }
+        CompiledRule compiled = new CompiledRule(rule, condition);
+        rulesById.put(rule.getId(), compiled);
+        rulesByDevice.computeIfAbsent(condition.getDeviceId(), key -> new CopyOnWriteArrayList<>()).add(compiled);
+    }
+
+    private void unregister(Long ruleId) {
+        CompiledRule removed = rulesById.remove(ruleId);
+        if (removed != null) {
+            List<CompiledRule> rules = rulesByDevice.get(removed.condition.getDeviceId());
+            if (rules != null) {
+                rules.remove(removed);
+            }
+        }
+    }
+
+    private static final class CompiledRule {
+        private final AutomationRule rule;
+        private final RuleCondition condition;
+        private final AtomicBoolean lastMatched = new AtomicBoolean();
+
+        CompiledRule(AutomationRule rule, RuleCondition condition) {
+            this.rule = rule;
+            this.condition = condition;
+        }
+    }
+}
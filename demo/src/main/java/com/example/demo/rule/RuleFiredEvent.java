@@ -0,0 +1,40 @@
+package com.example.demo.rule;
+
+import com.example.demo.ingest.DeviceStatusReport;
+
+public class RuleFiredEvent {
+
+    private final Long ruleId;
+    private final Long userId;
+    private final String targetDeviceId;
+    private final DeviceStatusReport trigger;
+    private final long firedAtMillis;
+
+    public RuleFiredEvent(Long ruleId, Long userId, String targetDeviceId, DeviceStatusReport trigger, long firedAtMillis) {
+        this.ruleId = ruleId;
+        this.userId = userId;
+        this.targetDeviceId = targetDeviceId;
+        this.trigger = trigger;
+        this.firedAtMillis = firedAtMillis;
+    }
+
+    public Long getRuleId() {
+        return ruleId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getTargetDeviceId() {
+        return targetDeviceId;
+    }
+
+    public DeviceStatusReport getTrigger() {
+        return trigger;
+    }
+
+    public long getFiredAtMillis() {
+        return firedAtMillis;
+    }
+}
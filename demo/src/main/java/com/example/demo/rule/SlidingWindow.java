@@ -0,0 +1,161 @@
+package com.example.demo.rule;
+
+// 单条规则的时间滑动窗口，按上报采样计算avg/min/max/count。
+// 每次上报均摊O(1)：过期样本从队头移出并同步维护累加和，min/max用单调队列维护，
+// 不需要回读历史数据。样本数超过上限时丢弃最旧的样本
+final class SlidingWindow {
+
+    enum Aggregate {
+        AVG, MIN, MAX, COUNT;
+
+        static Aggregate parse(String name) {
+            try {
+                return valueOf(name.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported aggregate " + name + ", expected avg/min/max/count");
+            }
+        }
+    }
+
+    private final Aggregate aggregate;
+    private final long windowMillis;
+    private final int maxSamples;
+    // 样本：key为上报时间
+    private final Ring samples = new Ring();
+    // 单调队列：key为样本序号，队头即窗口内最小(最大)值
+    private final Ring extremes;
+    private long headSequence;
+    private long nextSequence;
+    private double sum;
+    private long firstAt = -1;
+    private long lastAt;
+
+    SlidingWindow(Aggregate aggregate, long windowMillis, int maxSamples) {
+        this.aggregate = aggregate;
+        this.windowMillis = windowMillis;
+        this.maxSamples = Math.max(1, maxSamples);
+        this.extremes = aggregate == Aggregate.MIN || aggregate == Aggregate.MAX ? new Ring() : null;
+    }
+
+    void add(long at, double value) {
+        long cutoff = at - windowMillis;
+        while (!samples.isEmpty() && samples.firstKey() <= cutoff) {
+            removeOldest();
+        }
+        // 首个样本，或距上一个样本超过一个窗口时长(设备离线过)：覆盖时长从本次重新计算。
+        // 恰好间隔一个窗口时长的样本仍算连续，按窗口时长周期上报的设备也能满足覆盖
+        if (firstAt < 0 || at - lastAt > windowMillis) {
+            firstAt = at;
+        }
+        lastAt = at;
+        if (samples.size() >= maxSamples) {
+            removeOldest();
+        }
+        samples.addLast(at, value);
+        sum += value;
+        if (extremes != null) {
+            while (!extremes.isEmpty() && dominates(value, extremes.lastValue())) {
+                extremes.pollLast();
+            }
+            extremes.addLast(nextSequence, value);
+        }
+        nextSequence++;
+    }
+
+    // count统计的是窗口内的次数，不需要等窗口填满；其余聚合在连续采样满一个窗口时长后才有意义
+    boolean isCovered(long at) {
+        return aggregate == Aggregate.COUNT || (firstAt >= 0 && at - firstAt >= windowMillis);
+    }
+
+    double value() {
+        switch (aggregate) {
+            case COUNT:
+                return samples.size();
+            case AVG:
+                return samples.isEmpty() ? 0 : sum / samples.size();
+            default:
+                return extremes.isEmpty() ? 0 : extremes.firstValue();
+        }
+    }
+
+    int size() {
+        return samples.size();
+    }
+
+    private void removeOldest() {
+        sum -= samples.firstValue();
+        samples.pollFirst();
+        headSequence++;
+        if (samples.isEmpty()) {
+            // 窗口清空时归零，避免浮点累加误差长期积累
+            sum = 0;
+        }
+        if (extremes != null && !extremes.isEmpty() && extremes.firstKey() < headSequence) {
+            extremes.pollFirst();
+        }
+    }
+
+    private boolean dominates(double value, double previous) {
+        return aggregate == Aggregate.MIN ? value <= previous : value >= previous;
+    }
+
+    // long键+double值的环形双端队列，容量按需翻倍
+    private static final class Ring {
+        private long[] keys = new long[16];
+        private double[] values = new double[16];
+        private int head;
+        private int size;
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void addLast(long key, double value) {
+            if (size == keys.length) {
+                grow();
+            }
+            int index = (head + size) & (keys.length - 1);
+            keys[index] = key;
+            values[index] = value;
+            size++;
+        }
+
+        void pollFirst() {
+            head = (head + 1) & (keys.length - 1);
+            size--;
+        }
+
+        void pollLast() {
+            size--;
+        }
+
+        long firstKey() {
+            return keys[head];
+        }
+
+        double firstValue() {
+            return values[head];
+        }
+
+        double lastValue() {
+            return values[(head + size - 1) & (keys.length - 1)];
+        }
+
+        private void grow() {
+            long[] newKeys = new long[keys.length * 2];
+            double[] newValues = new double[values.length * 2];
+            for (int i = 0; i < size; i++) {
+                int index = (head + i) & (keys.length - 1);
+                newKeys[i] = keys[index];
+                newValues[i] = values[index];
+            }
+            keys = newKeys;
+            values = newValues;
+            head = 0;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.demo.scene;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+
+// 场景中的一个动作：{"device_id":"led-1","command":"turn_off","parameters":{},"step":0,"timeout_millis":3000}
+// 相同step的动作并发执行，step小的全部结束后才开始下一步，用于表达顺序约束
+public class SceneAction {
+
+    @JsonProperty("device_id")
+    private String deviceId;
+
+    private String command;
+
+    private JsonNode parameters;
+
+    private int step;
+
+    @JsonProperty("timeout_millis")
+    private Long timeoutMillis;
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public void setDeviceId(String deviceId) {
+        this.deviceId = deviceId;
+    }
+
+    public String getCommand() {
+        return command;
+    }
+
+    public void setCommand(String command) {
+        this.command = command;
+    }
+
+    public JsonNode getParameters() {
+        return parameters;
+    }
+
+    public void setParameters(JsonNode parameters) {
+        this.parameters = parameters;
+    }
+
+    public int getStep() {
+        return step;
+    }
+
+    public void setStep(int step) {
+        this.step = step;
+    }
+
+    public Long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    public void setTimeoutMillis(Long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+}
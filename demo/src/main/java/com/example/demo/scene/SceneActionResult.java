@@ -0,0 +1,52 @@
+package com.example.demo.scene;
+
+import com.example.demo.command.CommandStatus;
+
+public class SceneActionResult {
+
+    private final int index;
+    private final int step;
+    private final String deviceId;
+    private final String command;
+    private final CommandStatus status;
+    private final String commandId;
+    private final long latencyMillis;
+
+    public SceneActionResult(int index, SceneAction action, CommandStatus status, String commandId, long latencyMillis) {
+        this.index = index;
+        this.step = action.getStep();
+        this.deviceId = action.getDeviceId();
+        this.command = action.getCommand();
+        this.status = status;
+        this.commandId = commandId;
+        this.latencyMillis = latencyMillis;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getStep() {
+        return step;
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public String getCommand() {
+        return command;
+    }
+
+    public CommandStatus getStatus() {
+        return status;
+    }
+
+    public String getCommandId() {
+        return commandId;
+    }
+
+    public long getLatencyMillis() {
+        return latencyMillis;
+    }
+}
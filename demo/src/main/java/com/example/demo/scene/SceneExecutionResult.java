@@ -0,0 +1,72 @@
+package com.example.demo.scene;
+
+import com.example.demo.command.CommandStatus;
+
+import java.util.List;
+
+// 场景执行结果，部分动作失败时outcome为PARTIAL并列出每个动作的状态
+public class SceneExecutionResult {
+
+    public enum Outcome {
+        COMPLETED, PARTIAL, FAILED, DEADLINE_EXCEEDED
+    }
+
+    private final Long sceneId;
+    private final String sceneName;
+    private final Outcome outcome;
+    private final int succeeded;
+    private final int failed;
+    private final long elapsedMillis;
+    private final List<SceneActionResult> actions;
+
+    public SceneExecutionResult(Long sceneId, String sceneName, boolean deadlineExceeded, long elapsedMillis,
+                                List<SceneActionResult> actions) {
+        this.sceneId = sceneId;
+        this.sceneName = sceneName;
+        this.elapsedMillis = elapsedMillis;
+        this.actions = actions;
+        int success = 0;
+        for (SceneActionResult action : actions) {
+            if (action.getStatus() == CommandStatus.SUCCESS) {
+                success++;
+            }
+        }
+        this.succeeded = success;
+        this.failed = actions.size() - success;
+        if (deadlineExceeded) {
+            this.outcome = Outcome.DEADLINE_EXCEEDED;
+        } else if (failed == 0) {
+            this.outcome = Outcome.COMPLETED;
+        } else {
+            this.outcome = success == 0 ? Outcome.FAILED : Outcome.PARTIAL;
+        }
+    }
+
+    public Long getSceneId() {
+        return sceneId;
+    }
+
+    public String getSceneName() {
+        return sceneName;
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    public int getSucceeded() {
+        return succeeded;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public List<SceneActionResult> getActions() {
+        return actions;
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.demo.scene;
+
+import com.example.demo.command.CommandDispatcher;
+import com.example.demo.command.CommandForbiddenException;
+import com.example.demo.command.CommandStatus;
+import com.example.demo.config.AppProperties;
+import com.example.demo.device.DeviceInfo;
+import com.example.demo.device.DeviceOwnershipIndex;
+import com.example.demo.device.DeviceRegistry;
+import com.example.demo.entity.Scene;
+import com.example.demo.exception.BadRequestException;
+import com.example.demo.repository.SceneRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// 场景执行：同一步骤内的动作全部并发下发，等待确认时不占用线程，步骤之间按顺序衔接。
+// 每个动作的等待时间不超过场景剩余时限，时限到达后尚未开始的动作记为SKIPPED，
+// 因此返回的future最迟在场景时限到达时完成
+@Component
+public class SceneExecutor {
+
+    private static final TypeReference<List<SceneAction>> ACTIONS_TYPE = new TypeReference<>() {};
+
+    private final DeviceRegistry deviceRegistry;
+    private final DeviceOwnershipIndex ownershipIndex;
+    private final CommandDispatcher commandDispatcher;
+    private final SceneRepository sceneRepository;
+    private final ObjectMapper objectMapper;
+    private final AppProperties.Scenes config;
+
+    public SceneExecutor(DeviceRegistry deviceRegistry, DeviceOwnershipIndex ownershipIndex,
+                         CommandDispatcher commandDispatcher, SceneRepository sceneRepository,
+                         ObjectMapper objectMapper, AppProperties appProperties) {
+        this.deviceRegistry = deviceRegistry;
+        this.ownershipIndex = ownershipIndex;
+        this.commandDispatcher = commandDispatcher;
+        this.sceneRepository = sceneRepository;
+        this.objectMapper = objectMapper;
+        this.config = appProperties.getScenes();
+    }
+
+    public List<SceneAction> parseActions(String json) {
+        List<SceneAction> actions;
+        try {
+            actions = json == null ? List.of() : objectMapper.readValue(json, ACTIONS_TYPE);
+        } catch (Exception e) {
+            throw new BadRequestException("Invalid scene actions: " + e.getMessage());
+        }
+        if (actions.size() > config.getMaxActions()) {
+            throw new BadRequestException("Scene has more than " + config.getMaxActions() + " actions");
+        }
+        for (SceneAction action : actions) {
+            if (action.getDeviceId() == null || action.getCommand() == null) {
+                throw new BadRequestException("Scene action requires device_id and command");
+            }
+        }
+        return actions;
+    }
+
+    // 供自动化规则使用，场景必须属于规则所属用户；否则返回null
+    public Scene findScene(Long sceneId, Long userId) {
+        Scene scene = sceneRepository.findById(sceneId).orElse(null);
+        if (scene == null || !scene.getUserId().equals(userId)) {
+            return null;
+        }
+        return scene;
+    }
+
+    public CompletableFuture<SceneExecutionResult> execute(Scene scene, Long deadlineMillis) {
+        long startNanos = System.nanoTime();
+        long deadline = resolveDeadline(deadlineMillis != null ? deadlineMillis : scene.getDeadlineMillis());
+        long deadlineNanos = startNanos + TimeUnit.MILLISECONDS.toNanos(deadline);
+        List<SceneAction> actions = parseActions(scene.getActions());
+        checkOwnership(scene, actions);
+        SceneActionResult[] results = new SceneActionResult[actions.size()];
+
+        Map<Integer, List<Integer>> steps = new TreeMap<>();
+        for (int i = 0; i < actions.size(); i++) {
+            steps.computeIfAbsent(actions.get(i).getStep(), key -> new ArrayList<>()).add(i);
+        }
+        CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+        for (List<Integer> step : steps.values()) {
+            chain = chain.thenCompose(ignored -> runStep(scene, actions, step, results, deadlineNanos));
+        }
+        return chain.thenApply(ignored -> {
+            List<SceneActionResult> ordered = Arrays.asList(results);
+            boolean deadlineExceeded = false;
+            for (SceneActionResult result : ordered) {
+                if (result.getStatus() == CommandStatus.SKIPPED) {
+                    deadlineExceeded = true;
+                    break;
+                }
+            }
+            return new SceneExecutionResult(scene.getId(), scene.getSceneName(), deadlineExceeded,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos), ordered);
+        });
+    }
+
+    // 任一动作的设备属于其他用户则整个场景拒绝，不做部分执行；已不存在的设备执行时记为SEND_FAILED
+    private void checkOwnership(Scene scene, List<SceneAction> actions) {
+        for (SceneAction action : actions) {
+            DeviceInfo device = deviceRegistry.get(action.getDeviceId());
+            if (device != null && !ownershipIndex.isOwner(scene.getUserId(), device.getId())) {
+                throw new CommandForbiddenException("User " + scene.getUserId() + " does not own device "
+                        + action.getDeviceId());
+            }
+        }
+    }
+
+    private CompletableFuture<Void> runStep(Scene scene, List<SceneAction> actions, List<Integer> step,
+                                            SceneActionResult[] results, long deadlineNanos) {
+        List<CompletableFuture<Void>> pending = new ArrayList<>(step.size());
+        for (int index : step) {
+            SceneAction action = actions.get(index);
+            long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+            if (remainingMillis <= 0) {
+                results[index] = new SceneActionResult(index, action, CommandStatus.SKIPPED, null, 0);
+                continue;
+            }
+            DeviceInfo device = deviceRegistry.get(action.getDeviceId());
+            if (device == null || !ownershipIndex.isOwner(scene.getUserId(), device.getId())) {
+                // 设备不存在，或执行期间改归了其他用户
+                results[index] = new SceneActionResult(index, action, CommandStatus.SEND_FAILED, null, 0);
+                continue;
+            }
+            long timeoutMillis = Math.min(commandDispatcher.resolveTimeout(action.getTimeoutMillis()), remainingMillis);
+            pending.add(commandDispatcher.dispatch(device, action.getCommand(), action.getParameters(), timeoutMillis)
+                    .thenAccept(result -> results[index] = new SceneActionResult(index, action, result.getStatus(),
+                            result.getCommandId(), result.getLatencyMillis())));
+        }
+        return CompletableFuture.allOf(pending.toArray(new CompletableFuture[0]));
+    }
+
+    private long resolveDeadline(Long requestedMillis) {
+        if (requestedMillis == null || requestedMillis <= 0) {
+            return config.getDefaultDeadlineMillis();
+        }
+        return Math.min(requestedMillis, config.getMaxDeadlineMillis());
+    }
+}
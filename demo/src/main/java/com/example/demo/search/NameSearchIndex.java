@@ -0,0 +1,250 @@
+package com.example.demo.search;
+
+import com.example.demo.event.ChangeType;
+import com.example.demo.event.EntityChangedEvent;
+import com.example.demo.event.EntityType;
+import com.example.demo.event.EventStreamResyncEvent;
+import com.example.demo.repository.DeviceRepository;
+import com.example.demo.repository.HouseAreaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 设备名、设备类型和区域名的内存搜索索引，按用户分开建索引，查询只访问该用户的索引。
+// 启动时全量加载一次，之后靠实体变更事件增量维护，事件流需要重新同步时重新加载
+@Component
+public class NameSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(NameSearchIndex.class);
+
+    private final DeviceRepository deviceRepository;
+    private final HouseAreaRepository houseAreaRepository;
+
+    private volatile Map<Long, UserNameIndex> byUser = new ConcurrentHashMap<>();
+    // 设备/区域ID到所属用户，用于换用户和删除时找到原索引
+    private volatile Map<Long, Long> deviceOwners = new ConcurrentHashMap<>();
+    private volatile Map<Long, Long> areaOwners = new ConcurrentHashMap<>();
+    // 加载期间收到的事件，加载完成后在新索引上重放
+    private List<EntityChangedEvent> pendingDuringLoad;
+    private volatile boolean loading;
+
+    public NameSearchIndex(DeviceRepository deviceRepository, HouseAreaRepository houseAreaRepository) {
+        this.deviceRepository = deviceRepository;
+        this.houseAreaRepository = houseAreaRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        synchronized (this) {
+            pendingDuringLoad = new ArrayList<>();
+            loading = true;
+        }
+        List<Object[]> deviceRows;
+        List<Object[]> areaRows;
+        try {
+            deviceRows = deviceRepository.findAllSearchRows();
+            areaRows = houseAreaRepository.findAllSearchRows();
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                pendingDuringLoad = null;
+                loading = false;
+            }
+            throw e;
+        }
+        synchronized (this) {
+            Map<Long, UserNameIndex> previousByUser = byUser;
+            Map<Long, Long> previousDeviceOwners = deviceOwners;
+            Map<Long, Long> previousAreaOwners = areaOwners;
+            byUser = new ConcurrentHashMap<>();
+            deviceOwners = new ConcurrentHashMap<>();
+            areaOwners = new ConcurrentHashMap<>();
+            try {
+                // 行格式见DeviceRepository.findAllSearchRows
+                for (Object[] row : deviceRows) {
+                    putDevice((Long) row[0], (String) row[1], (String) row[2], (String) row[3],
+                            (Long) row[4], (Long) row[5]);
+                }
+                // 行格式见HouseAreaRepository.findAllSearchRows
+                for (Object[] row : areaRows) {
+                    putArea((Long) row[0], (String) row[1], (Long) row[2]);
+                }
+                for (EntityChangedEvent event : pendingDuringLoad) {
+                    apply(event);
+                }
+            } catch (RuntimeException e) {
+                byUser = previousByUser;
+                deviceOwners = previousDeviceOwners;
+                areaOwners = previousAreaOwners;
+                throw e;
+            } finally {
+                pendingDuringLoad = null;
+                loading = false;
+            }
+        }
+        logger.info("Loaded {} devices and {} areas into name search index", deviceRows.size(), areaRows.size());
+    }
+
+    @EventListener
+    public void onResync(EventStreamResyncEvent event) {
+        load();
+    }
+
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        EntityType type = event.getEntityType();
+        if (type != EntityType.DEVICE && type != EntityType.HOUSE_AREA && type != EntityType.USER
+                || event.getChangeType() == ChangeType.STATUS) {
+            return;
+        }
+        // 未改动名称、类型、区域的更新只在读锁下比较一次，不进入全局锁
+        if (!loading && isUnchanged(event)) {
+            return;
+        }
+        synchronized (this) {
+            apply(event);
+            if (pendingDuringLoad != null) {
+                pendingDuringLoad.add(event);
+            }
+        }
+    }
+
+    // kind、deviceType为空表示不限
+    public List<SearchHit> search(Long userId, String query, SearchHit.Kind kind, String deviceType,
+                                  boolean prefixOnly, int limit) {
+        UserNameIndex index = byUser.get(userId);
+        if (index == null || limit <= 0) {
+            return new ArrayList<>();
+        }
+        return index.search(query, kind, deviceType, prefixOnly, limit);
+    }
+
+    public int size() {
+        int size = 0;
+        for (UserNameIndex index : byUser.values()) {
+            size += index.size();
+        }
+        return size;
+    }
+
+    private boolean isUnchanged(EntityChangedEvent event) {
+        Map<String, Object> snapshot = event.getSnapshot();
+        if (event.getChangeType() != ChangeType.UPDATED || snapshot == null) {
+            return false;
+        }
+        Long userId = toLong(snapshot.get("userId"));
+        if (event.getEntityType() == EntityType.DEVICE) {
+            String deviceId = (String) snapshot.get("deviceId");
+            return userId != null && userId.equals(deviceOwners.get(event.getEntityId()))
+                    && contains(userId, SearchHit.Kind.DEVICE, event.getEntityId(),
+                    deviceName((String) snapshot.get("deviceName"), deviceId), deviceId,
+                    (String) snapshot.get("deviceType"), toLong(snapshot.get("areaId")));
+        }
+        return event.getEntityType() == EntityType.HOUSE_AREA
+                && userId != null && userId.equals(areaOwners.get(event.getEntityId()))
+                && contains(userId, SearchHit.Kind.AREA, event.getEntityId(),
+                (String) snapshot.get("areaName"), null, null, null);
+    }
+
+    private boolean contains(Long userId, SearchHit.Kind kind, Long id, String name, String deviceId,
+                             String deviceType, Long areaId) {
+        UserNameIndex index = byUser.get(userId);
+        return index != null && index.contains(kind, id, name, deviceId, deviceType, areaId);
+    }
+
+    private void apply(EntityChangedEvent event) {
+        if (event.getEntityType() == EntityType.USER) {
+            if (event.getChangeType() == ChangeType.DELETED) {
+                // 账号批量清理不逐条发设备、区域删除事件
+                byUser.remove(event.getEntityId());
+                deviceOwners.values().removeIf(event.getEntityId()::equals);
+                areaOwners.values().removeIf(event.getEntityId()::equals);
+            }
+            return;
+        }
+        Map<String, Object> snapshot = event.getSnapshot();
+        if (event.getEntityType() == EntityType.HOUSE_AREA) {
+            if (event.getChangeType() == ChangeType.DELETED) {
+                removeArea(event.getEntityId());
+            } else if (snapshot != null) {
+                putArea(event.getEntityId(), (String) snapshot.get("areaName"), toLong(snapshot.get("userId")));
+            }
+            return;
+        }
+        if (event.getChangeType() == ChangeType.DELETED) {
+            remove(deviceOwners, SearchHit.Kind.DEVICE, event.getEntityId());
+        } else if (snapshot != null) {
+            putDevice(event.getEntityId(), (String) snapshot.get("deviceId"), (String) snapshot.get("deviceName"),
+                    (String) snapshot.get("deviceType"), toLong(snapshot.get("userId")), toLong(snapshot.get("areaId")));
+        }
+    }
+
+    private void putDevice(Long id, String deviceId, String deviceName, String deviceType, Long userId, Long areaId) {
+        put(deviceOwners, SearchHit.Kind.DEVICE, id, userId, deviceName(deviceName, deviceId), deviceId, deviceType, areaId);
+    }
+
+    // 没有设备名时按设备ID搜索
+    private static String deviceName(String deviceName, String deviceId) {
+        return deviceName != null && !deviceName.isBlank() ? deviceName : deviceId;
+    }
+
+    private void putArea(Long id, String areaName, Long userId) {
+        put(areaOwners, SearchHit.Kind.AREA, id, userId, areaName, null, null, null);
+    }
+
+    private void put(Map<Long, Long> owners, SearchHit.Kind kind, Long id, Long userId, String name,
+                     String deviceId, String deviceType, Long areaId) {
+        if (userId == null || name == null) {
+            remove(owners, kind, id);
+            return;
+        }
+        Long previousUser = owners.put(id, userId);
+        if (previousUser != null && !previousUser.equals(userId)) {
+            removeFrom(previousUser, kind, id);
+        }
+        byUser.computeIfAbsent(userId, key -> new UserNameIndex()).put(kind, id, name, deviceId, deviceType, areaId);
+    }
+
+    private void removeArea(Long areaId) {
+        Long userId = areaOwners.get(areaId);
+        remove(areaOwners, SearchHit.Kind.AREA, areaId);
+        if (userId == null) {
+            return;
+        }
+        // 区域删除时设备只解除归属
+        UserNameIndex index = byUser.get(userId);
+        if (index == null) {
+            return;
+        }
+        for (SearchHit hit : index.findByArea(areaId)) {
+            index.put(SearchHit.Kind.DEVICE, hit.getId(), hit.getName(), hit.getDeviceId(), hit.getDeviceType(), null);
+        }
+    }
+
+    private void remove(Map<Long, Long> owners, SearchHit.Kind kind, Long id) {
+        Long userId = owners.remove(id);
+        if (userId != null) {
+            removeFrom(userId, kind, id);
+        }
+    }
+
+    private void removeFrom(Long userId, SearchHit.Kind kind, Long id) {
+        UserNameIndex index = byUser.get(userId);
+        if (index != null) {
+            index.remove(kind, id);
+            if (index.isEmpty()) {
+                byUser.remove(userId);
+            }
+        }
+    }
+
+    private Long toLong(Object value) {
+        return value instanceof Number number ? number.longValue() : null;
+    }
+}
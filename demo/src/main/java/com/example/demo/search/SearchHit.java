@@ -0,0 +1,49 @@
+package com.example.demo.search;
+
+// 名称搜索结果：设备或区域
+public class SearchHit {
+
+    public enum Kind {
+        DEVICE, AREA
+    }
+
+    private final Kind kind;
+    private final Long id;
+    private final String name;
+    private final String deviceId;
+    private final String deviceType;
+    private final Long areaId;
+
+    public SearchHit(Kind kind, Long id, String name, String deviceId, String deviceType, Long areaId) {
+        this.kind = kind;
+        this.id = id;
+        this.name = name;
+        this.deviceId = deviceId;
+        this.deviceType = deviceType;
+        this.areaId = areaId;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public String getDeviceType() {
+        return deviceType;
+    }
+
+    public Long getAreaId() {
+        return areaId;
+    }
+}
@@ -0,0 +1,275 @@
+package com.example.demo.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// 单个用户的设备、区域名称索引。设备名、设备类型和区域名按二元组(bigram)建倒排表，
+// 查询取查询串中倒排表最短的二元组作为候选集再逐个校验，候选集远小于全部条目；
+// 二元组对中文两字查询也有效。单字查询直接扫描该用户的条目
+final class UserNameIndex {
+
+    // 匹配等级，越小越靠前
+    private static final int EXACT = 0;
+    private static final int PREFIX = 1;
+    private static final int WORD_PREFIX = 2;
+    private static final int SUBSTRING = 3;
+    // 只命中设备类型时排在名称命中之后
+    private static final int TYPE_PENALTY = 4;
+    private static final int NO_MATCH = Integer.MAX_VALUE;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Entry> devices = new HashMap<>();
+    private final Map<Long, Entry> areas = new HashMap<>();
+    private final Map<Integer, Set<Entry>> postings = new HashMap<>();
+
+    // 读锁下判断索引中是否已是这些内容，用于跳过不影响索引的更新
+    boolean contains(SearchHit.Kind kind, Long id, String name, String deviceId, String deviceType, Long areaId) {
+        lock.readLock().lock();
+        try {
+            return sameAs((kind == SearchHit.Kind.DEVICE ? devices : areas).get(id), name, deviceId, deviceType, areaId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 已有相同内容时返回false，不重建索引
+    boolean put(SearchHit.Kind kind, Long id, String name, String deviceId, String deviceType, Long areaId) {
+        Map<Long, Entry> entries = kind == SearchHit.Kind.DEVICE ? devices : areas;
+        lock.writeLock().lock();
+        try {
+            Entry existing = entries.get(id);
+            if (sameAs(existing, name, deviceId, deviceType, areaId)) {
+                return false;
+            }
+            if (existing != null) {
+                unindex(existing);
+            }
+            Entry entry = new Entry(new SearchHit(kind, id, name, deviceId, deviceType, areaId));
+            entries.put(id, entry);
+            for (int gram : grams(entry.name)) {
+                postings.computeIfAbsent(gram, key -> new HashSet<>()).add(entry);
+            }
+            for (int gram : grams(entry.type)) {
+                postings.computeIfAbsent(gram, key -> new HashSet<>()).add(entry);
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(SearchHit.Kind kind, Long id) {
+        lock.writeLock().lock();
+        try {
+            Entry removed = (kind == SearchHit.Kind.DEVICE ? devices : areas).remove(id);
+            if (removed != null) {
+                unindex(removed);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    List<SearchHit> findByArea(Long areaId) {
+        List<SearchHit> hits = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Entry entry : devices.values()) {
+                if (areaId.equals(entry.hit.getAreaId())) {
+                    hits.add(entry.hit);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return hits;
+    }
+
+    boolean isEmpty() {
+        lock.readLock().lock();
+        try {
+            return devices.isEmpty() && areas.isEmpty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return devices.size() + areas.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // kind、deviceType为空表示不限；prefixOnly时只返回名称(或名称中某个词)以查询串开头的结果
+    List<SearchHit> search(String query, SearchHit.Kind kind, String deviceType, boolean prefixOnly, int limit) {
+        String normalized = normalize(query);
+        Comparator<Scored> order = Comparator.comparingInt((Scored s) -> s.rank)
+                .thenComparingInt(s -> s.entry.name.length())
+                .thenComparing(s -> s.entry.name);
+        // 保留最好的limit个，堆顶为当前最差的一个
+        PriorityQueue<Scored> top = new PriorityQueue<>(order.reversed());
+        lock.readLock().lock();
+        try {
+            for (Entry entry : candidates(normalized, kind)) {
+                if (kind != null && entry.hit.getKind() != kind) {
+                    continue;
+                }
+                if (deviceType != null && !deviceType.equals(entry.hit.getDeviceType())) {
+                    continue;
+                }
+                int rank = rank(entry, normalized, prefixOnly);
+                if (rank == NO_MATCH) {
+                    continue;
+                }
+                top.offer(new Scored(entry, rank));
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<Scored> sorted = new ArrayList<>(top);
+        sorted.sort(order);
+        List<SearchHit> hits = new ArrayList<>(sorted.size());
+        for (Scored scored : sorted) {
+            hits.add(scored.entry.hit);
+        }
+        return hits;
+    }
+
+    private Collection<Entry> candidates(String query, SearchHit.Kind kind) {
+        if (query.length() < 2) {
+            if (kind == SearchHit.Kind.DEVICE) {
+                return devices.values();
+            }
+            if (kind == SearchHit.Kind.AREA) {
+                return areas.values();
+            }
+            List<Entry> all = new ArrayList<>(devices.size() + areas.size());
+            all.addAll(devices.values());
+            all.addAll(areas.values());
+            return all;
+        }
+        Set<Entry> smallest = null;
+        for (int gram : grams(query)) {
+            Set<Entry> posting = postings.get(gram);
+            if (posting == null) {
+                return List.of();
+            }
+            if (smallest == null || posting.size() < smallest.size()) {
+                smallest = posting;
+            }
+        }
+        return smallest;
+    }
+
+    private static int rank(Entry entry, String query, boolean prefixOnly) {
+        int rank = rank(entry.name, query, prefixOnly);
+        if (rank == NO_MATCH && entry.type != null) {
+            int typeRank = rank(entry.type, query, prefixOnly);
+            return typeRank == NO_MATCH ? NO_MATCH : typeRank + TYPE_PENALTY;
+        }
+        return rank;
+    }
+
+    private static int rank(String text, String query, boolean prefixOnly) {
+        if (text == null) {
+            return NO_MATCH;
+        }
+        if (query.isEmpty()) {
+            return PREFIX;
+        }
+        if (text.equals(query)) {
+            return EXACT;
+        }
+        if (text.startsWith(query)) {
+            return PREFIX;
+        }
+        int from = 0;
+        int index;
+        while ((index = text.indexOf(query, from)) >= 0) {
+            if (!Character.isLetterOrDigit(text.charAt(index - 1))) {
+                return WORD_PREFIX;
+            }
+            if (!prefixOnly) {
+                return SUBSTRING;
+            }
+            from = index + 1;
+        }
+        return NO_MATCH;
+    }
+
+    private static boolean sameAs(Entry entry, String name, String deviceId, String deviceType, Long areaId) {
+        return entry != null && Objects.equals(entry.hit.getName(), name)
+                && Objects.equals(entry.hit.getDeviceId(), deviceId)
+                && Objects.equals(entry.hit.getDeviceType(), deviceType)
+                && Objects.equals(entry.hit.getAreaId(), areaId);
+    }
+
+    private void unindex(Entry entry) {
+        for (int gram : grams(entry.name)) {
+            removePosting(gram, entry);
+        }
+        for (int gram : grams(entry.type)) {
+            removePosting(gram, entry);
+        }
+    }
+
+    private void removePosting(int gram, Entry entry) {
+        Set<Entry> posting = postings.get(gram);
+        if (posting != null && posting.remove(entry) && posting.isEmpty()) {
+            postings.remove(gram);
+        }
+    }
+
+    static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // 两个char拼成一个int作为二元组键
+    static Set<Integer> grams(String text) {
+        Set<Integer> grams = new HashSet<>();
+        if (text != null) {
+            for (int i = 0; i + 1 < text.length(); i++) {
+                grams.add((text.charAt(i) << 16) | text.charAt(i + 1));
+            }
+        }
+        return grams;
+    }
+
+    private static final class Entry {
+        private final SearchHit hit;
+        private final String name;
+        private final String type;
+
+        Entry(SearchHit hit) {
+            this.hit = hit;
+            this.name = normalize(hit.getName());
+            this.type = hit.getDeviceType() == null ? null : normalize(hit.getDeviceType());
+        }
+    }
+
+    private static final class Scored {
+        private final Entry entry;
+        private final int rank;
+
+        Scored(Entry entry, int rank) {
+            this.entry = entry;
+            this.rank = rank;
+        }
+    }
+}
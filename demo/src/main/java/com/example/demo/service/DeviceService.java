@@ -1,6 +1,7 @@
 package com.example.demo.service;
 
 import com.example.demo.entity.Device;
+import com.example.demo.status.DeviceState;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,6 +12,9 @@ public interface DeviceService {
 
     List<Device> getDevicesByAreaId(Long areaId);
 
+    // 按fields只查询所需列；filterAttribute为null时查询全部设备
+    List<?> getDeviceFields(String filterAttribute, Long filterValue, List<String> fields);
+
     Optional<Device> getDeviceById(Long id);
 
     Device createDevice(Device device);
@@ -19,5 +23,5 @@ public interface DeviceService {
 
     void deleteDevice(Long id);
     
-    void updateDeviceStatus(String deviceId, String deviceData);
+    void updateDeviceStatus(String deviceId, String deviceData, DeviceState state);
 }
\ No newline at end of file
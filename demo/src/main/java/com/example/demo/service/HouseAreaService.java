@@ -1,14 +1,16 @@
 package com.example.demo.service;
 
 import com.example.demo.entity.HouseArea;
+import com.example.demo.teardown.TeardownJob;
 import java.util.List;
 import java.util.Optional;
 
 public interface HouseAreaService {
     List<HouseArea> getAllAreas();
     List<HouseArea> getAreasByUserId(Long userId);
+    List<?> getAreaFields(Long userId, List<String> fields);
     Optional<HouseArea> getAreaById(Long id);
     HouseArea createArea(HouseArea area);
     HouseArea updateArea(HouseArea area);
-    void deleteArea(Long id);
+    TeardownJob deleteArea(Long id);
 }
\ No newline at end of file
@@ -0,0 +1,13 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Scene;
+import java.util.List;
+import java.util.Optional;
+
+public interface SceneService {
+    List<Scene> getScenesByUserId(Long userId);
+    Optional<Scene> getSceneById(Long id);
+    Scene createScene(Scene scene);
+    Scene updateScene(Scene scene);
+    void deleteScene(Long id);
+}
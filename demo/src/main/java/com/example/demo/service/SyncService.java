@@ -0,0 +1,10 @@
+package com.example.demo.service;
+
+import java.util.Map;
+
+public interface SyncService {
+    // since为上次返回的游标(毫秒)，0表示首次全量同步
+    Map<String, Object> getChangesSince(Long userId, long since);
+
+    boolean isCursorExpired(long since);
+}
@@ -1,6 +1,7 @@
 package com.example.demo.service;
 
 import com.example.demo.entity.User;
+import com.example.demo.teardown.TeardownJob;
 import java.util.List;
 import java.util.Optional;
 
@@ -10,5 +11,6 @@ public interface UserService {
     Optional<User> getUserByUsername(String username);
     User createUser(User user);
     User updateUser(User user);
-    void deleteUser(Long id);
+    // 注销账号：后台分批清理名下规则、设备和区域，返回任务用于查询进度；用户不存在返回null
+    TeardownJob deleteUser(Long id);
 }
\ No newline at end of file
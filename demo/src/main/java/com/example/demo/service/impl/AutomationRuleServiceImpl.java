@@ -1,8 +1,21 @@
 package com.example.demo.service.impl;
 
+import com.example.demo.command.CommandForbiddenException;
+import com.example.demo.device.DeviceInfo;
+import com.example.demo.device.DeviceOwnershipIndex;
+import com.example.demo.device.DeviceRegistry;
 import com.example.demo.entity.AutomationRule;
+import com.example.demo.event.ChangeType;
+import com.example.demo.event.EntityEventBus;
+import com.example.demo.event.EntityType;
+import com.example.demo.exception.BadRequestException;
 import com.example.demo.repository.AutomationRuleRepository;
+import com.example.demo.rule.RuleCondition;
+import com.example.demo.rule.RuleCycleDetector;
+import com.example.demo.rule.RuleEngine;
 import com.example.demo.service.AutomationRuleService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -16,6 +29,21 @@ public class AutomationRuleServiceImpl implements AutomationRuleService {
     @Autowired
     private AutomationRuleRepository automationRuleRepository;
 
+    @Autowired
+    private EntityEventBus entityEventBus;
+
+    @Autowired
+    private RuleCycleDetector ruleCycleDetector;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private DeviceRegistry deviceRegistry;
+
+    @Autowired
+    private DeviceOwnershipIndex ownershipIndex;
+
     @Override
     public List<AutomationRule> getAllRules() {
         return automationRuleRepository.findAll();
@@ -38,20 +66,38 @@ public class AutomationRuleServiceImpl implements AutomationRuleService {
 
     @Override
     public AutomationRule createRule(AutomationRule rule) {
+        validateTriggerCondition(rule);
+        checkTargetOwnership(rule);
+        // 会与已有规则形成级联环时抛出RuleCycleException
+        ruleCycleDetector.checkRule(rule);
         rule.setCreatedAt(LocalDateTime.now());
         rule.setUpdatedAt(LocalDateTime.now());
-        return automationRuleRepository.save(rule);
+        AutomationRule saved = automationRuleRepository.save(rule);
+        publish(ChangeType.CREATED, saved);
+        return saved;
     }
 
     @Override
     public AutomationRule updateRule(AutomationRule rule) {
+        validateTriggerCondition(rule);
+        checkTargetOwnership(rule);
+        ruleCycleDetector.checkRule(rule);
+        // 记下原所属用户，改归其他用户时原用户也要收到变更
+        Long previousUserId = rule.getId() == null ? null
+                : automationRuleRepository.findById(rule.getId()).map(AutomationRule::getUserId).orElse(null);
         rule.setUpdatedAt(LocalDateTime.now());
-        return automationRuleRepository.save(rule);
+        AutomationRule saved = automationRuleRepository.save(rule);
+        entityEventBus.publish(EntityType.AUTOMATION_RULE, ChangeType.UPDATED, saved.getId(), saved.getUserId(),
+                previousUserId, saved);
+        return saved;
     }
 
     @Override
     public void deleteRule(Long id) {
-        automationRuleRepository.deleteById(id);
+        automationRuleRepository.findById(id).ifPresent(rule -> {
+            automationRuleRepository.delete(rule);
+            publish(ChangeType.DELETED, rule);
+        });
     }
 
     @Override
@@ -60,9 +106,45 @@ public class AutomationRuleServiceImpl implements AutomationRuleService {
         if (ruleOpt.isPresent()) {
             AutomationRule rule = ruleOpt.get();
             rule.setIsEnabled(!rule.getIsEnabled());
+            if (rule.getIsEnabled()) {
+                checkTargetOwnership(rule);
+            }
+            ruleCycleDetector.checkRule(rule);
             rule.setUpdatedAt(LocalDateTime.now());
-            return automationRuleRepository.save(rule);
+            AutomationRule saved = automationRuleRepository.save(rule);
+            publish(ChangeType.UPDATED, saved);
+            return saved;
         }
         throw new RuntimeException("Rule not found with id: " + id);
     }
+
+    // 触发条件在保存时解析一次，窗口、滞回参数不合法时直接拒绝，而不是等规则加载时被跳过
+    private void validateTriggerCondition(AutomationRule rule) {
+        if (!RuleEngine.TRIGGER_DEVICE_STATUS.equals(rule.getTriggerType()) || rule.getTriggerCondition() == null) {
+            return;
+        }
+        try {
+            RuleCondition.parse(objectMapper.readTree(rule.getTriggerCondition()));
+        } catch (JsonProcessingException e) {
+            throw new BadRequestException("trigger_condition is not valid JSON");
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(e.getMessage());
+        }
+    }
+
+    // 规则只能控制所属用户自己的设备；run_scene的场景在执行时按场景所属用户校验
+    private void checkTargetOwnership(AutomationRule rule) {
+        if (RuleEngine.COMMAND_RUN_SCENE.equals(rule.getCommandType()) || rule.getTargetDeviceId() == null) {
+            return;
+        }
+        DeviceInfo device = deviceRegistry.get(rule.getTargetDeviceId());
+        if (device == null || rule.getUserId() == null || !ownershipIndex.isOwner(rule.getUserId(), device.getId())) {
+            throw new CommandForbiddenException("User " + rule.getUserId() + " does not own device "
+                    + rule.getTargetDeviceId());
+        }
+    }
+
+    private void publish(ChangeType changeType, AutomationRule rule) {
+        entityEventBus.publish(EntityType.AUTOMATION_RULE, changeType, rule.getId(), rule.getUserId(), rule);
+    }
 }
\ No newline at end of file
@@ -1,20 +1,42 @@
 package com.example.demo.service.impl;
 
 import com.example.demo.entity.Device;
+import com.example.demo.event.ChangeType;
+import com.example.demo.event.EntityEventBus;
+import com.example.demo.event.EntityType;
 import com.example.demo.repository.DeviceRepository;
+import com.example.demo.repository.FieldProjectionQuery;
 import com.example.demo.service.DeviceService;
+import com.example.demo.status.DeviceState;
+import com.example.demo.status.DeviceTypeRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
 public class DeviceServiceImpl implements DeviceService {
 
+    private static final String STATUS_KEY = "status";
+
     @Autowired
     private DeviceRepository deviceRepository;
 
+    @Autowired
+    private EntityEventBus entityEventBus;
+
+    @Autowired
+    private FieldProjectionQuery fieldProjectionQuery;
+
+    @Autowired
+    private DeviceTypeRegistry deviceTypeRegistry;
+
     @Override
     public List<Device> getAllDevices() {
         return deviceRepository.findAll();
@@ -30,6 +52,46 @@ public class DeviceServiceImpl implements DeviceService {
         return deviceRepository.findByAreaId(areaId);
     }
 
+    @Override
+    public List<?> getDeviceFields(String filterAttribute, Long filterValue, List<String> fields) {
+        if (FieldProjectionQuery.isSummary(fields)) {
+            if (filterAttribute == null) {
+                return deviceRepository.findSummaryBy();
+            }
+            return "areaId".equals(filterAttribute)
+                    ? deviceRepository.findSummaryByAreaId(filterValue)
+                    : deviceRepository.findSummaryByUserId(filterValue);
+        }
+        // 紧凑状态在实体JSON中输出为status，投影时也用同一个名字(fields=status或statusData)
+        List<String> selected = new ArrayList<>(fields.size() + 1);
+        for (String field : fields) {
+            selected.add(STATUS_KEY.equals(field) ? "statusData" : field);
+        }
+        if (!selected.contains("statusData")) {
+            return fieldProjectionQuery.select(Device.class, selected, filterAttribute, filterValue);
+        }
+        // 紧凑状态需要按设备类型解码，未选deviceType时额外查出并在结果中去掉
+        boolean addType = !selected.contains("deviceType");
+        if (addType) {
+            selected.add("deviceType");
+        }
+        List<Map<String, Object>> rows = fieldProjectionQuery.select(Device.class, selected, filterAttribute, filterValue);
+        List<Map<String, Object>> renamed = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            String deviceType = (String) (addType ? row.remove("deviceType") : row.get("deviceType"));
+            Map<String, Object> output = new LinkedHashMap<>();
+            for (Map.Entry<String, Object> entry : row.entrySet()) {
+                if ("statusData".equals(entry.getKey())) {
+                    output.put(STATUS_KEY, deviceTypeRegistry.decode(deviceType, (byte[]) entry.getValue()));
+                } else {
+                    output.put(entry.getKey(), entry.getValue());
+                }
+            }
+            renamed.add(output);
+        }
+        return renamed;
+    }
+
     @Override
     public Optional<Device> getDeviceById(Long id) {
         return deviceRepository.findById(id);
@@ -37,27 +99,64 @@ public class DeviceServiceImpl implements DeviceService {
 
     @Override
     public Device createDevice(Device device) {
-        return deviceRepository.save(device);
+        // 增量同步依赖updated_at，写入时显式设置
+        device.setCreatedAt(LocalDateTime.now());
+        device.setUpdatedAt(LocalDateTime.now());
+        Device saved = deviceRepository.save(device);
+        publish(ChangeType.CREATED, saved);
+        return saved;
     }
 
     @Override
     public Device updateDevice(Device device) {
-        return deviceRepository.save(device);
+        // 紧凑状态只由设备上报写入，接口更新时保留原值；设备类型改变后旧编码按新模式无法解码，直接清空
+        Long previousUserId = null;
+        Device existing = device.getId() == null ? null : deviceRepository.findById(device.getId()).orElse(null);
+        if (existing != null) {
+            previousUserId = existing.getUserId();
+            if (device.getStatusData() == null && Objects.equals(existing.getDeviceType(), device.getDeviceType())) {
+                device.setStatusData(existing.getStatusData());
+                device.setStatusExtras(existing.getStatusExtras());
+            }
+        }
+        device.setUpdatedAt(LocalDateTime.now());
+        Device saved = deviceRepository.save(device);
+        entityEventBus.publish(EntityType.DEVICE, ChangeType.UPDATED, saved.getId(), saved.getUserId(), previousUserId,
+                saved);
+        return saved;
     }
 
     @Override
     public void deleteDevice(Long id) {
-        deviceRepository.deleteById(id);
+        // 先取出实体，删除事件需要携带所属用户
+        deviceRepository.findById(id).ifPresent(device -> {
+            deviceRepository.delete(device);
+            publish(ChangeType.DELETED, device);
+        });
     }
 
     @Override
-    public void updateDeviceStatus(String deviceId, String deviceData) {
-        Optional<Device> deviceOpt = deviceRepository.findById(Long.parseLong(deviceId));
-        if (deviceOpt.isPresent()) {
-            Device device = deviceOpt.get();
-            // 假设我们将设备状态数据存储在某个字段中
-            device.setStatusName(deviceData);
+    public void updateDeviceStatus(String deviceId, String deviceData, DeviceState state) {
+        // MQTT上报携带的是设备唯一ID(device_id)，而不是表主键
+        Device device = deviceRepository.findByDeviceId(deviceId);
+        if (device != null) {
+            // 有状态模式的设备类型保存紧凑编码，模式外的字段以JSON保存在status_extras(长度不受status_name限制)；
+            // 其余保存原始字符串
+            if (state != null && state.getSchema().getDeviceType().equals(device.getDeviceType())) {
+                device.setStatusData(state.encode());
+                device.setStatusExtras(state.getExtras() == null ? null : state.getExtras().toString());
+                device.setStatusName(null);
+            } else {
+                device.setStatusName(deviceData);
+            }
+            device.setUpdatedAt(LocalDateTime.now());
             deviceRepository.save(device);
+            // 只发布轻量的状态事件，上报路径上不把整个实体转成快照
+            entityEventBus.publishStatus(device.getId(), device.getUserId(), deviceId, deviceData);
         }
     }
+
+    private void publish(ChangeType changeType, Device device) {
+        entityEventBus.publish(EntityType.DEVICE, changeType, device.getId(), device.getUserId(), device);
+    }
 }
\ No newline at end of file
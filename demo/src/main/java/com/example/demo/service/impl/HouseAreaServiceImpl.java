@@ -1,11 +1,18 @@
 package com.example.demo.service.impl;
 
 import com.example.demo.entity.HouseArea;
+import com.example.demo.event.ChangeType;
+import com.example.demo.event.EntityEventBus;
+import com.example.demo.event.EntityType;
+import com.example.demo.repository.FieldProjectionQuery;
 import com.example.demo.repository.HouseAreaRepository;
 import com.example.demo.service.HouseAreaService;
+import com.example.demo.teardown.TeardownJob;
+import com.example.demo.teardown.TeardownService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,6 +22,15 @@ public class HouseAreaServiceImpl implements HouseAreaService {
     @Autowired
     private HouseAreaRepository houseAreaRepository;
 
+    @Autowired
+    private EntityEventBus entityEventBus;
+
+    @Autowired
+    private FieldProjectionQuery fieldProjectionQuery;
+
+    @Autowired
+    private TeardownService teardownService;
+
     @Override
     public List<HouseArea> getAllAreas() {
         return houseAreaRepository.findAll();
@@ -25,6 +41,14 @@ public class HouseAreaServiceImpl implements HouseAreaService {
         return houseAreaRepository.findByUserId(userId);
     }
 
+    @Override
+    public List<?> getAreaFields(Long userId, List<String> fields) {
+        if (FieldProjectionQuery.isSummary(fields)) {
+            return userId == null ? houseAreaRepository.findSummaryBy() : houseAreaRepository.findSummaryByUserId(userId);
+        }
+        return fieldProjectionQuery.select(HouseArea.class, fields, userId == null ? null : "userId", userId);
+    }
+
     @Override
     public Optional<HouseArea> getAreaById(Long id) {
         return houseAreaRepository.findById(id);
@@ -32,16 +56,32 @@ public class HouseAreaServiceImpl implements HouseAreaService {
 
     @Override
     public HouseArea createArea(HouseArea area) {
-        return houseAreaRepository.save(area);
+        area.setCreatedAt(LocalDateTime.now());
+        area.setUpdatedAt(LocalDateTime.now());
+        HouseArea saved = houseAreaRepository.save(area);
+        publish(ChangeType.CREATED, saved);
+        return saved;
     }
 
     @Override
     public HouseArea updateArea(HouseArea area) {
-        return houseAreaRepository.save(area);
+        // 记下原所属用户，改归其他用户时原用户也要收到变更
+        Long previousUserId = area.getId() == null ? null
+                : houseAreaRepository.findById(area.getId()).map(HouseArea::getUserId).orElse(null);
+        area.setUpdatedAt(LocalDateTime.now());
+        HouseArea saved = houseAreaRepository.save(area);
+        entityEventBus.publish(EntityType.HOUSE_AREA, ChangeType.UPDATED, saved.getId(), saved.getUserId(),
+                previousUserId, saved);
+        return saved;
     }
 
     @Override
-    public void deleteArea(Long id) {
-        houseAreaRepository.deleteById(id);
+    public TeardownJob deleteArea(Long id) {
+        // 区域下的设备先分批解除归属，再删除区域，删除事件由任务发布
+        return teardownService.submitAreaTeardown(id);
+    }
+
+    private void publish(ChangeType changeType, HouseArea area) {
+        entityEventBus.publish(EntityType.HOUSE_AREA, changeType, area.getId(), area.getUserId(), area);
     }
 }
\ No newline at end of file
@@ -0,0 +1,76 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.entity.Scene;
+import com.example.demo.event.ChangeType;
+import com.example.demo.event.EntityEventBus;
+import com.example.demo.event.EntityType;
+import com.example.demo.repository.SceneRepository;
+import com.example.demo.rule.RuleCycleDetector;
+import com.example.demo.scene.SceneExecutor;
+import com.example.demo.service.SceneService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Service
+public class SceneServiceImpl implements SceneService {
+
+    @Autowired
+    private SceneRepository sceneRepository;
+
+    @Autowired
+    private SceneExecutor sceneExecutor;
+
+    @Autowired
+    private EntityEventBus entityEventBus;
+
+    @Autowired
+    private RuleCycleDetector ruleCycleDetector;
+
+    @Override
+    public List<Scene> getScenesByUserId(Long userId) {
+        return sceneRepository.findByUserId(userId);
+    }
+
+    @Override
+    public Optional<Scene> getSceneById(Long id) {
+        return sceneRepository.findById(id);
+    }
+
+    @Override
+    public Scene createScene(Scene scene) {
+        // 保存前校验动作列表，格式错误时抛出BadRequestException
+        sceneExecutor.parseActions(scene.getActions());
+        scene.setCreatedAt(LocalDateTime.now());
+        scene.setUpdatedAt(LocalDateTime.now());
+        Scene saved = sceneRepository.save(scene);
+        publish(ChangeType.CREATED, saved);
+        return saved;
+    }
+
+    @Override
+    public Scene updateScene(Scene scene) {
+        sceneExecutor.parseActions(scene.getActions());
+        // 已被run_scene规则引用的场景改变动作后可能形成级联环
+        ruleCycleDetector.checkScene(scene);
+        scene.setUpdatedAt(LocalDateTime.now());
+        Scene saved = sceneRepository.save(scene);
+        publish(ChangeType.UPDATED, saved);
+        return saved;
+    }
+
+    @Override
+    public void deleteScene(Long id) {
+        sceneRepository.findById(id).ifPresent(scene -> {
+            sceneRepository.delete(scene);
+            publish(ChangeType.DELETED, scene);
+        });
+    }
+
+    private void publish(ChangeType changeType, Scene scene) {
+        entityEventBus.publish(EntityType.SCENE, changeType, scene.getId(), scene.getUserId(), scene);
+    }
+}
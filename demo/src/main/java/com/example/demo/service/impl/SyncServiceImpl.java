@@ -0,0 +1,168 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.config.AppProperties;
+import com.example.demo.entity.AutomationRule;
+import com.example.demo.entity.DeletedRecord;
+import com.example.demo.entity.Device;
+import com.example.demo.entity.HouseArea;
+import com.example.demo.event.ChangeType;
+import com.example.demo.event.EntityChangedEvent;
+import com.example.demo.event.EntityType;
+import com.example.demo.repository.AutomationRuleRepository;
+import com.example.demo.repository.DeletedRecordRepository;
+import com.example.demo.repository.DeviceRepository;
+import com.example.demo.repository.HouseAreaRepository;
+import com.example.demo.retention.PartitionRetentionManager;
+import com.example.demo.service.SyncService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+@Service
+public class SyncServiceImpl implements SyncService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SyncServiceImpl.class);
+
+    @Autowired
+    private DeviceRepository deviceRepository;
+
+    @Autowired
+    private HouseAreaRepository houseAreaRepository;
+
+    @Autowired
+    private AutomationRuleRepository automationRuleRepository;
+
+    @Autowired
+    private DeletedRecordRepository deletedRecordRepository;
+
+    @Autowired
+    private AppProperties appProperties;
+
+    @Autowired
+    private PartitionRetentionManager partitionRetentionManager;
+
+    @Override
+    public Map<String, Object> getChangesSince(Long userId, long since) {
+        // 游标取查询开始前的时刻并回退一段重叠时间，尚未提交的事务和同一秒内的修改会在下次再返回一遍
+        long cursor = System.currentTimeMillis() - appProperties.getSync().getCursorOverlapMillis();
+        LocalDateTime sinceTime = toLocalDateTime(since);
+
+        List<Device> devices;
+        List<HouseArea> areas;
+        List<AutomationRule> rules;
+        List<DeletedRecord> deleted;
+        if (since <= 0) {
+            devices = deviceRepository.findByUserId(userId);
+            areas = houseAreaRepository.findByUserId(userId);
+            rules = automationRuleRepository.findByUserId(userId);
+            deleted = List.of();
+        } else {
+            devices = deviceRepository.findByUserIdAndUpdatedAtAfter(userId, sinceTime);
+            areas = houseAreaRepository.findByUserIdAndUpdatedAtAfter(userId, sinceTime);
+            rules = automationRuleRepository.findByUserIdAndUpdatedAtAfter(userId, sinceTime);
+            deleted = deletedRecordRepository.findByUserIdAndDeletedAtAfter(userId, sinceTime);
+        }
+
+        Map<String, Object> changes = new LinkedHashMap<>();
+        changes.put("since", since);
+        changes.put("cursor", Math.max(cursor, since));
+        changes.put("full", since <= 0);
+        changes.put("devices", group(devices, Device::getId, Device::getCreatedAt, sinceTime, deleted, EntityType.DEVICE));
+        changes.put("areas", group(areas, HouseArea::getId, HouseArea::getCreatedAt, sinceTime, deleted,
+                EntityType.HOUSE_AREA));
+        changes.put("rules", group(rules, AutomationRule::getId, AutomationRule::getCreatedAt, sinceTime, deleted,
+                EntityType.AUTOMATION_RULE));
+        return changes;
+    }
+
+    @Override
+    public boolean isCursorExpired(long since) {
+        if (since <= 0) {
+            return false;
+        }
+        long retentionMillis = appProperties.getSync().getTombstoneRetentionDays() * 24L * 60 * 60 * 1000;
+        return since < System.currentTimeMillis() - retentionMillis;
+    }
+
+    // 删除时记录墓碑；实体改归其他用户时，对原用户而言也是删除，同样记录。
+    // 其他节点转发过来的事件已由源节点记录过
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.isRemote() || event.getEntityType() == EntityType.USER) {
+            return;
+        }
+        if (event.getChangeType() == ChangeType.DELETED && event.getUserId() != null) {
+            saveTombstone(event, event.getUserId());
+        } else if (event.getChangeType() == ChangeType.UPDATED && event.getPreviousUserId() != null) {
+            saveTombstone(event, event.getPreviousUserId());
+        }
+    }
+
+    private void saveTombstone(EntityChangedEvent event, Long userId) {
+        DeletedRecord record = new DeletedRecord();
+        record.setEntityType(event.getEntityType().name());
+        record.setEntityId(event.getEntityId());
+        record.setUserId(userId);
+        record.setDeletedAt(LocalDateTime.now());
+        deletedRecordRepository.save(record);
+    }
+
+    @Scheduled(cron = "0 30 3 * * *")
+    public void purgeExpiredTombstones() {
+        if (partitionRetentionManager.isManaged(PartitionRetentionManager.DELETED_RECORDS)) {
+            // 已按天分区，由PartitionRetentionManager整分区删除
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(appProperties.getSync().getTombstoneRetentionDays());
+        int purged = deletedRecordRepository.deleteOlderThan(cutoff);
+        if (purged > 0) {
+            logger.info("Purged {} tombstones older than {}", purged, cutoff);
+        }
+    }
+
+    private <T> Map<String, Object> group(List<T> records, Function<T, Long> idOf, Function<T, LocalDateTime> createdAt,
+                                          LocalDateTime since, List<DeletedRecord> deleted, EntityType entityType) {
+        List<T> created = new ArrayList<>();
+        List<T> updated = new ArrayList<>();
+        Set<Long> present = new HashSet<>();
+        for (T record : records) {
+            present.add(idOf.apply(record));
+            LocalDateTime createdTime = createdAt.apply(record);
+            if (createdTime != null && createdTime.isAfter(since)) {
+                created.add(record);
+            } else {
+                updated.add(record);
+            }
+        }
+        List<Long> deletedIds = new ArrayList<>();
+        for (DeletedRecord record : deleted) {
+            // 转走后又转回来的实体当前仍属于该用户，不再报告为删除
+            if (entityType.name().equals(record.getEntityType()) && !present.contains(record.getEntityId())) {
+                deletedIds.add(record.getEntityId());
+            }
+        }
+        Map<String, Object> group = new LinkedHashMap<>();
+        group.put("created", created);
+        group.put("updated", updated);
+        group.put("deleted", deletedIds);
+        return group;
+    }
+
+    private LocalDateTime toLocalDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(Math.max(millis, 0)), ZoneId.systemDefault());
+    }
+}
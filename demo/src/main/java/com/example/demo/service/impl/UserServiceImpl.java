@@ -1,8 +1,13 @@
 package com.example.demo.service.impl;
 
 import com.example.demo.entity.User;
+import com.example.demo.event.ChangeType;
+import com.example.demo.event.EntityEventBus;
+import com.example.demo.event.EntityType;
 import com.example.demo.repository.UserRepository;
 import com.example.demo.service.UserService;
+import com.example.demo.teardown.TeardownJob;
+import com.example.demo.teardown.TeardownService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -15,6 +20,12 @@ public class UserServiceImpl implements UserService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private EntityEventBus entityEventBus;
+
+    @Autowired
+    private TeardownService teardownService;
+
     @Override
     public List<User> getAllUsers() {
         return userRepository.findAll();
@@ -32,16 +43,26 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public User createUser(User user) {
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        publish(ChangeType.CREATED, saved);
+        return saved;
     }
 
     @Override
     public User updateUser(User user) {
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        publish(ChangeType.UPDATED, saved);
+        return saved;
     }
 
     @Override
-    public void deleteUser(Long id) {
-        userRepository.deleteById(id);
+    public TeardownJob deleteUser(Long id) {
+        // 名下数据有外键引用，不能直接删除用户行，交给后台任务分批清理后再删除
+        return teardownService.submitUserTeardown(id);
+    }
+
+    private void publish(ChangeType changeType, User user) {
+        // 快照中的密码字段由事件总线剔除
+        entityEventBus.publish(EntityType.USER, changeType, user.getId(), user.getId(), user);
     }
 }
\ No newline at end of file
@@ -0,0 +1,219 @@
+package com.example.demo.snapshot;
+
+import com.example.demo.device.DeviceInfo;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+// 设备内存状态快照的二进制格式：
+// 文件头(魔数、版本、写出时间) + 设备索引 + 在线状态 + 写库基准(紧凑状态编码) + 处于满足状态的规则 + CRC32。
+// 字符串为2字节长度加UTF-8字节，可为空的ID以0表示空(自增主键从1开始)
+public class DeviceStateSnapshot {
+
+    private static final int MAGIC = 0x53484453;
+    private static final int VERSION = 2;
+    // 长度字段的保留值，表示null，与空字符串区分
+    private static final int NULL_LENGTH = 0xFFFF;
+
+    private final long createdAtMillis;
+    private final List<DeviceInfo> devices;
+    private final Map<String, Long> lastSeen;
+    private final List<Baseline> baselines;
+    private final List<Long> matchedRuleIds;
+
+    public DeviceStateSnapshot(long createdAtMillis, List<DeviceInfo> devices, Map<String, Long> lastSeen,
+                               List<Baseline> baselines, List<Long> matchedRuleIds) {
+        this.createdAtMillis = createdAtMillis;
+        this.devices = devices;
+        this.lastSeen = lastSeen;
+        this.baselines = baselines;
+        this.matchedRuleIds = matchedRuleIds;
+    }
+
+    public long getCreatedAtMillis() {
+        return createdAtMillis;
+    }
+
+    public List<DeviceInfo> getDevices() {
+        return devices;
+    }
+
+    public Map<String, Long> getLastSeen() {
+        return lastSeen;
+    }
+
+    public List<Baseline> getBaselines() {
+        return baselines;
+    }
+
+    public List<Long> getMatchedRuleIds() {
+        return matchedRuleIds;
+    }
+
+    // 先写临时文件再原子替换，停机中途被杀也不会留下半个快照
+    public void write(Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, "snapshot", ".tmp");
+        try {
+            CRC32 crc = new CRC32();
+            try (OutputStream file = Files.newOutputStream(temp);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(file, crc), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(createdAtMillis);
+                out.writeInt(devices.size());
+                for (DeviceInfo device : devices) {
+                    out.writeLong(device.getId());
+                    out.writeLong(device.getUserId() == null ? 0 : device.getUserId());
+                    out.writeLong(device.getAreaId() == null ? 0 : device.getAreaId());
+                    writeString(out, device.getDeviceId());
+                    writeString(out, device.getDeviceType());
+                }
+                out.writeInt(lastSeen.size());
+                for (Map.Entry<String, Long> entry : lastSeen.entrySet()) {
+                    writeString(out, entry.getKey());
+                    out.writeLong(entry.getValue());
+                }
+                out.writeInt(baselines.size());
+                for (Baseline baseline : baselines) {
+                    writeString(out, baseline.deviceId);
+                    writeString(out, baseline.deviceType);
+                    out.writeLong(baseline.persistedAtMillis);
+                    out.writeShort(baseline.encoded.length);
+                    out.write(baseline.encoded);
+                }
+                out.writeInt(matchedRuleIds.size());
+                for (Long ruleId : matchedRuleIds) {
+                    out.writeLong(ruleId);
+                }
+                out.flush();
+                // 校验和本身不参与计算，直接写到底层文件
+                file.write(ByteBuffer.allocate(8).putLong(crc.getValue()).array());
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // 通过内存映射读取，文件内容直接由页缓存提供，不经过流式拷贝
+    public static DeviceStateSnapshot read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < 28 || size > Integer.MAX_VALUE) {
+                throw new IOException("Unexpected snapshot size " + size);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(0, (int) size - 8));
+            if (crc.getValue() != buffer.getLong((int) size - 8)) {
+                throw new IOException("Snapshot checksum mismatch");
+            }
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Unsupported snapshot format");
+            }
+            long createdAtMillis = buffer.getLong();
+            int deviceCount = buffer.getInt();
+            List<DeviceInfo> devices = new ArrayList<>(deviceCount);
+            for (int i = 0; i < deviceCount; i++) {
+                long id = buffer.getLong();
+                long userId = buffer.getLong();
+                long areaId = buffer.getLong();
+                devices.add(new DeviceInfo(id, readString(buffer), readString(buffer),
+                        userId == 0 ? null : userId, areaId == 0 ? null : areaId));
+            }
+            int presenceCount = buffer.getInt();
+            Map<String, Long> lastSeen = new HashMap<>(presenceCount * 2);
+            for (int i = 0; i < presenceCount; i++) {
+                lastSeen.put(readString(buffer), buffer.getLong());
+            }
+            int baselineCount = buffer.getInt();
+            List<Baseline> baselines = new ArrayList<>(baselineCount);
+            for (int i = 0; i < baselineCount; i++) {
+                String deviceId = readString(buffer);
+                String deviceType = readString(buffer);
+                long persistedAtMillis = buffer.getLong();
+                byte[] encoded = new byte[buffer.getShort() & 0xFFFF];
+                buffer.get(encoded);
+                baselines.add(new Baseline(deviceId, deviceType, encoded, persistedAtMillis));
+            }
+            int ruleCount = buffer.getInt();
+            List<Long> matchedRuleIds = new ArrayList<>(ruleCount);
+            for (int i = 0; i < ruleCount; i++) {
+                matchedRuleIds.add(buffer.getLong());
+            }
+            return new DeviceStateSnapshot(createdAtMillis, devices, lastSeen, baselines, matchedRuleIds);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeShort(NULL_LENGTH);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length >= NULL_LENGTH) {
+            throw new IOException("String too long for snapshot: " + bytes.length + " bytes");
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getShort() & 0xFFFF;
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // 一台设备的写库基准：按设备类型模式编码的状态和上次写库时间
+    public static final class Baseline {
+        private final String deviceId;
+        private final String deviceType;
+        private final byte[] encoded;
+        private final long persistedAtMillis;
+
+        public Baseline(String deviceId, String deviceType, byte[] encoded, long persistedAtMillis) {
+            this.deviceId = deviceId;
+            this.deviceType = deviceType;
+            this.encoded = encoded;
+            this.persistedAtMillis = persistedAtMillis;
+        }
+
+        public String getDeviceId() {
+            return deviceId;
+        }
+
+        public String getDeviceType() {
+            return deviceType;
+        }
+
+        public byte[] getEncoded() {
+            return encoded;
+        }
+
+        public long getPersistedAtMillis() {
+            return persistedAtMillis;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.demo.snapshot;
+
+import com.example.demo.config.AppProperties;
+import com.example.demo.device.DeviceInfo;
+import com.example.demo.device.DeviceOwnershipIndex;
+import com.example.demo.device.DevicePresence;
+import com.example.demo.device.DeviceRegistry;
+import com.example.demo.entity.DeletedRecord;
+import com.example.demo.event.EntityType;
+import com.example.demo.ingest.DeviceStatusFilter;
+import com.example.demo.repository.DeletedRecordRepository;
+import com.example.demo.repository.DeviceRepository;
+import com.example.demo.repository.HouseAreaRepository;
+import com.example.demo.rule.RuleEngine;
+import com.example.demo.status.DeviceState;
+import com.example.demo.status.DeviceTypeRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// 设备内存状态的启动加载与快照：启动时在MQTT入站适配器之前运行，优先从快照恢复设备索引、在线状态、
+// 写库基准和规则触发状态，再按updated_at和删除记录从数据库补齐停机期间的变更；
+// 没有可用快照时从数据库全量加载。停机时(MQTT已停止消费后)和定期写出快照
+@Component
+public class DeviceStateSnapshotter implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeviceStateSnapshotter.class);
+
+    // 阶段越小越早启动、越晚停止，保证先于MQTT入站适配器启动、晚于其停止
+    private static final int PHASE = Integer.MIN_VALUE / 2;
+
+    private final DeviceRegistry deviceRegistry;
+    private final DeviceOwnershipIndex deviceOwnershipIndex;
+    private final DevicePresence devicePresence;
+    private final DeviceStatusFilter deviceStatusFilter;
+    private final RuleEngine ruleEngine;
+    private final DeviceTypeRegistry deviceTypeRegistry;
+    private final DeviceRepository deviceRepository;
+    private final DeletedRecordRepository deletedRecordRepository;
+    private final HouseAreaRepository houseAreaRepository;
+    private final AppProperties appProperties;
+    private final AppProperties.Snapshot config;
+    private volatile boolean running;
+
+    public DeviceStateSnapshotter(DeviceRegistry deviceRegistry, DeviceOwnershipIndex deviceOwnershipIndex,
+                                  DevicePresence devicePresence, DeviceStatusFilter deviceStatusFilter,
+                                  RuleEngine ruleEngine, DeviceTypeRegistry deviceTypeRegistry,
+                                  DeviceRepository deviceRepository, DeletedRecordRepository deletedRecordRepository,
+                                  HouseAreaRepository houseAreaRepository, AppProperties appProperties) {
+        this.deviceRegistry = deviceRegistry;
+        this.deviceOwnershipIndex = deviceOwnershipIndex;
+        this.devicePresence = devicePresence;
+        this.deviceStatusFilter = deviceStatusFilter;
+        this.ruleEngine = ruleEngine;
+        this.deviceTypeRegistry = deviceTypeRegistry;
+        this.deviceRepository = deviceRepository;
+        this.deletedRecordRepository = deletedRecordRepository;
+        this.houseAreaRepository = houseAreaRepository;
+        this.appProperties = appProperties;
+        this.config = appProperties.getSnapshot();
+    }
+
+    @Override
+    public void start() {
+        long begin = System.nanoTime();
+        ruleEngine.loadRules();
+        boolean restored = config.isEnabled() && restore();
+        if (!restored) {
+            deviceRegistry.load();
+        }
+        deviceOwnershipIndex.rebuild(deviceRegistry.getAll());
+        // 区域表很小，不进快照，每次启动从数据库加载
+        deviceOwnershipIndex.rebuildAreas(houseAreaRepository.findAllOwnerRows());
+        running = true;
+        logger.info("Device state ready in {} ms ({} devices, {})",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin), deviceRegistry.size(),
+                restored ? "restored from snapshot" : "loaded from database");
+    }
+
+    @Override
+    public void stop() {
+        if (running && config.isEnabled()) {
+            write();
+        }
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    @Scheduled(fixedDelayString = "${app.snapshot.interval-millis:300000}")
+    public void writePeriodically() {
+        if (running && config.isEnabled()) {
+            write();
+        }
+    }
+
+    synchronized void write() {
+        long begin = System.nanoTime();
+        List<DeviceStateSnapshot.Baseline> baselines = new ArrayList<>();
+        deviceStatusFilter.forEachTypedBaseline((deviceId, state, persistedAtMillis) -> baselines.add(
+                new DeviceStateSnapshot.Baseline(deviceId, state.getSchema().getDeviceType(), state.encode(),
+                        persistedAtMillis)));
+        DeviceStateSnapshot snapshot = new DeviceStateSnapshot(System.currentTimeMillis(), deviceRegistry.getAll(),
+                devicePresence.getLastSeen(), baselines, ruleEngine.getMatchedRuleIds());
+        try {
+            snapshot.write(Paths.get(config.getPath()));
+            logger.info("Wrote device state snapshot with {} devices in {} ms", snapshot.getDevices().size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+        } catch (Exception e) {
+            logger.warn("Failed to write device state snapshot to {}: {}", config.getPath(), e.getMessage());
+        }
+    }
+
+    // 快照不存在、损坏、过期或补齐后与数据库设备数不一致时返回false，由调用方全量加载
+    boolean restore() {
+        Path path = Paths.get(config.getPath());
+        if (!Files.exists(path)) {
+            return false;
+        }
+        DeviceStateSnapshot snapshot;
+        try {
+            snapshot = DeviceStateSnapshot.read(path);
+        } catch (Exception e) {
+            logger.warn("Ignoring unreadable device state snapshot {}: {}", path, e.getMessage());
+            return false;
+        }
+        long ageMillis = System.currentTimeMillis() - snapshot.getCreatedAtMillis();
+        if (ageMillis < 0 || ageMillis > config.getMaxAgeMinutes() * 60_000L) {
+            logger.info("Ignoring device state snapshot written {} s ago", ageMillis / 1000);
+            return false;
+        }
+        for (DeviceInfo device : snapshot.getDevices()) {
+            deviceRegistry.put(device);
+        }
+        // 补齐停机期间其他节点或管理接口做的变更，起点往前留出与增量同步相同的时钟偏差余量
+        long sinceMillis = snapshot.getCreatedAtMillis() - appProperties.getSync().getCursorOverlapMillis();
+        LocalDateTime since = LocalDateTime.ofInstant(Instant.ofEpochMilli(sinceMillis), ZoneId.systemDefault());
+        List<Object[]> changed = deviceRepository.findIndexRowsUpdatedAfter(since);
+        for (Object[] row : changed) {
+            deviceRegistry.put(DeviceRegistry.fromIndexRow(row));
+        }
+        List<DeletedRecord> deleted = deletedRecordRepository.findByEntityTypeAndDeletedAtAfter(
+                EntityType.DEVICE.name(), since);
+        for (DeletedRecord record : deleted) {
+            deviceRegistry.remove(record.getEntityId());
+        }
+        // 账号注销批量删除的设备没有逐条删除记录，数量对不上时放弃快照
+        long expected = deviceRepository.count();
+        if (expected != deviceRegistry.size()) {
+            logger.warn("Device state snapshot has {} devices after catch-up but database has {}, reloading",
+                    deviceRegistry.size(), expected);
+            deviceRegistry.clear();
+            return false;
+        }
+        for (Map.Entry<String, Long> entry : snapshot.getLastSeen().entrySet()) {
+            devicePresence.restore(entry.getKey(), entry.getValue());
+        }
+        for (DeviceStateSnapshot.Baseline baseline : snapshot.getBaselines()) {
+            DeviceState state = deviceTypeRegistry.decode(baseline.getDeviceType(), baseline.getEncoded());
+            if (state != null) {
+                deviceStatusFilter.restoreBaseline(baseline.getDeviceId(), state, baseline.getPersistedAtMillis());
+            }
+        }
+        ruleEngine.restoreMatched(snapshot.getMatchedRuleIds());
+        logger.info("Restored device state snapshot ({} devices, {} changed and {} deleted since)",
+                snapshot.getDevices().size(), changed.size(), deleted.size());
+        return true;
+    }
+}
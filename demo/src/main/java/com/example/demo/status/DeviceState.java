@@ -0,0 +1,113 @@
+package com.example.demo.status;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.io.IOException;
+
+// 按状态模式解码后的设备状态：数值字段存在double数组，枚举字段存序号，
+// 是否上报了某字段由位图记录。规则评估和接口输出直接读取这些槽位，不再解析字符串
+@JsonSerialize(using = DeviceState.Serializer.class)
+public final class DeviceState {
+
+    private final StatusSchema schema;
+    private final double[] numbers;
+    private final byte[] enums;
+    private long present;
+    // 上报中模式外或无法编码的字段，原样保留；没有时为null
+    private JsonNode extras;
+
+    DeviceState(StatusSchema schema) {
+        this.schema = schema;
+        this.numbers = new double[schema.getNumberSlots()];
+        this.enums = new byte[schema.getEnumSlots()];
+    }
+
+    public StatusSchema getSchema() {
+        return schema;
+    }
+
+    public boolean isPresent(StatusField field) {
+        return (present & (1L << field.getIndex())) != 0;
+    }
+
+    public double getNumber(StatusField field) {
+        return numbers[field.getSlot()];
+    }
+
+    public int getOrdinal(StatusField field) {
+        return enums[field.getSlot()] & 0xFF;
+    }
+
+    public String getText(StatusField field) {
+        return field.getValues().get(getOrdinal(field));
+    }
+
+    public JsonNode getExtras() {
+        return extras;
+    }
+
+    void setExtras(JsonNode extras) {
+        this.extras = extras;
+    }
+
+    long getPresentBits() {
+        return present;
+    }
+
+    void setNumber(StatusField field, double value) {
+        numbers[field.getSlot()] = value;
+        present |= 1L << field.getIndex();
+    }
+
+    void setOrdinal(StatusField field, int ordinal) {
+        enums[field.getSlot()] = (byte) ordinal;
+        present |= 1L << field.getIndex();
+    }
+
+    public byte[] encode() {
+        return schema.encode(this);
+    }
+
+    // 直接按字段写出JSON对象，带一级嵌套的字段(color.r/color.g)在模式中相邻时合并为同一个子对象
+    public void writeTo(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        String openGroup = null;
+        for (StatusField field : schema.getFields()) {
+            if (!isPresent(field)) {
+                continue;
+            }
+            String name = field.getName();
+            int dot = name.indexOf('.');
+            String group = dot < 0 ? null : name.substring(0, dot);
+            if (openGroup != null && !openGroup.equals(group)) {
+                generator.writeEndObject();
+                openGroup = null;
+            }
+            if (group != null && openGroup == null) {
+                generator.writeObjectFieldStart(group);
+                openGroup = group;
+            }
+            generator.writeFieldName(dot < 0 ? name : name.substring(dot + 1));
+            switch (field.getType()) {
+                case NUMBER -> generator.writeNumber(getNumber(field));
+                case INTEGER -> generator.writeNumber((long) getNumber(field));
+                case ENUM -> generator.writeString(getText(field));
+            }
+        }
+        if (openGroup != null) {
+            generator.writeEndObject();
+        }
+        generator.writeEndObject();
+    }
+
+    static final class Serializer extends JsonSerializer<DeviceState> {
+        @Override
+        public void serialize(DeviceState value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            value.writeTo(generator);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.demo.status;
+
+import com.example.demo.entity.Device;
+import com.example.demo.repository.DeviceSummary;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.IOException;
+
+// 把库中的紧凑状态编码按所属设备的类型模式直接输出为JSON对象。
+// 由Spring的HandlerInstantiator创建，注册表通过字段注入
+public class DeviceStatusSerializer extends JsonSerializer<byte[]> {
+
+    @Autowired
+    private DeviceTypeRegistry deviceTypeRegistry;
+
+    @Override
+    public void serialize(byte[] value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        Object owner = generator.currentValue();
+        String deviceType = owner instanceof Device device ? device.getDeviceType()
+                : owner instanceof DeviceSummary summary ? summary.getDeviceType() : null;
+        DeviceState state = deviceTypeRegistry == null ? null : deviceTypeRegistry.decode(deviceType, value);
+        if (state == null) {
+            generator.writeNull();
+        } else {
+            state.writeTo(generator);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.demo.status;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 设备类型注册表：每种设备类型的状态模式(字段、类型、单位)，与《MQTT设备通信详细设计》中的状态上报格式一致。
+// 未登记模式的设备类型仍按原始字符串保存状态
+@Component
+public class DeviceTypeRegistry {
+
+    private final Map<String, StatusSchema> schemas = new ConcurrentHashMap<>();
+
+    public DeviceTypeRegistry() {
+        register(StatusSchema.builder("led")
+                .enumeration("power", "off", "on")
+                .integer("brightness", "percentage")
+                .integer("color.r", null)
+                .integer("color.g", null)
+                .integer("color.b", null)
+                .activeWhen("power", "on")
+                .build());
+        register(StatusSchema.builder("curtain")
+                .integer("position", "percentage")
+                .enumeration("moving_direction", "stop", "up", "down")
+                .activeWhen("moving_direction", "up", "down")
+                .build());
+        register(StatusSchema.builder("temperature_sensor")
+                .number("temperature", "celsius")
+                .build());
+        register(StatusSchema.builder("humidity_sensor")
+                .number("humidity", "percentage")
+                .build());
+        register(StatusSchema.builder("light_sensor")
+                .number("illuminance", "lux")
+                .build());
+        register(StatusSchema.builder("air_conditioner")
+                .enumeration("power", "off", "on")
+                .number("temperature", "celsius")
+                .enumeration("mode", "cool", "heat", "fan", "dry", "auto")
+                .enumeration("fan_speed", "low", "medium", "high", "auto")
+                .enumeration("swing_mode", "vertical", "horizontal", "both", "off")
+                .integer("timer_on", "minute")
+                .integer("timer_off", "minute")
+                .activeWhen("power", "on")
+                .build());
+        register(StatusSchema.builder("vacuum_cleaner")
+                .enumeration("status", "idle", "charging", "cleaning", "returning", "error")
+                .enumeration("mode", "auto", "spot", "edge", "single_room")
+                .integer("battery_level", "percentage")
+                .number("cleaning_area", "square_meter")
+                .integer("cleaning_time", "minute")
+                .activeWhen("status", "cleaning", "returning")
+                .build());
+    }
+
+    public void register(StatusSchema schema) {
+        schemas.put(schema.getDeviceType(), schema);
+    }
+
+    public StatusSchema get(String deviceType) {
+        return deviceType == null ? null : schemas.get(deviceType);
+    }
+
+    public List<StatusSchema> getAll() {
+        return new ArrayList<>(schemas.values());
+    }
+
+    // 没有模式的设备类型返回null，调用方按原始字符串处理
+    public DeviceState decode(String deviceType, JsonNode data) {
+        StatusSchema schema = get(deviceType);
+        return schema == null ? null : schema.decode(data);
+    }
+
+    public DeviceState decode(String deviceType, byte[] encoded) {
+        StatusSchema schema = get(deviceType);
+        return schema == null ? null : schema.decode(encoded);
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.demo.status;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+// 状态模式中的一个字段。name可以带一级嵌套，例如"color.r"对应上报中的{"color":{"r":255}}
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class StatusField {
+
+    private final String name;
+    private final StatusFieldType type;
+    private final String unit;
+    private final List<String> values;
+    private final int index;
+    private final int slot;
+
+    StatusField(String name, StatusFieldType type, String unit, List<String> values, int index, int slot) {
+        this.name = name;
+        this.type = type;
+        this.unit = unit;
+        this.values = values;
+        this.index = index;
+        this.slot = slot;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public StatusFieldType getType() {
+        return type;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    public List<String> getValues() {
+        return values;
+    }
+
+    @JsonIgnore
+    public int getIndex() {
+        return index;
+    }
+
+    // 在DeviceState对应类型数组中的下标
+    @JsonIgnore
+    int getSlot() {
+        return slot;
+    }
+
+    // 枚举取值的序号，不在取值范围内返回-1
+    public int ordinalOf(String value) {
+        return values == null || value == null ? -1 : values.indexOf(value);
+    }
+
+    public boolean isNumeric() {
+        return type != StatusFieldType.ENUM;
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.demo.status;
+
+// 状态字段类型：NUMBER/INTEGER存为double槽位，ENUM存为取值序号
+public enum StatusFieldType {
+    NUMBER,
+    INTEGER,
+    ENUM
+}
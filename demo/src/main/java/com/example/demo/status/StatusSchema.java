@@ -0,0 +1,288 @@
+package com.example.demo.status;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// 一种设备类型的状态模式。字段顺序决定编码布局，演进时只能在末尾追加字段，
+// 已有字段的类型和枚举取值顺序不能修改，否则库中已存的状态无法正确解码
+public class StatusSchema {
+
+    static final byte FORMAT_VERSION = 1;
+    static final int MAX_FIELDS = 64;
+
+    private final String deviceType;
+    private final List<StatusField> fields;
+    private final Map<String, StatusField> byName;
+    // 带一级嵌套的字段的父级名称(color.r的color)
+    private final Set<String> groups;
+    private final int numberSlots;
+    private final int enumSlots;
+    private final StatusField activeField;
+    private final long activeOrdinals;
+
+    private StatusSchema(String deviceType, List<StatusField> fields, StatusField activeField, long activeOrdinals) {
+        this.deviceType = deviceType;
+        this.activeField = activeField;
+        this.activeOrdinals = activeOrdinals;
+        this.fields = Collections.unmodifiableList(fields);
+        this.byName = new HashMap<>();
+        this.groups = new HashSet<>();
+        int numbers = 0;
+        int enums = 0;
+        for (StatusField field : fields) {
+            byName.put(field.getName(), field);
+            int dot = field.getName().indexOf('.');
+            if (dot > 0) {
+                groups.add(field.getName().substring(0, dot));
+            }
+            if (field.isNumeric()) {
+                numbers++;
+            } else {
+                enums++;
+            }
+        }
+        this.numberSlots = numbers;
+        this.enumSlots = enums;
+    }
+
+    public static Builder builder(String deviceType) {
+        return new Builder(deviceType);
+    }
+
+    public String getDeviceType() {
+        return deviceType;
+    }
+
+    public List<StatusField> getFields() {
+        return fields;
+    }
+
+    public StatusField getField(String name) {
+        return byName.get(name);
+    }
+
+    // 设备是否处于运行状态(开灯、空调开机、扫地机清扫中)，用于统计运行时长；模式未定义时返回false
+    public boolean isActive(DeviceState state) {
+        return activeField != null && state.isPresent(activeField)
+                && (activeOrdinals & (1L << state.getOrdinal(activeField))) != 0;
+    }
+
+    @JsonIgnore
+    int getNumberSlots() {
+        return numberSlots;
+    }
+
+    @JsonIgnore
+    int getEnumSlots() {
+        return enumSlots;
+    }
+
+    // 从上报的data对象解码。模式外的字段，以及类型不符、超出范围的值不进编码，原样保留在extras中
+    public DeviceState decode(JsonNode data) {
+        DeviceState state = new DeviceState(this);
+        if (data == null || !data.isObject()) {
+            return state;
+        }
+        ObjectNode extras = null;
+        for (Map.Entry<String, JsonNode> entry : data.properties()) {
+            String name = entry.getKey();
+            JsonNode value = entry.getValue();
+            StatusField field = byName.get(name);
+            if (field != null && set(state, field, value)) {
+                continue;
+            }
+            if (field == null && groups.contains(name) && value.isObject()) {
+                ObjectNode rest = null;
+                for (Map.Entry<String, JsonNode> child : value.properties()) {
+                    StatusField nested = byName.get(name + "." + child.getKey());
+                    if (nested != null && set(state, nested, child.getValue())) {
+                        continue;
+                    }
+                    if (rest == null) {
+                        rest = JsonNodeFactory.instance.objectNode();
+                    }
+                    rest.set(child.getKey(), child.getValue());
+                }
+                if (rest == null) {
+                    continue;
+                }
+                value = rest;
+            }
+            if (extras == null) {
+                extras = JsonNodeFactory.instance.objectNode();
+            }
+            extras.set(name, value);
+        }
+        state.setExtras(extras);
+        return state;
+    }
+
+    private static boolean set(DeviceState state, StatusField field, JsonNode value) {
+        switch (field.getType()) {
+            case NUMBER -> {
+                if (!value.isNumber()) {
+                    return false;
+                }
+                state.setNumber(field, value.asDouble());
+            }
+            case INTEGER -> {
+                // 编码为4字节int，不能截断
+                if (!value.isIntegralNumber() || !value.canConvertToInt()) {
+                    return false;
+                }
+                state.setNumber(field, value.intValue());
+            }
+            case ENUM -> {
+                int ordinal = field.ordinalOf(value.asText(null));
+                if (ordinal < 0) {
+                    return false;
+                }
+                state.setOrdinal(field, ordinal);
+            }
+        }
+        return true;
+    }
+
+    // 编码布局：版本(1字节) + 字段数(1字节) + 存在位图(8字节) + 依次写出存在的字段，
+    // NUMBER为8字节double，INTEGER为4字节int，ENUM为1字节序号
+    public byte[] encode(DeviceState state) {
+        int size = 10;
+        for (StatusField field : fields) {
+            if (state.isPresent(field)) {
+                size += fieldBytes(field);
+            }
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put(FORMAT_VERSION);
+        buffer.put((byte) fields.size());
+        buffer.putLong(state.getPresentBits());
+        for (StatusField field : fields) {
+            if (!state.isPresent(field)) {
+                continue;
+            }
+            switch (field.getType()) {
+                case NUMBER -> buffer.putDouble(state.getNumber(field));
+                case INTEGER -> buffer.putInt((int) state.getNumber(field));
+                case ENUM -> buffer.put((byte) state.getOrdinal(field));
+            }
+        }
+        return buffer.array();
+    }
+
+    // 编码版本不识别或字段数多于当前模式(模式被回退)时返回null
+    public DeviceState decode(byte[] encoded) {
+        if (encoded == null || encoded.length < 10 || encoded[0] != FORMAT_VERSION) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(encoded);
+        buffer.get();
+        int encodedFields = buffer.get() & 0xFF;
+        if (encodedFields > fields.size()) {
+            return null;
+        }
+        long present = buffer.getLong();
+        DeviceState state = new DeviceState(this);
+        for (int i = 0; i < encodedFields; i++) {
+            if ((present & (1L << i)) == 0) {
+                continue;
+            }
+            StatusField field = fields.get(i);
+            if (buffer.remaining() < fieldBytes(field)) {
+                return null;
+            }
+            switch (field.getType()) {
+                case NUMBER -> state.setNumber(field, buffer.getDouble());
+                case INTEGER -> state.setNumber(field, buffer.getInt());
+                case ENUM -> state.setOrdinal(field, buffer.get() & 0xFF);
+            }
+        }
+        return state;
+    }
+
+    private static int fieldBytes(StatusField field) {
+        return switch (field.getType()) {
+            case NUMBER -> 8;
+            case INTEGER -> 4;
+            case ENUM -> 1;
+        };
+    }
+
+    public static class Builder {
+
+        private final String deviceType;
+        private final List<StatusField> fields = new ArrayList<>();
+        private int numbers;
+        private int enums;
+        private StatusField activeField;
+        private long activeOrdinals;
+
+        private Builder(String deviceType) {
+            this.deviceType = deviceType;
+        }
+
+        public Builder number(String name, String unit) {
+            return add(name, StatusFieldType.NUMBER, unit, null, numbers++);
+        }
+
+        public Builder integer(String name, String unit) {
+            return add(name, StatusFieldType.INTEGER, unit, null, numbers++);
+        }
+
+        public Builder enumeration(String name, String... values) {
+            if (values.length == 0 || values.length > 255) {
+                throw new IllegalArgumentException("Enum field " + name + " must have 1-255 values");
+            }
+            return add(name, StatusFieldType.ENUM, null, List.of(values), enums++);
+        }
+
+        // 枚举字段取这些值时视为设备在运行
+        public Builder activeWhen(String name, String... values) {
+            StatusField field = fields.stream().filter(f -> f.getName().equals(name)).findFirst().orElse(null);
+            if (field == null || field.isNumeric()) {
+                throw new IllegalArgumentException("Active field " + name + " must be a declared enum field");
+            }
+            long ordinals = 0;
+            for (String value : values) {
+                int ordinal = field.ordinalOf(value);
+                if (ordinal < 0 || ordinal >= 64) {
+                    throw new IllegalArgumentException("Unknown value " + value + " for field " + name);
+                }
+                ordinals |= 1L << ordinal;
+            }
+            activeField = field;
+            activeOrdinals = ordinals;
+            return this;
+        }
+
+        public StatusSchema build() {
+            return new StatusSchema(deviceType, new ArrayList<>(fields), activeField, activeOrdinals);
+        }
+
+        private Builder add(String name, StatusFieldType type, String unit, List<String> values, int slot) {
+            if (fields.size() >= MAX_FIELDS) {
+                throw new IllegalArgumentException("Status schema " + deviceType + " exceeds " + MAX_FIELDS + " fields");
+            }
+            if (name.indexOf('.') != name.lastIndexOf('.')) {
+                throw new IllegalArgumentException("Only one level of nesting is supported: " + name);
+            }
+            for (StatusField field : fields) {
+                if (field.getName().equals(name)) {
+                    throw new IllegalArgumentException("Duplicate status field " + name);
+                }
+            }
+            fields.add(new StatusField(name, type, unit, values, fields.size(), slot));
+            return this;
+        }
+    }
+}
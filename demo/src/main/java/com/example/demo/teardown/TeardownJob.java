@@ -0,0 +1,97 @@
+package com.example.demo.teardown;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// 一次账号/区域清理任务的进度，按步骤记录已处理行数
+public class TeardownJob {
+
+    public enum Status {
+        PENDING, RUNNING, COMPLETED, FAILED
+    }
+
+    private final String id;
+    private final String scope;
+    private final Long targetId;
+    private final long submittedAtMillis;
+    private final Map<String, Long> processed = new LinkedHashMap<>();
+    private volatile Status status = Status.PENDING;
+    private volatile String currentStep;
+    private volatile long finishedAtMillis;
+    private volatile String error;
+
+    public TeardownJob(String id, String scope, Long targetId) {
+        this.id = id;
+        this.scope = scope;
+        this.targetId = targetId;
+        this.submittedAtMillis = System.currentTimeMillis();
+    }
+
+    void start(String step) {
+        status = Status.RUNNING;
+        currentStep = step;
+        synchronized (processed) {
+            processed.putIfAbsent(step, 0L);
+        }
+    }
+
+    void addProcessed(String step, long rows) {
+        synchronized (processed) {
+            processed.merge(step, rows, Long::sum);
+        }
+    }
+
+    void complete() {
+        currentStep = null;
+        finishedAtMillis = System.currentTimeMillis();
+        status = Status.COMPLETED;
+    }
+
+    void fail(String message) {
+        error = message;
+        finishedAtMillis = System.currentTimeMillis();
+        status = Status.FAILED;
+    }
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getScope() {
+        return scope;
+    }
+
+    public Long getTargetId() {
+        return targetId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getCurrentStep() {
+        return currentStep;
+    }
+
+    public Map<String, Long> getProcessed() {
+        synchronized (processed) {
+            return new LinkedHashMap<>(processed);
+        }
+    }
+
+    public long getSubmittedAtMillis() {
+        return submittedAtMillis;
+    }
+
+    public long getFinishedAtMillis() {
+        return finishedAtMillis;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
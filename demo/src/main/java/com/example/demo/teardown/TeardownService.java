@@ -0,0 +1,186 @@
+package com.example.demo.teardown;
+
+import com.example.demo.config.AppProperties;
+import com.example.demo.datasource.Workload;
+import com.example.demo.datasource.WorkloadContext;
+import com.example.demo.event.ChangeType;
+import com.example.demo.event.EntityEventBus;
+import com.example.demo.event.EntityType;
+import com.example.demo.ingest.IngestBackpressureMonitor;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+// 账号注销和区域删除的后台清理：关联数据用带LIMIT的集合操作分批处理，
+// 每批是一条自动提交的短语句，批间休眠，设备写入出现背压时暂停，避免长时间持锁影响状态入库
+@Component
+public class TeardownService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TeardownService.class);
+
+    public static final String SCOPE_USER = "user";
+    public static final String SCOPE_AREA = "area";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityEventBus entityEventBus;
+    private final IngestBackpressureMonitor ingestBackpressureMonitor;
+    private final AppProperties.Teardown config;
+    private final Map<String, TeardownJob> jobs;
+    private final ExecutorService worker;
+
+    public TeardownService(JdbcTemplate jdbcTemplate, EntityEventBus entityEventBus,
+                           IngestBackpressureMonitor ingestBackpressureMonitor, AppProperties appProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityEventBus = entityEventBus;
+        this.ingestBackpressureMonitor = ingestBackpressureMonitor;
+        this.config = appProperties.getTeardown();
+        int maxRetained = config.getMaxRetainedJobs();
+        this.jobs = Collections.synchronizedMap(new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TeardownJob> eldest) {
+                return size() > maxRetained && eldest.getValue().isFinished();
+            }
+        });
+        // 单线程串行执行，多个清理任务不会同时争抢连接
+        this.worker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(() -> WorkloadContext.run(Workload.BACKGROUND, runnable), "teardown-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // 用户不存在返回null；同一目标已有未结束的任务时直接返回该任务
+    public TeardownJob submitUserTeardown(Long userId) {
+        Integer exists = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users WHERE id = ?", Integer.class, userId);
+        if (exists == null || exists == 0) {
+            return null;
+        }
+        return submit(SCOPE_USER, userId, job -> runUserTeardown(job, userId));
+    }
+
+    public TeardownJob submitAreaTeardown(Long areaId) {
+        Long userId;
+        try {
+            userId = jdbcTemplate.queryForObject("SELECT user_id FROM house_areas WHERE id = ?", Long.class, areaId);
+        } catch (EmptyResultDataAccessException e) {
+            return null;
+        }
+        return submit(SCOPE_AREA, areaId, job -> runAreaTeardown(job, areaId, userId));
+    }
+
+    public TeardownJob getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    public List<TeardownJob> getJobs() {
+        synchronized (jobs) {
+            return new ArrayList<>(jobs.values());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    private synchronized TeardownJob submit(String scope, Long targetId, Consumer<TeardownJob> task) {
+        synchronized (jobs) {
+            for (TeardownJob job : jobs.values()) {
+                if (!job.isFinished() && job.getScope().equals(scope) && job.getTargetId().equals(targetId)) {
+                    return job;
+                }
+            }
+        }
+        TeardownJob job = new TeardownJob(UUID.randomUUID().toString(), scope, targetId);
+        jobs.put(job.getId(), job);
+        worker.execute(() -> {
+            try {
+                task.accept(job);
+                job.complete();
+                logger.info("Teardown job {} ({} {}) completed: {}", job.getId(), scope, targetId, job.getProcessed());
+            } catch (Exception e) {
+                job.fail(e.getMessage());
+                logger.error("Teardown job {} ({} {}) failed", job.getId(), scope, targetId, e);
+            }
+        });
+        return job;
+    }
+
+    private void runUserTeardown(TeardownJob job, Long userId) {
+        // 按外键依赖顺序：规则、场景、设备、区域都引用users，最后才删用户本身
+        deleteInChunks(job, "automation_rules", "DELETE FROM automation_rules WHERE user_id = ? LIMIT ?", userId);
+        deleteInChunks(job, "scenes", "DELETE FROM scenes WHERE user_id = ? LIMIT ?", userId);
+        deleteInChunks(job, "devices", "DELETE FROM devices WHERE user_id = ? LIMIT ?", userId);
+        deleteInChunks(job, "house_areas", "DELETE FROM house_areas WHERE user_id = ? LIMIT ?", userId);
+        deleteInChunks(job, "deleted_records", "DELETE FROM deleted_records WHERE user_id = ? LIMIT ?", userId);
+        deleteInChunks(job, "usage_rollups", "DELETE FROM usage_rollups WHERE user_id = ? LIMIT ?", userId);
+        job.start("users");
+        job.addProcessed("users", jdbcTemplate.update("DELETE FROM users WHERE id = ?", userId));
+        // 批量删除不逐条发事件，只发一条用户删除事件，由各内存索引按用户清理
+        entityEventBus.publish(EntityType.USER, ChangeType.DELETED, userId, userId, null);
+    }
+
+    private void runAreaTeardown(TeardownJob job, Long areaId, Long userId) {
+        // 区域删除不删设备，只解除归属；同时刷新updated_at让增量同步带上这些设备。
+        // 时间取应用时钟，与其他写入updated_at的路径一致，增量同步的since参数也按应用时钟比较
+        LocalDateTime now = LocalDateTime.now();
+        deleteInChunks(job, "devices",
+                "UPDATE devices SET area_id = NULL, updated_at = ? WHERE area_id = ? LIMIT ?", now, areaId);
+        deleteInChunks(job, "usage_rollups",
+                "DELETE FROM usage_rollups WHERE scope_type = 'AREA' AND scope_id = ? LIMIT ?", areaId);
+        job.start("house_areas");
+        job.addProcessed("house_areas", jdbcTemplate.update("DELETE FROM house_areas WHERE id = ?", areaId));
+        entityEventBus.publish(EntityType.HOUSE_AREA, ChangeType.DELETED, areaId, userId, null);
+    }
+
+    private void deleteInChunks(TeardownJob job, String step, String sql, Long targetId) {
+        deleteInChunks(job, step, sql, null, targetId);
+    }
+
+    // updatedAt不为空时作为第一个参数，用于同时刷新updated_at的UPDATE
+    private void deleteInChunks(TeardownJob job, String step, String sql, LocalDateTime updatedAt, Long targetId) {
+        job.start(step);
+        int chunkSize = config.getChunkSize();
+        int affected;
+        do {
+            awaitIngestCapacity();
+            affected = updatedAt == null
+                    ? jdbcTemplate.update(sql, targetId, chunkSize)
+                    : jdbcTemplate.update(sql, updatedAt, targetId, chunkSize);
+            job.addProcessed(step, affected);
+            pause(config.getChunkPauseMillis());
+        } while (affected >= chunkSize);
+    }
+
+    private void awaitIngestCapacity() {
+        while (ingestBackpressureMonitor.isPaused()) {
+            pause(200);
+        }
+    }
+
+    private void pause(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Teardown interrupted", e);
+        }
+    }
+}
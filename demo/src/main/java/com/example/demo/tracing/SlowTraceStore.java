@@ -0,0 +1,70 @@
+package com.example.demo.tracing;
+
+import com.example.demo.config.AppProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 按接口保存滚动窗口内最慢的N条链路
+@Component
+public class SlowTraceStore {
+
+    private static final Comparator<Trace> BY_DURATION = Comparator.comparingLong(Trace::getDurationNanos);
+
+    private final AppProperties appProperties;
+    private final Map<String, PriorityQueue<Trace>> tracesByEndpoint = new ConcurrentHashMap<>();
+
+    public SlowTraceStore(AppProperties appProperties) {
+        this.appProperties = appProperties;
+    }
+
+    public void record(Trace trace) {
+        if (trace.getEndpoint() == null) {
+            return;
+        }
+        int limit = appProperties.getTracing().getSlowestPerEndpoint();
+        PriorityQueue<Trace> queue = tracesByEndpoint.computeIfAbsent(trace.getEndpoint(),
+                key -> new PriorityQueue<>(BY_DURATION));
+        synchronized (queue) {
+            evictExpired(queue);
+            if (queue.size() < limit) {
+                queue.offer(trace);
+            } else if (!queue.isEmpty() && queue.peek().getDurationNanos() < trace.getDurationNanos()) {
+                queue.poll();
+                queue.offer(trace);
+            }
+        }
+    }
+
+    // 返回各接口最慢链路，按耗时降序
+    public Map<String, List<Trace>> snapshot() {
+        Map<String, List<Trace>> result = new TreeMap<>();
+        tracesByEndpoint.forEach((endpoint, queue) -> {
+            List<Trace> traces;
+            synchronized (queue) {
+                evictExpired(queue);
+                traces = new ArrayList<>(queue);
+            }
+            if (!traces.isEmpty()) {
+                traces.sort(BY_DURATION.reversed());
+                result.put(endpoint, traces);
+            }
+        });
+        return result;
+    }
+
+    public void clear() {
+        tracesByEndpoint.clear();
+    }
+
+    private void evictExpired(PriorityQueue<Trace> queue) {
+        long cutoff = System.currentTimeMillis() - appProperties.getTracing().getWindowMinutes() * 60_000L;
+        queue.removeIf(trace -> trace.getStartEpochMillis() < cutoff);
+    }
+}
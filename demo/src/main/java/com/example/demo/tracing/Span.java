@@ -0,0 +1,51 @@
+package com.example.demo.tracing;
+
+public class Span {
+
+    private final String layer;
+    private final String name;
+    private final int depth;
+    private final long startOffsetNanos;
+    private long durationNanos;
+    private long childNanos;
+
+    public Span(String layer, String name, int depth, long startOffsetNanos) {
+        this.layer = layer;
+        this.name = name;
+        this.depth = depth;
+        this.startOffsetNanos = startOffsetNanos;
+    }
+
+    public String getLayer() {
+        return layer;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getStartOffsetNanos() {
+        return startOffsetNanos;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    void setDurationNanos(long durationNanos) {
+        this.durationNanos = durationNanos;
+    }
+
+    // 扣除子span后本层实际耗时
+    public long getSelfNanos() {
+        return Math.max(0, durationNanos - childNanos);
+    }
+
+    void addChildNanos(long nanos) {
+        this.childNanos += nanos;
+    }
+}
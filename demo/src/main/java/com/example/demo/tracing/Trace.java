@@ -0,0 +1,83 @@
+package com.example.demo.tracing;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// 单次请求的链路，只在处理请求的线程内使用，不需要同步
+public class Trace {
+
+    public static final String LAYER_HTTP = "http";
+
+    private final long startNanos;
+    private final long startEpochMillis;
+    private final int maxSpans;
+    private final List<Span> spans = new ArrayList<>();
+    private final Deque<Span> stack = new ArrayDeque<>();
+    private String endpoint;
+    private int droppedSpans;
+
+    public Trace(int maxSpans) {
+        this.startNanos = System.nanoTime();
+        this.startEpochMillis = System.currentTimeMillis();
+        this.maxSpans = maxSpans;
+    }
+
+    public Span begin(String layer, String name) {
+        Span span = new Span(layer, name, stack.size(), System.nanoTime() - startNanos);
+        stack.push(span);
+        if (spans.size() < maxSpans) {
+            spans.add(span);
+        } else {
+            droppedSpans++;
+        }
+        return span;
+    }
+
+    public void end(Span span) {
+        long duration = System.nanoTime() - startNanos - span.getStartOffsetNanos();
+        span.setDurationNanos(duration);
+        stack.remove(span);
+        Span parent = stack.peek();
+        if (parent != null) {
+            parent.addChildNanos(duration);
+        }
+    }
+
+    public long getStartEpochMillis() {
+        return startEpochMillis;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public void setEndpoint(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    public long getDurationNanos() {
+        return spans.isEmpty() ? 0 : spans.get(0).getDurationNanos();
+    }
+
+    public List<Span> getSpans() {
+        return Collections.unmodifiableList(spans);
+    }
+
+    public int getDroppedSpans() {
+        return droppedSpans;
+    }
+
+    // 按层汇总自身耗时(毫秒)，http层即Tomcat与Jackson序列化等框架开销
+    public Map<String, Double> getBreakdownMillis() {
+        Map<String, Double> breakdown = new LinkedHashMap<>();
+        for (Span span : spans) {
+            breakdown.merge(span.getLayer(), span.getSelfNanos() / 1_000_000.0, Double::sum);
+        }
+        return breakdown;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.demo.tracing;
+
+public final class TraceContext {
+
+    private static final ThreadLocal<Trace> CURRENT = new ThreadLocal<>();
+
+    private TraceContext() {
+    }
+
+    public static Trace current() {
+        return CURRENT.get();
+    }
+
+    static void start(Trace trace) {
+        CURRENT.set(trace);
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.demo.tracing;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+// 通过 /actuator/traces 查看各接口最慢链路
+@Component
+@Endpoint(id = "traces")
+public class TracesEndpoint {
+
+    private final SlowTraceStore slowTraceStore;
+
+    public TracesEndpoint(SlowTraceStore slowTraceStore) {
+        this.slowTraceStore = slowTraceStore;
+    }
+
+    @ReadOperation
+    public Map<String, List<Trace>> slowestTraces() {
+        return slowTraceStore.snapshot();
+    }
+
+    @DeleteOperation
+    public void clear() {
+        slowTraceStore.clear();
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.demo.tracing;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.stereotype.Component;
+
+@Aspect
+@Component
+public class TracingAspect {
+
+    @Around("within(@org.springframework.web.bind.annotation.RestController *)")
+    public Object traceController(ProceedingJoinPoint joinPoint) throws Throwable {
+        return trace(joinPoint, "controller");
+    }
+
+    @Around("execution(* com.example.demo.service.impl.*ServiceImpl.*(..))")
+    public Object traceService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return trace(joinPoint, "service");
+    }
+
+    // Spring Data仓库是接口代理，按Repository子类型匹配才能覆盖继承来的findAll/save等方法
+    @Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+    public Object traceRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        Trace trace = TraceContext.current();
+        if (trace == null) {
+            return joinPoint.proceed();
+        }
+        Class<?>[] interfaces = AopProxyUtils.proxiedUserInterfaces(joinPoint.getThis());
+        String type = interfaces.length > 0 ? interfaces[0].getSimpleName()
+                : joinPoint.getSignature().getDeclaringType().getSimpleName();
+        return trace(joinPoint, trace, "repository", type);
+    }
+
+    private Object trace(ProceedingJoinPoint joinPoint, String layer) throws Throwable {
+        Trace trace = TraceContext.current();
+        if (trace == null) {
+            return joinPoint.proceed();
+        }
+        return trace(joinPoint, trace, layer, joinPoint.getSignature().getDeclaringType().getSimpleName());
+    }
+
+    private Object trace(ProceedingJoinPoint joinPoint, Trace trace, String layer, String type) throws Throwable {
+        Span span = trace.begin(layer, type + "." + joinPoint.getSignature().getName());
+        try {
+            return joinPoint.proceed();
+        } finally {
+            trace.end(span);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.demo.tracing;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+// 记录从连接池获取连接的等待时间，用于区分连接池排队与Hibernate执行
+public class TracingDataSource extends DelegatingDataSource implements Closeable {
+
+    public TracingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Trace trace = TraceContext.current();
+        if (trace == null) {
+            return super.getConnection();
+        }
+        Span span = trace.begin("pool", "getConnection");
+        try {
+            return super.getConnection();
+        } finally {
+            trace.end(span);
+        }
+    }
+
+    // 包装后Spring按实际对象推断销毁方法，需要把close转给被包装的连接池
+    @Override
+    public void close() throws IOException {
+        if (getTargetDataSource() instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+}
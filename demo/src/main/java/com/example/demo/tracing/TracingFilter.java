@@ -0,0 +1,60 @@
+package com.example.demo.tracing;
+
+import com.example.demo.config.AppProperties;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+// 在请求入口做采样决定，未采样的请求只多一次随机数比较
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class TracingFilter extends OncePerRequestFilter {
+
+    private final AppProperties appProperties;
+    private final SlowTraceStore slowTraceStore;
+
+    public TracingFilter(AppProperties appProperties, SlowTraceStore slowTraceStore) {
+        this.appProperties = appProperties;
+        this.slowTraceStore = slowTraceStore;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        AppProperties.Tracing tracing = appProperties.getTracing();
+        if (!tracing.isEnabled() || !sampled(tracing.getSampleRate())) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        Trace trace = new Trace(tracing.getMaxSpansPerTrace());
+        Span root = trace.begin(Trace.LAYER_HTTP, request.getMethod() + " " + request.getRequestURI());
+        TraceContext.start(trace);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            trace.end(root);
+            TraceContext.clear();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            if (pattern != null) {
+                trace.setEndpoint(request.getMethod() + " " + pattern);
+                slowTraceStore.record(trace);
+            }
+        }
+    }
+
+    private boolean sampled(double sampleRate) {
+        if (sampleRate <= 0.0) {
+            return false;
+        }
+        return sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+}
@@ -0,0 +1,366 @@
+package com.example.demo.usage;
+
+import com.example.demo.config.AppProperties;
+import com.example.demo.device.DeviceInfo;
+import com.example.demo.device.DeviceRegistry;
+import com.example.demo.event.ChangeType;
+import com.example.demo.event.EntityChangedEvent;
+import com.example.demo.event.EntityType;
+import com.example.demo.exception.BadRequestException;
+import com.example.demo.ingest.DeviceStatusReport;
+import com.example.demo.retention.PartitionRetentionManager;
+import com.example.demo.status.DeviceState;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 运行时长与能耗的流式汇总：消费每条状态上报，按设备、区域、用户维护分钟/小时/天的滚动窗口，
+// 窗口结束后写入usage_rollups，查询只读汇总行和内存中未结束的窗口，与原始上报量无关。
+// 集群模式下每个节点只汇总自己负责的设备，写库时按窗口累加合并。
+// 上报处理线程只把上报放进队列，由单独的汇总线程累加，避免所有上报线程争用同一把锁
+@Component
+public class UsageAggregator {
+
+    private static final Logger logger = LoggerFactory.getLogger(UsageAggregator.class);
+
+    private static final int DRAIN_BATCH = 512;
+
+    private final DeviceRegistry deviceRegistry;
+    private final UsageRollupStore store;
+    private final PartitionRetentionManager retentionManager;
+    private final AppProperties.Usage config;
+    private final Map<String, DeviceUsage> devices = new HashMap<>();
+    private final Map<SeriesKey, Series> series = new HashMap<>();
+    private final BlockingQueue<DeviceStatusReport> pending;
+    private final AtomicLong dropped = new AtomicLong();
+    private long droppedReported;
+    private volatile boolean running;
+    private Thread worker;
+
+    public UsageAggregator(DeviceRegistry deviceRegistry, UsageRollupStore store,
+                           PartitionRetentionManager retentionManager, AppProperties appProperties) {
+        this.deviceRegistry = deviceRegistry;
+        this.store = store;
+        this.retentionManager = retentionManager;
+        this.config = appProperties.getUsage();
+        this.pending = new ArrayBlockingQueue<>(config.getQueueCapacity());
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::aggregateLoop, "usage-aggregator");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public void onStatus(DeviceStatusReport report) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        if (!pending.offer(report)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    private void aggregateLoop() {
+        List<DeviceStatusReport> batch = new ArrayList<>(DRAIN_BATCH);
+        while (running) {
+            try {
+                DeviceStatusReport first = pending.take();
+                synchronized (this) {
+                    apply(first);
+                    drainPending(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.warn("Failed to aggregate usage report: {}", e.getMessage());
+            }
+        }
+    }
+
+    // 调用方持有this的锁
+    private void drainPending(List<DeviceStatusReport> batch) {
+        batch.clear();
+        pending.drainTo(batch, DRAIN_BATCH);
+        for (DeviceStatusReport report : batch) {
+            apply(report);
+        }
+    }
+
+    private void apply(DeviceStatusReport report) {
+        DeviceInfo info = deviceRegistry.get(report.getDeviceId());
+        if (info == null || info.getUserId() == null) {
+            return;
+        }
+        long now = report.getReceivedAtMillis();
+        DeviceUsage usage = devices.get(report.getDeviceId());
+        if (usage == null) {
+            usage = new DeviceUsage(now);
+            devices.put(report.getDeviceId(), usage);
+        } else {
+            // 上报间隔超过maxGap时，超出部分视为状态未知，不计入运行时长
+            advance(usage, info, Math.min(now, usage.lastReportAt + config.getMaxGapSeconds() * 1000));
+        }
+        usage.accruedUntil = Math.max(usage.accruedUntil, now);
+        usage.lastReportAt = now;
+        DeviceState state = report.getState();
+        usage.active = state != null && state.getSchema().isActive(state);
+        countReport(info, now);
+    }
+
+    // 推进运行中设备的时长并写出已结束的窗口；写库失败的窗口放回内存，下次再写
+    @Scheduled(fixedDelayString = "${app.usage.flush-interval-millis:10000}")
+    public void flush() {
+        flush(System.currentTimeMillis(), false);
+    }
+
+    public List<UsagePoint> query(UsageScope scope, long scopeId, UsageGranularity granularity, long from, long to) {
+        if (to <= from) {
+            throw new BadRequestException("to must be after from");
+        }
+        if ((to - from) / granularity.getLengthMillis() > config.getMaxPoints()) {
+            throw new BadRequestException("Range exceeds " + config.getMaxPoints() + " " + granularity + " windows");
+        }
+        long start = granularity.windowStart(from);
+        NavigableMap<Long, UsagePoint> merged = new TreeMap<>();
+        for (UsagePoint point : store.find(scope, scopeId, granularity, start, to)) {
+            merged.put(point.getWindowStart(), point);
+        }
+        synchronized (this) {
+            Series open = series.get(new SeriesKey(scope, scopeId, granularity));
+            if (open != null) {
+                for (UsagePoint point : open.windows.subMap(start, true, to, false).values()) {
+                    merged.computeIfAbsent(point.getWindowStart(), UsagePoint::new)
+                            .add(point.getActiveMillis(), point.getEnergyWh(), point.getReportCount());
+                }
+            }
+        }
+        return new ArrayList<>(merged.values());
+    }
+
+    @Scheduled(cron = "0 45 3 * * *")
+    public void purgeExpired() {
+        if (retentionManager.isManaged(PartitionRetentionManager.USAGE_ROLLUPS)) {
+            // 已按天分区，由PartitionRetentionManager整分区删除
+            return;
+        }
+        long now = System.currentTimeMillis();
+        int minutes = store.purge(UsageGranularity.MINUTE, now - config.getMinuteRetentionHours() * 3_600_000L);
+        int hours = store.purge(UsageGranularity.HOUR, now - config.getHourRetentionDays() * 86_400_000L);
+        logger.info("Purged {} minute and {} hour usage rollups", minutes, hours);
+    }
+
+    // 停机时连同未结束的窗口一起写出，重启后新的部分会累加到同一行
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+        flush(System.currentTimeMillis(), true);
+    }
+
+    @EventListener
+    public synchronized void onEntityChanged(EntityChangedEvent event) {
+        if (event.getChangeType() != ChangeType.DELETED) {
+            return;
+        }
+        if (event.getEntityType() == EntityType.USER) {
+            series.values().removeIf(open -> open.userId == event.getEntityId());
+            return;
+        }
+        if (event.getEntityType() == EntityType.HOUSE_AREA) {
+            series.keySet().removeIf(key -> key.scope == UsageScope.AREA && key.scopeId == event.getEntityId());
+        } else if (event.getEntityType() == EntityType.DEVICE) {
+            series.keySet().removeIf(key -> key.scope == UsageScope.DEVICE && key.scopeId == event.getEntityId());
+            Object deviceId = event.getSnapshot() == null ? null : event.getSnapshot().get("deviceId");
+            if (deviceId != null) {
+                devices.remove(deviceId.toString());
+            }
+        }
+    }
+
+    void flush(long now, boolean includeOpen) {
+        List<UsageRollupStore.Checkpoint> closed = new ArrayList<>();
+        synchronized (this) {
+            // 先处理已排队的上报，写出的窗口包含截至此刻收到的全部上报
+            List<DeviceStatusReport> batch = new ArrayList<>(DRAIN_BATCH);
+            while (!pending.isEmpty()) {
+                drainPending(batch);
+            }
+            long droppedNow = dropped.get();
+            if (droppedNow > droppedReported) {
+                logger.warn("Usage queue full, dropped {} reports since last flush", droppedNow - droppedReported);
+                droppedReported = droppedNow;
+            }
+            long maxGapMillis = config.getMaxGapSeconds() * 1000;
+            Iterator<Map.Entry<String, DeviceUsage>> iterator = devices.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, DeviceUsage> entry = iterator.next();
+                DeviceInfo info = deviceRegistry.get(entry.getKey());
+                DeviceUsage usage = entry.getValue();
+                if (info == null || info.getUserId() == null) {
+                    iterator.remove();
+                    continue;
+                }
+                advance(usage, info, Math.min(now, usage.lastReportAt + maxGapMillis));
+                if (now - usage.lastReportAt > maxGapMillis) {
+                    iterator.remove();
+                }
+            }
+            Iterator<Map.Entry<SeriesKey, Series>> seriesIterator = series.entrySet().iterator();
+            while (seriesIterator.hasNext()) {
+                Map.Entry<SeriesKey, Series> entry = seriesIterator.next();
+                SeriesKey key = entry.getKey();
+                Iterator<UsagePoint> windows = entry.getValue().windows.values().iterator();
+                while (windows.hasNext()) {
+                    UsagePoint point = windows.next();
+                    if (!includeOpen && key.granularity.windowEnd(point.getWindowStart()) > now) {
+                        break;
+                    }
+                    closed.add(new UsageRollupStore.Checkpoint(key.scope, key.scopeId, entry.getValue().userId,
+                            key.granularity, point));
+                    windows.remove();
+                }
+                if (entry.getValue().windows.isEmpty()) {
+                    seriesIterator.remove();
+                }
+            }
+        }
+        try {
+            store.checkpoint(closed);
+        } catch (Exception e) {
+            logger.warn("Failed to checkpoint {} usage windows, keeping them in memory: {}", closed.size(), e.getMessage());
+            restore(closed);
+        }
+    }
+
+    private synchronized void restore(List<UsageRollupStore.Checkpoint> checkpoints) {
+        for (UsageRollupStore.Checkpoint checkpoint : checkpoints) {
+            UsagePoint point = checkpoint.getPoint();
+            series(checkpoint.getScope(), checkpoint.getScopeId(), checkpoint.getUserId(), checkpoint.getGranularity())
+                    .computeIfAbsent(point.getWindowStart(), UsagePoint::new)
+                    .add(point.getActiveMillis(), point.getEnergyWh(), point.getReportCount());
+        }
+    }
+
+    private void advance(DeviceUsage usage, DeviceInfo info, long to) {
+        if (to <= usage.accruedUntil) {
+            return;
+        }
+        if (usage.active) {
+            accrue(info, usage.accruedUntil, to);
+        }
+        usage.accruedUntil = to;
+    }
+
+    // 把[from, to)这段运行时间按各粒度的窗口边界切开分别累加
+    private void accrue(DeviceInfo info, long from, long to) {
+        Double ratedWatts = config.getRatedWatts().get(info.getDeviceType());
+        for (UsageGranularity granularity : UsageGranularity.values()) {
+            long start = from;
+            while (start < to) {
+                long windowStart = granularity.windowStart(start);
+                long end = Math.min(granularity.windowEnd(windowStart), to);
+                double energyWh = ratedWatts == null ? 0 : ratedWatts * (end - start) / 3_600_000.0;
+                addToScopes(info, granularity, windowStart, end - start, energyWh, 0);
+                start = end;
+            }
+        }
+    }
+
+    private void countReport(DeviceInfo info, long timestampMillis) {
+        for (UsageGranularity granularity : UsageGranularity.values()) {
+            addToScopes(info, granularity, granularity.windowStart(timestampMillis), 0, 0, 1);
+        }
+    }
+
+    private void addToScopes(DeviceInfo info, UsageGranularity granularity, long windowStart,
+                             long activeMillis, double energyWh, long reports) {
+        long userId = info.getUserId();
+        series(UsageScope.DEVICE, info.getId(), userId, granularity)
+                .computeIfAbsent(windowStart, UsagePoint::new).add(activeMillis, energyWh, reports);
+        if (info.getAreaId() != null) {
+            series(UsageScope.AREA, info.getAreaId(), userId, granularity)
+                    .computeIfAbsent(windowStart, UsagePoint::new).add(activeMillis, energyWh, reports);
+        }
+        series(UsageScope.USER, userId, userId, granularity)
+                .computeIfAbsent(windowStart, UsagePoint::new).add(activeMillis, energyWh, reports);
+    }
+
+    private NavigableMap<Long, UsagePoint> series(UsageScope scope, long scopeId, long userId,
+                                                  UsageGranularity granularity) {
+        return series.computeIfAbsent(new SeriesKey(scope, scopeId, granularity), key -> new Series(userId)).windows;
+    }
+
+    private static final class DeviceUsage {
+        private long accruedUntil;
+        private long lastReportAt;
+        private boolean active;
+
+        DeviceUsage(long now) {
+            this.accruedUntil = now;
+            this.lastReportAt = now;
+        }
+    }
+
+    private static final class Series {
+        private final long userId;
+        private final NavigableMap<Long, UsagePoint> windows = new TreeMap<>();
+
+        Series(long userId) {
+            this.userId = userId;
+        }
+    }
+
+    private static final class SeriesKey {
+        private final UsageScope scope;
+        private final long scopeId;
+        private final UsageGranularity granularity;
+
+        SeriesKey(UsageScope scope, long scopeId, UsageGranularity granularity) {
+            this.scope = scope;
+            this.scopeId = scopeId;
+            this.granularity = granularity;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof SeriesKey other)) {
+                return false;
+            }
+            return scope == other.scope && scopeId == other.scopeId && granularity == other.granularity;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(scope, scopeId, granularity);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.demo.usage;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+
+// 滚动窗口粒度。分钟和小时按纪元毫秒对齐，天按服务器时区的零点对齐
+public enum UsageGranularity {
+    MINUTE(60_000L),
+    HOUR(3_600_000L),
+    DAY(86_400_000L);
+
+    private final long lengthMillis;
+
+    UsageGranularity(long lengthMillis) {
+        this.lengthMillis = lengthMillis;
+    }
+
+    public long getLengthMillis() {
+        return lengthMillis;
+    }
+
+    public long windowStart(long timestampMillis) {
+        if (this != DAY) {
+            return timestampMillis - Math.floorMod(timestampMillis, lengthMillis);
+        }
+        return Instant.ofEpochMilli(timestampMillis).atZone(ZoneId.systemDefault())
+                .truncatedTo(ChronoUnit.DAYS).toInstant().toEpochMilli();
+    }
+
+    // 夏令时切换日的长度不是24小时，按下一个零点计算
+    public long windowEnd(long windowStart) {
+        if (this != DAY) {
+            return windowStart + lengthMillis;
+        }
+        return Instant.ofEpochMilli(windowStart).atZone(ZoneId.systemDefault())
+                .plusDays(1).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.demo.usage;
+
+// 一个时间窗口的汇总结果，同时作为内存中未结束窗口的累加器
+public class UsagePoint {
+
+    private final long windowStart;
+    private long activeMillis;
+    private double energyWh;
+    private long reportCount;
+
+    public UsagePoint(long windowStart) {
+        this.windowStart = windowStart;
+    }
+
+    public UsagePoint(long windowStart, long activeMillis, double energyWh, long reportCount) {
+        this.windowStart = windowStart;
+        this.activeMillis = activeMillis;
+        this.energyWh = energyWh;
+        this.reportCount = reportCount;
+    }
+
+    void add(long activeMillis, double energyWh, long reportCount) {
+        this.activeMillis += activeMillis;
+        this.energyWh += energyWh;
+        this.reportCount += reportCount;
+    }
+
+    public long getWindowStart() {
+        return windowStart;
+    }
+
+    public long getActiveMillis() {
+        return activeMillis;
+    }
+
+    public double getEnergyWh() {
+        return energyWh;
+    }
+
+    public long getReportCount() {
+        return reportCount;
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.demo.usage;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// 已结束窗口的持久化。写入是累加式upsert：同一窗口的迟到数据、重启前后的两段以及集群中
+// 多个节点各自负责的设备都合并到同一行，查询时不需要再按节点汇总
+@Component
+public class UsageRollupStore {
+
+    private static final String UPSERT = "INSERT INTO usage_rollups "
+            + "(scope_type, scope_id, user_id, granularity, window_start, active_millis, energy_wh, report_count) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE "
+            + "active_millis = active_millis + VALUES(active_millis), "
+            + "energy_wh = energy_wh + VALUES(energy_wh), "
+            + "report_count = report_count + VALUES(report_count)";
+
+    private static final int PURGE_CHUNK = 5000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UsageRollupStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // 累加式upsert不能部分提交：失败后调用方会把整批窗口放回内存重试，已提交的行会被重复累加
+    @Transactional
+    public void checkpoint(List<Checkpoint> checkpoints) {
+        if (checkpoints.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(checkpoints.size());
+        for (Checkpoint checkpoint : checkpoints) {
+            UsagePoint point = checkpoint.point;
+            rows.add(new Object[]{checkpoint.scope.name(), checkpoint.scopeId, checkpoint.userId, checkpoint.granularity.name(),
+                    point.getWindowStart(), point.getActiveMillis(), point.getEnergyWh(), point.getReportCount()});
+        }
+        jdbcTemplate.batchUpdate(UPSERT, rows);
+    }
+
+    public List<UsagePoint> find(UsageScope scope, long scopeId, UsageGranularity granularity, long from, long to) {
+        return jdbcTemplate.query("SELECT window_start, active_millis, energy_wh, report_count FROM usage_rollups "
+                        + "WHERE scope_type = ? AND scope_id = ? AND granularity = ? AND window_start >= ? AND window_start < ? "
+                        + "ORDER BY window_start",
+                (rs, rowNum) -> new UsagePoint(rs.getLong(1), rs.getLong(2), rs.getDouble(3), rs.getLong(4)),
+                scope.name(), scopeId, granularity.name(), from, to);
+    }
+
+    // 分批删除，避免一次删除大量分钟行长时间持锁
+    public int purge(UsageGranularity granularity, long before) {
+        int total = 0;
+        int affected;
+        do {
+            affected = jdbcTemplate.update("DELETE FROM usage_rollups WHERE granularity = ? AND window_start < ? LIMIT ?",
+                    granularity.name(), before, PURGE_CHUNK);
+            total += affected;
+        } while (affected >= PURGE_CHUNK);
+        return total;
+    }
+
+    public static final class Checkpoint {
+        private final UsageScope scope;
+        private final long scopeId;
+        private final long userId;
+        private final UsageGranularity granularity;
+        private final UsagePoint point;
+
+        // userId为该维度所属用户，账号注销时据此清理
+        public Checkpoint(UsageScope scope, long scopeId, long userId, UsageGranularity granularity, UsagePoint point) {
+            this.scope = scope;
+            this.scopeId = scopeId;
+            this.userId = userId;
+            this.granularity = granularity;
+            this.point = point;
+        }
+    
+        public UsageScope getScope() {
+            return scope;
+        }
+
+        public long getScopeId() {
+            return scopeId;
+        }
+
+        public long getUserId() {
+            return userId;
+        }
+
+        public UsageGranularity getGranularity() {
+            return granularity;
+        }
+
+        public UsagePoint getPoint() {
+            return point;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.demo.usage;
+
+// 汇总维度：设备(表主键)、区域、用户
+public enum UsageScope {
+    DEVICE,
+    AREA,
+    USER
+}
@@ -0,0 +1,96 @@
+package com.example.demo.websocket;
+
+import com.example.demo.event.EntityChangedEvent;
+import com.example.demo.event.EntityType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 向客户端推送实体变更通知，连接地址 /ws/events?userId={userId}
+// 每个节点只推送给连到自己的会话，其他节点的修改通过事件总线到达
+@Component
+public class UserEventWebSocketHandler extends TextWebSocketHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserEventWebSocketHandler.class);
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final Map<Long, Set<WebSocketSession>> sessionsByUser = new ConcurrentHashMap<>();
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        Long userId = userIdOf(session);
+        if (userId == null) {
+            session.close(CloseStatus.BAD_DATA);
+            return;
+        }
+        // 慢客户端最多缓冲64KB或阻塞5秒，超出后断开，不拖慢事件分发线程
+        WebSocketSession decorated = new ConcurrentWebSocketSessionDecorator(session, 5000, 64 * 1024);
+        session.getAttributes().put("decorated", decorated);
+        sessionsByUser.computeIfAbsent(userId, key -> ConcurrentHashMap.newKeySet()).add(decorated);
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        Long userId = userIdOf(session);
+        Object decorated = session.getAttributes().get("decorated");
+        if (userId == null || decorated == null) {
+            return;
+        }
+        sessionsByUser.computeIfPresent(userId, (key, sessions) -> {
+            sessions.remove(decorated);
+            return sessions.isEmpty() ? null : sessions;
+        });
+    }
+
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.getEntityType() == EntityType.USER || event.getUserId() == null) {
+            return;
+        }
+        Set<WebSocketSession> sessions = sessionsByUser.get(event.getUserId());
+        if (sessions == null || sessions.isEmpty()) {
+            return;
+        }
+        TextMessage message;
+        try {
+            message = new TextMessage(objectMapper.writeValueAsString(event));
+        } catch (Exception e) {
+            logger.warn("Failed to serialize entity event: {}", e.getMessage());
+            return;
+        }
+        for (WebSocketSession session : sessions) {
+            try {
+                session.sendMessage(message);
+            } catch (Exception e) {
+                logger.debug("Failed to notify websocket session {}: {}", session.getId(), e.getMessage());
+            }
+        }
+    }
+
+    private Long userIdOf(WebSocketSession session) {
+        if (session.getUri() == null) {
+            return null;
+        }
+        String value = UriComponentsBuilder.fromUri(session.getUri()).build().getQueryParams().getFirst("userId");
+        try {
+            return value == null ? null : Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.demo.cluster;
+
+import com.example.demo.mqtt.InProcessMqttBroker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 本地多实例测试：用进程内的Broker替身模拟共享订阅，用内存成员登记替代Redis
+class ClusterIngestTest {
+
+    private static final int DEVICES = 300;
+
+    private InMemoryMembershipRegistry registry;
+    private InProcessMqttBroker broker;
+    private Map<String, Node> nodes;
+    private Map<String, Set<String>> processedBy;
+
+    @BeforeEach
+    void setUp() {
+        registry = new InMemoryMembershipRegistry();
+        broker = new InProcessMqttBroker();
+        nodes = new HashMap<>();
+        processedBy = new ConcurrentHashMap<>();
+    }
+
+    @Test
+    void eachDeviceIsProcessedByExactlyOneNode() {
+        startNodes("node-a", "node-b", "node-c");
+
+        publishRound(5);
+
+        assertThat(processedBy).hasSize(DEVICES);
+        processedBy.forEach((deviceId, owners) -> assertThat(owners).hasSize(1));
+        Set<String> activeNodes = new HashSet<>();
+        processedBy.values().forEach(activeNodes::addAll);
+        assertThat(activeNodes).containsExactlyInAnyOrder("node-a", "node-b", "node-c");
+        // 共享订阅把消息轮流分给各节点，大部分需要转发
+        assertThat(nodes.values().stream().mapToInt(node -> node.forwardedOut).sum()).isPositive();
+    }
+
+    @Test
+    void devicesMoveOnlyFromLeavingNodeOnRebalance() {
+        startNodes("node-a", "node-b", "node-c");
+        publishRound(1);
+        Map<String, String> before = currentOwners();
+
+        stopNode("node-b");
+        processedBy.clear();
+        publishRound(1);
+        Map<String, String> after = currentOwners();
+
+        assertThat(after).hasSize(DEVICES);
+        processedBy.forEach((deviceId, owners) -> assertThat(owners).hasSize(1));
+        assertThat(after.values()).doesNotContain("node-b");
+        before.forEach((deviceId, owner) -> {
+            if (!owner.equals("node-b")) {
+                assertThat(after.get(deviceId)).isEqualTo(owner);
+            }
+        });
+    }
+
+    @Test
+    void joiningNodeTakesOverShareOfDevices() {
+        startNodes("node-a", "node-b");
+        publishRound(1);
+        Map<String, String> before = currentOwners();
+
+        startNodes("node-c");
+        processedBy.clear();
+        publishRound(1);
+        Map<String, String> after = currentOwners();
+
+        long moved = before.keySet().stream().filter(id -> !before.get(id).equals(after.get(id))).count();
+        assertThat(after.values()).contains("node-c");
+        // 只有划给新节点的设备会迁移
+        before.keySet().stream().filter(id -> !before.get(id).equals(after.get(id)))
+                .forEach(id -> assertThat(after.get(id)).isEqualTo("node-c"));
+        assertThat(moved).isLessThan(DEVICES / 2);
+    }
+
+    private void startNodes(String... nodeIds) {
+        for (String nodeId : nodeIds) {
+            Node node = new Node(nodeId);
+            nodes.put(nodeId, node);
+            registry.heartbeat(nodeId, 0);
+            broker.subscribe(node);
+        }
+        refreshAll();
+    }
+
+    private void stopNode(String nodeId) {
+        Node node = nodes.remove(nodeId);
+        broker.unsubscribe(node);
+        registry.leave(nodeId);
+        refreshAll();
+    }
+
+    private void refreshAll() {
+        for (Node node : nodes.values()) {
+            node.ownership.updateMembers(registry.liveNodes(0, Long.MAX_VALUE));
+        }
+    }
+
+    private void publishRound(int reportsPerDevice) {
+        try {
+            publishRounds(reportsPerDevice);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void publishRounds(int reportsPerDevice) throws InterruptedException {
+        for (int round = 0; round < reportsPerDevice; round++) {
+            for (int i = 0; i < DEVICES; i++) {
+                String deviceId = "device-" + i;
+                broker.publish("smart-home/" + deviceId + "/status", "{\"seq\":" + round + "}");
+            }
+        }
+    }
+
+    private Map<String, String> currentOwners() {
+        Map<String, String> owners = new HashMap<>();
+        processedBy.forEach((deviceId, nodeIds) -> owners.put(deviceId, nodeIds.iterator().next()));
+        return owners;
+    }
+
+    private final class Node implements InProcessMqttBroker.Subscriber {
+        private final String nodeId;
+        private final DeviceOwnership ownership;
+        private final DeviceMessageRouter router;
+        private int forwardedOut;
+
+        Node(String nodeId) {
+            this.nodeId = nodeId;
+            this.ownership = new DeviceOwnership(nodeId, 128);
+            this.router = new DeviceMessageRouter(ownership, (target, topic, payload) -> {
+                forwardedOut++;
+                nodes.get(target).receive(topic, payload, true);
+            });
+        }
+
+        @Override
+        public void deliver(String topic, String payload) {
+            receive(topic, payload, false);
+        }
+
+        void receive(String topic, String payload, boolean forwarded) {
+            String deviceId = topic.split("/")[1];
+            if (router.routeLocally(deviceId, topic, payload, forwarded)) {
+                processedBy.computeIfAbsent(deviceId, key -> ConcurrentHashMap.newKeySet()).add(nodeId);
+            }
+        }
+    }
+
+    private static final class InMemoryMembershipRegistry implements MembershipRegistry {
+        private final Map<String, Long> heartbeats = new ConcurrentHashMap<>();
+
+        @Override
+        public void heartbeat(String nodeId, long nowMillis) {
+            heartbeats.put(nodeId, nowMillis);
+        }
+
+        @Override
+        public void leave(String nodeId) {
+            heartbeats.remove(nodeId);
+        }
+
+        @Override
+        public Set<String> liveNodes(long nowMillis, long ttlMillis) {
+            return new HashSet<>(heartbeats.keySet());
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.demo.command;
+
+import com.example.demo.cluster.DeviceOwnership;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CommandAckRegistryTest {
+
+    private final CommandAckRegistry registry = new CommandAckRegistry(new DeviceOwnership("node-a", 16));
+
+    @Test
+    void responseWithCommandIdCompletesMatchingCommand() {
+        CommandAckRegistry.PendingCommand first = registry.register("led-1", 5000);
+        CommandAckRegistry.PendingCommand second = registry.register("led-1", 5000);
+
+        assertThat(registry.onResponse("led-1", second.getCommandId(), false)).isTrue();
+
+        assertThat(second.getFuture().join()).isEqualTo(CommandStatus.FAILURE);
+        assertThat(first.getFuture()).isNotDone();
+        assertThat(CommandAckRegistry.issuingNode(first.getCommandId())).isEqualTo("node-a");
+    }
+
+    @Test
+    void responseWithoutCommandIdCompletesOldestCommand() {
+        CommandAckRegistry.PendingCommand first = registry.register("led-2", 5000);
+        CommandAckRegistry.PendingCommand second = registry.register("led-2", 5000);
+
+        registry.onResponse("led-2", null, true);
+
+        assertThat(first.getFuture().join()).isEqualTo(CommandStatus.SUCCESS);
+        assertThat(second.getFuture()).isNotDone();
+    }
+
+    @Test
+    void unansweredCommandTimesOutAndIsRemoved() {
+        CommandAckRegistry.PendingCommand pending = registry.register("led-3", 50);
+
+        assertThat(pending.getFuture().join()).isEqualTo(CommandStatus.TIMEOUT);
+        assertThat(registry.getPendingCount()).isZero();
+        assertThat(registry.onResponse("led-3", null, true)).isFalse();
+    }
+
+    @Test
+    void queuedNoticeFromOwnerNodeCompletesAsQueued() {
+        CommandAckRegistry.PendingCommand pending = registry.register("led-4", 5000);
+
+        assertThat(registry.onQueued("led-4", pending.getCommandId())).isTrue();
+
+        assertThat(pending.getFuture().join()).isEqualTo(CommandStatus.QUEUED);
+        assertThat(registry.onQueued("led-4", "node-a:999")).isFalse();
+    }
+
+    @Test
+    void commandsRegisteredWhileOthersCompleteStayMatchable() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(() -> {
+                    for (int n = 0; n < 2000; n++) {
+                        CommandAckRegistry.PendingCommand pending = registry.register("led-5", 5000);
+                        // 队列被并发移除时指令会丢失，按ID再也匹配不到
+                        if (!registry.onResponse("led-5", pending.getCommandId(), true)) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertThat(result.get()).isTrue();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(registry.getPendingCount()).isZero();
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.demo.command;
+
+import com.example.demo.cluster.DeviceOwnership;
+import com.example.demo.config.AppProperties;
+import com.example.demo.device.DeviceInfo;
+import com.example.demo.mqtt.MqttService;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CommandDispatcherTest {
+
+    private final DeviceOwnership ownership = new DeviceOwnership("node-a", 16);
+    private final CommandAckRegistry ackRegistry = new CommandAckRegistry(ownership);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CommandLatencyTracker tracker = new CommandLatencyTracker(meterRegistry, ownership, new AppProperties());
+    private final SlowMqttService mqttService = new SlowMqttService();
+    private final CommandDispatcher dispatcher = new CommandDispatcher(mqttService, ackRegistry, tracker,
+            new AppProperties());
+    private final DeviceInfo device = new DeviceInfo(1L, "led-1", "led", 7L, null);
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void latencyStartsWhenThePublishReturns() throws Exception {
+        DeviceCommandResult result = null;
+        for (int i = 0; i < 2; i++) {
+            CompletableFuture<DeviceCommandResult> future = dispatcher.dispatch(device, "on", null, 5000);
+            // 发布耗时300ms，设备在发布完成约100ms后回应
+            Thread.sleep(400);
+            assertThat(ackRegistry.onResponse("led-1", null, true)).isTrue();
+            result = future.get(1, TimeUnit.SECONDS);
+        }
+
+        assertThat(result.getStatus()).isEqualTo(CommandStatus.SUCCESS);
+        assertThat(result.getLatencyMillis()).isLessThan(300);
+        // 同一标签组合只注册一次
+        assertThat(meterRegistry.find("device.command.latency").timers()).hasSize(1);
+        assertThat(meterRegistry.get("device.command.latency").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void queuedCommandsAreNotRecorded() throws Exception {
+        mqttService.sent = false;
+
+        DeviceCommandResult result = dispatcher.dispatch(device, "on", null, 5000).get(1, TimeUnit.SECONDS);
+
+        assertThat(result.getStatus()).isEqualTo(CommandStatus.QUEUED);
+        assertThat((Map<?, ?>) tracker.getSummary().get("deviceTypes")).isEmpty();
+        assertThat(meterRegistry.find("device.command.outcomes").counters()).isEmpty();
+    }
+
+    private static class SlowMqttService extends MqttService {
+        private volatile boolean sent = true;
+
+        @Override
+        public boolean sendControl(String deviceId, String deviceType, Long userId, Long areaId,
+                                   String command, JsonNode parameters, String commandId) {
+            if (!sent) {
+                return false;
+            }
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return true;
+        }
+    }
+}
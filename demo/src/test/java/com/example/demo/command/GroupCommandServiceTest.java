@@ -0,0 +1,39 @@
+package com.example.demo.command;
+
+import com.example.demo.device.DeviceOwnershipIndex;
+import com.example.demo.event.ChangeType;
+import com.example.demo.event.EntityChangedEvent;
+import com.example.demo.event.EntityType;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GroupCommandServiceTest {
+
+    @Test
+    void rejectsAreaOfAnotherUserEvenWhenEmpty() {
+        DeviceOwnershipIndex ownershipIndex = new DeviceOwnershipIndex();
+        ownershipIndex.rebuildAreas(List.<Object[]>of(new Object[]{5L, 2L}));
+        GroupCommandService service = new GroupCommandService();
+        ReflectionTestUtils.setField(service, "ownershipIndex", ownershipIndex);
+        GroupCommandRequest request = new GroupCommandRequest();
+        request.setCommand("turn_off");
+
+        assertThatThrownBy(() -> service.sendToArea(5L, 1L, request)).isInstanceOf(CommandForbiddenException.class);
+        assertThat(service.sendToArea(6L, 1L, request)).isNull();
+
+        // 区域改归调用方后按事件更新，不查库
+        EntityChangedEvent moved = new EntityChangedEvent();
+        moved.setEntityType(EntityType.HOUSE_AREA);
+        moved.setChangeType(ChangeType.UPDATED);
+        moved.setEntityId(5L);
+        moved.setSnapshot(Map.of("userId", 1));
+        ownershipIndex.onEntityChanged(moved);
+        assertThat(ownershipIndex.getAreaOwner(5L)).isEqualTo(1L);
+    }
+}
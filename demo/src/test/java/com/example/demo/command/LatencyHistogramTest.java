@@ -0,0 +1,35 @@
+package com.example.demo.command;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LatencyHistogramTest {
+
+    @Test
+    void bucketsCoverEveryValueWithBoundedRelativeError() {
+        int previous = -1;
+        for (long value = 0; value < 200_000; value++) {
+            int index = LatencyHistogram.indexOf(value);
+            assertThat(index).isBetween(previous, previous + 1);
+            long upper = LatencyHistogram.upperBound(index);
+            assertThat(upper).isGreaterThanOrEqualTo(value);
+            assertThat(upper - value).isLessThanOrEqualTo(Math.max(0, value / 8));
+            previous = index;
+        }
+    }
+
+    @Test
+    void quantilesFollowRecordedDistribution() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+
+        assertThat(histogram.getCount()).isEqualTo(1000);
+        assertThat(histogram.quantile(0.5)).isBetween(500L, 563L);
+        assertThat(histogram.quantile(0.99)).isBetween(990L, 1000L);
+        assertThat(histogram.summarize().getMaxMillis()).isEqualTo(1000);
+        assertThat(histogram.summarize().getMeanMillis()).isEqualTo(500.5);
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.demo.command;
+
+import com.example.demo.config.AppProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OfflineCommandQueueTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void collapsesSupersededCommandsAndFlushesInOrder() throws Exception {
+        OfflineCommandQueue queue = open(1024);
+        queue.enqueue("led-1", "turn_on", "{\"n\":1}");
+        queue.enqueue("led-1", "set_brightness", "{\"n\":2}");
+        queue.enqueue("led-1", "turn_on", "{\"n\":3}");
+
+        List<String> published = drain(queue, "led-1");
+
+        assertThat(published).containsExactly("{\"n\":2}", "{\"n\":3}");
+        assertThat(queue.getStats()).containsEntry("collapsed", 1L).containsEntry("pending", 0L);
+        queue.close();
+    }
+
+    @Test
+    void spillsBeyondMemoryBudgetAndRecoversAfterRestart() throws Exception {
+        OfflineCommandQueue queue = open(8);
+        queue.enqueue("ac-1", "set_temperature", "{\"temperature\":26}");
+        queue.enqueue("ac-2", "turn_off", "{}");
+        assertThat(queue.getStats()).containsEntry("spilled", 1L);
+        List<String> first = drain(queue, "ac-2");
+        queue.close();
+
+        OfflineCommandQueue reopened = open(8);
+        assertThat(first).containsExactly("{}");
+        assertThat(reopened.hasPending("ac-2")).isFalse();
+        assertThat(drain(reopened, "ac-1")).containsExactly("{\"temperature\":26}");
+        reopened.close();
+    }
+
+    @Test
+    void commandsQueuedDuringDrainStayBehindTheDrainedOnes() throws Exception {
+        OfflineCommandQueue queue = open(1024);
+        queue.enqueue("led-1", "turn_on", "{\"n\":1}");
+        queue.enqueue("led-1", "set_brightness", "{\"n\":2}");
+        List<String> published = new ArrayList<>();
+
+        queue.drain("led-1", payload -> {
+            if (published.isEmpty()) {
+                // 补发期间设备仍视为有排队指令，新指令不能直接发布越过队列
+                assertThat(queue.hasPending("led-1")).isTrue();
+                queue.enqueue("led-1", "set_color", "{\"n\":3}");
+                published.add(payload);
+                return;
+            }
+            throw new IllegalStateException("broker down");
+        });
+
+        assertThat(published).containsExactly("{\"n\":1}");
+        assertThat(drain(queue, "led-1")).containsExactly("{\"n\":2}", "{\"n\":3}");
+        assertThat(queue.hasPending("led-1")).isFalse();
+        queue.close();
+    }
+
+    @Test
+    void rejectsFieldsThatWouldBreakTheLog() throws Exception {
+        OfflineCommandQueue queue = open(1024);
+
+        assertThatThrownBy(() -> queue.enqueue("led-1", "turn_on\nA\t9", "{}"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> queue.enqueue("led\t1", "turn_on", "{}"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(queue.hasPending("led-1")).isFalse();
+        queue.close();
+    }
+
+    @Test
+    void syncedRecordsAreRecoveredWithoutAnOrderlyClose() throws Exception {
+        OfflineCommandQueue queue = open(1024);
+        queue.enqueue("led-1", "turn_on", "{}");
+        queue.sync();
+
+        // 不调用close，模拟进程崩溃后重启
+        OfflineCommandQueue reopened = open(1024);
+        assertThat(drain(reopened, "led-1")).containsExactly("{}");
+        reopened.close();
+        queue.close();
+    }
+
+    private OfflineCommandQueue open(long maxInMemoryBytes) throws Exception {
+        AppProperties properties = new AppProperties();
+        properties.getOfflineQueue().setDirectory(directory.toString());
+        properties.getOfflineQueue().setMaxInMemoryBytes(maxInMemoryBytes);
+        OfflineCommandQueue queue = new OfflineCommandQueue(properties);
+        queue.open();
+        return queue;
+    }
+
+    private List<String> drain(OfflineCommandQueue queue, String deviceId) {
+        List<String> published = new ArrayList<>();
+        queue.drain(deviceId, published::add);
+        return published;
+    }
+}
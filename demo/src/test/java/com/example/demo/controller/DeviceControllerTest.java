@@ -0,0 +1,97 @@
+package com.example.demo.controller;
+
+import com.example.demo.command.CommandForbiddenException;
+import com.example.demo.command.CommandStatus;
+import com.example.demo.command.DeviceCommandRequest;
+import com.example.demo.command.DeviceCommandResult;
+import com.example.demo.command.DeviceCommandService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class DeviceControllerTest {
+
+    private final StubCommandService commandService = new StubCommandService();
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        DeviceController controller = new DeviceController();
+        ReflectionTestUtils.setField(controller, "deviceCommandService", commandService);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).setControllerAdvice(new ApiExceptionHandler()).build();
+    }
+
+    @Test
+    void queuedCommandIsAccepted() throws Exception {
+        commandService.status = CommandStatus.QUEUED;
+
+        MvcResult result = mockMvc.perform(control(1L)).andExpect(request().asyncStarted()).andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.status").value("QUEUED"));
+    }
+
+    @Test
+    void unansweredCommandIsAGatewayTimeout() throws Exception {
+        commandService.status = CommandStatus.TIMEOUT;
+
+        MvcResult result = mockMvc.perform(control(1L)).andExpect(request().asyncStarted()).andReturn();
+
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isGatewayTimeout());
+    }
+
+    @Test
+    void unknownDeviceIsNotFound() throws Exception {
+        MvcResult result = mockMvc.perform(control(404L)).andReturn();
+
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void deviceOfAnotherUserIsForbidden() throws Exception {
+        mockMvc.perform(control(403L))
+                .andExpect(status().isForbidden())
+                .andExpect(jsonPath("$.error").value("User 7 does not own device led-403"));
+    }
+
+    private static RequestBuilder control(Long id) {
+        return post("/api/devices/{id}/control", id).param("userId", "7")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"command\":\"turn_on\"}");
+    }
+
+    // 不经过设备索引和MQTT：id为404时视为设备不存在，403时视为不属于调用方，其余直接以status完成
+    private static class StubCommandService extends DeviceCommandService {
+        private CommandStatus status = CommandStatus.SUCCESS;
+
+        @Override
+        public CompletableFuture<DeviceCommandResult> send(Long id, long userId, DeviceCommandRequest request) {
+            if (id == 404L) {
+                return null;
+            }
+            if (id == 403L) {
+                throw new CommandForbiddenException("User " + userId + " does not own device led-" + id);
+            }
+            return CompletableFuture.completedFuture(new DeviceCommandResult("led-" + id, "node-a:1", status, 5));
+        }
+
+        @Override
+        public long resolveTimeout(DeviceCommandRequest request) {
+            return 5000;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.demo.datasource;
+
+import com.example.demo.config.AppProperties;
+import com.zaxxer.hikari.HikariConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WorkloadDataSourceConfigTest {
+
+    @Test
+    void poolsAreNotStartedUntilFirstUse() {
+        DataSourceProperties properties = new DataSourceProperties();
+        // 不可达的数据库
+        properties.setUrl("jdbc:mysql://127.0.0.1:1/demo");
+        properties.setUsername("demo");
+        properties.setPassword("demo");
+        WorkloadDataSourceConfig config = new WorkloadDataSourceConfig(properties, new AppProperties(),
+                new DefaultListableBeanFactory().getBeanProvider(MeterRegistry.class));
+
+        DataSource dataSource = config.dataSource(new HikariConfig());
+
+        try (WorkloadRoutingDataSource routing = (WorkloadRoutingDataSource) dataSource) {
+            for (Workload workload : Workload.values()) {
+                assertThat(routing.getPool(workload).isRunning()).isFalse();
+                assertThat(routing.getPool(workload).getPoolName()).isEqualTo(workload.getPoolName());
+            }
+        }
+    }
+}
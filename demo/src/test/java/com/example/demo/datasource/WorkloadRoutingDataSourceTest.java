@@ -0,0 +1,41 @@
+package com.example.demo.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WorkloadRoutingDataSourceTest {
+
+    @Test
+    void routesByThreadWorkloadAndRestoresPrevious() {
+        Map<Workload, HikariDataSource> pools = new EnumMap<>(Workload.class);
+        for (Workload workload : Workload.values()) {
+            pools.put(workload, new HikariDataSource());
+        }
+        WorkloadRoutingDataSource dataSource = new WorkloadRoutingDataSource(pools);
+
+        assertThat(dataSource.determineCurrentLookupKey()).isEqualTo(Workload.API);
+        WorkloadContext.run(Workload.BACKGROUND, () -> {
+            assertThat(dataSource.determineCurrentLookupKey()).isEqualTo(Workload.BACKGROUND);
+            Workload nested = WorkloadContext.call(Workload.INGEST, WorkloadContext::current);
+            assertThat(nested).isEqualTo(Workload.INGEST);
+            assertThat(dataSource.determineCurrentLookupKey()).isEqualTo(Workload.BACKGROUND);
+        });
+        assertThat(dataSource.determineCurrentLookupKey()).isEqualTo(Workload.API);
+        assertThat(dataSource.getResolvedDataSources()).hasSize(3);
+        assertThat(dataSource.getPool(Workload.INGEST)).isSameAs(pools.get(Workload.INGEST));
+    }
+
+    @Test
+    void rejectsMissingPool() {
+        Map<Workload, HikariDataSource> pools = new EnumMap<>(Workload.class);
+        pools.put(Workload.API, new HikariDataSource());
+        assertThatThrownBy(() -> new WorkloadRoutingDataSource(pools))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
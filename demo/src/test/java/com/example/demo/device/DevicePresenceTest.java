@@ -0,0 +1,20 @@
+package com.example.demo.device;
+
+import com.example.demo.config.AppProperties;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DevicePresenceTest {
+
+    @Test
+    void restoredStaleLastSeenKeepsStartupGrace() {
+        DevicePresence presence = new DevicePresence(new AppProperties());
+
+        // 快照里的时间早于离线阈值，但进程刚启动，不能直接判为离线
+        presence.restore("led-1", 1L);
+
+        assertThat(presence.isOnline("led-1")).isTrue();
+        assertThat(presence.getLastSeen().get("led-1")).isGreaterThan(1L);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.demo.device;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LongLongHashMapTest {
+
+    @Test
+    void matchesHashMapUnderRandomPutsAndRemoves() {
+        LongLongHashMap map = new LongLongHashMap(4);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            long key = 1 + random.nextInt(500);
+            if (random.nextInt(3) == 0) {
+                Long previous = expected.remove(key);
+                assertThat(map.remove(key)).isEqualTo(previous == null ? LongLongHashMap.NO_VALUE : previous);
+            } else {
+                long value = random.nextInt(50);
+                Long previous = expected.put(key, value);
+                assertThat(map.put(key, value)).isEqualTo(previous == null ? LongLongHashMap.NO_VALUE : previous);
+            }
+        }
+        assertThat(map.size()).isEqualTo(expected.size());
+        for (long key = 1; key <= 500; key++) {
+            Long value = expected.get(key);
+            assertThat(map.get(key)).isEqualTo(value == null ? LongLongHashMap.NO_VALUE : value);
+        }
+    }
+
+    @Test
+    void setKeepsMembershipAfterRemovalsInProbeChain() {
+        LongHashSet set = new LongHashSet(2);
+        for (long value = 1; value <= 1000; value++) {
+            set.add(value);
+        }
+        for (long value = 1; value <= 1000; value += 2) {
+            assertThat(set.remove(value)).isTrue();
+        }
+        assertThat(set.size()).isEqualTo(500);
+        for (long value = 1; value <= 1000; value++) {
+            assertThat(set.contains(value)).isEqualTo(value % 2 == 0);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.demo.event;
+
+import com.example.demo.config.AppProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RedisEventStreamTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<Long> written = new ArrayList<>();
+    private boolean redisDown;
+    private RedisEventStream stream;
+
+    @BeforeEach
+    void setUp() {
+        AppProperties properties = new AppProperties();
+        properties.getEvents().setBatchSize(2);
+        stream = new RedisEventStream();
+        ReflectionTestUtils.setField(stream, "appProperties", properties);
+        ReflectionTestUtils.setField(stream, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(stream, "redisTemplate", new FakeRedisTemplate());
+    }
+
+    @Test
+    void failedBatchIsRetriedBeforeEventsEnqueuedLater() {
+        stream.enqueue(event(1));
+        stream.enqueue(event(2));
+        stream.enqueue(event(3));
+
+        redisDown = true;
+        stream.flush();
+        stream.enqueue(event(4));
+        assertThat(stream.getPendingCount()).isEqualTo(4);
+
+        redisDown = false;
+        stream.flush();
+
+        assertThat(written).containsExactly(1L, 2L, 3L, 4L);
+        assertThat(stream.getPendingCount()).isZero();
+    }
+
+    private EntityChangedEvent event(long id) {
+        EntityChangedEvent event = new EntityChangedEvent();
+        event.setEntityType(EntityType.DEVICE);
+        event.setChangeType(ChangeType.STATUS);
+        event.setEntityId(id);
+        return event;
+    }
+
+    private class FakeRedisTemplate extends StringRedisTemplate {
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <HK, HV> StreamOperations<String, HK, HV> opsForStream() {
+            return (StreamOperations<String, HK, HV>) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{StreamOperations.class}, (proxy, method, args) -> {
+                        if (!method.getName().equals("add")) {
+                            throw new UnsupportedOperationException(method.getName());
+                        }
+                        if (redisDown) {
+                            throw new IllegalStateException("connection refused");
+                        }
+                        Object json = ((MapRecord<?, ?, ?>) args[0]).getValue().get("events");
+                        for (EntityChangedEvent event : objectMapper.readValue(json.toString(), EntityChangedEvent[].class)) {
+                            written.add(event.getEntityId());
+                        }
+                        return RecordId.of("1-0");
+                    });
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.demo.ingest;
+
+import com.example.demo.cluster.DeviceOwnership;
+import com.example.demo.config.AppProperties;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeviceRateLimiterTest {
+
+    @Test
+    void bucketLimitFollowsRegisteredTypeNotPayload() {
+        AppProperties properties = new AppProperties();
+        properties.getIngest().setDefaultRatePerSecond(0.001);
+        properties.getIngest().setDefaultBurst(2);
+        AppProperties.RateLimit meter = new AppProperties.RateLimit();
+        meter.setRatePerSecond(0.001);
+        meter.setBurst(5);
+        properties.getIngest().getRateLimits().put("power_meter", meter);
+        DeviceRateLimiter limiter = new DeviceRateLimiter(properties, new DeviceOwnership("node-a", 16));
+
+        // 未注册设备按默认限额，上报里自称power_meter也没用
+        assertThat(acquire(limiter, "led-1", null, 6)).isEqualTo(2);
+        assertThat(acquire(limiter, "meter-1", "power_meter", 6)).isEqualTo(5);
+        // 注册为power_meter后按该类型重建桶
+        assertThat(acquire(limiter, "led-1", "power_meter", 6)).isEqualTo(5);
+        assertThat(limiter.getStats("led-1").getThrottled()).isEqualTo(1);
+    }
+
+    @Test
+    void droppedReportsCountTowardsTopThrottled() {
+        AppProperties properties = new AppProperties();
+        properties.getIngest().setDefaultRatePerSecond(0.001);
+        properties.getIngest().setDefaultBurst(1);
+        DeviceRateLimiter limiter = new DeviceRateLimiter(properties, new DeviceOwnership("node-a", 16));
+
+        acquire(limiter, "ac-1", null, 3);
+        acquire(limiter, "ac-2", null, 1);
+        limiter.recordDropped("ac-2");
+
+        assertThat(limiter.getTopThrottled(10)).extracting(DeviceThrottleStats::getDeviceId)
+                .containsExactly("ac-1", "ac-2");
+        assertThat(limiter.getStats("ac-2").getDropped()).isEqualTo(1);
+    }
+
+    private static int acquire(DeviceRateLimiter limiter, String deviceId, String deviceType, int attempts) {
+        int accepted = 0;
+        for (int i = 0; i < attempts; i++) {
+            if (limiter.tryAcquire(deviceId, deviceType)) {
+                accepted++;
+            }
+        }
+        return accepted;
+    }
+}
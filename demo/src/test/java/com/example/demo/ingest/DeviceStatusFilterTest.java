@@ -0,0 +1,68 @@
+package com.example.demo.ingest;
+
+import com.example.demo.config.AppProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeviceStatusFilterTest {
+
+    private static final long MINUTE = 60_000L;
+
+    private final DeviceStatusFilter filter = filter();
+
+    @Test
+    void skipsUnchangedAndDeadbandReports() {
+        assertThat(filter.shouldPersist(report("{\"temperature\":22.0,\"humidity\":40}", 0))).isTrue();
+        assertThat(filter.shouldPersist(report("{\"humidity\":40,\"temperature\":22.0}", 1000))).isFalse();
+        assertThat(filter.shouldPersist(report("{\"temperature\":22.3,\"humidity\":40}", 2000))).isFalse();
+        // 死区内的漂移不更新基准，累积到超过死区时写库
+        assertThat(filter.shouldPersist(report("{\"temperature\":22.6,\"humidity\":40}", 3000))).isTrue();
+        assertThat(filter.shouldPersist(report("{\"temperature\":22.6,\"humidity\":41}", 4000))).isTrue();
+        assertThat(filter.getSkippedCount()).isEqualTo(2);
+    }
+
+    @Test
+    void keepAliveWritesLatestSkippedReportWithoutANewReport() {
+        filter.shouldPersist(report("{\"temperature\":22.0}", 0));
+        DeviceStatusReport skipped = report("{\"temperature\":22.1}", MINUTE);
+        assertThat(filter.shouldPersist(skipped)).isFalse();
+
+        assertThat(filter.claimKeepAlive(10 * MINUTE)).isEmpty();
+        assertThat(filter.claimKeepAlive(15 * MINUTE)).containsExactly(skipped);
+        // 已补写，之后没有新上报就不再重复写
+        assertThat(filter.claimKeepAlive(40 * MINUTE)).isEmpty();
+        // 新上报到达时距上次写库已超过保活间隔，直接写库
+        assertThat(filter.shouldPersist(report("{\"temperature\":22.1}", 20 * MINUTE))).isTrue();
+    }
+
+    @Test
+    void olderReportCannotReplaceNewerBaseline() {
+        DeviceStatusReport newer = report("{\"temperature\":25.0}", 2000);
+        assertThat(filter.shouldPersist(newer)).isTrue();
+        // 并发处理中较早的上报晚到
+        assertThat(filter.shouldPersist(report("{\"temperature\":20.0}", 1000))).isFalse();
+        assertThat(filter.shouldPersist(report("{\"temperature\":25.0}", 3000))).isFalse();
+
+        // 写库失败撤销基准后，下一条上报重新写库
+        filter.release(newer);
+        assertThat(filter.shouldPersist(report("{\"temperature\":25.0}", 4000))).isTrue();
+    }
+
+    private static DeviceStatusReport report(String data, long receivedAtMillis) {
+        return new DeviceStatusReport("sensor-1", "temperature_sensor", data, null, receivedAtMillis);
+    }
+
+    private static DeviceStatusFilter filter() {
+        AppProperties properties = new AppProperties();
+        properties.getIngest().getDeadbands().put("temperature_sensor", Map.of("temperature", 0.5));
+        DeviceStatusFilter filter = new DeviceStatusFilter();
+        ReflectionTestUtils.setField(filter, "appProperties", properties);
+        ReflectionTestUtils.setField(filter, "objectMapper", new ObjectMapper());
+        return filter;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.demo.ingest;
+
+import com.example.demo.config.AppProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.Lifecycle;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IngestBackpressureMonitorTest {
+
+    @Test
+    void pausesAtHighWatermarkAndResumesBelowLowWatermark() {
+        double[] utilization = {0.5};
+        IngestExecutor executor = new IngestExecutor() {
+            @Override
+            public double getUtilization() {
+                return utilization[0];
+            }
+        };
+        FakeInbound inbound = new FakeInbound();
+        IngestBackpressureMonitor monitor = new IngestBackpressureMonitor();
+        ReflectionTestUtils.setField(monitor, "appProperties", new AppProperties());
+        ReflectionTestUtils.setField(monitor, "ingestExecutor", executor);
+        ReflectionTestUtils.setField(monitor, "mqttInbound", inbound);
+
+        utilization[0] = 0.95;
+        monitor.check();
+        assertThat(monitor.isPaused()).isTrue();
+        assertThat(inbound.isRunning()).isFalse();
+
+        // 高于恢复水位时保持暂停
+        utilization[0] = 0.7;
+        monitor.check();
+        assertThat(inbound.isRunning()).isFalse();
+
+        utilization[0] = 0.4;
+        monitor.check();
+        assertThat(monitor.isPaused()).isFalse();
+        assertThat(inbound.isRunning()).isTrue();
+    }
+
+    private static class FakeInbound implements Lifecycle {
+        private boolean running = true;
+
+        @Override
+        public void start() {
+            running = true;
+        }
+
+        @Override
+        public void stop() {
+            running = false;
+        }
+
+        @Override
+        public boolean isRunning() {
+            return running;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.demo.ingest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TenantFairQueueTest {
+
+    @Test
+    void smallTenantIsServedWithinOneRoundDespiteLargeBacklog() throws Exception {
+        TenantFairQueue<String> queue = new TenantFairQueue<>(10_000, 5_000, tenant -> tenant == 1 ? 3 : 1);
+        for (int i = 0; i < 1000; i++) {
+            queue.offer(1, "big-" + i, 0, TimeUnit.MILLISECONDS);
+        }
+        queue.offer(2, "small-0", 0, TimeUnit.MILLISECONDS);
+        queue.offer(2, "small-1", 0, TimeUnit.MILLISECONDS);
+
+        List<String> order = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            order.add(queue.take().item);
+        }
+
+        // 租户1权重3：每轮连续出3条，之后轮到租户2
+        assertThat(order).containsExactly("big-0", "big-1", "big-2", "small-0", "big-3", "big-4", "big-5", "small-1");
+        assertThat(queue.size()).isEqualTo(1002 - 8);
+    }
+
+    @Test
+    void tenantCapacityRejectsOnlyThatTenant() throws Exception {
+        TenantFairQueue<String> queue = new TenantFairQueue<>(100, 2, tenant -> 1);
+
+        assertThat(queue.offer(1, "a", 0, TimeUnit.MILLISECONDS)).isTrue();
+        assertThat(queue.offer(1, "b", 0, TimeUnit.MILLISECONDS)).isTrue();
+        assertThat(queue.offer(1, "c", 0, TimeUnit.MILLISECONDS)).isFalse();
+        assertThat(queue.offer(2, "d", 0, TimeUnit.MILLISECONDS)).isTrue();
+
+        assertThat(queue.getTenant(1).getDropped()).isEqualTo(1);
+        assertThat(queue.getTenant(1).getDepth()).isEqualTo(2);
+        assertThat(queue.getTopTenants(1)).extracting(TenantQueueStats::getUserId).containsExactly(1L);
+    }
+}
@@ -0,0 +1,271 @@
+package com.example.demo.loadtest;
+
+import com.example.demo.entity.AutomationRule;
+import com.example.demo.entity.Device;
+import com.example.demo.entity.User;
+import com.example.demo.event.ChangeType;
+import com.example.demo.event.EntityChangedEvent;
+import com.example.demo.event.EntityType;
+import com.example.demo.ingest.DeviceRateLimiter;
+import com.example.demo.ingest.DeviceStatusFilter;
+import com.example.demo.ingest.IngestBackpressureMonitor;
+import com.example.demo.ingest.IngestExecutor;
+import com.example.demo.mqtt.InProcessMqttBroker;
+import com.example.demo.repository.DeviceRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.rule.RuleEngine;
+import com.example.demo.rule.RuleFiredEvent;
+import com.example.demo.service.AutomationRuleService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.PayloadApplicationEvent;
+import org.springframework.messaging.MessageChannel;
+
+import java.io.File;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 端到端接入压测：在devices表中注册N台虚拟设备，经进程内Broker替身按指定速率和模式上报状态，
+// 测量从发布到Device.statusName落库、以及到规则触发的延迟，结果写成JSON报告便于不同构建间对比。
+// 不在默认测试中运行(类名不以Test结尾)，使用方式：
+//   mvn test -Ploadtest -Dloadtest.devices=5000 -Dloadtest.rate=0.5 -Dloadtest.duration=60 -Dloadtest.pattern=burst
+@SpringBootTest(properties = {
+        "app.mqtt.auto-startup=false",
+        "app.ingest.default-rate-per-second=1000",
+        "app.ingest.default-burst=1000",
+        "spring.jpa.show-sql=false"
+})
+class IngestLoadHarness {
+
+    private final int deviceCount = Integer.getInteger("loadtest.devices", 2000);
+    private final double ratePerDevice = Double.parseDouble(System.getProperty("loadtest.rate", "1.0"));
+    private final int durationSeconds = Integer.getInteger("loadtest.duration", 30);
+    private final LoadPattern pattern = LoadPattern.valueOf(System.getProperty("loadtest.pattern", "steady").toUpperCase());
+    private final int ruleEvery = Integer.getInteger("loadtest.ruleEvery", 10);
+    private final String reportPath = System.getProperty("loadtest.report", "target/loadtest/ingest-report.json");
+
+    @Autowired
+    private ConfigurableApplicationContext context;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DeviceRepository deviceRepository;
+
+    @Autowired
+    private AutomationRuleService automationRuleService;
+
+    @Autowired
+    private IngestExecutor ingestExecutor;
+
+    @Autowired
+    private IngestBackpressureMonitor ingestBackpressureMonitor;
+
+    @Autowired
+    private DeviceRateLimiter deviceRateLimiter;
+
+    @Autowired
+    private DeviceStatusFilter deviceStatusFilter;
+
+    @Autowired
+    @Qualifier("mqttInputChannel")
+    private MessageChannel mqttInputChannel;
+
+    @Autowired
+    @Qualifier("mqttOutboundChannel")
+    private MessageChannel mqttOutboundChannel;
+
+    @Test
+    void runIngestLoad() throws Exception {
+        String runId = "load_" + System.currentTimeMillis();
+        User user = new User();
+        user.setUsername(runId);
+        user.setPassword("load_test");
+        user.setCreatedAt(LocalDateTime.now());
+        user = userRepository.save(user);
+
+        List<Device> devices = registerFleet(user.getId(), runId);
+        List<AutomationRule> rules = registerRules(user.getId(), devices);
+
+        LatencyRecorder persistLatency = new LatencyRecorder();
+        LatencyRecorder ruleLatency = new LatencyRecorder();
+        context.addApplicationListener(event -> {
+            if (!(event instanceof PayloadApplicationEvent<?> payloadEvent)) {
+                return;
+            }
+            Object payload = payloadEvent.getPayload();
+            if (payload instanceof EntityChangedEvent changed && changed.getEntityType() == EntityType.DEVICE
+                    && changed.getChangeType() == ChangeType.STATUS && changed.getSnapshot() != null) {
+                recordSince(changed.getSnapshot().get("statusName"), persistLatency);
+            } else if (payload instanceof RuleFiredEvent fired) {
+                recordSince(fired.getTrigger().getData(), ruleLatency);
+            }
+        });
+
+        InProcessMqttBroker broker = new InProcessMqttBroker(ingestBackpressureMonitor::isPaused);
+        broker.subscribe(InProcessMqttBroker.inboundChannel(mqttInputChannel));
+        broker.interceptOutbound(mqttOutboundChannel);
+        long startNanos = System.nanoTime();
+        try {
+            publishFleet(broker, devices);
+            awaitDrain();
+        } finally {
+            long elapsedNanos = System.nanoTime() - startNanos;
+            writeReport(runId, broker, persistLatency, ruleLatency, rules.size(), elapsedNanos);
+            // 经服务层删除，规则引擎收到删除事件后清掉缓存的规则
+            for (AutomationRule rule : rules) {
+                automationRuleService.deleteRule(rule.getId());
+            }
+            deviceRepository.deleteAllInBatch(devices);
+            userRepository.delete(user);
+        }
+        assertThat(broker.getPublished()).isPositive();
+        assertThat(persistLatency.count()).isPositive();
+    }
+
+    private List<Device> registerFleet(Long userId, String runId) {
+        List<Device> devices = new ArrayList<>(deviceCount);
+        for (int i = 0; i < deviceCount; i++) {
+            Device device = new Device();
+            device.setUserId(userId);
+            device.setDeviceId(runId + "_" + i);
+            device.setDeviceType("temperature_sensor");
+            device.setDeviceName("虚拟温度传感器" + i);
+            device.setCreatedAt(LocalDateTime.now());
+            device.setUpdatedAt(LocalDateTime.now());
+            devices.add(device);
+        }
+        return deviceRepository.saveAll(devices);
+    }
+
+    // 每ruleEvery台设备挂一条温度阈值规则，上报温度在阈值两侧交替，使规则持续产生上升沿
+    private List<AutomationRule> registerRules(Long userId, List<Device> devices) {
+        List<AutomationRule> rules = new ArrayList<>();
+        for (int i = 0; i < devices.size(); i += Math.max(1, ruleEvery)) {
+            Device device = devices.get(i);
+            AutomationRule rule = new AutomationRule();
+            rule.setUserId(userId);
+            rule.setRuleName("压测规则" + i);
+            rule.setTriggerType(RuleEngine.TRIGGER_DEVICE_STATUS);
+            rule.setTriggerCondition("{\"device_id\":\"" + device.getDeviceId()
+                    + "\",\"field\":\"temperature\",\"operator\":\">\",\"value\":25}");
+            rule.setTargetDeviceId(device.getDeviceId());
+            rule.setTargetDeviceType(device.getDeviceType());
+            rule.setCommandType("check_status");
+            rule.setCommandParameters("{}");
+            rule.setIsEnabled(true);
+            rules.add(automationRuleService.createRule(rule));
+        }
+        return rules;
+    }
+
+    private void publishFleet(InProcessMqttBroker broker, List<Device> devices) throws InterruptedException {
+        long tickNanos = 10_000_000L;
+        long durationNanos = durationSeconds * 1_000_000_000L;
+        long start = System.nanoTime();
+        long[] sequence = new long[devices.size()];
+        double credit = 0;
+        int next = 0;
+        for (long elapsed = 0; elapsed < durationNanos; elapsed = System.nanoTime() - start) {
+            double progress = (double) elapsed / durationNanos;
+            double secondOffset = (elapsed % 1_000_000_000L) / 1_000_000_000.0;
+            credit += devices.size() * ratePerDevice * pattern.factor(progress, secondOffset) * tickNanos / 1e9;
+            while (credit >= 1.0) {
+                Device device = devices.get(next);
+                long seq = sequence[next]++;
+                broker.publish("smart-home/" + device.getDeviceId() + "/status", statusEnvelope(device, seq));
+                next = (next + 1) % devices.size();
+                credit -= 1.0;
+            }
+            long sleepNanos = tickNanos - (System.nanoTime() - start - elapsed);
+            if (sleepNanos > 0) {
+                Thread.sleep(sleepNanos / 1_000_000, (int) (sleepNanos % 1_000_000));
+            }
+        }
+    }
+
+    private String statusEnvelope(Device device, long seq) {
+        double temperature = seq % 2 == 0 ? 20.0 : 30.0;
+        return "{\"timestamp\":\"" + Instant.now() + "\",\"message_type\":\"device_status_message\",\"data\":{"
+                + "\"user_id\":\"" + device.getUserId() + "\",\"device_type\":\"" + device.getDeviceType() + "\","
+                + "\"device_id\":\"" + device.getDeviceId() + "\",\"data\":{\"temperature\":" + temperature
+                + ",\"seq\":" + seq + ",\"sent_at\":" + System.nanoTime() + "}}}";
+    }
+
+    private void awaitDrain() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (ingestExecutor.getQueueSize() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        // 队列清空后再等最后一批写库完成
+        Thread.sleep(500);
+    }
+
+    private void recordSince(Object statusJson, LatencyRecorder recorder) {
+        if (statusJson == null) {
+            return;
+        }
+        try {
+            JsonNode sentAt = objectMapper.readTree(statusJson.toString()).get("sent_at");
+            if (sentAt != null) {
+                recorder.record(System.nanoTime() - sentAt.asLong());
+            }
+        } catch (Exception ignored) {
+            // 非压测上报
+        }
+    }
+
+    private void writeReport(String runId, InProcessMqttBroker broker, LatencyRecorder persistLatency,
+                             LatencyRecorder ruleLatency, int ruleCount, long elapsedNanos) throws Exception {
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("devices", deviceCount);
+        config.put("ratePerDevice", ratePerDevice);
+        config.put("durationSeconds", durationSeconds);
+        config.put("pattern", pattern.name().toLowerCase());
+        config.put("rules", ruleCount);
+
+        Map<String, Object> counters = new LinkedHashMap<>();
+        counters.put("published", broker.getPublished());
+        counters.put("processed", ingestExecutor.getProcessedCount());
+        counters.put("rejected", ingestExecutor.getRejectedCount());
+        counters.put("persisted", persistLatency.count());
+        counters.put("unchangedSkipped", deviceStatusFilter.getSkippedCount());
+        counters.put("throttledDevices", deviceRateLimiter.getTopThrottled(Integer.MAX_VALUE).size());
+        counters.put("rulesFired", ruleLatency.count());
+        counters.put("commandsSent", broker.getCommandsReceived());
+        counters.put("publisherPausedWaits", broker.getPausedWaits());
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("runId", runId);
+        report.put("build", System.getProperty("loadtest.build", "unknown"));
+        report.put("finishedAt", Instant.now().toString());
+        report.put("config", config);
+        report.put("elapsedSeconds", elapsedNanos / 1e9);
+        report.put("publishThroughputPerSecond", broker.getPublished() / (elapsedNanos / 1e9));
+        report.put("counters", counters);
+        report.put("publishToPersisted", persistLatency.summary());
+        report.put("publishToRuleFired", ruleLatency.summary());
+
+        File file = new File(reportPath);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(file, report);
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.demo.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// 记录延迟样本(纳秒)，结束时计算分位数
+class LatencyRecorder {
+
+    private long[] samples = new long[1 << 16];
+    private int count;
+
+    synchronized void record(long nanos) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, samples.length * 2);
+        }
+        samples[count++] = nanos;
+    }
+
+    synchronized int count() {
+        return count;
+    }
+
+    synchronized Map<String, Object> summary() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", count);
+        if (count == 0) {
+            return summary;
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        long sum = 0;
+        for (long sample : sorted) {
+            sum += sample;
+        }
+        summary.put("meanMillis", sum / (double) count / 1_000_000.0);
+        summary.put("p50Millis", percentile(sorted, 0.50));
+        summary.put("p90Millis", percentile(sorted, 0.90));
+        summary.put("p99Millis", percentile(sorted, 0.99));
+        summary.put("p999Millis", percentile(sorted, 0.999));
+        summary.put("maxMillis", sorted[sorted.length - 1] / 1_000_000.0);
+        return summary;
+    }
+
+    private static double percentile(long[] sorted, double q) {
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(q * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.demo.loadtest;
+
+// 上报速率随时间的变化方式，返回相对于目标速率的倍数
+enum LoadPattern {
+
+    // 匀速
+    STEADY {
+        @Override
+        double factor(double progress, double secondOffset) {
+            return 1.0;
+        }
+    },
+    // 每秒前200毫秒集中上报，模拟设备同时整点上报
+    BURST {
+        @Override
+        double factor(double progress, double secondOffset) {
+            return secondOffset < 0.2 ? 5.0 : 0.0;
+        }
+    },
+    // 从0线性增加到目标速率的两倍
+    RAMP {
+        @Override
+        double factor(double progress, double secondOffset) {
+            return 2.0 * progress;
+        }
+    };
+
+    abstract double factor(double progress, double secondOffset);
+}
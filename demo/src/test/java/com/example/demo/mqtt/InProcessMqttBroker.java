@@ -0,0 +1,88 @@
+package com.example.demo.mqtt;
+
+import org.springframework.integration.channel.AbstractMessageChannel;
+import org.springframework.integration.mqtt.support.MqttHeaders;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.support.ChannelInterceptor;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+// 测试用MQTT Broker替身，不经过真实网络：
+// - 上行消息按共享订阅的方式轮流交给一个订阅者(集群测试中每个节点一个，压测中是应用的入站通道)
+// - 可截获出站通道上的控制指令并计数
+// - paused为true时发布方等待，模拟后端暂停消费期间Broker保留消息
+public class InProcessMqttBroker {
+
+    public interface Subscriber {
+        void deliver(String topic, String payload);
+    }
+
+    private final BooleanSupplier paused;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong commandsReceived = new AtomicLong();
+    private final AtomicLong pausedWaits = new AtomicLong();
+
+    public InProcessMqttBroker() {
+        this(() -> false);
+    }
+
+    public InProcessMqttBroker(BooleanSupplier paused) {
+        this.paused = paused;
+    }
+
+    // 与Paho入站适配器产生的消息头一致
+    public static Subscriber inboundChannel(MessageChannel inputChannel) {
+        return (topic, payload) -> inputChannel.send(MessageBuilder.withPayload(payload)
+                .setHeader(MqttHeaders.RECEIVED_TOPIC, topic)
+                .setHeader(MqttHeaders.RECEIVED_QOS, 1)
+                .build());
+    }
+
+    public void subscribe(Subscriber subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    public void unsubscribe(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    // 出站指令在通道上截获，不再交给真实的出站适配器
+    public void interceptOutbound(MessageChannel outboundChannel) {
+        ((AbstractMessageChannel) outboundChannel).addInterceptor(new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                commandsReceived.incrementAndGet();
+                return null;
+            }
+        });
+    }
+
+    public void publish(String topic, String payload) throws InterruptedException {
+        while (paused.getAsBoolean()) {
+            pausedWaits.incrementAndGet();
+            Thread.sleep(5);
+        }
+        subscribers.get(Math.floorMod(next.getAndIncrement(), subscribers.size())).deliver(topic, payload);
+        published.incrementAndGet();
+    }
+
+    public long getPublished() {
+        return published.get();
+    }
+
+    public long getCommandsReceived() {
+        return commandsReceived.get();
+    }
+
+    public long getPausedWaits() {
+        return pausedWaits.get();
+    }
+}
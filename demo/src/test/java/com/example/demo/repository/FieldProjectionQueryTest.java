@@ -0,0 +1,65 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.Device;
+import com.example.demo.exception.BadRequestException;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.Metamodel;
+import jakarta.persistence.metamodel.SingularAttribute;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FieldProjectionQueryTest {
+
+    @Test
+    void parsesFieldListKeepingOrderAndDroppingDuplicates() {
+        assertThat(FieldProjectionQuery.parseFields(" deviceName, id ,,deviceName")).containsExactly("deviceName", "id");
+        assertThat(FieldProjectionQuery.parseFields(" , ")).isNull();
+        assertThat(FieldProjectionQuery.parseFields(null)).isNull();
+        assertThat(FieldProjectionQuery.isSummary(List.of("summary"))).isTrue();
+        assertThat(FieldProjectionQuery.isSummary(List.of("summary", "id"))).isFalse();
+    }
+
+    @Test
+    void unknownFieldIsABadRequest() {
+        FieldProjectionQuery query = new FieldProjectionQuery(entityManagerWithAttributes("id", "deviceName"));
+
+        assertThatThrownBy(() -> query.select(Device.class, List.of("id", "password"), null, null))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("password");
+    }
+
+    // 只实现校验字段需要的元模型方法
+    private static EntityManager entityManagerWithAttributes(String... names) {
+        Set<SingularAttribute<?, ?>> attributes = new LinkedHashSet<>();
+        for (String name : names) {
+            attributes.add(stub(SingularAttribute.class, "getName", name));
+        }
+        EntityType<?> entityType = stub(EntityType.class, "getSingularAttributes", attributes);
+        Metamodel metamodel = stub(Metamodel.class, "entity", entityType);
+        return stub(EntityManager.class, "getMetamodel", metamodel);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<?> type, String methodName, Object result) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getName().equals(methodName)) {
+                return result;
+            }
+            if (method.getName().equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            }
+            if (method.getName().equals("equals")) {
+                return proxy == args[0];
+            }
+            throw new UnsupportedOperationException(method.getName());
+        });
+    }
+}
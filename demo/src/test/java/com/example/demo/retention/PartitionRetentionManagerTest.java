@@ -0,0 +1,62 @@
+package com.example.demo.retention;
+
+import com.example.demo.config.AppProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PartitionRetentionManagerTest {
+
+    private static final long NOW = LocalDate.of(2026, 10, 19).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli()
+            + 3_600_000L;
+
+    private final List<String> executed = new ArrayList<>();
+
+    private PartitionRetentionManager manager(AppProperties properties) {
+        return new PartitionRetentionManager(null, properties) {
+            @Override
+            void execute(String ddl) {
+                executed.add(ddl);
+            }
+        };
+    }
+
+    @Test
+    void createsMissingDaysAheadAndDropsExpiredMinutePartitions() {
+        AppProperties properties = new AppProperties();
+        properties.getRetention().setAheadDays(2);
+        PartitionSeries minutes = new PartitionSeries("usage_rollups", "p_minute_", "p_minute_future",
+                "(MAXVALUE, MAXVALUE)", end -> "'MINUTE', " + end, () -> 48 * 3_600_000L);
+
+        manager(properties).maintain(minutes, List.of("p_day", "p_hour_future", "p_minute_20261015",
+                "p_minute_20261016", "p_minute_20261017", "p_minute_20261018", "p_minute_20261019", "p_minute_future"), NOW);
+
+        long endOf20 = PartitionSeries.endMillis(LocalDate.of(2026, 10, 20));
+        assertThat(executed).containsExactly(
+                "ALTER TABLE usage_rollups REORGANIZE PARTITION p_minute_future INTO ("
+                        + "PARTITION p_minute_20261020 VALUES LESS THAN ('MINUTE', " + endOf20 + "), "
+                        + "PARTITION p_minute_20261021 VALUES LESS THAN ('MINUTE', " + (endOf20 + 86_400_000L) + "), "
+                        + "PARTITION p_minute_future VALUES LESS THAN (MAXVALUE, MAXVALUE))",
+                // 10-16的分区上界为10-17零点，早于48小时前；10-17的分区还要保留
+                "ALTER TABLE usage_rollups DROP PARTITION p_minute_20261015, p_minute_20261016");
+    }
+
+    @Test
+    void startsFromTodayWhenNoDayPartitionsExist() {
+        AppProperties properties = new AppProperties();
+        properties.getRetention().setAheadDays(0);
+        PartitionSeries tombstones = new PartitionSeries("deleted_records", "p_", "p_future", "MAXVALUE",
+                end -> String.valueOf(end / 1000), () -> 30 * 86_400_000L);
+
+        manager(properties).maintain(tombstones, List.of("p_future"), NOW);
+
+        assertThat(executed).containsExactly("ALTER TABLE deleted_records REORGANIZE PARTITION p_future INTO ("
+                + "PARTITION p_20261019 VALUES LESS THAN (" + PartitionSeries.endMillis(LocalDate.of(2026, 10, 19)) / 1000
+                + "), PARTITION p_future VALUES LESS THAN MAXVALUE)");
+    }
+}
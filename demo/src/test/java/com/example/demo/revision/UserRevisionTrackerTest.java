@@ -0,0 +1,61 @@
+package com.example.demo.revision;
+
+import com.example.demo.event.ChangeType;
+import com.example.demo.event.EntityChangedEvent;
+import com.example.demo.event.EntityType;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserRevisionTrackerTest {
+
+    private final UserRevisionTracker tracker = new UserRevisionTracker(new InMemoryRevisionCounter());
+
+    @Test
+    void etagChangesOnlyForTheMutatedUser() {
+        String before = tracker.etag("devices", 1L, null);
+        String otherUser = tracker.etag("devices", 2L, null);
+
+        tracker.onEntityChanged(event(1L, false));
+
+        assertThat(tracker.etag("devices", 1L, null)).isNotEqualTo(before);
+        assertThat(tracker.etag("devices", 2L, null)).isEqualTo(otherUser);
+    }
+
+    @Test
+    void etagDistinguishesResourceAndVariant() {
+        String full = tracker.etag("devices", 1L, null);
+        assertThat(full).startsWith("\"").endsWith("\"");
+        assertThat(tracker.etag("devices", 1L, "deviceId,deviceName")).isNotEqualTo(full);
+        assertThat(tracker.etag("areas", 1L, null)).isNotEqualTo(full);
+    }
+
+    @Test
+    void remoteEventsDoNotIncrementTheSharedCounter() {
+        String before = tracker.etag("rules", 3L, null);
+        tracker.onEntityChanged(event(3L, true));
+        assertThat(tracker.etag("rules", 3L, null)).isEqualTo(before);
+    }
+
+    @Test
+    void ownershipMoveChangesBothUsersEtags() {
+        String previousOwner = tracker.etag("devices", 4L, null);
+        String newOwner = tracker.etag("devices", 5L, null);
+
+        EntityChangedEvent moved = event(5L, false);
+        moved.setPreviousUserId(4L);
+        tracker.onEntityChanged(moved);
+
+        assertThat(tracker.etag("devices", 4L, null)).isNotEqualTo(previousOwner);
+        assertThat(tracker.etag("devices", 5L, null)).isNotEqualTo(newOwner);
+    }
+
+    private EntityChangedEvent event(Long userId, boolean remote) {
+        EntityChangedEvent event = new EntityChangedEvent();
+        event.setEntityType(EntityType.DEVICE);
+        event.setChangeType(ChangeType.UPDATED);
+        event.setUserId(userId);
+        event.setRemote(remote);
+        return event;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.demo.rule;
+
+import com.example.demo.config.AppProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CascadeGuardTest {
+
+    @Test
+    void suppressesChainBeyondMaxDepth() {
+        AppProperties properties = new AppProperties();
+        properties.getRules().setMaxChainDepth(2);
+        CascadeGuard guard = new CascadeGuard(properties);
+
+        CascadeGuard.Chain first = guard.tryFire(1L, "sensor-1");
+        guard.recordCommand(first, List.of("ac-1"));
+        CascadeGuard.Chain second = guard.tryFire(2L, "ac-1");
+        guard.recordCommand(second, List.of("window-1"));
+
+        assertThat(second.getRootRuleId()).isEqualTo(1L);
+        assertThat(second.getDepth()).isEqualTo(1);
+        assertThat(guard.tryFire(3L, "window-1")).isNull();
+        assertThat(guard.getSuppressedByDepth()).isEqualTo(1);
+    }
+
+    @Test
+    void limitsFiresPerChain() {
+        AppProperties properties = new AppProperties();
+        properties.getRules().setMaxFiresPerChainPerMinute(2);
+        CascadeGuard guard = new CascadeGuard(properties);
+
+        assertThat(guard.tryFire(1L, "sensor-1")).isNotNull();
+        assertThat(guard.tryFire(1L, "sensor-1")).isNotNull();
+        assertThat(guard.tryFire(1L, "sensor-1")).isNull();
+        assertThat(guard.getSuppressedByRate()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.demo.rule;
+
+import com.example.demo.status.DeviceState;
+import com.example.demo.status.DeviceTypeRegistry;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RuleConditionTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void windowedAverageWaitsForFullWindow() throws Exception {
+        RuleCondition condition = RuleCondition.parse(objectMapper.readTree(
+                "{\"device_id\":\"s1\",\"field\":\"temperature\",\"aggregate\":\"avg\",\"window_seconds\":300,"
+                        + "\"operator\":\">\",\"value\":28}"));
+
+        assertThat(condition.matches(objectMapper.readTree("{\"temperature\":35}"), 0)).isNull();
+        assertThat(condition.matches(objectMapper.readTree("{\"temperature\":27}"), 200_000)).isNull();
+        // 窗口为(0, 300s]，0时刻的35已滑出，27和30平均28.5
+        assertThat(condition.matches(objectMapper.readTree("{\"temperature\":30}"), 300_000)).isTrue();
+        // 27、30、20平均25.67
+        assertThat(condition.matches(objectMapper.readTree("{\"temperature\":20}"), 301_000)).isFalse();
+    }
+
+    @Test
+    void sampleAfterALongGapWaitsForAFullWindowAgain() throws Exception {
+        RuleCondition condition = RuleCondition.parse(objectMapper.readTree(
+                "{\"device_id\":\"s1\",\"field\":\"temperature\",\"aggregate\":\"avg\",\"window_seconds\":300,"
+                        + "\"operator\":\">\",\"value\":28}"));
+
+        assertThat(condition.matches(objectMapper.readTree("{\"temperature\":30}"), 0)).isNull();
+        // 按窗口时长周期上报
+        assertThat(condition.matches(objectMapper.readTree("{\"temperature\":30}"), 300_000)).isTrue();
+        // 设备离线一小时后的单个样本不代表整个窗口
+        assertThat(condition.matches(objectMapper.readTree("{\"temperature\":35}"), 3_900_000)).isNull();
+        assertThat(condition.matches(objectMapper.readTree("{\"temperature\":20}"), 4_000_000)).isNull();
+        // 窗口为(3900s, 4200s]，只剩20
+        assertThat(condition.matches(objectMapper.readTree("{\"temperature\":20}"), 4_200_000)).isFalse();
+    }
+
+    @Test
+    void hysteresisHoldsUntilResetValue() throws Exception {
+        RuleCondition condition = RuleCondition.parse(objectMapper.readTree(
+                "{\"device_id\":\"s2\",\"field\":\"humidity\",\"operator\":\">\",\"value\":70,"
+                        + "\"for_seconds\":600,\"reset_value\":65}"));
+
+        assertThat(condition.evaluate(72, 0)).isFalse();
+        assertThat(condition.evaluate(69, 300_000)).isFalse();
+        assertThat(condition.evaluate(72, 310_000)).isFalse();
+        assertThat(condition.evaluate(75, 910_000)).isTrue();
+        assertThat(condition.evaluate(66, 920_000)).isTrue();
+        assertThat(condition.evaluate(64, 930_000)).isFalse();
+        assertThat(condition.evaluate(72, 940_000)).isFalse();
+    }
+
+    @Test
+    void slidingMinMaxMatchBruteForce() {
+        SlidingWindow min = new SlidingWindow(SlidingWindow.Aggregate.MIN, 1000, 10_000);
+        SlidingWindow max = new SlidingWindow(SlidingWindow.Aggregate.MAX, 1000, 10_000);
+        SlidingWindow count = new SlidingWindow(SlidingWindow.Aggregate.COUNT, 1000, 10_000);
+        List<long[]> samples = new ArrayList<>();
+        Random random = new Random(7);
+        long at = 0;
+        for (int i = 0; i < 5000; i++) {
+            at += random.nextInt(50);
+            long value = random.nextInt(100);
+            min.add(at, value);
+            max.add(at, value);
+            count.add(at, value);
+            samples.add(new long[]{at, value});
+            long cutoff = at - 1000;
+            samples.removeIf(sample -> sample[0] <= cutoff);
+            assertThat(min.value()).isEqualTo(samples.stream().mapToLong(s -> s[1]).min().getAsLong());
+            assertThat(max.value()).isEqualTo(samples.stream().mapToLong(s -> s[1]).max().getAsLong());
+            assertThat(count.value()).isEqualTo(samples.size());
+        }
+    }
+
+    @Test
+    void conditionOnNonSchemaKeyFallsBackToJson() throws Exception {
+        DeviceTypeRegistry registry = new DeviceTypeRegistry();
+        RuleCondition typed = RuleCondition.parse(objectMapper.readTree("{\"device_id\":\"led-1\",\"power\":\"on\"}"));
+        RuleCondition extra = RuleCondition.parse(objectMapper.readTree("{\"device_id\":\"led-1\",\"scene\":\"party\"}"));
+        JsonNode data = objectMapper.readTree("{\"power\":\"on\",\"scene\":\"party\"}");
+        DeviceState state = registry.decode("led", data);
+
+        assertThat(typed.bindsTo(state.getSchema())).isTrue();
+        assertThat(typed.matches(state, 0)).isTrue();
+        // scene不在led的模式中，由RuleEngine改用原始JSON匹配
+        assertThat(extra.bindsTo(state.getSchema())).isFalse();
+        assertThat(extra.matches(data, 0)).isTrue();
+    }
+
+    @Test
+    void rejectsResetValueOnActiveSide() {
+        assertThatThrownBy(() -> RuleCondition.parse(objectMapper.readTree(
+                "{\"device_id\":\"s3\",\"field\":\"humidity\",\"operator\":\">\",\"value\":70,\"reset_value\":75}")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
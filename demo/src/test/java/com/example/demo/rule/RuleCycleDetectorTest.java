@@ -0,0 +1,99 @@
+package com.example.demo.rule;
+
+import com.example.demo.config.AppProperties;
+import com.example.demo.entity.AutomationRule;
+import com.example.demo.repository.AutomationRuleRepository;
+import com.example.demo.repository.SceneRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RuleCycleDetectorTest {
+
+    private final List<AutomationRule> stored = new ArrayList<>();
+    private final RuleCycleDetector detector = detector(stored);
+
+    @Test
+    void rejectsRuleThatClosesACycle() {
+        stored.add(rule(1L, "sensor-1", "ac-1"));
+        stored.add(rule(2L, "ac-1", "window-1"));
+
+        assertThatThrownBy(() -> detector.checkRule(rule(3L, "window-1", "sensor-1")))
+                .isInstanceOfSatisfying(RuleCycleException.class, e -> assertThat(e.getCycle())
+                        .containsExactly("window-1", "sensor-1", "ac-1", "window-1"));
+    }
+
+    @Test
+    void acyclicRulesPass() {
+        stored.add(rule(1L, "sensor-1", "ac-1"));
+        stored.add(rule(2L, "sensor-1", "led-1"));
+
+        assertThatCode(() -> detector.checkRule(rule(3L, "ac-1", "led-1"))).doesNotThrowAnyException();
+    }
+
+    @Test
+    void existingCycleDoesNotBlockUnrelatedSaveOrDisable() {
+        // 库中已有的环(关闭拒绝时保存的，或直接写库的)
+        stored.add(rule(1L, "sensor-1", "ac-1"));
+        stored.add(rule(2L, "ac-1", "sensor-1"));
+        stored.add(rule(3L, "door-1", "led-1"));
+
+        // 无关规则改目标、新建无关规则
+        assertThatCode(() -> detector.checkRule(rule(3L, "door-1", "led-2"))).doesNotThrowAnyException();
+        assertThatCode(() -> detector.checkRule(rule(4L, "door-1", "led-3"))).doesNotThrowAnyException();
+        // 停用环上的规则
+        AutomationRule disabled = rule(2L, "ac-1", "sensor-1");
+        disabled.setIsEnabled(false);
+        assertThatCode(() -> detector.checkRule(disabled)).doesNotThrowAnyException();
+    }
+
+    @Test
+    void onlyEdgesMissingFromBeforeAreChecked() {
+        Map<String, Set<String>> before = Map.of("sensor-1", Set.of("ac-1"), "ac-1", Set.of("sensor-1"));
+        Map<String, Set<String>> after = Map.of("sensor-1", Set.of("ac-1"), "ac-1", Set.of("sensor-1"),
+                "door-1", Set.of("led-1"));
+
+        assertThat(RuleCycleDetector.findNewCycle(before, after)).isNull();
+    }
+
+    private static AutomationRule rule(Long id, String trigger, String target) {
+        AutomationRule rule = new AutomationRule();
+        rule.setId(id);
+        rule.setUserId(7L);
+        rule.setIsEnabled(true);
+        rule.setTriggerType(RuleEngine.TRIGGER_DEVICE_STATUS);
+        rule.setTriggerCondition("{\"device_id\":\"" + trigger + "\",\"field\":\"power\",\"value\":\"on\"}");
+        rule.setTargetDeviceId(target);
+        return rule;
+    }
+
+    private static RuleCycleDetector detector(List<AutomationRule> stored) {
+        RuleCycleDetector detector = new RuleCycleDetector();
+        ReflectionTestUtils.setField(detector, "automationRuleRepository", stub(AutomationRuleRepository.class,
+                "findByUserIdAndIsEnabled", stored));
+        ReflectionTestUtils.setField(detector, "sceneRepository", stub(SceneRepository.class, "findByUserId", List.of()));
+        ReflectionTestUtils.setField(detector, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(detector, "appProperties", new AppProperties());
+        return detector;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> type, String methodName, Object result) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getName().equals(methodName)) {
+                return result;
+            }
+            throw new UnsupportedOperationException(method.getName());
+        });
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.demo.scene;
+
+import com.example.demo.command.CommandDispatcher;
+import com.example.demo.command.CommandForbiddenException;
+import com.example.demo.command.CommandStatus;
+import com.example.demo.command.DeviceCommandResult;
+import com.example.demo.config.AppProperties;
+import com.example.demo.device.DeviceInfo;
+import com.example.demo.device.DeviceOwnershipIndex;
+import com.example.demo.device.DeviceRegistry;
+import com.example.demo.entity.Scene;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SceneExecutorTest {
+
+    private final AppProperties appProperties = new AppProperties();
+    private final StubDispatcher dispatcher = new StubDispatcher(appProperties);
+    private SceneExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        DeviceRegistry registry = new DeviceRegistry();
+        List<DeviceInfo> devices = new ArrayList<>();
+        for (long id = 1; id <= 3; id++) {
+            devices.add(new DeviceInfo(id, "led-" + id, "led", 7L, null));
+        }
+        // led-4属于其他用户
+        devices.add(new DeviceInfo(4L, "led-4", "led", 8L, null));
+        devices.forEach(registry::put);
+        DeviceOwnershipIndex ownershipIndex = new DeviceOwnershipIndex();
+        ownershipIndex.rebuild(devices);
+        executor = new SceneExecutor(registry, ownershipIndex, dispatcher, null, new ObjectMapper(), appProperties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void runsStepsInOrderAndAggregatesPartialOutcome() {
+        dispatcher.statuses.put("led-2", CommandStatus.FAILURE);
+        Scene scene = scene(null, "[{\"device_id\":\"led-3\",\"command\":\"on\",\"step\":1},"
+                + "{\"device_id\":\"led-1\",\"command\":\"on\",\"step\":0},"
+                + "{\"device_id\":\"led-2\",\"command\":\"on\",\"step\":0}]");
+
+        SceneExecutionResult result = executor.execute(scene, null).join();
+
+        // 第0步的两个动作都下发后才开始第1步
+        assertThat(dispatcher.dispatched).hasSize(3).endsWith("led-3");
+        assertThat(result.getActions()).extracting(SceneActionResult::getStatus)
+                .containsExactly(CommandStatus.SUCCESS, CommandStatus.SUCCESS, CommandStatus.FAILURE);
+        assertThat(result.getOutcome()).isEqualTo(SceneExecutionResult.Outcome.PARTIAL);
+        assertThat(result.getSucceeded()).isEqualTo(2);
+        assertThat(result.getFailed()).isEqualTo(1);
+    }
+
+    @Test
+    void deviceOfAnotherUserRejectsTheWholeScene() {
+        Scene scene = scene(null, "[{\"device_id\":\"led-1\",\"command\":\"on\"},"
+                + "{\"device_id\":\"led-4\",\"command\":\"on\",\"step\":1}]");
+
+        assertThatThrownBy(() -> executor.execute(scene, null)).isInstanceOf(CommandForbiddenException.class);
+        assertThat(dispatcher.dispatched).isEmpty();
+    }
+
+    @Test
+    void missingDeviceFailsOnlyItsAction() {
+        Scene scene = scene(null, "[{\"device_id\":\"missing\",\"command\":\"on\"}]");
+
+        SceneExecutionResult result = executor.execute(scene, null).join();
+
+        assertThat(dispatcher.dispatched).isEmpty();
+        assertThat(result.getActions()).extracting(SceneActionResult::getStatus)
+                .containsExactly(CommandStatus.SEND_FAILED);
+        assertThat(result.getOutcome()).isEqualTo(SceneExecutionResult.Outcome.FAILED);
+    }
+
+    @Test
+    void stepsAfterTheDeadlineAreSkipped() {
+        // led-1不回应，等待时间被压到场景剩余时限内
+        dispatcher.statuses.put("led-1", null);
+        Scene scene = scene(5000L, "[{\"device_id\":\"led-1\",\"command\":\"on\",\"step\":0,\"timeout_millis\":30000},"
+                + "{\"device_id\":\"led-2\",\"command\":\"on\",\"step\":1}]");
+
+        // 首次解析动作JSON有类加载开销，时限留足余量，保证led-1在时限内下发
+        long started = System.nanoTime();
+        SceneExecutionResult result = executor.execute(scene, 1000L).join();
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)).isLessThan(5000);
+        assertThat(dispatcher.timeouts.get(0)).isLessThanOrEqualTo(1000);
+        assertThat(dispatcher.dispatched).containsExactly("led-1");
+        assertThat(result.getActions()).extracting(SceneActionResult::getStatus)
+                .containsExactly(CommandStatus.TIMEOUT, CommandStatus.SKIPPED);
+        assertThat(result.getOutcome()).isEqualTo(SceneExecutionResult.Outcome.DEADLINE_EXCEEDED);
+    }
+
+    private static Scene scene(Long deadlineMillis, String actions) {
+        Scene scene = new Scene();
+        scene.setId(1L);
+        scene.setUserId(7L);
+        scene.setSceneName("evening");
+        scene.setActions(actions);
+        scene.setDeadlineMillis(deadlineMillis);
+        return scene;
+    }
+
+    // 不经过MQTT：默认立即返回SUCCESS，statuses中为null的设备不回应，到超时后返回TIMEOUT
+    private static class StubDispatcher extends CommandDispatcher {
+        private final Map<String, CommandStatus> statuses = new HashMap<>();
+        private final List<String> dispatched = new CopyOnWriteArrayList<>();
+        private final List<Long> timeouts = new CopyOnWriteArrayList<>();
+
+        StubDispatcher(AppProperties appProperties) {
+            super(null, null, null, appProperties);
+        }
+
+        @Override
+        public CompletableFuture<DeviceCommandResult> dispatch(DeviceInfo device, String command, JsonNode parameters,
+                                                               long timeoutMillis) {
+            dispatched.add(device.getDeviceId());
+            timeouts.add(timeoutMillis);
+            String commandId = "node-a:" + dispatched.size();
+            if (statuses.containsKey(device.getDeviceId()) && statuses.get(device.getDeviceId()) == null) {
+                return new CompletableFuture<DeviceCommandResult>().completeOnTimeout(
+                        new DeviceCommandResult(device.getDeviceId(), commandId, CommandStatus.TIMEOUT, timeoutMillis),
+                        timeoutMillis, TimeUnit.MILLISECONDS);
+            }
+            CommandStatus status = statuses.getOrDefault(device.getDeviceId(), CommandStatus.SUCCESS);
+            return CompletableFuture.completedFuture(new DeviceCommandResult(device.getDeviceId(), commandId, status, 1));
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.demo.search;
+
+import com.example.demo.event.ChangeType;
+import com.example.demo.event.EntityChangedEvent;
+import com.example.demo.event.EntityType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NameSearchIndexTest {
+
+    private NameSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new NameSearchIndex(null, null);
+        area(ChangeType.CREATED, 1L, "Kitchen", 3L);
+        device(ChangeType.CREATED, 10L, "Kitchen Light", "led", 3L, 1L);
+        device(ChangeType.CREATED, 11L, "Ceiling Light", "led", 3L, null);
+        device(ChangeType.CREATED, 12L, "客厅窗帘", "curtain", 3L, null);
+        device(ChangeType.CREATED, 13L, "Kitchen Light", "led", 4L, null);
+    }
+
+    @Test
+    void ranksPrefixBeforeWordPrefixAndFiltersByKindAndType() {
+        assertThat(names(index.search(3L, "kit", null, null, false, 10))).containsExactly("Kitchen", "Kitchen Light");
+        assertThat(names(index.search(3L, "light", null, null, true, 10)))
+                .containsExactly("Ceiling Light", "Kitchen Light");
+        assertThat(names(index.search(3L, "itch", null, null, true, 10))).isEmpty();
+        assertThat(names(index.search(3L, "itch", SearchHit.Kind.DEVICE, null, false, 10)))
+                .containsExactly("Kitchen Light");
+        assertThat(names(index.search(3L, "", null, "curtain", false, 10))).containsExactly("客厅窗帘");
+        assertThat(names(index.search(3L, "窗帘", null, null, false, 10))).containsExactly("客厅窗帘");
+        // 设备类型也参与匹配，排在名称命中之后
+        assertThat(names(index.search(3L, "le", null, null, true, 1))).containsExactly("Ceiling Light");
+    }
+
+    @Test
+    void followsRenamesMovesAndDeletes() {
+        device(ChangeType.UPDATED, 11L, "Hall Lamp", "led", 3L, null);
+        assertThat(names(index.search(3L, "ceil", null, null, false, 10))).isEmpty();
+        assertThat(names(index.search(3L, "lamp", null, null, false, 10))).containsExactly("Hall Lamp");
+
+        device(ChangeType.UPDATED, 11L, "Hall Lamp", "led", 4L, null);
+        assertThat(names(index.search(3L, "lamp", null, null, false, 10))).isEmpty();
+        assertThat(names(index.search(4L, "lamp", null, null, false, 10))).containsExactly("Hall Lamp");
+
+        area(ChangeType.DELETED, 1L, "Kitchen", 3L);
+        List<SearchHit> hits = index.search(3L, "kitchen", null, null, false, 10);
+        assertThat(names(hits)).containsExactly("Kitchen Light");
+        assertThat(hits.get(0).getAreaId()).isNull();
+
+        EntityChangedEvent userDeleted = new EntityChangedEvent();
+        userDeleted.setEntityType(EntityType.USER);
+        userDeleted.setChangeType(ChangeType.DELETED);
+        userDeleted.setEntityId(4L);
+        index.onEntityChanged(userDeleted);
+        assertThat(index.search(4L, "lamp", null, null, false, 10)).isEmpty();
+        assertThat(index.size()).isEqualTo(2);
+    }
+
+    @Test
+    void unchangedUpdatesAndStatusReportsDoNotTakeTheIndexLock() throws Exception {
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> {
+            synchronized (index) {
+                locked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        holder.start();
+        locked.await();
+        try {
+            // 占着索引锁时仍能完成，说明没有进入锁
+            CompletableFuture.runAsync(() -> {
+                device(ChangeType.UPDATED, 10L, "Kitchen Light", "led", 3L, 1L);
+                area(ChangeType.UPDATED, 1L, "Kitchen", 3L);
+                publish(EntityType.DEVICE, ChangeType.STATUS, 10L, Map.of("deviceId", "dev-10", "statusName", "{}"));
+            }).get(5, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            holder.join();
+        }
+
+        assertThat(names(index.search(3L, "kitchen", null, null, false, 10))).containsExactly("Kitchen", "Kitchen Light");
+    }
+
+    private void device(ChangeType changeType, Long id, String name, String type, Long userId, Long areaId) {
+        Map<String, Object> snapshot = new HashMap<>();
+        snapshot.put("deviceId", "dev-" + id);
+        snapshot.put("deviceName", name);
+        snapshot.put("deviceType", type);
+        snapshot.put("userId", userId);
+        snapshot.put("areaId", areaId);
+        publish(EntityType.DEVICE, changeType, id, snapshot);
+    }
+
+    private void area(ChangeType changeType, Long id, String name, Long userId) {
+        publish(EntityType.HOUSE_AREA, changeType, id, Map.of("areaName", name, "userId", userId));
+    }
+
+    private void publish(EntityType type, ChangeType changeType, Long id, Map<String, Object> snapshot) {
+        EntityChangedEvent event = new EntityChangedEvent();
+        event.setEntityType(type);
+        event.setChangeType(changeType);
+        event.setEntityId(id);
+        event.setSnapshot(snapshot);
+        index.onEntityChanged(event);
+    }
+
+    private List<String> names(List<SearchHit> hits) {
+        return hits.stream().map(SearchHit::getName).toList();
+    }
+}
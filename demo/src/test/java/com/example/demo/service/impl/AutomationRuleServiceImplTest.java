@@ -0,0 +1,67 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.entity.AutomationRule;
+import com.example.demo.event.ChangeType;
+import com.example.demo.event.EntityEventBus;
+import com.example.demo.event.EntityType;
+import com.example.demo.repository.AutomationRuleRepository;
+import com.example.demo.rule.RuleCycleDetector;
+import com.example.demo.rule.RuleEngine;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AutomationRuleServiceImplTest {
+
+    @Test
+    void movingARuleToAnotherUserPublishesThePreviousOwner() {
+        AutomationRule stored = rule(9L, 1L);
+        RecordingEventBus eventBus = new RecordingEventBus();
+        AutomationRuleServiceImpl service = new AutomationRuleServiceImpl();
+        ReflectionTestUtils.setField(service, "automationRuleRepository", repository(stored));
+        ReflectionTestUtils.setField(service, "entityEventBus", eventBus);
+        ReflectionTestUtils.setField(service, "ruleCycleDetector", new RuleCycleDetector() {
+            @Override
+            public void checkRule(AutomationRule candidate) {
+            }
+        });
+
+        service.updateRule(rule(9L, 2L));
+
+        assertThat(eventBus.published).containsExactly(EntityType.AUTOMATION_RULE + ":" + ChangeType.UPDATED + ":9:2:1");
+    }
+
+    // run_scene规则不校验目标设备归属
+    private static AutomationRule rule(Long id, Long userId) {
+        AutomationRule rule = new AutomationRule();
+        rule.setId(id);
+        rule.setUserId(userId);
+        rule.setCommandType(RuleEngine.COMMAND_RUN_SCENE);
+        return rule;
+    }
+
+    private static AutomationRuleRepository repository(AutomationRule stored) {
+        return (AutomationRuleRepository) Proxy.newProxyInstance(AutomationRuleRepository.class.getClassLoader(),
+                new Class<?>[]{AutomationRuleRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findById" -> Optional.of(stored);
+                    case "save" -> args[0];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static class RecordingEventBus extends EntityEventBus {
+        private final List<String> published = new ArrayList<>();
+
+        @Override
+        public void publish(EntityType entityType, ChangeType changeType, Long entityId, Long userId,
+                            Long previousUserId, Object entity) {
+            published.add(entityType + ":" + changeType + ":" + entityId + ":" + userId + ":" + previousUserId);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.entity.Device;
+import com.example.demo.event.EntityEventBus;
+import com.example.demo.repository.DeviceRepository;
+import com.example.demo.repository.FieldProjectionQuery;
+import com.example.demo.status.DeviceState;
+import com.example.demo.status.DeviceTypeRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeviceServiceImplTest {
+
+    @Test
+    void statusProjectionSelectsEncodedColumnAndOutputsStatusKey() throws Exception {
+        DeviceTypeRegistry registry = new DeviceTypeRegistry();
+        byte[] encoded = registry.decode("temperature_sensor", new ObjectMapper().readTree("{\"temperature\":21.5}"))
+                .encode();
+        RecordingProjectionQuery query = new RecordingProjectionQuery(encoded);
+        DeviceServiceImpl service = new DeviceServiceImpl();
+        ReflectionTestUtils.setField(service, "fieldProjectionQuery", query);
+        ReflectionTestUtils.setField(service, "deviceTypeRegistry", registry);
+
+        List<?> rows = service.getDeviceFields("userId", 7L, List.of("id", "status"));
+
+        // 解码需要设备类型，未选deviceType时额外查出，但不出现在结果里
+        assertThat(query.selected).containsExactly("id", "statusData", "deviceType");
+        @SuppressWarnings("unchecked")
+        Map<String, Object> row = (Map<String, Object>) rows.get(0);
+        assertThat(row.keySet()).containsExactly("id", "status");
+        assertThat(new ObjectMapper().valueToTree(row.get("status")).path("temperature").asDouble()).isEqualTo(21.5);
+    }
+
+    @Test
+    void extrasOutsideTheSchemaGoToTheirOwnColumn() throws Exception {
+        Device device = new Device();
+        device.setId(1L);
+        device.setDeviceId("t-1");
+        device.setDeviceType("temperature_sensor");
+        List<Device> saved = new ArrayList<>();
+        DeviceServiceImpl service = new DeviceServiceImpl();
+        ReflectionTestUtils.setField(service, "deviceRepository", Proxy.newProxyInstance(
+                DeviceRepository.class.getClassLoader(), new Class<?>[]{DeviceRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findByDeviceId" -> device;
+                    case "save" -> {
+                        saved.add((Device) args[0]);
+                        yield args[0];
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                }));
+        ReflectionTestUtils.setField(service, "entityEventBus", new EntityEventBus() {
+            @Override
+            public void publishStatus(Long entityId, Long userId, String deviceId, String statusName) {
+            }
+        });
+        // 模式外字段超过status_name的100字符
+        String data = "{\"temperature\":21.5,\"firmware\":\"" + "v".repeat(120) + "\"}";
+        DeviceState state = new DeviceTypeRegistry().decode("temperature_sensor", new ObjectMapper().readTree(data));
+
+        service.updateDeviceStatus("t-1", data, state);
+
+        assertThat(saved).singleElement().satisfies(stored -> {
+            assertThat(stored.getStatusName()).isNull();
+            assertThat(new ObjectMapper().readTree(stored.getStatusExtras()).path("firmware").asText()).hasSize(120);
+        });
+    }
+
+    private static class RecordingProjectionQuery extends FieldProjectionQuery {
+        private final byte[] encoded;
+        private List<String> selected;
+
+        RecordingProjectionQuery(byte[] encoded) {
+            super(null);
+            this.encoded = encoded;
+        }
+
+        @Override
+        public List<Map<String, Object>> select(Class<?> entityClass, List<String> fields,
+                                                String filterAttribute, Object filterValue) {
+            assertThat(entityClass).isEqualTo(Device.class);
+            selected = new ArrayList<>(fields);
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", 1L);
+            row.put("statusData", encoded);
+            row.put("deviceType", "temperature_sensor");
+            List<Map<String, Object>> rows = new ArrayList<>();
+            rows.add(row);
+            return rows;
+        }
+    }
+}
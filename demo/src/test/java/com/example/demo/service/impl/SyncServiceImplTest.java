@@ -0,0 +1,120 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.config.AppProperties;
+import com.example.demo.entity.DeletedRecord;
+import com.example.demo.entity.Device;
+import com.example.demo.event.ChangeType;
+import com.example.demo.event.EntityChangedEvent;
+import com.example.demo.event.EntityType;
+import com.example.demo.repository.AutomationRuleRepository;
+import com.example.demo.repository.DeletedRecordRepository;
+import com.example.demo.repository.DeviceRepository;
+import com.example.demo.repository.HouseAreaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SyncServiceImplTest {
+
+    private final List<DeletedRecord> tombstones = new ArrayList<>();
+    private final List<Device> devices = new ArrayList<>();
+    private final SyncServiceImpl service = new SyncServiceImpl();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "appProperties", new AppProperties());
+        ReflectionTestUtils.setField(service, "deletedRecordRepository", repository(DeletedRecordRepository.class,
+                (method, args) -> switch (method) {
+                    case "save" -> {
+                        tombstones.add((DeletedRecord) args[0]);
+                        yield args[0];
+                    }
+                    case "findByUserIdAndDeletedAtAfter" -> tombstones.stream()
+                            .filter(record -> record.getUserId().equals(args[0]))
+                            .toList();
+                    default -> throw new UnsupportedOperationException(method);
+                }));
+        ReflectionTestUtils.setField(service, "deviceRepository", repository(DeviceRepository.class,
+                (method, args) -> devices.stream().filter(device -> device.getUserId().equals(args[0])).toList()));
+        ReflectionTestUtils.setField(service, "houseAreaRepository", repository(HouseAreaRepository.class,
+                (method, args) -> List.of()));
+        ReflectionTestUtils.setField(service, "automationRuleRepository", repository(AutomationRuleRepository.class,
+                (method, args) -> List.of()));
+    }
+
+    @Test
+    void ownershipMoveIsADeletionForThePreviousOwner() {
+        long since = System.currentTimeMillis() - 60_000;
+        devices.add(device(10L, 2L));
+
+        service.onEntityChanged(moved(10L, 2L, 1L, false));
+
+        assertThat(tombstones).singleElement().satisfies(record -> {
+            assertThat(record.getUserId()).isEqualTo(1L);
+            assertThat(record.getEntityId()).isEqualTo(10L);
+            assertThat(record.getEntityType()).isEqualTo(EntityType.DEVICE.name());
+        });
+        assertThat(group(service.getChangesSince(1L, since), "devices").get("deleted")).isEqualTo(List.of(10L));
+        assertThat(group(service.getChangesSince(2L, since), "devices").get("deleted")).isEqualTo(List.of());
+    }
+
+    @Test
+    void deviceMovedBackIsNotReportedAsDeleted() {
+        long since = System.currentTimeMillis() - 60_000;
+        service.onEntityChanged(moved(10L, 2L, 1L, false));
+        devices.add(device(10L, 1L));
+        service.onEntityChanged(moved(10L, 1L, 2L, false));
+
+        Map<String, Object> changes = group(service.getChangesSince(1L, since), "devices");
+        assertThat(changes.get("deleted")).isEqualTo(List.of());
+        assertThat((List<?>) changes.get("updated")).hasSize(1);
+    }
+
+    @Test
+    void remoteMoveIsRecordedByTheOriginNodeOnly() {
+        service.onEntityChanged(moved(10L, 2L, 1L, true));
+        assertThat(tombstones).isEmpty();
+    }
+
+    private static EntityChangedEvent moved(Long entityId, Long userId, Long previousUserId, boolean remote) {
+        EntityChangedEvent event = new EntityChangedEvent();
+        event.setEntityType(EntityType.DEVICE);
+        event.setChangeType(ChangeType.UPDATED);
+        event.setEntityId(entityId);
+        event.setUserId(userId);
+        event.setPreviousUserId(previousUserId);
+        event.setRemote(remote);
+        return event;
+    }
+
+    private static Device device(Long id, Long userId) {
+        Device device = new Device();
+        device.setId(id);
+        device.setUserId(userId);
+        device.setCreatedAt(LocalDateTime.now().minusDays(1));
+        return device;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> group(Map<String, Object> changes, String key) {
+        return (Map<String, Object>) changes.get(key);
+    }
+
+    private interface Handler {
+        Object handle(String method, Object[] args);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T repository(Class<T> type, Handler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> handler.handle(method.getName(), args));
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.demo.snapshot;
+
+import com.example.demo.device.DeviceInfo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DeviceStateSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTripsThroughMappedRead() throws Exception {
+        Path path = directory.resolve("state.bin");
+        new DeviceStateSnapshot(1234L,
+                List.of(new DeviceInfo(1L, "led-1", "led", 7L, 3L), new DeviceInfo(2L, "温度-2", "temperature_sensor", 7L, null)),
+                Map.of("led-1", 99L),
+                List.of(new DeviceStateSnapshot.Baseline("led-1", "led", new byte[]{1, 2, 3}, 55L)),
+                List.of(42L)).write(path);
+
+        DeviceStateSnapshot restored = DeviceStateSnapshot.read(path);
+
+        assertThat(restored.getCreatedAtMillis()).isEqualTo(1234L);
+        assertThat(restored.getDevices()).hasSize(2);
+        DeviceInfo second = restored.getDevices().get(1);
+        assertThat(second.getDeviceId()).isEqualTo("温度-2");
+        assertThat(second.getAreaId()).isNull();
+        assertThat(restored.getLastSeen()).containsEntry("led-1", 99L);
+        assertThat(restored.getBaselines().get(0).getEncoded()).containsExactly(1, 2, 3);
+        assertThat(restored.getMatchedRuleIds()).containsExactly(42L);
+    }
+
+    @Test
+    void keepsNullDeviceTypeDistinctFromEmpty() throws Exception {
+        Path path = directory.resolve("state.bin");
+        new DeviceStateSnapshot(1L,
+                List.of(new DeviceInfo(1L, "led-1", null, 7L, 3L), new DeviceInfo(2L, "led-2", "", 7L, 3L)),
+                Map.of(),
+                List.of(new DeviceStateSnapshot.Baseline("led-1", null, new byte[0], 1L)),
+                List.of()).write(path);
+
+        DeviceStateSnapshot restored = DeviceStateSnapshot.read(path);
+
+        assertThat(restored.getDevices().get(0).getDeviceType()).isNull();
+        assertThat(restored.getDevices().get(1).getDeviceType()).isEmpty();
+        assertThat(restored.getBaselines().get(0).getDeviceType()).isNull();
+    }
+
+    @Test
+    void rejectsCorruptedFile() throws Exception {
+        Path path = directory.resolve("state.bin");
+        new DeviceStateSnapshot(1L, List.of(new DeviceInfo(1L, "led-1", "led", 7L, 3L)), Map.of(), List.of(), List.of())
+                .write(path);
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[20] ^= 0x7F;
+        Files.write(path, bytes);
+
+        assertThatThrownBy(() -> DeviceStateSnapshot.read(path)).isInstanceOf(IOException.class);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.demo.status;
+
+import com.example.demo.entity.Device;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.AutowiredAnnotationBeanPostProcessor;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.http.converter.json.SpringHandlerInstantiator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StatusSchemaTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final DeviceTypeRegistry registry = new DeviceTypeRegistry();
+
+    @Test
+    void roundTripsThroughCompactEncoding() throws Exception {
+        JsonNode data = objectMapper.readTree(
+                "{\"power\":\"on\",\"brightness\":80,\"color\":{\"r\":255,\"g\":10,\"b\":0},\"unknown\":1}");
+        DeviceState state = registry.decode("led", data);
+
+        byte[] encoded = state.encode();
+        DeviceState decoded = registry.decode("led", encoded);
+
+        assertThat(encoded.length).isLessThan(data.toString().length());
+        assertThat(objectMapper.writeValueAsString(decoded))
+                .isEqualTo("{\"power\":\"on\",\"brightness\":80,\"color\":{\"r\":255,\"g\":10,\"b\":0}}");
+    }
+
+    @Test
+    void dropsValuesThatDoNotMatchSchema() throws Exception {
+        DeviceState state = registry.decode("air_conditioner",
+                objectMapper.readTree("{\"power\":\"maybe\",\"temperature\":\"hot\",\"mode\":\"cool\"}"));
+
+        StatusSchema schema = state.getSchema();
+        assertThat(state.isPresent(schema.getField("power"))).isFalse();
+        assertThat(state.isPresent(schema.getField("temperature"))).isFalse();
+        assertThat(state.getText(schema.getField("mode"))).isEqualTo("cool");
+    }
+
+    @Test
+    void keepsFieldsThatCannotBeEncodedAsExtras() throws Exception {
+        DeviceState state = registry.decode("led", objectMapper.readTree(
+                "{\"power\":\"on\",\"brightness\":4294967376,\"color\":{\"r\":255,\"alpha\":0.5},\"scene\":\"party\"}"));
+
+        StatusSchema schema = state.getSchema();
+        // 超出int范围的整数不截断
+        assertThat(state.isPresent(schema.getField("brightness"))).isFalse();
+        assertThat(state.getNumber(schema.getField("color.r"))).isEqualTo(255);
+        assertThat(state.getExtras().toString())
+                .isEqualTo("{\"brightness\":4294967376,\"color\":{\"alpha\":0.5},\"scene\":\"party\"}");
+        assertThat(registry.decode("led", objectMapper.readTree("{\"power\":\"off\"}")).getExtras()).isNull();
+    }
+
+    @Test
+    void serializesDeviceStatusUsingDeviceType() throws Exception {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("deviceTypeRegistry", registry);
+        AutowiredAnnotationBeanPostProcessor autowiring = new AutowiredAnnotationBeanPostProcessor();
+        autowiring.setBeanFactory(beanFactory);
+        beanFactory.addBeanPostProcessor(autowiring);
+        ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+        mapper.setHandlerInstantiator(new SpringHandlerInstantiator(beanFactory));
+        Device device = new Device();
+        device.setDeviceType("temperature_sensor");
+        device.setStatusData(registry.decode("temperature_sensor",
+                objectMapper.readTree("{\"temperature\":23.5,\"unit\":\"celsius\"}")).encode());
+
+        JsonNode json = mapper.valueToTree(device);
+
+        assertThat(json.path("status").path("temperature").asDouble()).isEqualTo(23.5);
+        assertThat(json.has("statusData")).isFalse();
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.demo.teardown;
+
+import com.example.demo.config.AppProperties;
+import com.example.demo.event.ChangeType;
+import com.example.demo.event.EntityEventBus;
+import com.example.demo.event.EntityType;
+import com.example.demo.ingest.IngestBackpressureMonitor;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TeardownServiceTest {
+
+    @Test
+    void areaTeardownDetachesDevicesWithApplicationTimestamp() throws Exception {
+        RecordingJdbcTemplate jdbcTemplate = new RecordingJdbcTemplate();
+        RecordingEventBus eventBus = new RecordingEventBus();
+        TeardownService service = service(jdbcTemplate, eventBus);
+        LocalDateTime before = LocalDateTime.now();
+
+        TeardownJob job = service.submitAreaTeardown(5L);
+        awaitFinished(job);
+
+        assertThat(job.getStatus()).isEqualTo(TeardownJob.Status.COMPLETED);
+        Object[] detach = jdbcTemplate.argsFor("UPDATE devices");
+        assertThat(detach[0]).isInstanceOf(LocalDateTime.class);
+        assertThat((LocalDateTime) detach[0]).isAfterOrEqualTo(before);
+        assertThat(detach[1]).isEqualTo(5L);
+        // 第一批满批时继续下一批，两批用同一个时间
+        assertThat(jdbcTemplate.allArgsFor("UPDATE devices")).hasSize(2)
+                .allSatisfy(args -> assertThat(args[0]).isEqualTo(detach[0]));
+        assertThat(job.getProcessed()).containsEntry("devices", 3L);
+        assertThat(eventBus.published).containsExactly(EntityType.HOUSE_AREA + ":" + ChangeType.DELETED + ":5:7");
+    }
+
+    @Test
+    void missingAreaIsNotSubmitted() {
+        RecordingJdbcTemplate jdbcTemplate = new RecordingJdbcTemplate();
+        jdbcTemplate.areaOwner = null;
+
+        assertThat(service(jdbcTemplate, new RecordingEventBus()).submitAreaTeardown(6L)).isNull();
+    }
+
+    private static TeardownService service(RecordingJdbcTemplate jdbcTemplate, RecordingEventBus eventBus) {
+        AppProperties properties = new AppProperties();
+        properties.getTeardown().setChunkSize(2);
+        properties.getTeardown().setChunkPauseMillis(0);
+        return new TeardownService(jdbcTemplate, eventBus, new IngestBackpressureMonitor(), properties);
+    }
+
+    private static void awaitFinished(TeardownJob job) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!job.isFinished() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static class RecordingJdbcTemplate extends JdbcTemplate {
+        private final List<String> statements = new ArrayList<>();
+        private final List<Object[]> arguments = new ArrayList<>();
+        private Long areaOwner = 7L;
+        private int devicesLeft = 3;
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T queryForObject(String sql, Class<T> requiredType, Object... args) {
+            if (areaOwner == null) {
+                throw new EmptyResultDataAccessException(1);
+            }
+            return (T) areaOwner;
+        }
+
+        @Override
+        public synchronized int update(String sql, Object... args) {
+            statements.add(sql);
+            arguments.add(args);
+            if (sql.startsWith("UPDATE devices")) {
+                int affected = Math.min(devicesLeft, (Integer) args[args.length - 1]);
+                devicesLeft -= affected;
+                return affected;
+            }
+            return sql.startsWith("DELETE FROM house_areas") ? 1 : 0;
+        }
+
+        synchronized Object[] argsFor(String prefix) {
+            for (int i = 0; i < statements.size(); i++) {
+                if (statements.get(i).startsWith(prefix)) {
+                    return arguments.get(i);
+                }
+            }
+            return null;
+        }
+
+        synchronized List<Object[]> allArgsFor(String prefix) {
+            List<Object[]> matched = new ArrayList<>();
+            for (int i = 0; i < statements.size(); i++) {
+                if (statements.get(i).startsWith(prefix)) {
+                    matched.add(arguments.get(i));
+                }
+            }
+            return matched;
+        }
+    }
+
+    private static class RecordingEventBus extends EntityEventBus {
+        private final List<String> published = new ArrayList<>();
+
+        @Override
+        public void publish(EntityType entityType, ChangeType changeType, Long entityId, Long userId, Object entity) {
+            published.add(entityType + ":" + changeType + ":" + entityId + ":" + userId);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.demo.tracing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TracingDataSourcePostProcessorTest {
+
+    private final TracingDataSourcePostProcessor postProcessor = new TracingDataSourcePostProcessor();
+    private final Connection connection = stub(Connection.class, null);
+    private final DataSource pool = stub(DataSource.class, connection);
+
+    @AfterEach
+    void tearDown() {
+        TraceContext.clear();
+    }
+
+    @Test
+    void wrapsDataSourcesOnce() {
+        Object wrapped = postProcessor.postProcessAfterInitialization(pool, "dataSource");
+
+        assertThat(wrapped).isInstanceOf(TracingDataSource.class);
+        assertThat(postProcessor.postProcessAfterInitialization(wrapped, "dataSource")).isSameAs(wrapped);
+        Object other = new Object();
+        assertThat(postProcessor.postProcessAfterInitialization(other, "other")).isSameAs(other);
+    }
+
+    @Test
+    void connectionWaitIsRecordedInTheCurrentTrace() throws Exception {
+        DataSource wrapped = (DataSource) postProcessor.postProcessAfterInitialization(pool, "dataSource");
+        Trace trace = new Trace(16);
+        Span request = trace.begin(Trace.LAYER_HTTP, "POST /api/devices");
+        TraceContext.start(trace);
+
+        assertThat(wrapped.getConnection()).isSameAs(connection);
+        trace.end(request);
+
+        assertThat(trace.getSpans()).extracting(Span::getLayer).containsExactly(Trace.LAYER_HTTP, "pool");
+        assertThat(trace.getSpans().get(1).getDepth()).isEqualTo(1);
+        assertThat(trace.getBreakdownMillis()).containsKeys(Trace.LAYER_HTTP, "pool");
+    }
+
+    @Test
+    void untracedThreadsGetConnectionsWithoutSpans() throws Exception {
+        DataSource wrapped = (DataSource) postProcessor.postProcessAfterInitialization(pool, "dataSource");
+
+        assertThat(TraceContext.current()).isNull();
+        assertThat(wrapped.getConnection()).isSameAs(connection);
+    }
+
+    // getConnection返回connection，其余方法不应被调用
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> type, Object connection) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getName().equals("getConnection")) {
+                return connection;
+            }
+            if (method.getName().equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            }
+            if (method.getName().equals("equals")) {
+                return proxy == args[0];
+            }
+            throw new UnsupportedOperationException(method.getName());
+        });
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.demo.usage;
+
+import com.example.demo.config.AppProperties;
+import com.example.demo.device.DeviceRegistry;
+import com.example.demo.event.ChangeType;
+import com.example.demo.event.EntityChangedEvent;
+import com.example.demo.event.EntityType;
+import com.example.demo.ingest.DeviceStatusReport;
+import com.example.demo.retention.PartitionRetentionManager;
+import com.example.demo.status.DeviceTypeRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UsageAggregatorTest {
+
+    private static final long T0 = 1_700_000_000_000L - Math.floorMod(1_700_000_000_000L, 3_600_000L) + 30_000L;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final DeviceTypeRegistry deviceTypeRegistry = new DeviceTypeRegistry();
+    private final List<UsageRollupStore.Checkpoint> written = new ArrayList<>();
+    private UsageAggregator aggregator;
+
+    @BeforeEach
+    void setUp() {
+        DeviceRegistry deviceRegistry = new DeviceRegistry();
+        EntityChangedEvent created = new EntityChangedEvent();
+        created.setEntityType(EntityType.DEVICE);
+        created.setChangeType(ChangeType.CREATED);
+        created.setEntityId(7L);
+        created.setSnapshot(Map.of("deviceId", "led-1", "deviceType", "led", "userId", 3L, "areaId", 5L));
+        deviceRegistry.onEntityChanged(created);
+
+        AppProperties properties = new AppProperties();
+        properties.getUsage().getRatedWatts().put("led", 10.0);
+        UsageRollupStore store = new UsageRollupStore(null) {
+            @Override
+            public void checkpoint(List<Checkpoint> checkpoints) {
+                written.addAll(checkpoints);
+            }
+
+            @Override
+            public List<UsagePoint> find(UsageScope scope, long scopeId, UsageGranularity granularity, long from, long to) {
+                return new ArrayList<>();
+            }
+        };
+        aggregator = new UsageAggregator(deviceRegistry, store, new PartitionRetentionManager(null, properties), properties);
+    }
+
+    @Test
+    void splitsActiveTimeAcrossMinuteWindowsAndRollsUpToAreaAndUser() throws Exception {
+        aggregator.onStatus(report("{\"power\":\"on\",\"brightness\":80}", T0));
+        aggregator.onStatus(report("{\"power\":\"off\"}", T0 + 90_000));
+
+        aggregator.flush(T0 + 2 * 3_600_000L, false);
+
+        assertThat(active(UsageScope.DEVICE, 7, UsageGranularity.MINUTE)).containsExactly(30_000L, 60_000L, 0L);
+        assertThat(active(UsageScope.AREA, 5, UsageGranularity.HOUR)).containsExactly(90_000L);
+        UsagePoint userHour = point(UsageScope.USER, 3, UsageGranularity.HOUR);
+        assertThat(userHour.getReportCount()).isEqualTo(2);
+        assertThat(userHour.getEnergyWh()).isEqualTo(0.25);
+    }
+
+    @Test
+    void openWindowsAreServedFromMemoryUntilClosed() throws Exception {
+        aggregator.onStatus(report("{\"power\":\"on\"}", T0));
+        aggregator.flush(T0 + 20_000, false);
+
+        List<UsagePoint> points = aggregator.query(UsageScope.DEVICE, 7, UsageGranularity.HOUR, T0, T0 + 3_600_000L);
+
+        assertThat(written).noneMatch(checkpoint -> checkpoint.getGranularity() == UsageGranularity.HOUR);
+        assertThat(points).hasSize(1);
+        assertThat(points.get(0).getActiveMillis()).isEqualTo(20_000L);
+    }
+
+    @Test
+    void reportsAreQueuedWithoutWaitingForTheAggregatorLock() throws Exception {
+        DeviceStatusReport on = report("{\"power\":\"on\"}", T0);
+        synchronized (aggregator) {
+            // 汇总线程或写出占着锁时，上报线程只入队
+            CompletableFuture.runAsync(() -> aggregator.onStatus(on)).get(5, TimeUnit.SECONDS);
+        }
+        aggregator.flush(T0 + 20_000, false);
+
+        List<UsagePoint> points = aggregator.query(UsageScope.DEVICE, 7, UsageGranularity.HOUR, T0, T0 + 3_600_000L);
+        assertThat(points).hasSize(1);
+        assertThat(points.get(0).getReportCount()).isEqualTo(1);
+    }
+
+    private DeviceStatusReport report(String data, long at) throws Exception {
+        return new DeviceStatusReport("led-1", "led", data,
+                deviceTypeRegistry.decode("led", objectMapper.readTree(data)), at);
+    }
+
+    private List<Long> active(UsageScope scope, long scopeId, UsageGranularity granularity) {
+        List<Long> values = new ArrayList<>();
+        for (UsageRollupStore.Checkpoint checkpoint : written) {
+            if (checkpoint.getScope() == scope && checkpoint.getScopeId() == scopeId
+                    && checkpoint.getGranularity() == granularity) {
+                values.add(checkpoint.getPoint().getActiveMillis());
+            }
+        }
+        return values;
+    }
+
+    private UsagePoint point(UsageScope scope, long scopeId, UsageGranularity granularity) {
+        for (UsageRollupStore.Checkpoint checkpoint : written) {
+            if (checkpoint.getScope() == scope && checkpoint.getScopeId() == scopeId
+                    && checkpoint.getGranularity() == granularity) {
+                return checkpoint.getPoint();
+            }
+        }
+        return null;
+    }
+}